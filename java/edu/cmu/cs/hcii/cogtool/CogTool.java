@@ -138,6 +138,7 @@ import edu.cmu.cs.hcii.cogtool.util.OSUtils;
 import edu.cmu.cs.hcii.cogtool.util.ObjectPersister;
 import edu.cmu.cs.hcii.cogtool.util.RecoverableException;
 import edu.cmu.cs.hcii.cogtool.util.Subprocess;
+import edu.cmu.cs.hcii.cogtool.util.URLFetcher;
 import edu.cmu.cs.hcii.cogtool.util.WindowUtil;
 
 public class CogTool
@@ -244,6 +245,8 @@ public class CogTool
             Subprocess.setDebug(true);
         }
 
+        URLFetcher.configureKeepAlive();
+
         // Insert the two phases into the delayed work manager, selection
         // first and repaint second, since selection can cause repaint requests
         delayedWorkMgr.addDelayedWork(selectionPhase);
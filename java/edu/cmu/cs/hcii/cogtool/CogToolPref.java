@@ -110,6 +110,7 @@ public enum CogToolPref {
     RECENT_PREFIX("CogTool.recent.", Kind.STRING, null),
     HCIPA("CogTool.HCIPA", Kind.BOOLEAN, false),
     KLM_RESULT_RANGE("CogTool.klmResultRange", Kind.BOOLEAN, false),
+    KLM_ESTIMATES("CogTool.klmEstimates", Kind.BOOLEAN, false),
     SYSWVO("CogTool.SystemWaitVisionOnly", Kind.BOOLEAN, false),
     COMPSCR("CogTool.enableComputeScripts", Kind.BOOLEAN, true),
     MIN_FRAME_WIDTH("CogTool.minFrameWidth", Kind.INT, PreferencesDialog.DEFAULT_MIN_FRAME_WIDTH),
@@ -135,7 +136,8 @@ public enum CogToolPref {
     NESTED_GROUPS_SHOWN_AT_TOP_LEVEL("CogTool.NestedGroupsShownAtTopLevel", Kind.BOOLEAN, false), // No UI yet for modifying this
     DISPLAY_DIGITS("CogTool.DisplayDigits", Kind.INT, 1),
     CTE_BACK_BUTTON_SEMANTICS("CogTool.CTEBackButtonSemantics", Kind.INT, SNIFACTPredictionAlgo.EXPLICT_BACK),
-    CTE_SUPPRESS_NONINTERACTIVE("CogTool.CTESuppressNoninteractive", Kind.BOOLEAN, true);
+    CTE_SUPPRESS_NONINTERACTIVE("CogTool.CTESuppressNoninteractive", Kind.BOOLEAN, true),
+    CTE_AGGREGATE_RUNS("CogTool.CTEAggregateRuns", Kind.BOOLEAN, false);
     
     public static class PreferencesChange extends EventObject {
         private final Set<CogToolPref> prefsChanged;
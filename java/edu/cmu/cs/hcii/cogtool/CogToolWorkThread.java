@@ -91,6 +91,8 @@
 
 package edu.cmu.cs.hcii.cogtool;
 
+import java.util.concurrent.CompletableFuture;
+
 import edu.cmu.cs.hcii.cogtool.util.AggregateException;
 import edu.cmu.cs.hcii.cogtool.util.EnableDisable;
 import edu.cmu.cs.hcii.cogtool.util.ProgressCallback;
@@ -106,6 +108,9 @@ import edu.cmu.cs.hcii.cogtool.util.WindowUtil;
  * <p>
  * Remember that each subclass must override <code>doWork()</code>
  * to perform the work that should be performed in the background.
+ * <p>
+ * Callers that must wait for the work to finish (such as command files)
+ * can chain onto or join the future returned by <code>getCompletion()</code>.
  */
 public abstract class CogToolWorkThread extends SynchronizedCancelable
                                         implements Runnable,
@@ -134,6 +139,14 @@ public abstract class CogToolWorkThread extends SynchronizedCancelable
      */
     protected AggregateException exBucket = new AggregateException();
 
+    /**
+     * Completed in the main UI thread once <code>doneCallback()</code>
+     * has finished; completes with the AggregateException instead
+     * if any exceptions were thrown in the work thread.
+     */
+    protected CompletableFuture<CogToolWorkThread> completion =
+        new CompletableFuture<CogToolWorkThread>();
+
     /**
      * Initialize with the given disabler and progress callback.
      *
@@ -244,7 +257,42 @@ public abstract class CogToolWorkThread extends SynchronizedCancelable
     {
         // Schedule to execute the doneCallback in the main thread;
         // this is executed in the child thread.
-        WindowUtil.scheduleAsynchronously(this);
+        if (WindowUtil.GLOBAL_DISPLAY.isDisposed()) {
+            // The callback will never run; don't leave waiters hanging
+            complete();
+        }
+        else {
+            WindowUtil.scheduleAsynchronously(this);
+        }
+    }
+
+    /**
+     * Returns the future that completes, with this work thread, after
+     * the work has been performed and <code>doneCallback()</code> has been
+     * invoked in the main UI thread.  If any exceptions were thrown during
+     * the work, the future instead completes exceptionally with the
+     * AggregateException returned by <code>getWorkExceptions()</code>.
+     * <p>
+     * Dependent actions without an explicit executor run in the main
+     * UI thread.
+     */
+    public CompletableFuture<CogToolWorkThread> getCompletion()
+    {
+        return completion;
+    }
+
+    /**
+     * Complete the future returned by <code>getCompletion()</code>
+     * according to whether any work exceptions were recorded.
+     */
+    protected void complete()
+    {
+        if (exBucket.containsExceptions()) {
+            completion.completeExceptionally(exBucket);
+        }
+        else {
+            completion.complete(this);
+        }
     }
 
     /**
@@ -268,7 +316,15 @@ public abstract class CogToolWorkThread extends SynchronizedCancelable
         }
 
         // Perform callback code indicating the thread has completed.
-        doneCallback();
+        try {
+            doneCallback();
+        }
+        catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            throw e;
+        }
+
+        complete();
     }
 
     /**
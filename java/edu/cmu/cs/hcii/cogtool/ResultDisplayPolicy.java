@@ -92,9 +92,11 @@
 package edu.cmu.cs.hcii.cogtool;
 
 import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import edu.cmu.cs.hcii.cogtool.model.APredictionResult;
 import edu.cmu.cs.hcii.cogtool.model.AUndertaking;
@@ -103,9 +105,13 @@ import edu.cmu.cs.hcii.cogtool.model.Demonstration;
 import edu.cmu.cs.hcii.cogtool.model.Design;
 import edu.cmu.cs.hcii.cogtool.model.GroupNature;
 import edu.cmu.cs.hcii.cogtool.model.IPredictionAlgo;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo;
 import edu.cmu.cs.hcii.cogtool.model.Project;
+import edu.cmu.cs.hcii.cogtool.model.RunStatistics;
+import edu.cmu.cs.hcii.cogtool.model.Script;
 import edu.cmu.cs.hcii.cogtool.model.TaskApplication;
 import edu.cmu.cs.hcii.cogtool.model.TaskGroup;
+import edu.cmu.cs.hcii.cogtool.model.TimeDistributionPredictionResult;
 import edu.cmu.cs.hcii.cogtool.model.TimePredictionResult;
 import edu.cmu.cs.hcii.cogtool.util.SWTStringUtil;
 import edu.cmu.cs.hcii.cogtool.util.StringUtil;
@@ -118,9 +124,112 @@ public class ResultDisplayPolicy
     public static final String WITH_SECS = " s";
     public static final String NO_SECS = "";
 
+    /**
+     * Marks a KLMPredictionAlgo estimate shown in place of a result that
+     * has not been computed yet
+     */
+    public static final String ESTIMATE_PREFIX = "\u2248";
+
     // Prevent instantiation
     private ResultDisplayPolicy() { }
 
+    /**
+     * Remembers the values computed by computeGroup for each (group, design)
+     * pair.  The owner is responsible for telling the cache what changed:
+     * a result change invalidates only the containing groups of the task
+     * for that design, while a change to a group's contents or nature
+     * invalidates that group and its containing groups for all designs.
+     * The cache clears itself if the project's default algorithm changes,
+     * since no event announces that.
+     */
+    public static class GroupResultCache
+    {
+        protected Map<TaskGroup, Map<Design, Double>> groupValues =
+            new HashMap<TaskGroup, Map<Design, Double>>();
+
+        protected IPredictionAlgo defaultAlgo = null;
+
+        protected Double get(Project project, TaskGroup group, Design d)
+        {
+            if (project.getDefaultAlgo() != defaultAlgo) {
+                groupValues.clear();
+                defaultAlgo = project.getDefaultAlgo();
+
+                return null;
+            }
+
+            Map<Design, Double> designValues = groupValues.get(group);
+
+            return (designValues == null) ? null : designValues.get(d);
+        }
+
+        protected void put(TaskGroup group, Design d, double value)
+        {
+            Map<Design, Double> designValues = groupValues.get(group);
+
+            if (designValues == null) {
+                designValues = new HashMap<Design, Double>();
+                groupValues.put(group, designValues);
+            }
+
+            designValues.put(d, new Double(value));
+        }
+
+        /**
+         * The given task's result on the given design has changed;
+         * if d is null, its results on all designs may have changed.
+         * If the task is a group, its own values are invalidated as well.
+         */
+        public void taskChanged(AUndertaking task, Design d)
+        {
+            TaskGroup group = task.isTaskGroup() ? (TaskGroup) task
+                                                 : task.getTaskGroup();
+
+            while (group != null) {
+                Map<Design, Double> designValues = groupValues.get(group);
+
+                if (designValues != null) {
+                    if (d == null) {
+                        groupValues.remove(group);
+                    }
+                    else {
+                        designValues.remove(d);
+                    }
+                }
+
+                group = group.getTaskGroup();
+            }
+        }
+
+        /**
+         * The given task has been added to or removed from its parent;
+         * forget the values of any groups it contains, since their changes
+         * are not observed while they are outside the project.
+         */
+        public void subtreeChanged(AUndertaking task)
+        {
+            if (task.isTaskGroup()) {
+                for (AUndertaking child : ((TaskGroup) task).getUndertakings()) {
+                    subtreeChanged(child);
+                }
+
+                groupValues.remove(task);
+            }
+        }
+
+        public void designRemoved(Design d)
+        {
+            for (Map<Design, Double> designValues : groupValues.values()) {
+                designValues.remove(d);
+            }
+        }
+
+        public void clear()
+        {
+            groupValues.clear();
+        }
+    }
+
     // Set up output format
     private static NumberFormat cellNumberFormat;
     static {
@@ -149,6 +258,39 @@ public class ResultDisplayPolicy
         return TimePredictionResult.UNSET_TIME;
     }
 
+    /**
+     * Returns the KLMPredictionAlgo estimate for the task application's
+     * script, or TimePredictionResult.UNSET_TIME if estimates are not to
+     * be shown (see CogToolPref.KLM_ESTIMATES) or the script cannot be
+     * estimated (no script, no start frame, or an algorithm other than the
+     * ACT-R ones the estimate approximates).  The estimate is cheap enough
+     * to recompute each time a cell is drawn, so it tracks demonstration
+     * edits live.
+     */
+    public static double getEstimate(TaskApplication taskApp,
+                                     CognitiveModelGenerator gen,
+                                     IPredictionAlgo alg)
+    {
+        Demonstration demo = taskApp.getDemonstration();
+        Script script = taskApp.getScript(gen);
+
+        if (! CogToolPref.KLM_ESTIMATES.getBoolean() ||
+            (script == null) ||
+            ! KLMPredictionAlgo.approximates(gen, alg) ||
+            ! demo.isStartFrameChosen())
+        {
+            return TimePredictionResult.UNSET_TIME;
+        }
+
+        try {
+            return KLMPredictionAlgo.ONLY.estimate(script);
+        }
+        catch (RuntimeException e) {
+            // An estimate is only a convenience; show "--" instead
+            return TimePredictionResult.UNSET_TIME;
+        }
+    }
+
     public static String getTaskApplicationCell(Project project,
                                                 TaskApplication taskApp,
                                                 CognitiveModelGenerator gen,
@@ -174,6 +316,7 @@ public class ResultDisplayPolicy
 
         //  ""  means no task application or no computable script for algorithm
         //  --  means the demo is valid and current, but not computed
+        // \u2248NN means not computed; NN is the KLMPredictionAlgo estimate
         // (><) means result is being computed
         //  NN  means computed and the demonstration is valid and current
         //  XX  means the computation failed and the demo is valid and current
@@ -186,6 +329,15 @@ public class ResultDisplayPolicy
             if ((resultState == APredictionResult.NOT_COMPUTED) ||
                 (alg.requiresDemonstration() && ! demo.isStartFrameChosen()))
             {
+                double estimate = getEstimate(taskApp, gen, alg);
+
+                if (estimate >= 0.0) {
+                    // Not yet computed, but the estimate is cheap to show
+                    updateDigits();
+                    return ESTIMATE_PREFIX
+                              + cellNumberFormat.format(estimate) + withSecs;
+                }
+
                 // No result yet computed for the associated script
                 return "-- ";
             }
@@ -254,6 +406,15 @@ public class ResultDisplayPolicy
             ! demo.isStartFrameChosen())
         {
             // No result yet computed for the associated script
+            double estimate = getEstimate(taskApp, gen, alg);
+
+            if (estimate >= 0.0) {
+                updateDigits();
+                return "NOT COMPUTED (estimate " + ESTIMATE_PREFIX
+                          + cellNumberFormat.format(estimate) + withSecs
+                          + ")" + demoState;
+            }
+
             return "NOT COMPUTED" /* "--" */ + demoState;
         }
 
@@ -274,6 +435,129 @@ public class ResultDisplayPolicy
                     : ("~~" + demoState);
     } // getTaskApplicationCell
 
+    /**
+     * The summary of the runs behind the given result, or null if the
+     * result has none (e.g., it is not an aggregated distribution).
+     */
+    public static RunStatistics getStatistics(APredictionResult r)
+    {
+        if (r instanceof TimeDistributionPredictionResult) {
+            return ((TimeDistributionPredictionResult) r).getStatistics();
+        }
+
+        return null;
+    }
+
+    /**
+     * Multi-line description of the given statistics, for tooltips
+     */
+    public static String getStatisticsSummary(RunStatistics stats,
+                                              String withSecs)
+    {
+        updateDigits();
+
+        StringBuilder summary = new StringBuilder();
+
+        summary.append(stats.getRunCount() + " runs, "
+                          + stats.getFailureCount() + " failed");
+
+        if (stats.getRunCount() > 0) {
+            summary.append("\nMean " + cellNumberFormat.format(stats.getMean())
+                              + withSecs + ", SD "
+                              + cellNumberFormat.format(stats.getStandardDeviation())
+                              + withSecs);
+            summary.append("\nRange "
+                              + cellNumberFormat.format(stats.getMinimum())
+                              + " to "
+                              + cellNumberFormat.format(stats.getMaximum())
+                              + withSecs);
+        }
+
+        if (stats.hasPercentiles()) {
+            summary.append("\nPercentiles");
+
+            for (int i = 0; i < RunStatistics.PERCENTILE_RANKS.length; i++) {
+                summary.append((i == 0) ? " " : ", ");
+                summary.append((int) RunStatistics.PERCENTILE_RANKS[i] + "%: "
+                                  + cellNumberFormat.format(stats.getPercentile(i)));
+            }
+        }
+
+        String path = stats.getMostFrequentPath();
+
+        if (path != null) {
+            summary.append("\nMost frequent path ("
+                              + stats.getPathCounts().get(path) + " runs): "
+                              + path);
+        }
+
+        return summary.toString();
+    }
+
+    /**
+     * Column headings matching getStatisticsStrings
+     */
+    public static String[] getStatisticsHeadings()
+    {
+        String[] headings =
+            new String[7 + RunStatistics.PERCENTILE_RANKS.length];
+        int i = 0;
+
+        headings[i++] = "Runs";
+        headings[i++] = "Failures";
+        headings[i++] = "Mean";
+        headings[i++] = "Standard deviation";
+        headings[i++] = "Minimum";
+        headings[i++] = "Maximum";
+
+        for (double rank : RunStatistics.PERCENTILE_RANKS) {
+            headings[i++] = (int) rank + "th percentile";
+        }
+
+        headings[i] = "Most frequent path";
+
+        return headings;
+    }
+
+    /**
+     * The values of the given statistics, one per column of
+     * getStatisticsHeadings, for export; values that were not recorded
+     * are empty.
+     */
+    public static String[] getStatisticsStrings(RunStatistics stats)
+    {
+        String[] values =
+            new String[7 + RunStatistics.PERCENTILE_RANKS.length];
+        boolean hasRuns = stats.getRunCount() > 0;
+        int i = 0;
+
+        updateDigits();
+
+        values[i++] = Integer.toString(stats.getRunCount());
+        values[i++] = Integer.toString(stats.getFailureCount());
+        values[i++] = hasRuns ? cellNumberFormat.format(stats.getMean()) : "";
+        values[i++] =
+            hasRuns ? cellNumberFormat.format(stats.getStandardDeviation())
+                    : "";
+        values[i++] =
+            hasRuns ? cellNumberFormat.format(stats.getMinimum()) : "";
+        values[i++] =
+            hasRuns ? cellNumberFormat.format(stats.getMaximum()) : "";
+
+        for (int rank = 0; rank < RunStatistics.PERCENTILE_RANKS.length; rank++) {
+            values[i++] =
+                stats.hasPercentiles()
+                    ? cellNumberFormat.format(stats.getPercentile(rank))
+                    : "";
+        }
+
+        String path = stats.getMostFrequentPath();
+
+        values[i] = (path == null) ? "" : path;
+
+        return values;
+    }
+
     /**
      * Recursively computes value of script results on a particular design
      * for tasks within a group.
@@ -286,6 +570,40 @@ public class ResultDisplayPolicy
     public static double computeGroup(Project project,
                                       TaskGroup group,
                                       Design d)
+    {
+        return computeGroup(project, group, d, null);
+    }
+
+    /**
+     * As above, but looking up and recording the values of the group and
+     * its nested groups in the given cache, if not null.
+     */
+    public static double computeGroup(Project project,
+                                      TaskGroup group,
+                                      Design d,
+                                      GroupResultCache cache)
+    {
+        if (cache != null) {
+            Double cachedValue = cache.get(project, group, d);
+
+            if (cachedValue != null) {
+                return cachedValue.doubleValue();
+            }
+        }
+
+        double value = computeGroupValue(project, group, d, cache);
+
+        if (cache != null) {
+            cache.put(group, d, value);
+        }
+
+        return value;
+    }
+
+    protected static double computeGroupValue(Project project,
+                                              TaskGroup group,
+                                              Design d,
+                                              GroupResultCache cache)
     {
         List<AUndertaking> children = group.getUndertakings();
         if (children.size() == 0) {
@@ -304,7 +622,8 @@ public class ResultDisplayPolicy
 
             if (child.isTaskGroup()) {
                 // recursive (TaskGroup) case
-                stepValue = computeGroup(project, (TaskGroup) child, d);
+                stepValue =
+                    computeGroup(project, (TaskGroup) child, d, cache);
             }
             else {
                 // terminal case
@@ -350,7 +669,7 @@ public class ResultDisplayPolicy
         }
 
         return TimePredictionResult.UNSET_TIME;
-    } // computeGroup
+    } // computeGroupValue
 
     public static String[] getTaskRowStrings(Project project,
                                              AUndertaking undertaking,
@@ -363,6 +682,19 @@ public class ResultDisplayPolicy
                                              AUndertaking undertaking,
                                              String withSecs,
                                              int[] designOrder)
+    {
+        return getTaskRowStrings(project,
+                                 undertaking,
+                                 withSecs,
+                                 designOrder,
+                                 null);
+    }
+
+    public static String[] getTaskRowStrings(Project project,
+                                             AUndertaking undertaking,
+                                             String withSecs,
+                                             int[] designOrder,
+                                             GroupResultCache cache)
     {
         List<Design> projectDesigns = project.getDesigns();
 
@@ -378,12 +710,11 @@ public class ResultDisplayPolicy
         int index = 1;    // advance index to "First result" position
 
         if (undertaking.isTaskGroup()) {
-            // TODO: Store group results instead of recomputing?
             TaskGroup group = (TaskGroup) undertaking;
 
             while (designIter.hasNext()) {
                 Design d = designIter.next();
-                double result = computeGroup(project, group, d);
+                double result = computeGroup(project, group, d, cache);
                 updateDigits();
                 String formattedResult =
                     (result == TimePredictionResult.UNSET_TIME)
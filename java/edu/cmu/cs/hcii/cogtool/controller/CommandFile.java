@@ -98,6 +98,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import edu.cmu.cs.hcii.cogtool.CogTool;
 import edu.cmu.cs.hcii.cogtool.CogToolLID;
@@ -207,6 +209,23 @@ public class CommandFile
         return currentProject;
     }
     
+    /**
+     * Waits for background work, letting the UI thread run its completion
+     * callbacks meanwhile; any exceptions thrown by the work are rethrown.
+     */
+    private static void waitFor(CompletableFuture<?> work) throws Exception {
+        WindowUtil.interact(work);
+        try {
+            work.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw e;
+        }
+    }
+    
     static {
         defineExecutor("open", new CommandExecutor() {
             @Override
@@ -256,12 +275,8 @@ public class CommandFile
                     targets,
                     null,
                     Boolean.parseBoolean(args[5]));
-                cf.currentProject.computeSnifAct(design, task, null, defaults);
-                while (true) {
-                    Thread.sleep(1000);
-                    if (!SNIFACTCmd.isComputing) {
-                        break;
-                    }
+                if (cf.currentProject.computeSnifAct(design, task, null, defaults)) {
+                    waitFor(SNIFACTCmd.getLastComputation());
                 }
             }});
         
@@ -315,12 +330,7 @@ public class CommandFile
                         "Generating dictionary for design %s in project %s.",
                         design.getName(), cf.currentProject.getProject().getName()));
                 ThreadManager.startNewThread(workThread);
-                while (!workThread.isFinished()) {
-                    try {
-                        Thread.sleep(2000);
-                    } catch(InterruptedException ex) {
-                    }
-                }
+                waitFor(workThread.getCompletion());
             }});
 
         defineExecutor("saveAs", new CommandExecutor() {
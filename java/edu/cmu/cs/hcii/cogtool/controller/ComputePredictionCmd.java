@@ -107,6 +107,7 @@ import edu.cmu.cs.hcii.cogtool.model.Script;
 import edu.cmu.cs.hcii.cogtool.model.TaskApplication;
 import edu.cmu.cs.hcii.cogtool.model.PredictionResultProxy;
 import edu.cmu.cs.hcii.cogtool.model.Project;
+import edu.cmu.cs.hcii.cogtool.model.ResultDependencies;
 import edu.cmu.cs.hcii.cogtool.model.TraceParser;
 import edu.cmu.cs.hcii.cogtool.ui.Interaction;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectLID;
@@ -181,7 +182,15 @@ public class ComputePredictionCmd
                                                       ProcessTraceCallback pcb)
     {
         try {
-            return alg.prepareComputation(script).compute(pcb).completeWork();
+            ResultDependencies dependencies = new ResultDependencies(script);
+            APredictionResult result =
+                alg.prepareComputation(script).compute(pcb).completeWork();
+
+            if (result != null) {
+                result.setDependencies(dependencies);
+            }
+
+            return result;
         }
         catch (IPredictionAlgo.ComputationException ex) {
             throw new RcvrComputationException(ex);
@@ -365,7 +374,6 @@ public class ComputePredictionCmd
             threadOutput =
                 threadInput.compute((ITraceWindow) progressCallback,
                                          this);
-            SNIFACTCmd.isComputing = false;
         }
     }
 
@@ -378,6 +386,10 @@ public class ComputePredictionCmd
 
         protected PredictionResultProxy resultProxy;
 
+        // Recorded as the computation starts, since the design may be
+        // edited while it is in progress
+        protected ResultDependencies dependencies;
+
         public DefaultAnalysisWorkThread(IPredictionAlgo predictionAlg,
                                          Script s,
                                          ITraceWindow traceWindow,
@@ -388,6 +400,7 @@ public class ComputePredictionCmd
 
             script = s;
 
+            dependencies = new ResultDependencies(script);
             threadInput = computeAlg.prepareComputation(script);
 
             //TODO: replace "Proxy" with actual name
@@ -418,6 +431,7 @@ public class ComputePredictionCmd
             if ((! isCanceled()) && (threadOutput != null)) {
                 APredictionResult result = threadOutput.completeWork();
 
+                result.setDependencies(dependencies);
                 resultProxy.setActualResult(result);
 
                 // If the computation hasn't been "undone", then it's ok to
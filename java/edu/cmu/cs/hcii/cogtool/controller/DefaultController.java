@@ -106,6 +106,7 @@ import edu.cmu.cs.hcii.cogtool.util.RcvrCannotUndoRedoException;
 import edu.cmu.cs.hcii.cogtool.util.RcvrIOException;
 import edu.cmu.cs.hcii.cogtool.util.RcvrIOSaveException;
 import edu.cmu.cs.hcii.cogtool.util.UndoManager;
+import edu.cmu.cs.hcii.cogtool.util.ZipUtil;
 
 /**
  * For CogTool, this class provides default implementations for standard
@@ -268,9 +269,10 @@ public abstract class DefaultController extends Controller
     protected boolean save()
     {
         try {
-            // Save to this file's original location.
+            // Save to this file's original location; the user is waiting
+            // on repeated saves, so favor speed over size.
             project.setBuildVersion(CogTool.getVersion());
-            persist.save(project, null);
+            persist.save(project, null, ZipUtil.FAST_COMPRESSION);
 
             // Tell undo manager(s) that a save has just occurred
             try {
@@ -129,6 +129,7 @@ import edu.cmu.cs.hcii.cogtool.ui.Interaction;
 import edu.cmu.cs.hcii.cogtool.ui.SEDemoLID;
 import edu.cmu.cs.hcii.cogtool.util.AUndoableEdit;
 import edu.cmu.cs.hcii.cogtool.util.CSVSupport;
+import edu.cmu.cs.hcii.cogtool.util.ExternalLineList;
 import edu.cmu.cs.hcii.cogtool.util.IUndoableEdit;
 import edu.cmu.cs.hcii.cogtool.util.IUndoableEditSequence;
 import edu.cmu.cs.hcii.cogtool.util.KeyDisplayUtil;
@@ -150,6 +151,11 @@ public class DemoScriptCmd
         protected Map<IPredictionAlgo, APredictionResult> oldResults =
         	new HashMap<IPredictionAlgo, APredictionResult>();
 
+        /**
+         * Whether the new results (rather than the old) are in the model
+         */
+        protected boolean changesDone = true;
+
         public ComputationUndoRedo(Script s)
         {
             script = s;
@@ -191,14 +197,54 @@ public class DemoScriptCmd
         public void redoChanges()
         {
             resetResults(newResults, oldResults);
+            changesDone = true;
         }
 
         public void undoChanges()
         {
             resetResults(oldResults, newResults);
+            changesDone = false;
+        }
+
+        /**
+         * Estimate the memory held by the results not currently in
+         * the model, which only this object refers to.
+         */
+        public long getRetainedSize()
+        {
+            Map<IPredictionAlgo, APredictionResult> heldResults =
+                changesDone ? oldResults : newResults;
+            long size = 0;
+
+            for (APredictionResult result : heldResults.values()) {
+                size += getRetainedSize(result.getTraceLines());
+                size += getRetainedSize(result.getErrorLines());
+            }
+
+            return size;
+        }
+
+        protected static long getRetainedSize(List<String> lines)
+        {
+            long size = 0;
+
+            // Stored lines are held softly and can be re-read
+            if ((lines != null) && ! (lines instanceof ExternalLineList)) {
+                for (String line : lines) {
+                    // Object and array headers, plus two bytes per char
+                    size += STRING_OVERHEAD + 2 * line.length();
+                }
+            }
+
+            return size;
         }
     }
 
+    /**
+     * Approximate per-String memory overhead, in bytes
+     */
+    protected static final int STRING_OVERHEAD = 40;
+
     public static class ScriptUndoRedo extends ComputationUndoRedo
     {
         protected int atIndex;
@@ -224,6 +270,24 @@ public class DemoScriptCmd
                               Interaction i,
                               int stepIndex,
                               AScriptStep oldDemoStep)
+        {
+            this(s, i, stepIndex, oldDemoStep, false);
+        }
+
+        /**
+         * If <code>reuseConverged</code> is true, only the demonstration has
+         * been edited (and only at or after stepIndex), so the design that
+         * the script steps were generated against is unchanged.  In that case,
+         * once the generator state entering a subsequent (unedited)
+         * demonstrated step is equivalent to the one with which that step
+         * was originally generated, the remaining existing step states
+         * are reused instead of being regenerated.
+         */
+        public ScriptUndoRedo(Script s,
+                              Interaction i,
+                              int stepIndex,
+                              AScriptStep oldDemoStep,
+                              boolean reuseConverged)
         {
             super(s);
 
@@ -247,11 +311,37 @@ public class DemoScriptCmd
                                                           newStepStates);
             }
 
+            // Must be computed before the old step states get replaced
+            Map<AScriptStep, Integer> oldStartIndexes =
+                reuseConverged ? script.getOwnerStartIndexes() : null;
+            List<DefaultModelGeneratorState> oldStates = script.getStepStates();
+
             Iterator<AScriptStep> newDemoSteps = demo.getStepsAt(stepIndex);
+            boolean isEditedStep = true;
 
             while (newDemoSteps.hasNext()) {
                 AScriptStep newDemoStep = newDemoSteps.next();
 
+                // The step at stepIndex is always regenerated, since it
+                // may be the edited one.
+                if ((oldStartIndexes != null) && ! isEditedStep) {
+                    Integer oldStart = oldStartIndexes.get(newDemoStep);
+
+                    if ((oldStart != null) && (oldStart.intValue() > 0)) {
+                        int oldStartIndex = oldStart.intValue();
+                        DefaultModelGeneratorState oldEntryState =
+                            oldStates.get(oldStartIndex - 1);
+
+                        if (stepState.isEquivalent(oldEntryState)) {
+                            newStepStates.addAll(oldStates.subList(oldStartIndex,
+                                                                   oldStates.size()));
+                            break;
+                        }
+                    }
+                }
+
+                isEditedStep = false;
+
                 stepState = modelGen.generateScriptSteps(newDemoStep,
                                                          stepState,
                                                          warnings,
@@ -309,10 +399,32 @@ public class DemoScriptCmd
         }
     }
 
+    /**
+     * Regenerates the scripts of the given demonstration after the
+     * demonstration itself has been edited at the given step index;
+     * existing step states following the edit are reused once the
+     * regenerated steps converge onto them.
+     */
     public static Collection<ComputationUndoRedo> regenerateScripts(Demonstration demo,
                                                                     int atStepIndex,
                                                                     AScriptStep oldDemoStep,
                                                                     Interaction interaction)
+    {
+        return regenerateScripts(demo, atStepIndex, oldDemoStep,
+                                 interaction, true);
+    }
+
+    /**
+     * Regenerates the scripts of the given demonstration starting at the
+     * given step index.  If <code>reuseConverged</code> is false, all
+     * subsequent step states are regenerated; this is required when the
+     * design has changed underneath the demonstration.
+     */
+    public static Collection<ComputationUndoRedo> regenerateScripts(Demonstration demo,
+                                                                    int atStepIndex,
+                                                                    AScriptStep oldDemoStep,
+                                                                    Interaction interaction,
+                                                                    boolean reuseConverged)
     {
         Collection<ComputationUndoRedo> scriptsUndoRedoData = new ArrayList<ComputationUndoRedo>();
 
@@ -333,7 +445,8 @@ public class DemoScriptCmd
                 scriptsUndoRedoData.add(new ScriptUndoRedo(script,
                                                            interaction,
                                                            atStepIndex,
-                                                           oldDemoStep));
+                                                           oldDemoStep,
+                                                           reuseConverged));
             }
         }
 
@@ -419,6 +532,17 @@ public class DemoScriptCmd
         }
     }
 
+    public static long getRetainedSize(Collection<ComputationUndoRedo> undoRedoData)
+    {
+        long size = 0;
+
+        for (ComputationUndoRedo undoRedo : undoRedoData) {
+            size += undoRedo.getRetainedSize();
+        }
+
+        return size;
+    }
+
     public static void undoAllChanges(Collection<ComputationUndoRedo> undoRedoData)
     {
         undoAllChanges(undoRedoData.iterator());
@@ -456,7 +580,8 @@ public class DemoScriptCmd
 
             // Collection of ScriptUndoRedo instances
             final Collection<ComputationUndoRedo> scriptsUndoRedoData =
-                regenerateScripts(demo, 0, demo.getStepAt(0), interaction);
+                regenerateScripts(demo, 0, demo.getStepAt(0), interaction,
+                                  false);
 
             IUndoableEdit edit =
                 new AUndoableEdit(SEDemoLID.RegenerateScript)
@@ -485,6 +610,12 @@ public class DemoScriptCmd
                         conformanceUndoRedo.undo();
                         undoAllChanges(scriptsUndoRedoData);
                     }
+
+                    @Override
+                    public long getRetainedSize()
+                    {
+                        return DemoScriptCmd.getRetainedSize(scriptsUndoRedoData);
+                    }
                 };
 
             editSeq.addEdit(edit);
@@ -512,7 +643,8 @@ public class DemoScriptCmd
                 demoStateMgr.restoreConformance(demo);
 
                // Collection of ScriptUndoRedo instances
-               regenerateScripts(demo, 0, demo.getStepAt(0), interaction);
+               regenerateScripts(demo, 0, demo.getStepAt(0), interaction,
+                                 false);
 
                // Variables are ignored; undo/redo will simply re-invoke
                // this method again!
@@ -740,6 +740,28 @@ public class DesignEditorCmd
         return 0;
     } // pasteElements
 
+    /**
+     * Estimate the memory held by the images of the given frame, for
+     * edits that alone hold on to a frame no longer in its design.
+     */
+    public static long getRetainedSize(Frame frame)
+    {
+        byte[] image = frame.getBackgroundImage();
+        long size = (image != null) ? image.length : 0;
+
+        Iterator<IWidget> widgets = frame.getWidgets().iterator();
+
+        while (widgets.hasNext()) {
+            image = widgets.next().getImage();
+
+            if (image != null) {
+                size += image.length;
+            }
+        }
+
+        return size;
+    }
+
     public static void addFrame(final Project project,
                                 final Design design,
                                 final DemoStateManager demoStateMgr,
@@ -800,6 +822,12 @@ public class DesignEditorCmd
                     demoStateMgr.noteFrameEdit(frame, this);
                 }
 
+                @Override
+                public long getRetainedSize()
+                {
+                    return isDone() ? 0 : DesignEditorCmd.getRetainedSize(frame);
+                }
+
                 @Override
                 public void die()
                 {
@@ -869,6 +897,12 @@ public class DesignEditorCmd
                     demoStateMgr.noteFrameEdit(frame, this);
                 }
 
+                @Override
+                public long getRetainedSize()
+                {
+                    return isDone() ? DesignEditorCmd.getRetainedSize(frame) : 0;
+                }
+
                 @Override
                 public void die()
                 {
@@ -97,6 +97,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Pattern;
 
 import edu.cmu.cs.hcii.cogtool.model.Design;
@@ -132,8 +137,82 @@ public class DictEntryGenerator
     protected static final String GENERATE_DICTIONARY =
         L10N.get("UNDO.PM.GenerateDictionary", "Generate Dictionary");
 
+    /**
+     * Similarity requests shared among the generators for several designs
+     * running at the same time.  A goal/search pair wanted by more than one
+     * generator is computed by whichever asks first; the others wait for
+     * that computation rather than issuing the same request again.
+     */
+    public static class SharedRequests
+    {
+        /**
+         * Maps each requested entry to the computation of its similarity,
+         * whether still in flight or already done
+         */
+        protected ConcurrentMap<DictEntry, FutureTask<Double>> requests =
+            new ConcurrentHashMap<DictEntry, FutureTask<Double>>();
+
+        public double determineSimilarity(final DictEntry entry,
+                                          final List<String> computeErrors,
+                                          final ITermSimilarity.Continuable cont)
+        {
+            FutureTask<Double> request = requests.get(entry);
+
+            if (request == null) {
+                FutureTask<Double> newRequest =
+                    new FutureTask<Double>(new Callable<Double>() {
+                        public Double call()
+                        {
+                            double similarity =
+                                entry.algorithm.determineSimilarity(entry.goalWord,
+                                                                    entry.searchWord,
+                                                                    computeErrors,
+                                                                    cont);
+
+                            return new Double(similarity);
+                        }
+                    });
+
+                request = requests.putIfAbsent(entry, newRequest);
+
+                // If null, this generator is the first to ask; compute it
+                if (request == null) {
+                    request = newRequest;
+                    request.run();
+                }
+            }
+
+            try {
+                return request.get().doubleValue();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                return ITermSimilarity.UNKNOWN;
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
     protected Design design;
 
+    /**
+     * Requests shared with generators for other designs, or
+     * <code>null</code> if this generator computes everything itself
+     */
+    protected SharedRequests sharedRequests;
+
     /**
      * Maps entries to be added to the dictionary to their values
      */
@@ -155,8 +234,14 @@ public class DictEntryGenerator
         new LinkedHashMap<DictEntry, DictValue>();
 
     public DictEntryGenerator(Design d)
+    {
+        this(d, null);
+    }
+
+    public DictEntryGenerator(Design d, SharedRequests requests)
     {
         design = d;
+        sharedRequests = requests;
     }
 
     // TODO This whole mishmash of different flavors of progress bars, and
@@ -273,10 +358,15 @@ public class DictEntryGenerator
                     progressCallback.updateProgress(0.0,
                                                     goal + " : " + search);
                 }
-                similarity = alg.determineSimilarity(goal,
-                                                     search,
-                                                     computeErrors, 
-                                                     cont);
+                similarity =
+                    (sharedRequests != null)
+                        ? sharedRequests.determineSimilarity(entry,
+                                                             computeErrors,
+                                                             cont)
+                        : alg.determineSimilarity(goal,
+                                                  search,
+                                                  computeErrors,
+                                                  cont);
             }
 
             DictValue newValue = new DictValue(similarity);
@@ -157,6 +157,7 @@ import edu.cmu.cs.hcii.cogtool.ui.FrameEditorUI;
 import edu.cmu.cs.hcii.cogtool.ui.UI;
 import edu.cmu.cs.hcii.cogtool.ui.ZoomableUI;
 import edu.cmu.cs.hcii.cogtool.util.AListenerAction;
+import edu.cmu.cs.hcii.cogtool.util.ASpillableUndoableEdit;
 import edu.cmu.cs.hcii.cogtool.util.AUndoableEdit;
 import edu.cmu.cs.hcii.cogtool.util.ClipboardUtil;
 import edu.cmu.cs.hcii.cogtool.util.CompoundUndoableEdit;
@@ -3017,7 +3018,9 @@ public class FrameEditorController extends ZoomableController
                     w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                    WidgetAttributes.NO_IMAGE);
 
-                    editSequence.addEdit(new AUndoableEdit(FrameEditorLID.CaptureImageProperty)
+                    editSequence.addEdit(new ASpillableUndoableEdit(FrameEditorLID.CaptureImageProperty,
+                                                                    old,
+                                                                    bg)
                     {
                         @Override
                         public String getPresentationName()
@@ -3029,7 +3032,7 @@ public class FrameEditorController extends ZoomableController
                         public void redo()
                         {
                             super.redo();
-                            w.setImage(bg);
+                            w.setImage(getRedoData());
                             w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                            WidgetAttributes.NO_IMAGE);
                         }
@@ -3038,7 +3041,7 @@ public class FrameEditorController extends ZoomableController
                         public void undo()
                         {
                             super.undo();
-                            w.setImage(old);
+                            w.setImage(getUndoData());
                             w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                            previousImagePath);
                         }
@@ -3887,7 +3890,8 @@ public class FrameEditorController extends ZoomableController
                                 : FrameEditorLID.SetBackgroundImage;
 
             // Add the undo edit
-            IUndoableEdit edit = new AUndoableEdit(lid)
+            IUndoableEdit edit =
+                new ASpillableUndoableEdit(lid, previousImageData, imageData)
             {
                 @Override
                 public String getPresentationName()
@@ -3901,7 +3905,7 @@ public class FrameEditorController extends ZoomableController
                 {
                     super.redo();
                     try {
-                        model.setBackgroundImage(imageData, imageSize);
+                        model.setBackgroundImage(getRedoData(), imageSize);
                         model.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                            imagePath);
                     }
@@ -3916,7 +3920,7 @@ public class FrameEditorController extends ZoomableController
                 {
                     super.undo();
                     try {
-                        model.setBackgroundImage(previousImageData,
+                        model.setBackgroundImage(getUndoData(),
                                                  previmageSize);
                         model.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                            oldPath);
@@ -6209,7 +6213,9 @@ public class FrameEditorController extends ZoomableController
         w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR, imageURL);
 
         // Add the undo edit
-        editSequence.addEdit(new AUndoableEdit(lid)
+        editSequence.addEdit(new ASpillableUndoableEdit(lid,
+                                                        previousImageData,
+                                                        imageData)
         {
             @Override
             public String getPresentationName()
@@ -6221,7 +6227,7 @@ public class FrameEditorController extends ZoomableController
             public void redo()
             {
                 super.redo();
-                w.setImage(imageData);
+                w.setImage(getRedoData());
                 w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR, imageURL);
             }
 
@@ -6229,7 +6235,7 @@ public class FrameEditorController extends ZoomableController
             public void undo()
             {
                 super.undo();
-                w.setImage(previousImageData);
+                w.setImage(getUndoData());
                 w.setAttribute(WidgetAttributes.IMAGE_PATH_ATTR,
                                previousImagePath);
             }
@@ -93,10 +93,14 @@ package edu.cmu.cs.hcii.cogtool.controller;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import edu.cmu.cs.hcii.cogtool.CogToolWorkThread;
 import edu.cmu.cs.hcii.cogtool.model.AUndertaking;
@@ -115,7 +119,9 @@ import edu.cmu.cs.hcii.cogtool.util.CompoundUndoableEdit;
 import edu.cmu.cs.hcii.cogtool.util.IUndoableEditSequence;
 import edu.cmu.cs.hcii.cogtool.util.L10N;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
+import edu.cmu.cs.hcii.cogtool.util.ProgressCallback;
 import edu.cmu.cs.hcii.cogtool.util.StringUtil;
+import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
 
 /**
  * Generates a set of semantic dictionary entries.  For each selected task (or,
@@ -123,6 +129,11 @@ import edu.cmu.cs.hcii.cogtool.util.StringUtil;
  * either the selected design or all designs to find every widget in that
  * design.  The goal string of the new entry is the task's name, and the
  * display label searched for is the widget's title or name.
+ * <p>
+ * When generating for all designs, each design is generated by its own
+ * task on the ThreadManager's workers into its own dictionary; the
+ * generators share their similarity requests, so a pair wanted by several
+ * designs is computed once.
  */
 public class GenerateDictEntriesWorkThread extends CogToolWorkThread
 {
@@ -139,7 +150,8 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
 
     protected AUndertaking[] tasks;
 
-    protected List<String> computeErrors = new ArrayList<String>();
+    protected List<String> computeErrors =
+        Collections.synchronizedList(new ArrayList<String>());
 
     /**
      * Maps designs to DictEntryGenerators
@@ -153,16 +165,6 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
          new CompoundUndoableEdit(DictEntryGenerator.GENERATE_DICTIONARY,
                                   ProjectLID.GenerateDictionary);
     
-    // TODO replace this crock with a general purpose mechanism for synchronizing
-    //      completion of CogToolWorkThreads, so we don't terminate early. Why
-    //      this was never done in the first place is a deep mystery.
-    private boolean finished = false;
-    public boolean isFinished() {
-        synchronized (this) {
-            return finished;
-        }
-    }
-
     public GenerateDictEntriesWorkThread(ProjectInteraction interactionSpt,
                                          Design d,
                                          AUndertaking[] selectedTasks,
@@ -198,7 +200,8 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
 
     protected void generateEntries(Iterator<AUndertaking> tasks,
                                    DictEntryGenerator generator,
-                                   ITermSimilarity alg)
+                                   ITermSimilarity alg,
+                                   ProgressCallback progress)
     {
         while (tasks.hasNext() && ! isCanceled() && ! isStopped()) {
             AUndertaking t = tasks.next();
@@ -214,12 +217,12 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
                                               this,
                                               requestData.computeAll,
                                               computeErrors,
-                                              progressCallback);
+                                              progress);
                 }
                 else {
                     Iterator<AUndertaking> subTasks =
                         ((TaskGroup) t).getUndertakings().iterator();
-                    generateEntries(subTasks, generator, alg);
+                    generateEntries(subTasks, generator, alg, progress);
                 }
             }
             else if (! t.isSpawned()) {
@@ -229,28 +232,93 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
                                           this,
                                           requestData.computeAll,
                                           computeErrors,
-                                          progressCallback);
+                                          progress);
             }
         }
     }
 
-    public void doWork()
+    /**
+     * Generate the entries for the selected tasks with every design,
+     * several designs at a time.  The designs' tasks share this thread's
+     * cancel and stop state, which is synchronized, and report progress
+     * through a synchronized view of the progress callback.
+     */
+    protected void generateAllDesigns()
     {
-        if (design == null) {
-            // use all selected tasks with all designs
-            Iterator<Design> designs = project.getDesigns().iterator();
+        DictEntryGenerator.SharedRequests requests =
+            new DictEntryGenerator.SharedRequests();
+        final ProgressCallback progress = new ProgressCallback() {
+            public synchronized void updateProgress(double p, String status)
+            {
+                if (progressCallback != null) {
+                    progressCallback.updateProgress(p, status);
+                }
+            }
 
-            while (designs.hasNext()) {
-                Design curDesign = designs.next();
+            public synchronized void dispose()
+            {
+                // The work thread disposes of its own progress callback
+            }
+        };
+        List<Callable<Object>> work = new ArrayList<Callable<Object>>();
+        Iterator<Design> designs = project.getDesigns().iterator();
+
+        while (designs.hasNext()) {
+            Design curDesign = designs.next();
+
+            final DictEntryGenerator generator =
+                new DictEntryGenerator(curDesign, requests);
+            generatorMap.put(curDesign, generator);
+
+            work.add(new Callable<Object>() {
+                public Object call()
+                {
+                    generateEntries(Arrays.asList(tasks).iterator(),
+                                    generator,
+                                    requestData.algorithm,
+                                    progress);
+
+                    return null;
+                }
+            });
+        }
 
-                DictEntryGenerator generator = new DictEntryGenerator(curDesign);
-                generatorMap.put(curDesign, generator);
+        if (work.size() == 0) {
+            return;
+        }
 
-                generateEntries(Arrays.asList(tasks).iterator(),
-                                generator,
-                                requestData.algorithm);
+        try {
+            List<Future<Object>> results = ThreadManager.invokeAll(work);
+
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+
+                    throw new IllegalStateException(cause);
+                }
             }
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void doWork()
+    {
+        if (design == null) {
+            // use all selected tasks with all designs
+            generateAllDesigns();
+        }
         else {
             DictEntryGenerator generator = new DictEntryGenerator(design);
             generatorMap.put(design, generator);
@@ -259,20 +327,17 @@ public class GenerateDictEntriesWorkThread extends CogToolWorkThread
                 // use all tasks with selected design
                 generateEntries(project.getUndertakings().iterator(),
                                 generator,
-                                requestData.algorithm);
+                                requestData.algorithm,
+                                progressCallback);
             }
             else {
                 // use selected task and selected design
                 generateEntries(Arrays.asList(tasks).iterator(),
                                 generator,
-                                requestData.algorithm);
+                                requestData.algorithm,
+                                progressCallback);
             }
         }
-        
-        synchronized (this) {
-            finished = true;
-        }
-
     }
 
     protected void openDictionaryEditor(Design d)
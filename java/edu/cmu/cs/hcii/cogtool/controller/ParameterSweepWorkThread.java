@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.controller;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import edu.cmu.cs.hcii.cogtool.CogToolWorkThread;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.Parameters;
+import edu.cmu.cs.hcii.cogtool.model.ParameterSweep;
+import edu.cmu.cs.hcii.cogtool.model.Project;
+import edu.cmu.cs.hcii.cogtool.model.TaskApplication;
+import edu.cmu.cs.hcii.cogtool.model.TimePredictionResult;
+import edu.cmu.cs.hcii.cogtool.ui.Interaction.ProgressBar;
+import edu.cmu.cs.hcii.cogtool.ui.ProjectInteraction;
+import edu.cmu.cs.hcii.cogtool.ui.RcvrExceptionHandler;
+import edu.cmu.cs.hcii.cogtool.util.CSVSupport;
+import edu.cmu.cs.hcii.cogtool.util.L10N;
+import edu.cmu.cs.hcii.cogtool.util.RcvrIOSaveException;
+import edu.cmu.cs.hcii.cogtool.util.StringUtil;
+import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
+
+/**
+ * Sweeps the KLM estimates of every task application of a project over
+ * every combination of the parameter values the user chose (by default,
+ * ParameterSweep.getDefaultValues), and writes the resulting matrix to a
+ * CSV file.
+ *
+ * The scripts are compiled in the main UI thread when the work thread is
+ * created; the evaluations and the file writing are performed by the
+ * child thread.  The file states that its times are KLM estimates, since
+ * they are not the ACT-R predictions shown in the project window.
+ */
+public class ParameterSweepWorkThread extends CogToolWorkThread
+{
+    protected static final String title =
+        L10N.get("WPX.SweepingEstimates", "Computing KLM estimate sweep...");
+
+    protected static final String ESTIMATE_NOTE =
+        L10N.get("PSW.EstimateNote",
+                 "KLM estimates, not ACT-R predictions; "
+                     + "all times are in seconds");
+
+    protected ProgressBar progressBar;
+
+    protected ProjectInteraction interaction;
+    protected ParameterSweep sweep;
+    protected String projectName;
+    protected String[] designNames;
+    protected String[] taskNames;
+    protected File dest;
+    protected boolean written = false;
+
+    public ParameterSweepWorkThread(ProjectInteraction interactionSpt,
+                                    Project project,
+                                    double[][] parameterValues,
+                                    File destFile)
+    {
+        super();
+
+        interaction = interactionSpt;
+
+        progressBar =
+            interaction.createProgressBar(title,
+                                          this,
+                                          title,
+                                          ProgressBar.SMOOTH,
+                                          StringUtil.NO_FRONT);
+
+        projectName = project.getName();
+        dest = destFile;
+
+        sweep = new ParameterSweep(project);
+
+        // A parameter given a single value is held there, not swept
+        Parameters base = new Parameters();
+
+        for (int i = 0; i < parameterValues.length; i++) {
+            if (parameterValues[i].length == 1) {
+                base.set(i, parameterValues[i][0]);
+            }
+            else {
+                sweep.addDimension(i, parameterValues[i]);
+            }
+        }
+
+        sweep.setBaseParameters(base);
+
+        // Compiling and naming read the project, so both are done here,
+        // in the main UI thread, rather than by the child thread
+        sweep.compile();
+
+        List<TaskApplication> taskApps = sweep.getTaskApplications();
+
+        designNames = new String[taskApps.size()];
+        taskNames = new String[taskApps.size()];
+
+        for (int row = 0; row < taskApps.size(); row++) {
+            TaskApplication ta = taskApps.get(row);
+
+            designNames[row] = ta.getDesign().getName();
+            taskNames[row] = ta.getTask().getFullName();
+        }
+
+        setProgressCallback(progressBar, true);
+        setDisabler(progressBar.getDisabler());
+    }
+
+    public void doWork()
+    {
+        // Performed by child thread
+        ParameterSweep.Result result = sweep.compute(progressBar, this);
+
+        if (result == null) {
+            // canceled
+            return;
+        }
+
+        FileWriter fw = null;
+        BufferedWriter writer = null;
+
+        try {
+            fw = new FileWriter(dest);
+            writer = new BufferedWriter(fw);
+
+            writeResult(result, writer);
+            written = true;
+        }
+        catch (IOException e) {
+            throw new RcvrIOSaveException("Exporting estimate sweep", e);
+        }
+        finally {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+                else if (fw != null) {
+                    fw.close();
+                }
+            }
+            catch (IOException e) {
+                throw new RcvrIOSaveException("Exporting estimate sweep", e);
+            }
+        }
+    }
+
+    protected void writeResult(ParameterSweep.Result result,
+                               BufferedWriter writer)
+        throws IOException
+    {
+        CSVSupport.writeCell(ESTIMATE_NOTE, writer);
+        CSVSupport.addLineEnding(writer);
+
+        CSVSupport.writeCell("Date and Time:", writer);
+        CSVSupport.addSeparator(writer);
+        CSVSupport.writeCell(DateFormat.getDateTimeInstance().format(new Date()),
+                             writer);
+        CSVSupport.addLineEnding(writer);
+
+        CSVSupport.writeCell("Project:", writer);
+        CSVSupport.addSeparator(writer);
+        CSVSupport.writeCell(projectName, writer);
+        CSVSupport.addLineEnding(writer);
+
+        // One line per parameter giving its value in each column, so that
+        // the values held fixed are recorded as well as those swept; a
+        // negative think duration means each step keeps its own
+        for (int parameter = 0;
+             parameter < Parameters.PARAMETER_COUNT;
+             parameter++)
+        {
+            CSVSupport.writeCell(ParameterSweep.getParameterName(parameter),
+                                 writer);
+            CSVSupport.addSeparator(writer);
+
+            for (int col = 0; col < result.getColumnCount(); col++) {
+                double value = result.getParameters(col).get(parameter);
+
+                CSVSupport.addSeparator(writer);
+
+                if (value >= 0.0) {
+                    writer.write(Double.toString(value));
+                }
+            }
+
+            CSVSupport.addLineEnding(writer);
+        }
+
+        CSVSupport.writeCell("Design", writer);
+        CSVSupport.addSeparator(writer);
+        CSVSupport.writeCell("Task", writer);
+        CSVSupport.addLineEnding(writer);
+
+        for (int row = 0; row < result.getRowCount(); row++) {
+            CSVSupport.writeCell(designNames[row], writer);
+            CSVSupport.addSeparator(writer);
+            CSVSupport.writeCell(taskNames[row], writer);
+
+            for (int col = 0; col < result.getColumnCount(); col++) {
+                double time = result.getTime(row, col);
+
+                CSVSupport.addSeparator(writer);
+
+                if (time != TimePredictionResult.UNSET_TIME) {
+                    writer.write(Double.toString(time));
+                }
+            }
+
+            CSVSupport.addLineEnding(writer);
+        }
+    }
+
+    @Override
+    public void doneCallback()
+    {
+        // Performed by the main UI thread
+
+        // If an exception was thrown during the sweep, display error here
+        RcvrExceptionHandler.recoverWorkThread(this, interaction);
+
+        if (written) {
+            interaction.setStatusMessage(L10N.get("DSO.ExportCompletedPre",
+                                                  "Export completed to ")
+                                         + dest
+                                         + L10N.get("DSO.ExportCompletePost",
+                                                    "."));
+        }
+
+        super.doneCallback();
+    }
+
+    // Call in the foreground thread, only!
+    public static boolean exportParameterSweep(Project project,
+                                               ProjectInteraction interaction)
+    {
+        double[][] parameterValues = interaction.requestParameterSweepValues();
+
+        if (parameterValues == null) {
+            // the user canceled
+            return false;
+        }
+
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyyMMdd_HHmmss");
+        String fileName =
+            project.getName() + "_sweep_" + fmt.format(new Date());
+
+        File dest = interaction.selectCSVFileDest(fileName);
+
+        if (dest == null) {
+            // the user canceled
+            return false;
+        }
+
+        ThreadManager.startNewThread(new ParameterSweepWorkThread(interaction,
+                                                                  project,
+                                                                  parameterValues,
+                                                                  dest));
+        return true;
+    }
+}
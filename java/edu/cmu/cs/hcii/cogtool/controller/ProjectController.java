@@ -128,6 +128,7 @@ import edu.cmu.cs.hcii.cogtool.CogToolClipboard;
 import edu.cmu.cs.hcii.cogtool.CogToolFileTypes;
 import edu.cmu.cs.hcii.cogtool.CogToolLID;
 import edu.cmu.cs.hcii.cogtool.CogToolPref;
+import edu.cmu.cs.hcii.cogtool.CogToolWorkThread;
 import edu.cmu.cs.hcii.cogtool.FrameTemplateSupport;
 import edu.cmu.cs.hcii.cogtool.ResultDisplayPolicy;
 import edu.cmu.cs.hcii.cogtool.model.ACTR6PredictionAlgo;
@@ -145,6 +146,8 @@ import edu.cmu.cs.hcii.cogtool.model.Frame;
 import edu.cmu.cs.hcii.cogtool.model.GroupNature;
 import edu.cmu.cs.hcii.cogtool.model.HumanCSVParser;
 import edu.cmu.cs.hcii.cogtool.model.HumanDataAlgo;
+import edu.cmu.cs.hcii.cogtool.model.HumanDataImport;
+import edu.cmu.cs.hcii.cogtool.model.HumanTrace;
 import edu.cmu.cs.hcii.cogtool.model.IPredictionAlgo;
 import edu.cmu.cs.hcii.cogtool.model.ISimilarityDictionary;
 import edu.cmu.cs.hcii.cogtool.model.ITermSimilarity;
@@ -156,12 +159,14 @@ import edu.cmu.cs.hcii.cogtool.model.PredictionResultProxy;
 import edu.cmu.cs.hcii.cogtool.model.Project;
 import edu.cmu.cs.hcii.cogtool.model.Project.ITaskDesign;
 import edu.cmu.cs.hcii.cogtool.model.ResultStep;
+import edu.cmu.cs.hcii.cogtool.model.RunStatistics;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTExecContext;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo.SNIFACTGroupParameters;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo.SNIFACTParameters;
 import edu.cmu.cs.hcii.cogtool.model.Script;
 import edu.cmu.cs.hcii.cogtool.model.SimilarityDictionary;
+import edu.cmu.cs.hcii.cogtool.model.StaleResultTracker;
 import edu.cmu.cs.hcii.cogtool.model.Task;
 import edu.cmu.cs.hcii.cogtool.model.TaskApplication;
 import edu.cmu.cs.hcii.cogtool.model.TaskGroup;
@@ -172,11 +177,13 @@ import edu.cmu.cs.hcii.cogtool.model.URLCrawlEntry;
 import edu.cmu.cs.hcii.cogtool.model.WidgetAttributes;
 import edu.cmu.cs.hcii.cogtool.ui.DesignSelectionState;
 import edu.cmu.cs.hcii.cogtool.ui.Interaction.ITraceWindow;
+import edu.cmu.cs.hcii.cogtool.ui.Interaction.ProgressBar;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectContextSelectionState;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectInteraction;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectLID;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectSelectionState;
 import edu.cmu.cs.hcii.cogtool.ui.ProjectUI;
+import edu.cmu.cs.hcii.cogtool.ui.RcvrExceptionHandler;
 import edu.cmu.cs.hcii.cogtool.ui.SNIFACTDialog;
 import edu.cmu.cs.hcii.cogtool.ui.SelectionState;
 import edu.cmu.cs.hcii.cogtool.ui.TaskSelectionState;
@@ -210,6 +217,7 @@ import edu.cmu.cs.hcii.cogtool.util.RcvrParsingException;
 import edu.cmu.cs.hcii.cogtool.util.RcvrUnimplementedFnException;
 import edu.cmu.cs.hcii.cogtool.util.RcvrXMLParsingException;
 import edu.cmu.cs.hcii.cogtool.util.RecoverableException;
+import edu.cmu.cs.hcii.cogtool.util.StringUtil;
 import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
 import edu.cmu.cs.hcii.cogtool.util.UndoManager;
 
@@ -258,12 +266,14 @@ import edu.cmu.cs.hcii.cogtool.util.UndoManager;
  *
  *      ShowModelVisualization AProjectSelectionState (which cells to visualize)
  *      RecomputeScript  AProjectSelectionState (which cells to recompute)
+ *      RecomputeStaleResults (recomputes results affected by model changes)
  *      RegenerateScript AProjectSelectionState (which cells to regenerate)
  *      DisplayTraces    AProjectSelectionState (which cells to display traces)
  *      ExportTraces     AProjectSelectionState (which cells to export)
  *
  *      ExportActrModelFile AProjectSelectionState (which .lisp file to export)
  *      ImportHumanCSVFile AProjectSelectionState (into which cells to import)
+ *      ImportHumanCSVDirectory AProjectSelectionState (into which cells to import)
  *      GenerateACTRModelFile AProjectSelectionState (which cells to generate)
  *      SelectStrategy   AProjectSelectionState (which cells to select strategy)
  *
@@ -271,6 +281,7 @@ import edu.cmu.cs.hcii.cogtool.util.UndoManager;
  *      ExportDesignToHTML AProjectSelectionState (which design to export)
  *      ExportScriptToCSV  AProjectSelectionState (which script to export)
  *      ExportResultsToCSV      <no parameters>
+ *      ExportParameterSweep    <no parameters>
  *      CopyResultsToClipboard  <no parameters>
  *
  * @author mlh
@@ -327,6 +338,14 @@ public class ProjectController extends DefaultController
         L10N.get("PC.ImportFailureParse",
                  "Data import failed because the file was not in the correct format.");
 
+    protected static final String IMPORT_FAIL_NO_DATA_MSG =
+        L10N.get("PC.ImportFailureNoData",
+                 "Data import failed because no file in the directory held human data.");
+
+    protected static final String IMPORT_SELECT_DIRECTORY_MSG =
+        L10N.get("PC.ImportSelectDirectory",
+                 "Select a directory of human data CSV files, one per participant");
+
     protected static final String PASTE = L10N.get("UNDO.Paste", "Paste");
 
     protected static final String NEW_DESIGN =
@@ -387,6 +406,9 @@ public class ProjectController extends DefaultController
     protected static final String RECOMPUTE_SCRIPT =
         L10N.get("UNDO.PM.RecomputeScript", "Recompute Script");
 
+    protected static final String RECOMPUTE_STALE_RESULTS =
+        L10N.get("UNDO.PM.RecomputeStaleResults", "Recompute Stale Results");
+
     protected static final String TASK_LABEL =
         L10N.get("PC.TaskLabel", "Task:");
     protected static final String DESIGN_LABEL =
@@ -508,6 +530,10 @@ public class ProjectController extends DefaultController
         L10N.get("PC.ComputeHadNoResult",
                  "Computation did not generate a prediction result.");
 
+    protected static final String noStaleResults =
+        L10N.get("PC.NoStaleResults",
+                 "No computed results are affected by changes to the model.");
+
     protected static final String cannotRecomputeInvalid =
         L10N.get("PC.CannotRecomputeInvalid",
                  "Cannot compute; not valid or properly generated.");
@@ -562,6 +588,12 @@ public class ProjectController extends DefaultController
     // The interaction support from the associated view object (cached)
     protected ProjectInteraction interaction;
 
+    /**
+     * Notes changes to the project's designs in the dependencies of
+     * the results that are affected
+     */
+    protected StaleResultTracker staleResults;
+
     // To help generate unique design names
     protected int nextNewDesignSuffix = 1;
 
@@ -699,6 +731,8 @@ public class ProjectController extends DefaultController
         // Cache the view support's user interaction utility
         interaction = ui.getInteraction();
 
+        staleResults = new StaleResultTracker(project);
+
         // Register the semantic actions for this class and its superclasses
         assignActions();
 
@@ -963,6 +997,9 @@ public class ProjectController extends DefaultController
         ui.setAction(ProjectLID.RecomputeScript,
                           createRecomputeScriptAction());
 
+        ui.setAction(ProjectLID.RecomputeStaleResults,
+                          createRecomputeStaleResultsAction());
+
         ui.setAction(ProjectLID.ShowModelVisualization,
                           createShowModelVisualizationAction());
 
@@ -984,6 +1021,9 @@ public class ProjectController extends DefaultController
         ui.setAction(ProjectLID.ExportResultsToCSV,
                           createExportResultsToCSVAction());
 
+        ui.setAction(ProjectLID.ExportParameterSweep,
+                          createExportParameterSweepAction());
+
         ui.setAction(ProjectLID.ImportXML,
                           createImportAction());
 
@@ -1031,6 +1071,9 @@ public class ProjectController extends DefaultController
         ui.setAction(ProjectLID.ImportHumanCSVFile,
                           createImportHumanCSVFileAction());
 
+        ui.setAction(ProjectLID.ImportHumanCSVDirectory,
+                          createImportHumanCSVDirectoryAction());
+
         ui.setAction(ProjectLID.SetAlgorithmACTR6,
                           createSetAlgorithmAction(ACTR6PredictionAlgo.ONLY,
                                                    ProjectLID.SetAlgorithmACTR6,
@@ -2243,6 +2286,8 @@ public class ProjectController extends DefaultController
     @Override
     public void dispose()
     {
+        staleResults.dispose();
+
         super.dispose();
 
         // If the policy has been set so that the "project manages" the
@@ -2404,9 +2449,83 @@ public class ProjectController extends DefaultController
 
         addTaskResults(project.getUndertakings().iterator(), buffer, separator);
 
+        StringBuilder statsBuffer = new StringBuilder();
+
+        addTaskStatistics(project.getUndertakings().iterator(),
+                          statsBuffer,
+                          separator);
+
+        // Summaries of aggregated runs follow, if there are any
+        if (statsBuffer.length() > 0) {
+            CSVSupport.addLineEnding(buffer);
+
+            buffer.append(CSVSupport.quoteCell("Run statistics"));
+            CSVSupport.addLineEnding(buffer);
+
+            buffer.append(CSVSupport.quoteCell("Task"));
+            buffer.append(separator);
+            buffer.append(CSVSupport.quoteCell("Design"));
+
+            String[] headings = ResultDisplayPolicy.getStatisticsHeadings();
+
+            for (String heading : headings) {
+                buffer.append(separator);
+                buffer.append(CSVSupport.quoteCell(heading));
+            }
+            CSVSupport.addLineEnding(buffer);
+
+            buffer.append(statsBuffer);
+        }
+
         return buffer;
     }
 
+    // Utility to help exportResults; one row for each task application
+    // whose result summarizes its runs in a RunStatistics
+    protected void addTaskStatistics(Iterator<AUndertaking> tasks,
+                                     StringBuilder buffer,
+                                     String separator)
+    {
+        while (tasks.hasNext()) {
+            AUndertaking t = tasks.next();
+
+            if (t.isTaskGroup()) {
+                addTaskStatistics(((TaskGroup) t).getUndertakings().iterator(),
+                                  buffer,
+                                  separator);
+                continue;
+            }
+
+            for (Design design : project.getDesigns()) {
+                TaskApplication ta = project.getTaskApplication(t, design);
+
+                if (ta == null) {
+                    continue;
+                }
+
+                IPredictionAlgo alg = ta.determineActiveAlgorithm(project);
+                RunStatistics stats =
+                    ResultDisplayPolicy.getStatistics(ta.getResult(ta.getFirstModelGenerator(),
+                                                                   alg));
+
+                if (stats != null) {
+                    buffer.append(CSVSupport.quoteCell(t.getName()));
+                    buffer.append(separator);
+                    buffer.append(CSVSupport.quoteCell(design.getName()));
+
+                    String[] values =
+                        ResultDisplayPolicy.getStatisticsStrings(stats);
+
+                    for (String value : values) {
+                        buffer.append(separator);
+                        buffer.append(CSVSupport.quoteCell(value));
+                    }
+                    CSVSupport.addLineEnding(buffer);
+                }
+            }
+        }
+    }
+
     // Action for copying results to clipboard; uses TAB as separator!
     protected IListenerAction createCopyResultsAction()
     {
@@ -4791,6 +4910,17 @@ public class ProjectController extends DefaultController
         };
     }
 
+    // Action for RecomputeStaleResults
+    protected IListenerAction createRecomputeStaleResultsAction()
+    {
+        return new AListenerAction() {
+            public boolean performAction(Object prms)
+            {
+                return recomputeStaleResults();
+            }
+        };
+    }
+
     public boolean createVisualization(Design design,
                                        AUndertaking task,
                                        int strategy)
@@ -4944,14 +5074,9 @@ public class ProjectController extends DefaultController
                 DemoStateManager demoMgr =
                     DemoStateManager.getStateManager(project, design);
 
-                final TaskApplication[] taskApps =
-                    new TaskApplication[tasks.length];
-                final APredictionResult[] oldResults =
-                    new APredictionResult[tasks.length];
-                final APredictionResult[] results =
+                TaskApplication[] taskApps = new TaskApplication[tasks.length];
+                APredictionResult[] results =
                     new APredictionResult[tasks.length];
-                final IPredictionAlgo[] oldActiveAlgos =
-                    new IPredictionAlgo[tasks.length];
 
                 for (int i = 0; i < tasks.length; i++) {
                     taskApps[i] = ensureTaskApplication(tasks[i],
@@ -4985,60 +5110,217 @@ public class ProjectController extends DefaultController
                                                      taskTime);
                     }
 
-                    oldResults[i] = taskApps[i].getResult(MODELGEN_ALG,
-                                                          HumanDataAlgo.ONLY);
-                    taskApps[i].setResult(MODELGEN_ALG,
-                                          HumanDataAlgo.ONLY,
-                                          results[i]);
-
-                    oldActiveAlgos[i] = taskApps[i].getActiveAlgorithm();
-                    taskApps[i].setActiveAlgorithm(HumanDataAlgo.ONLY);
                 }
 
-                IUndoableEdit edit =
-                    new AUndoableEdit(ProjectLID.RecomputeScript)
-                    {
-                        @Override
-                        public String getPresentationName()
-                        {
-                            return IMPORT_HUMAN_CSV;
-                        }
+                setHumanDataResults(taskApps, results);
 
-                        @Override
-                        public void redo()
-                        {
-                            super.redo();
+                interaction.setStatusMessage(IMPORT_SUCCESS_MSG);
 
-                            for (int i = 0; i < taskApps.length; i++) {
-                                taskApps[i].setResult(MODELGEN_ALG,
-                                                      HumanDataAlgo.ONLY,
-                                                      results[i]);
-                                taskApps[i].setActiveAlgorithm(HumanDataAlgo.ONLY);
-                            }
-                        }
+                return true;
+            } // performAction
+        };
+    } // createImportHumanCSVFileAction
 
-                        @Override
-                        public void undo()
-                        {
-                            super.undo();
+    // Action for ImportHumanCSVDirectory
+    protected IListenerAction createImportHumanCSVDirectoryAction()
+    {
+        return new IListenerAction() {
 
-                            for (int i = 0; i < taskApps.length; i++) {
-                                taskApps[i].setResult(MODELGEN_ALG,
-                                                      HumanDataAlgo.ONLY,
-                                                      oldResults[i]);
-                                taskApps[i].setActiveAlgorithm(oldActiveAlgos[i]);
-                            }
-                        }
-                    };
+            public Class<?> getParameterClass()
+            {
+                return ProjectSelectionState.class;
+            }
 
-                undoMgr.addEdit(edit);
 
-                interaction.setStatusMessage(IMPORT_SUCCESS_MSG);
+            public boolean performAction(Object prms)
+            {
+                ProjectSelectionState seln = (ProjectSelectionState) prms;
+
+                // Must have selected tasks and design
+                Design design = seln.getSelectedDesign();
+                AUndertaking[] tasks =
+                    seln.getSelectedTasks(TaskSelectionState.PRUNE_SELECTION);
+
+                if ((design == null) || (tasks == null) || (tasks.length == 0))
+                {
+                    return false;
+                }
+
+                File dataDir =
+                    interaction.selectDirectory(IMPORT_SELECT_DIRECTORY_MSG);
+
+                if (dataDir == null) {
+                    interaction.setStatusMessage(IMPORT_FAIL_NOFILE_MSG);
+                    return false;
+                }
+
+                // Parse the participants' files in the background
+                ThreadManager.startNewThread(new ImportHumanDataWorkThread(dataDir,
+                                                                           design,
+                                                                           tasks));
 
                 return true;
             } // performAction
         };
-    } // createImportHumanCSVFileAction
+    } // createImportHumanCSVDirectoryAction
+
+    /**
+     * Parses a directory of human data CSV files, one per participant, in
+     * a work thread; when done, the traces become the human data results
+     * of the given tasks on the given design.  Files that could not be
+     * used are reported.
+     */
+    protected class ImportHumanDataWorkThread extends CogToolWorkThread
+    {
+        protected File dataDir;
+        protected Design design;
+        protected AUndertaking[] tasks;
+        protected HumanDataImport data;
+        protected List<HumanTrace> traces = null;
+
+        public ImportHumanDataWorkThread(File dir,
+                                         Design d,
+                                         AUndertaking[] selectedTasks)
+        {
+            super();
+
+            dataDir = dir;
+            design = d;
+            tasks = selectedTasks;
+            data = new HumanDataImport(dataDir);
+
+            ProgressBar progressBar =
+                interaction.createProgressBar(IMPORT_HUMAN_CSV,
+                                              this,
+                                              dataDir.getName(),
+                                              ProgressBar.SMOOTH,
+                                              StringUtil.NO_FRONT);
+
+            setProgressCallback(progressBar, true);
+            setDisabler(progressBar.getDisabler());
+        }
+
+        public void doWork()
+        {
+            // Performed by child thread
+            traces = data.parse(progressCallback, this);
+        }
+
+        @Override
+        public void doneCallback()
+        {
+            // Performed by the main UI thread
+
+            // If an exception was thrown during the parse, display it here
+            RcvrExceptionHandler.recoverWorkThread(this, interaction);
+
+            if (isCanceled() || (traces == null)) {
+                super.doneCallback();
+                return;
+            }
+
+            List<String> errors = data.getErrors();
+
+            if (traces.isEmpty()) {
+                if (errors.size() > 0) {
+                    interaction.reportProblems(IMPORT_HUMAN_CSV, errors);
+                }
+
+                interaction.setStatusMessage(IMPORT_FAIL_NO_DATA_MSG);
+                super.doneCallback();
+                return;
+            }
+
+            DemoStateManager demoMgr =
+                DemoStateManager.getStateManager(project, design);
+
+            TaskApplication[] taskApps = new TaskApplication[tasks.length];
+            APredictionResult[] results = new APredictionResult[tasks.length];
+
+            for (int i = 0; i < tasks.length; i++) {
+                taskApps[i] = ensureTaskApplication(tasks[i],
+                                                    design,
+                                                    MODELGEN_ALG,
+                                                    demoMgr);
+
+                results[i] =
+                    data.createResult(dataDir.getName(),
+                                      taskApps[i].getScript(MODELGEN_ALG));
+            }
+
+            setHumanDataResults(taskApps, results);
+
+            if (errors.size() > 0) {
+                interaction.reportWarnings(IMPORT_HUMAN_CSV, errors);
+            }
+
+            interaction.setStatusMessage(IMPORT_SUCCESS_MSG);
+
+            super.doneCallback();
+        }
+    }
+
+    /**
+     * Make the given imported human data results the active results of
+     * the corresponding task applications, undoably.
+     */
+    protected void setHumanDataResults(final TaskApplication[] taskApps,
+                                       final APredictionResult[] results)
+    {
+        final APredictionResult[] oldResults =
+            new APredictionResult[taskApps.length];
+        final IPredictionAlgo[] oldActiveAlgos =
+            new IPredictionAlgo[taskApps.length];
+
+        for (int i = 0; i < taskApps.length; i++) {
+            oldResults[i] = taskApps[i].getResult(MODELGEN_ALG,
+                                                  HumanDataAlgo.ONLY);
+            taskApps[i].setResult(MODELGEN_ALG,
+                                  HumanDataAlgo.ONLY,
+                                  results[i]);
+
+            oldActiveAlgos[i] = taskApps[i].getActiveAlgorithm();
+            taskApps[i].setActiveAlgorithm(HumanDataAlgo.ONLY);
+        }
+
+        IUndoableEdit edit =
+            new AUndoableEdit(ProjectLID.RecomputeScript)
+            {
+                @Override
+                public String getPresentationName()
+                {
+                    return IMPORT_HUMAN_CSV;
+                }
+
+                @Override
+                public void redo()
+                {
+                    super.redo();
+
+                    for (int i = 0; i < taskApps.length; i++) {
+                        taskApps[i].setResult(MODELGEN_ALG,
+                                              HumanDataAlgo.ONLY,
+                                              results[i]);
+                        taskApps[i].setActiveAlgorithm(HumanDataAlgo.ONLY);
+                    }
+                }
+
+                @Override
+                public void undo()
+                {
+                    super.undo();
+
+                    for (int i = 0; i < taskApps.length; i++) {
+                        taskApps[i].setResult(MODELGEN_ALG,
+                                              HumanDataAlgo.ONLY,
+                                              oldResults[i]);
+                        taskApps[i].setActiveAlgorithm(oldActiveAlgos[i]);
+                    }
+                }
+            };
+
+        undoMgr.addEdit(edit);
+    }
 
     protected IListenerAction createGenerateACTRModelAction()
     {
@@ -5573,6 +5855,81 @@ public class ProjectController extends DefaultController
         return true;
     } // recomputeScripts
 
+    /**
+     * Recomputes the results, for every design and task, whose
+     * dependencies have changed since they were computed, whether in this
+     * session or an earlier one (see ResultDependencies).
+     */
+    protected boolean recomputeStaleResults()
+    {
+        ComputeMessages computeMsgs = new ComputeMessages();
+        CompoundUndoableEdit editSequence =
+            new CompoundUndoableEdit(RECOMPUTE_STALE_RESULTS,
+                                     ProjectLID.RecomputeStaleResults);
+        boolean foundStale = false;
+
+        editSequence.setManager(undoMgr);
+
+        for (Design design : project.getDesigns()) {
+            DemoStateManager demoStateMgr =
+                DemoStateManager.getStateManager(project, design);
+
+            // Copy, since recomputing may regenerate scripts
+            List<TaskApplication> taskApps =
+                new ArrayList<TaskApplication>(project.taskApplicationsForDesign(design).values());
+
+            for (TaskApplication ta : taskApps) {
+                if (hasStaleResult(ta)) {
+                    foundStale = true;
+
+                    if (! recomputeScripts(ta.getTask(),
+                                           design,
+                                           demoStateMgr,
+                                           computeMsgs,
+                                           editSequence))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        if (! foundStale) {
+            interaction.setStatusMessage(noStaleResults);
+        }
+
+        if (editSequence.isSignificant()) {
+            editSequence.end();
+            undoMgr.addEdit(editSequence);
+        }
+
+        computeMsgs.presentMessages();
+
+        return true;
+    }
+
+    /**
+     * Whether a result of the task application's active algorithm is stale
+     */
+    protected boolean hasStaleResult(TaskApplication ta)
+    {
+        IPredictionAlgo activeAlg = ta.determineActiveAlgorithm(project);
+        Iterator<CognitiveModelGenerator> modelGens = ta.getModelGenerators();
+
+        while (modelGens.hasNext()) {
+            APredictionResult result =
+                ta.getResult(modelGens.next(), activeAlg);
+
+            if ((result != null) && result.canBeRecomputed() &&
+                result.isStale())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     protected IListenerAction createExportResultsToCSVAction()
     {
         return new AListenerAction() {
@@ -5583,6 +5940,17 @@ public class ProjectController extends DefaultController
         };
     }
 
+    protected IListenerAction createExportParameterSweepAction()
+    {
+        return new AListenerAction() {
+            public boolean performAction(Object actionParms)
+            {
+                return ParameterSweepWorkThread.exportParameterSweep(project,
+                                                                     interaction);
+            }
+        };
+    }
+
     public String exportFile = null;
     
     public boolean exportResultsToCSV() {
@@ -6078,7 +6446,9 @@ public class ProjectController extends DefaultController
                     NamedObjectUtil.makeNameUnique(design.getName(),
                                                    project.getDesigns());
 
-                Design designCopy = design.duplicate(copyName);
+                // The copy shares unchanged frames with the original
+                // when saved; see Design.createVariant
+                Design designCopy = design.createVariant(copyName);
 
                 ISimilarityDictionary dict =
                     (ISimilarityDictionary) design.getAttribute(WidgetAttributes.DICTIONARY_ATTR);
@@ -544,6 +544,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                }
             };
 
         undoMgr.addEdit(edit);
@@ -654,6 +660,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                }
             };
 
         undoMgr.addEdit(edit);
@@ -773,6 +785,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                }
             };
 
         CompoundUndoableEdit editSequence =
@@ -946,6 +964,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                }
             };
 
         CompoundUndoableEdit editSequence =
@@ -1071,6 +1095,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(computeUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(computeUndoRedos);
+                }
             };
 
         undoMgr.addEdit(edit);
@@ -1186,6 +1216,12 @@ public class SEDemoController extends ZoomableController
 
                     DemoScriptCmd.undoAllChanges(computeUndoRedos);
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return DemoScriptCmd.getRetainedSize(computeUndoRedos);
+                }
             };
 
         undoMgr.addEdit(edit);
@@ -1293,6 +1329,12 @@ public class SEDemoController extends ZoomableController
 
                         DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                     }
+
+                    @Override
+                    public long getRetainedSize()
+                    {
+                        return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                    }
                 };
 
             CompoundUndoableEdit editSequence =
@@ -1602,6 +1644,12 @@ public class SEDemoController extends ZoomableController
                         computeUndoRedo.undoChanges();
                     }
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return computeUndoRedo.getRetainedSize();
+                }
             };
 
             UndoManager seFrameMgr =
@@ -1643,6 +1691,12 @@ public class SEDemoController extends ZoomableController
                     script.insertState(stateToDelete, scriptIndex);
                     computeUndoRedo.undoChanges();
                 }
+
+                @Override
+                public long getRetainedSize()
+                {
+                    return computeUndoRedo.getRetainedSize();
+                }
             };
         }
         else {
@@ -1694,6 +1748,12 @@ public class SEDemoController extends ZoomableController
 
                             DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                         }
+
+                        @Override
+                        public long getRetainedSize()
+                        {
+                            return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                        }
                     };
             }
             else {
@@ -1747,6 +1807,12 @@ public class SEDemoController extends ZoomableController
 
                             DemoScriptCmd.undoAllChanges(scriptsUndoRedos);
                         }
+
+                        @Override
+                        public long getRetainedSize()
+                        {
+                            return DemoScriptCmd.getRetainedSize(scriptsUndoRedos);
+                        }
                     };
             }
         }
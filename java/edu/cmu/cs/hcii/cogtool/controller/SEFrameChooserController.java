@@ -491,7 +491,8 @@ public class SEFrameChooserController extends ZoomableController
                         DemoScriptCmd.regenerateScripts(demo,
                                                         0,
                                                         demo.getStepAt(0),
-                                                        interaction);
+                                                        interaction,
+                                                        false);
 
                     // Close the current window.
                     closeWindow(false);
@@ -96,7 +96,9 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import edu.cmu.cs.hcii.cogtool.CogToolWorkThread;
 import edu.cmu.cs.hcii.cogtool.controller.ComputePredictionCmd.AnalysisWorkThread;
 import edu.cmu.cs.hcii.cogtool.model.APredictionResult;
 import edu.cmu.cs.hcii.cogtool.model.AScriptStep;
@@ -134,7 +136,17 @@ import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
 
 public class SNIFACTCmd
 {
-    public static boolean isComputing = false; 
+    /**
+     * Completes when the most recently started SNIF-ACT computation
+     * has finished and its results have been added to the project
+     */
+    protected static CompletableFuture<CogToolWorkThread> lastComputation =
+        CompletableFuture.completedFuture(null);
+
+    public static CompletableFuture<CogToolWorkThread> getLastComputation()
+    {
+        return lastComputation;
+    }
 
     /**
      * Support for performing the analysis work in a background thread.
@@ -199,6 +211,10 @@ public class SNIFACTCmd
             List<AUndertaking> siblings = taskGroup.getUndertakings();
             int i = taskGroup.getUndertakings().size();
 
+            if (! undone) {
+                context.setStatistics(result.getStatistics());
+            }
+
             while (results.hasNext()) {
                 SNIFACTPredictionResult r =
                     (SNIFACTPredictionResult) results.next();
@@ -235,7 +251,6 @@ public class SNIFACTCmd
                                                          TaskGroup group,
                                                          SNIFACTParameters parms)
     {
-        isComputing = true;
         try {
             SNIFACTAnalysisWorkThread workThread =
                 new SNIFACTAnalysisWorkThread(SNIFACTPredictionAlgo.ONLY,
@@ -258,6 +273,7 @@ public class SNIFACTCmd
             workThread.setTraceWindow(traceWin);
 
             ThreadManager.startNewThread(workThread);
+            lastComputation = workThread.getCompletion();
 
             return workThread.getExecContext();
         }
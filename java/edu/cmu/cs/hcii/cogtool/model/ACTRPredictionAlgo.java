@@ -594,9 +594,34 @@ public class ACTRPredictionAlgo extends APredictionAlgo
                             String scoresPath,
                             SNIFACTPredictionAlgo.SNIFACTParameters parms)
         throws IOException
+    {
+        outputModel(design, task, file, scoresPath, parms, -1);
+    }
+
+    /**
+     * As above, for one of several Lisp processes among which the runs are
+     * divided.  Unless noise is suppressed (in which case every run starts
+     * from *cogtool-random-seed* anyway), the process seeds its random
+     * number generator with shardSeed so that the processes do not produce
+     * identical runs, yet the same computation can be reproduced.
+     *
+     * @param shardSeed the random seed for this process, or -1 to let
+     *                  ACT-R seed itself
+     */
+    public void outputModel(Design design,
+                            AUndertaking task,  // may be null if unknown or irrelevant
+                            File file,
+                            String scoresPath,
+                            SNIFACTPredictionAlgo.SNIFACTParameters parms,
+                            long shardSeed)
+        throws IOException
     {
         Map<String, Object> lispVars = new HashMap<String, Object>();
 
+        if (shardSeed >= 0) {
+            lispVars.put("*cogtool-shard-seed*", "'(" + shardSeed + " 0)");
+        }
+
         lispVars.put("*task-description*",
                      LispUtil.safeString(parms.taskName));
         lispVars.put("*number-of-runs*", new Integer(parms.numRuns));
@@ -95,21 +95,25 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import edu.cmu.cs.hcii.cogtool.util.ExternalLineList;
 import edu.cmu.cs.hcii.cogtool.util.GlobalAttributed;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
 
 public abstract class APredictionResult extends GlobalAttributed
 {
-    public static final int edu_cmu_cs_hcii_cogtool_model_APredictionResult_version = 0;
+    public static final int edu_cmu_cs_hcii_cogtool_model_APredictionResult_version = 2;
 
     protected static final String scriptVAR = "script";
     protected static final String computeAlgVAR = "computeAlg";
     protected static final String traceLinesVAR = "traceLines";
     protected static final String errorLinesVAR = "errorLines";
+    protected static final String traceFileVAR = "traceFile";
+    protected static final String errorFileVAR = "errorFile";
     protected static final String modelStepsVAR = "modelSteps";
     protected static final String resultStateVAR = "resultState";
     protected static final String nameVAR = "name";
+    protected static final String dependenciesVAR = "dependencies";
 
     protected Script script;
     protected IPredictionAlgo computeAlg = null;
@@ -118,6 +122,7 @@ public abstract class APredictionResult extends GlobalAttributed
     protected List<ResultStep> modelSteps = null;
     protected int resultState = APredictionResult.NOT_COMPUTED;
     protected String name = "Untitled Result";
+    protected ResultDependencies dependencies = null;
 
     /**
      * State reflecting that the computation is still in progress
@@ -155,11 +160,35 @@ public abstract class APredictionResult extends GlobalAttributed
             {
                 saver.saveObject(v.script, scriptVAR);
                 saver.saveObject(v.computeAlg, computeAlgVAR);
-                saver.saveObject(v.traceLines, traceLinesVAR);
-                saver.saveObject(v.errorLines, errorLinesVAR);
+
+                // When persisting to a file, traces are stored as separate
+                // compressed entries, loaded only when viewed
+                ExternalLineList traces =
+                    ExternalLineList.externalize(v.traceLines, saver);
+
+                if (traces != null) {
+                    v.traceLines = traces;
+                    saver.saveString(traces.getEntry(), traceFileVAR);
+                }
+                else {
+                    saver.saveObject(v.traceLines, traceLinesVAR);
+                }
+
+                ExternalLineList errors =
+                    ExternalLineList.externalize(v.errorLines, saver);
+
+                if (errors != null) {
+                    v.errorLines = errors;
+                    saver.saveString(errors.getEntry(), errorFileVAR);
+                }
+                else {
+                    saver.saveObject(v.errorLines, errorLinesVAR);
+                }
+
                 saver.saveObject(v.modelSteps, modelStepsVAR);
                 saver.saveInt(v.resultState, resultStateVAR);
                 saver.saveString(v.name, nameVAR);
+                saver.saveObject(v.dependencies, dependenciesVAR);
             }
         };
 
@@ -172,6 +201,30 @@ public abstract class APredictionResult extends GlobalAttributed
     protected static class APredictionResultLoader<T extends APredictionResult>
                                           extends ObjectLoader.AObjectLoader<T>
     {
+        @Override
+        public void set(ObjectLoader l,
+                        T target,
+                        String variable,
+                        Object value)
+        {
+            if (variable != null) {
+                if (variable.equals(traceFileVAR)) {
+                    target.traceLines =
+                        ExternalLineList.fromEntry((String) value,
+                                                   l.getAttachmentDirectory());
+                    return;
+                }
+                else if (variable.equals(errorFileVAR)) {
+                    target.errorLines =
+                        ExternalLineList.fromEntry((String) value,
+                                                   l.getAttachmentDirectory());
+                    return;
+                }
+            }
+
+            set(target, variable, value);
+        }
+
         @Override
     	@SuppressWarnings("unchecked")
         public void set(T target, String variable, Object value)
@@ -192,6 +245,9 @@ public abstract class APredictionResult extends GlobalAttributed
                 else if (variable.equals(nameVAR)) {
                     target.name = (String) value;
                 }
+                else if (variable.equals(dependenciesVAR)) {
+                    target.dependencies = (ResultDependencies) value;
+                }
             }
         }
 
@@ -234,6 +290,14 @@ public abstract class APredictionResult extends GlobalAttributed
 
     public static void registerLoader()
     {
+        // Version 0 always holds trace and error lines inline
+        ObjectLoader.registerLoader(APredictionResult.class.getName(),
+                                    0,
+                                    LOADER);
+        // Version 1 has no dependencies
+        ObjectLoader.registerLoader(APredictionResult.class.getName(),
+                                    1,
+                                    LOADER);
         ObjectLoader.registerLoader(APredictionResult.class.getName(),
                                     edu_cmu_cs_hcii_cogtool_model_APredictionResult_version,
                                     LOADER);
@@ -327,6 +391,37 @@ public abstract class APredictionResult extends GlobalAttributed
         return true;
     }
 
+    /**
+     * What the computation of this result depended upon, or
+     * <code>null</code> if not recorded (e.g., for results computed before
+     * dependencies were recorded, or for imported results).
+     */
+    public ResultDependencies getDependencies()
+    {
+        return dependencies;
+    }
+
+    public void setDependencies(ResultDependencies deps)
+    {
+        dependencies = deps;
+    }
+
+    /**
+     * Whether this result was computed and what it depended upon has since
+     * changed; see ResultDependencies.isStale.
+     */
+    public boolean isStale()
+    {
+        if ((resultState != IS_COMPUTED) || (dependencies == null)) {
+            return false;
+        }
+
+        Demonstration demo = script.getDemonstration();
+
+        return demo.isObsolete() ||
+               dependencies.isStale(demo.getTaskApplication().getDesign());
+    }
+
     protected void copyState(TaskApplication ta, APredictionResult fromResult)
     {
         script = ta.getScript(fromResult.getScript().getModelGenerator());
@@ -336,6 +431,10 @@ public abstract class APredictionResult extends GlobalAttributed
         modelSteps = fromResult.getModelSteps();
         resultState = fromResult.getResultState();
         name = fromResult.getName();
+
+        if (fromResult.getDependencies() != null) {
+            dependencies = new ResultDependencies(fromResult.getDependencies());
+        }
     }
 
     /**
@@ -222,9 +222,12 @@ public class CachedGoogleSimilarity extends CachedTermSimilarity
     protected IWordFrequencyParser getWordFreqParser(String word,
                                                      List<String> errors)
     {
-        GoogleSimilarity.termFreqParser.reset(word, errors, site);
+        GoogleSimilarity.ProcessTermFrequency termFreqParser =
+            new GoogleSimilarity.ProcessTermFrequency();
 
-        return GoogleSimilarity.termFreqParser;
+        termFreqParser.reset(word, errors, site);
+
+        return termFreqParser;
     } // getWordFreqParser
 
     protected static final String COMMON_WORD = "the";
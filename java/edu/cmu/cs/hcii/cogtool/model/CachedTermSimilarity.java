@@ -92,11 +92,16 @@
 package edu.cmu.cs.hcii.cogtool.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -105,6 +110,7 @@ import edu.cmu.cs.hcii.cogtool.util.FetchURLUtil;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+import edu.cmu.cs.hcii.cogtool.util.URLFetcher;
 
 //The names of classes and interfaces around this are terrible, but we can't
 //change them without breaking old .cgt files, since our persistence
@@ -124,6 +130,10 @@ import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
  * word in term (caching the results), determines a relationship value for
  * pairs of words (caching the results), and, using those frequencies and
  * values, determines a similarity measure.
+ * <p>
+ * Several threads may determine similarities with the same instance; while
+ * doing so the caches are only touched holding the instance's lock, and
+ * each fetch gets its own URL processor, so fetches proceed concurrently.
  */
 public abstract class CachedTermSimilarity implements ITermSimilarity
 {
@@ -218,8 +228,6 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
 
         protected WordPair() { } // for loading
 
-        public static final WordPair SEARCH_KEY = new WordPair("", "");
-
         public String goalWord;
         public String searchWord;
 
@@ -311,21 +319,25 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
 
         word = word.toLowerCase();
 
-        if (frequencyTable.containsKey(word)) {
-            Object frequency = frequencyTable.get(word);
+        synchronized (this) {
+            if (frequencyTable.containsKey(word)) {
+                Object frequency = frequencyTable.get(word);
 
-            if (frequency != null) {
-                return ((Long) frequency).longValue();
-            }
+                if (frequency != null) {
+                    return ((Long) frequency).longValue();
+                }
 
-            throw new IllegalStateException("Frequency table contains a null frequency for word: "
-                                                + word);
+                throw new IllegalStateException("Frequency table contains a null frequency for word: "
+                                                    + word);
+            }
         }
 
         Long frequency = fetchWordFrequency(word, errors);
 
         if (frequency != null) {
-            frequencyTable.put(word, frequency);
+            synchronized (this) {
+                frequencyTable.put(word, frequency);
+            }
 
             return frequency.longValue();
         }
@@ -334,6 +346,84 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
     } // getWordFrequency
 
     private static final Pattern SPLITTER = Pattern.compile("\\s+");
+
+    /**
+     * Fetch at once the frequencies of every given word the frequency cache
+     * does not yet know, so the lookups that follow find them cached rather
+     * than waiting for each fetch in turn.  Problems are added to the given
+     * errors, if not <code>null</code>.  Returns the words (in lower case)
+     * whose fetch failed or was canceled, which the caller should not
+     * fetch again: each fetch already made all its retries.
+     */
+    protected Set<String> prefetchWordFrequencies(String[] words,
+                                                  List<String> errors,
+                                                  ITermSimilarity.Continuable cont)
+    {
+        Set<String> unknown = new LinkedHashSet<String>();
+        Set<String> failed = new HashSet<String>();
+
+        synchronized (this) {
+            for (String word : words) {
+                String key = word.toLowerCase();
+
+                if (! frequencyTable.containsKey(key)) {
+                    unknown.add(key);
+                }
+            }
+        }
+
+        if (unknown.size() < 2) {
+            return failed;
+        }
+
+        // The fetches report their problems from the fetcher's threads
+        List<String> fetchErrors =
+            (errors != null)
+                ? Collections.synchronizedList(new ArrayList<String>())
+                : null;
+        Map<String, IWordFrequencyParser> parsers =
+            new LinkedHashMap<String, IWordFrequencyParser>();
+        Map<String, Future<Boolean>> fetches =
+            new LinkedHashMap<String, Future<Boolean>>();
+
+        for (String word : unknown) {
+            IWordFrequencyParser parser = getWordFreqParser(word, fetchErrors);
+
+            if (parser != null) {
+                parsers.put(word, parser);
+                fetches.put(word, URLFetcher.ONLY.process(parser));
+            }
+        }
+
+        for (Map.Entry<String, Future<Boolean>> fetch : fetches.entrySet()) {
+            String word = fetch.getKey();
+
+            if (! cont.isContinuing()) {
+                fetch.getValue().cancel(false);
+                failed.add(word);
+            }
+            else if (FetchURLUtil.awaitProcessed(fetch.getValue())) {
+                long frequency = parsers.get(word).getWordFrequency();
+
+                synchronized (this) {
+                    frequencyTable.put(word,
+                                       (frequency == 0) ? ZERO_FREQUENCY
+                                                        : new Long(frequency));
+                }
+            }
+            else {
+                failed.add(word);
+            }
+        }
+
+        if (errors != null) {
+            synchronized (fetchErrors) {
+                errors.addAll(fetchErrors);
+            }
+        }
+
+        return failed;
+    } // prefetchWordFrequencies
     
     /**
      * Break term into words, fetch each word's frequency, use replacements
@@ -347,13 +437,34 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
         String[] words = SPLITTER.split(term);
         List<String> nonzeroWords = new ArrayList<String>();
 
+        Set<String> failed = prefetchWordFrequencies(words, errors, cont);
+
         for (String word : words) {
-            if (getWordFrequency(word, errors) > 0) {
+            List<String> replacement = null;
+            boolean seenBefore = false;
+            long frequency =
+                failed.contains(word.toLowerCase())
+                    ? 0
+                    : getWordFrequency(word, errors);
+
+            if (frequency > 0) {
                 nonzeroWords.add(word);
             }
-            else if (zeroFreqTerms.containsKey(word)) {
-                List<String> replacement = zeroFreqTerms.get(word);
+            else {
+                synchronized (this) {
+                    seenBefore = zeroFreqTerms.containsKey(word);
 
+                    if (seenBefore) {
+                        replacement = zeroFreqTerms.get(word);
+                    }
+                    else {
+                        // First time seeing this zero freq word; insert and "return what????"
+                        zeroFreqTerms.put(word, null);
+                    }
+                }
+            }
+
+            if (seenBefore) {
                 if (replacement != null) {
                     Iterator<String> others = replacement.iterator();
 
@@ -372,10 +483,6 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
                     // TODO: return what???? "inform crawlWebsite() to reinsert link into queue"
                 }
             }
-            else {
-                // First time seeing this zero freq word; insert and "return what????"
-                zeroFreqTerms.put(word, null);
-            }
             if (! cont.isContinuing()) {
                 return null;
             }
@@ -437,19 +544,20 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
             return UNKNOWN;
         }
 
-        WordPair.SEARCH_KEY.goalWord = goalWord.toLowerCase();
-        WordPair.SEARCH_KEY.searchWord = searchWord.toLowerCase();
+        WordPair searchKey = new WordPair(goalWord.toLowerCase(),
+                                          searchWord.toLowerCase());
 
-        if (similarityTable.containsKey(WordPair.SEARCH_KEY)) {
-            Double cachedSimilarity =
-                similarityTable.get(WordPair.SEARCH_KEY);
+        synchronized (this) {
+            if (similarityTable.containsKey(searchKey)) {
+                Double cachedSimilarity = similarityTable.get(searchKey);
 
-            if (cachedSimilarity != null) {
-                return cachedSimilarity.doubleValue();
-            }
+                if (cachedSimilarity != null) {
+                    return cachedSimilarity.doubleValue();
+                }
 
-            throw new IllegalStateException("Similarity table contains a null similarity for pair: "
-                                               + goalWord + ", " + searchWord);
+                throw new IllegalStateException("Similarity table contains a null similarity for pair: "
+                                                   + goalWord + ", " + searchWord);
+            }
         }
 
         Double similarity = fetchWordSimilarity(goalWord, searchWord, errors);
@@ -457,7 +565,9 @@ public abstract class CachedTermSimilarity implements ITermSimilarity
         if (similarity != null) {
             WordPair newEntry = new WordPair(goalWord, searchWord);
 
-            similarityTable.put(newEntry, similarity);
+            synchronized (this) {
+                similarityTable.put(newEntry, similarity);
+            }
 
             return similarity.doubleValue();
         }
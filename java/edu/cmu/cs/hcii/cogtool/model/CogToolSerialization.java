@@ -207,12 +207,22 @@ public class CogToolSerialization
         ACTR6PredictionAlgo.registerLoader();
         HumanDataAlgo.registerSaver();
         HumanDataAlgo.registerLoader();
+        KLMPredictionAlgo.registerSaver();
+        KLMPredictionAlgo.registerLoader();
         APredictionResult.registerSaver();
         APredictionResult.registerLoader();
         TimePredictionResult.registerSaver();
         TimePredictionResult.registerLoader();
         TimeDistributionPredictionResult.registerSaver();
         TimeDistributionPredictionResult.registerLoader();
+        RunStatistics.registerSaver();
+        RunStatistics.registerLoader();
+        HumanTrace.registerSaver();
+        HumanTrace.registerLoader();
+        HumanDataResult.registerSaver();
+        HumanDataResult.registerLoader();
+        ResultDependencies.registerSaver();
+        ResultDependencies.registerLoader();
         ResultStep.registerSaver();
         ResultStep.registerLoader();
         Demonstration.registerSaver();
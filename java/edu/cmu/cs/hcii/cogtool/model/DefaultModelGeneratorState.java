@@ -421,6 +421,33 @@ public class DefaultModelGeneratorState
                stateUsesWidget(getLastMovedToWidget(), widget);
     }
 
+    /**
+     * Determines whether the given state would drive the model generator
+     * exactly as this state would; that is, whether every generator-relevant
+     * value other than the associated script step matches.  Used to detect
+     * when regenerating script steps after a demonstration edit has
+     * converged back onto the previously generated step states.
+     */
+    public boolean isEquivalent(DefaultModelGeneratorState otherState)
+    {
+        if (otherState == this) {
+            return true;
+        }
+
+        if ((otherState == null) || (otherState.getClass() != getClass())) {
+            return false;
+        }
+
+        return (mouseHand == otherState.mouseHand) &&
+               (rightHandLoc == otherState.rightHandLoc) &&
+               (leftHandLoc == otherState.leftHandLoc) &&
+               (lastClickedWidget == otherState.lastClickedWidget) &&
+               (lastMovedToWidget == otherState.lastMovedToWidget) &&
+               (lastLookedAtWidget == otherState.lastLookedAtWidget) &&
+               (lastIsMental == otherState.lastIsMental) &&
+               (modifiers == otherState.modifiers);
+    }
+
     protected DefaultModelGeneratorState createInstance(AScriptStep forWhichStep)
     {
         return new DefaultModelGeneratorState(forWhichStep);
@@ -102,6 +102,7 @@ import java.util.Set;
 import edu.cmu.cs.hcii.cogtool.util.GlobalAttributed;
 import edu.cmu.cs.hcii.cogtool.util.NameChangeAlert;
 import edu.cmu.cs.hcii.cogtool.util.NamedObject;
+import edu.cmu.cs.hcii.cogtool.util.NamedObjectUtil;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
 
@@ -119,18 +120,37 @@ public class Design extends GlobalAttributed implements NamedObject
      */
     public static final String COPY_ENTIRE_DESIGN = "EntireDesign";
 
-    public static final int edu_cmu_cs_hcii_cogtool_model_Design_version = 0;
+    /**
+     * Version number
+     * 0 is initial version
+     * 1 is the version which supports design variants (see createVariant)
+     */
+    public static final int edu_cmu_cs_hcii_cogtool_model_Design_version = 1;
 
     public static final String nameVAR = "name";
     public static final String deviceTypesVAR = "deviceTypes";
     public static final String framesVAR = "frames";
     public static final String skinVAR = "skin";
+    public static final String baseDesignVAR = "baseDesign";
 
     protected String name;
     protected Set<DeviceType> deviceTypes;
     protected Set<Frame> frames = new LinkedHashSet<Frame>();
+
+    /**
+     * Index of the frames by name; see getFrame.
+     */
+    protected NamedObjectUtil.NameIndex<Frame> frameNames =
+        new NamedObjectUtil.NameIndex<Frame>(frames);
     protected SkinType skin = SkinType.WireFrame;
 
+    /**
+     * The design this design was created as a variant of, if any; when
+     * saved, frames identical to the base design's are stored as
+     * references to them (see FrameSharing).
+     */
+    protected Design baseDesign = null;
+
     private static ObjectSaver.IDataSaver<Design> SAVER =
         new ObjectSaver.ADataSaver<Design>() {
             @Override
@@ -146,6 +166,14 @@ public class Design extends GlobalAttributed implements NamedObject
                 saver.saveString(v.name, nameVAR);
                 saver.saveObject(v.deviceTypes, deviceTypesVAR);
                 saver.saveObject(v.skin, skinVAR);
+
+                // The base design must be saved before the frames that
+                // may refer to its frames; it is relevant only when
+                // saving the project.
+                if (saver.getPurpose() == Project.FILE_PERSISTENCE) {
+                    saver.saveObject(v.baseDesign, baseDesignVAR);
+                }
+
                 saver.saveObject(v.frames, framesVAR);
             }
         };
@@ -179,6 +207,9 @@ public class Design extends GlobalAttributed implements NamedObject
                     else if (variable.equals(deviceTypesVAR)) {
                         target.deviceTypes = (Set<DeviceType>) value;
                     }
+                    else if (variable.equals(baseDesignVAR)) {
+                        target.baseDesign = (Design) value;
+                    }
                     else if (variable.equals(skinVAR)) {
                         SkinType designSkin = (SkinType) value;
 
@@ -250,6 +281,7 @@ public class Design extends GlobalAttributed implements NamedObject
                             Object parent = l.getPendingObject(1);
 
                             ((Frame) v).setDesign((Design) parent);
+                            ((Design) parent).frameNames.invalidate();
                         }
                     };
                 }
@@ -286,6 +318,10 @@ public class Design extends GlobalAttributed implements NamedObject
             @Override
             public void evolve(Design target)
             {
+                if (target.baseDesign != null) {
+                    FrameSharing.relinkVariant(target);
+                }
+
                 Iterator<Frame> frames = target.getFrames().iterator();
 
                 while (frames.hasNext()) {
@@ -302,6 +338,10 @@ public class Design extends GlobalAttributed implements NamedObject
         ObjectLoader.registerLoader(Design.class.getName(),
                                     edu_cmu_cs_hcii_cogtool_model_Design_version,
                                     LOADER);
+
+        ObjectLoader.registerLoader(Design.class.getName(),
+                                    0,
+                                    LOADER);
     }
 
     /**
@@ -431,17 +471,16 @@ public class Design extends GlobalAttributed implements NamedObject
      */
     public Frame getFrame(String frameName)
     {
-        Iterator<Frame> frameIterator = frames.iterator();
-
-        while (frameIterator.hasNext()) {
-            Frame testFrame = frameIterator.next();
-
-            if ((testFrame.getName()).equals(frameName)) {
-                return testFrame;
-            }
-        }
+        return frameNames.get(frameName);
+    }
 
-        return null;
+    /**
+     * Keep the frame name index current when a frame of this design
+     * is renamed; invoked by <code>Frame.setName</code>.
+     */
+    public void frameRenamed(Frame frame)
+    {
+        frameNames.renamed(frame);
     }
 
     /**
@@ -472,6 +511,7 @@ public class Design extends GlobalAttributed implements NamedObject
         // Must check for Frame name uniqueness
         if (getFrame(newFrame.getName()) == null) {
             frames.add(newFrame);
+            frameNames.added(newFrame);
             newFrame.setDesign(this);
 
             raiseAlert(new Design.FrameChange(this, newFrame, true));
@@ -509,6 +549,7 @@ public class Design extends GlobalAttributed implements NamedObject
 
         for (i = 0; i < newFrames.length; i++) {
             frames.add(newFrames[i]);
+            frameNames.added(newFrames[i]);
             newFrames[i].setDesign(this);
         }
 
@@ -551,6 +592,7 @@ public class Design extends GlobalAttributed implements NamedObject
     public boolean removeFrame(Frame frameToRemove)
     {
         if (frames.remove(frameToRemove)) {
+            frameNames.removed(frameToRemove);
             frameToRemove.removeIncidentTransitions();
 
             raiseAlert(new Design.FrameChange(this, frameToRemove, false));
@@ -567,6 +609,7 @@ public class Design extends GlobalAttributed implements NamedObject
 
         for (Frame element : framesToRemove) {
             if (frames.remove(element)) {
+                frameNames.removed(element);
                 element.removeIncidentTransitions();
 
                 raiseAlert(new Design.FrameChange(this, element, false));
@@ -718,6 +761,40 @@ public class Design extends GlobalAttributed implements NamedObject
         return designCopy;
     }
 
+    /**
+     * Create a variant of this design: a "deep" copy that records this
+     * design as its base.  The variant may be edited independently;
+     * when saved, only the frames that differ from this design's
+     * are stored in full.
+     * <p>
+     * It is the responsibility of the caller to "place" the variant
+     * (usually by adding it to an Project).
+     *
+     * @param newName  the name of the resulting variant
+     * @return the design variant
+     */
+    public Design createVariant(String newName)
+    {
+        Design variant = duplicate(newName);
+
+        variant.baseDesign = this;
+
+        return variant;
+    }
+
+    /**
+     * Fetch the design this design was created as a variant of, if any.
+     */
+    public Design getBaseDesign()
+    {
+        return baseDesign;
+    }
+
+    public void setBaseDesign(Design newBaseDesign)
+    {
+        baseDesign = newBaseDesign;
+    }
+
     public SkinType getSkin()
     {
         return skin;
@@ -109,8 +109,10 @@ import java.util.Set;
 import edu.cmu.cs.hcii.cogtool.util.DuplicateNameException;
 import edu.cmu.cs.hcii.cogtool.util.GlobalAttributed;
 import edu.cmu.cs.hcii.cogtool.util.GraphicsUtil;
+import edu.cmu.cs.hcii.cogtool.util.ImageStore;
 import edu.cmu.cs.hcii.cogtool.util.NameChangeAlert;
 import edu.cmu.cs.hcii.cogtool.util.NamedObject;
+import edu.cmu.cs.hcii.cogtool.util.NamedObjectUtil;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
@@ -128,8 +130,10 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
      * 1 is the version which supports backgroundBounds.
      *      New loader required for migration.
      *      Does an image load/dispose to get image size.
+     * 2 is the version which supports saving a frame of a design variant
+     *      as a reference to the identical frame of its base design.
      */
-    public static final int edu_cmu_cs_hcii_cogtool_model_Frame_version = 1;
+    public static final int edu_cmu_cs_hcii_cogtool_model_Frame_version = 2;
 
     public static final String nameVAR = "name";
     public static final String widgetColorVAR = "widgetColor";
@@ -142,6 +146,17 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
     public static final String incidentTransitionsVAR = "incidentTransitions";
     public static final String listenTimeVAR = "listenTimeInSecs";
     public static final String speakerTextVAR = "speakerText";
+    public static final String baseFrameVAR = "baseFrame";
+    public static final String sharedIdsVAR = "sharedIds";
+
+    /**
+     * The reduction factors of the persisted thumbnails of the background
+     * image, from largest thumbnail to smallest; see getThumbnail.
+     */
+    public static final int[] THUMBNAIL_FACTORS = { 4, 8, 16 };
+
+    public static final String[] thumbnailVARS =
+        { "thumbnail4", "thumbnail8", "thumbnail16" };
 
     /**
      * The containing design
@@ -158,6 +173,12 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
      */
     protected Set<IWidget> widgets = new LinkedHashSet<IWidget>();
 
+    /**
+     * Index of the widgets by name; see getWidget.
+     */
+    protected NamedObjectUtil.NameIndex<IWidget> widgetNames =
+        new NamedObjectUtil.NameIndex<IWidget>(widgets);
+
     /**
      * The set of element groups in a frame.
      */
@@ -189,6 +210,13 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
      */
     protected DoubleRectangle backgroundBounds = null;
 
+    /**
+     * Reduced copies of the background image, one per entry of
+     * THUMBNAIL_FACTORS; an entry is null until it has been generated.
+     * Discarded whenever the background image changes.
+     */
+    protected byte[][] thumbnails = new byte[THUMBNAIL_FACTORS.length][];
+
     /**
      * The set of INCOMING transitions.
      */
@@ -214,6 +242,14 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
     // The alerter event object for speaker changes
     protected Frame.SpeakerChange speakerChgEvent = new Frame.SpeakerChange(this);
 
+    /**
+     * While loading a frame that was saved as a reference to the identical
+     * frame of its design's base design, that base frame and the ids
+     * reserved for the frame's elements; see FrameSharing.
+     */
+    protected Frame loadedBaseFrame = null;
+    protected int[] loadedSharedIds = null;
+
     /**
      * Constants for supporting cut/copy clipboard modes;
      * these will ultimately be used for the purpose in the ObjectSaver.
@@ -237,6 +273,9 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
      * origin
      * background
      * incident transitions.
+     * A frame of a design variant that is identical to the corresponding
+     * frame of the base design saves only its name, that base frame, and
+     * the ids reserved for its elements (see FrameSharing).
      */
     private static ObjectSaver.IDataSaver<Frame> SAVER =
         new ObjectSaver.ADataSaver<Frame>() {
@@ -251,6 +290,20 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                 throws IOException
             {
                 saver.saveString(v.name, nameVAR);
+
+                Frame baseFrame = FrameSharing.getSharedBaseFrame(v, saver);
+
+                if (baseFrame != null) {
+                    int[] sharedIds =
+                        FrameSharing.reserveIds(saver, baseFrame, v);
+
+                    if (sharedIds != null) {
+                        saver.saveObject(baseFrame, baseFrameVAR);
+                        saver.saveObject(sharedIds, sharedIdsVAR);
+                        return;
+                    }
+                }
+
                 saver.saveInt(v.widgetColor, widgetColorVAR);
                 saver.saveObject(v.widgets, widgetsVAR);
                 saver.saveObject(v.eltGroups, eltGroupsVAR);
@@ -258,14 +311,22 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                 saver.saveObject(v.origin, originVAR);
                 saver.saveObject(v.background, backgroundVAR);
                 saver.saveObject(v.backgroundBounds, backgroundBoundsVAR);
+
+                for (int i = 0; i < thumbnailVARS.length; i++) {
+                    saver.saveObject(v.thumbnails[i], thumbnailVARS[i]);
+                }
+
                 saver.saveDouble(v.listenTimeInSecs, listenTimeVAR);
                 saver.saveString(v.speakerText, speakerTextVAR);
 
                 Object purpose = saver.getPurpose();
 
                 // If copying only selected frames to the clipboard,
-                // do not save incident transitions
-                if (purpose == Frame.COPY_FRAME_ONLY) {
+                // do not save incident transitions; those of a design
+                // variant's frames are rebuilt when the variant is loaded.
+                if ((purpose == Frame.COPY_FRAME_ONLY) ||
+                    FrameSharing.isVariantFrame(v, saver))
+                {
                     saver.saveObject(new HashSet<Transition>(),
                                      incidentTransitionsVAR);
                 }
@@ -313,7 +374,7 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                     target.origin = (DoublePoint) value;
                 }
                 else if (variable.equals(backgroundVAR)) {
-                    target.background = (byte[]) value;
+                    target.background = ImageStore.intern((byte[]) value);
                 }
                 else if (variable.equals(backgroundBoundsVAR)) {
                     target.backgroundBounds = (DoubleRectangle) value;
@@ -321,6 +382,20 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                 else if (variable.equals(speakerTextVAR)) {
                     target.speakerText = (String) value;
                 }
+                else if (variable.equals(baseFrameVAR)) {
+                    target.loadedBaseFrame = (Frame) value;
+                }
+                else if (variable.equals(sharedIdsVAR)) {
+                    target.loadedSharedIds = (int[]) value;
+                }
+                else {
+                    for (int i = 0; i < thumbnailVARS.length; i++) {
+                        if (variable.equals(thumbnailVARS[i])) {
+                            target.thumbnails[i] =
+                                ImageStore.intern((byte[]) value);
+                        }
+                    }
+                }
             }
         }
 
@@ -402,6 +477,7 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                         Object parent = l.getPendingObject(1);
 
                         ((IWidget) v).setFrame((Frame) parent);
+                        ((Frame) parent).widgetNames.invalidate();
                     }
                 };
             }
@@ -426,6 +502,35 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
 
             return super.getLoader(variable);
         }
+
+        @Override
+        public Class<?> getArrayEltType(String variable, String className)
+        {
+            if (sharedIdsVAR.equals(variable)) {
+                return Integer.TYPE;
+            }
+
+            return super.getArrayEltType(variable, className);
+        }
+
+        /**
+         * Reconstitute a frame saved as a reference to its base frame.
+         */
+        @Override
+        public void evolve(ObjectLoader l, Frame target)
+        {
+            if (target.loadedBaseFrame != null) {
+                FrameSharing.materialize(l,
+                                         target,
+                                         target.loadedBaseFrame,
+                                         target.loadedSharedIds);
+
+                target.loadedBaseFrame = null;
+                target.loadedSharedIds = null;
+            }
+
+            super.evolve(l, target);
+        }
     }
 
     private static ObjectLoader.IObjectLoader<Frame> LOADER = new FrameLoader();
@@ -469,6 +574,10 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
                                     0,
                                     frameLoaderV0);
 
+        ObjectLoader.registerLoader(Frame.class.getName(),
+                                    1,
+                                    LOADER);
+
         ObjectLoader.registerLoader(Frame.class.getName(),
                                     edu_cmu_cs_hcii_cogtool_model_Frame_version,
                                     LOADER);
@@ -588,6 +697,10 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
 
         name = newName;
 
+        if (design != null) {
+            design.frameRenamed(this);
+        }
+
         raiseAlert(new NameChangeAlert(this));
     }
 
@@ -737,14 +850,79 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
 
     public void setBackgroundImage(byte[] img, DoubleRectangle bounds)
     {
+        // Frames showing identical images share the image data
+        img = ImageStore.intern(img);
+
         if (img != background) {
             background = img;
             backgroundBounds = bounds;
+            thumbnails = new byte[THUMBNAIL_FACTORS.length][];
             raiseAlert(new Frame.BackgroundImageChange(this,
                                                  Frame.BackgroundImageChange.IMAGE_CONTENT_CHANGE));
         }
     }
 
+    /**
+     * Return the thumbnail of the background image for the given index
+     * into THUMBNAIL_FACTORS; the thumbnail is smaller than the background
+     * image by that factor in each dimension.
+     *
+     * @param index which thumbnail level to fetch
+     * @return the thumbnail image data, or null if there is no background
+     *         image or the thumbnail has not (yet) been generated
+     */
+
+    public byte[] getThumbnail(int index)
+    {
+        return thumbnails[index];
+    }
+
+    /**
+     * Whether every thumbnail level of the background image is available.
+     * Always true if there is no background image.
+     */
+
+    public boolean hasThumbnails()
+    {
+        if (background != null) {
+            for (byte[] thumbnail : thumbnails) {
+                if (thumbnail == null) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Set the thumbnails of the background image, one per entry of
+     * THUMBNAIL_FACTORS.  Since thumbnails are generated in the
+     * background, the image they were computed from is passed as well;
+     * if the frame's background image has changed since, the thumbnails
+     * are stale and are ignored.
+     * <p>
+     * Thumbnails are derived data and are not undoable.
+     * When done, registered alert handlers are notified with
+     * a <code>ThumbnailChange</code> instance.
+     *
+     * @param srcImage the background image the thumbnails were computed from
+     * @param levels the thumbnail image data for each level
+     */
+
+    public void setThumbnails(byte[] srcImage, byte[][] levels)
+    {
+        if ((srcImage == null) || (srcImage != background)) {
+            return;
+        }
+
+        for (int i = 0; i < thumbnails.length; i++) {
+            thumbnails[i] = ImageStore.intern(levels[i]);
+        }
+
+        raiseAlert(new Frame.ThumbnailChange(this));
+    }
+
     /**
      * Get the background's bounds
      * Can be null if the background image is null.
@@ -843,12 +1021,17 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
 
     public IWidget getWidget(String widgetName)
     {
-        for (IWidget testWidget : widgets) {
-            if (testWidget.getName().equals(widgetName)) {
-                return testWidget;
-            }
-        }
-        return null;
+        return widgetNames.get(widgetName);
+    }
+
+    /**
+     * Keep the widget name index current when a widget of this frame
+     * is renamed; invoked by <code>Widget.setName</code>.
+     */
+
+    public void widgetRenamed(IWidget widget)
+    {
+        widgetNames.renamed(widget);
     }
 
     /**
@@ -893,6 +1076,7 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
         newWidget.setLevel(newLevel);
 
         widgets.add(newWidget);
+        widgetNames.added(newWidget);
 
         // Set the frame parent for this widget.
         newWidget.setFrame(this);
@@ -942,6 +1126,7 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
         setWidgetLevel(Integer.MAX_VALUE, widgetToRemove);
 
         if (widgets.remove(widgetToRemove)) {
+            widgetNames.removed(widgetToRemove);
             raiseAlert(new Frame.WidgetChange(this,
                                         widgetToRemove,
                                         Frame.WidgetChange.ELEMENT_DELETE));
@@ -1518,6 +1703,20 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
         }
     }
 
+    /**
+     * Event to indicate that the thumbnails of a frame's background image
+     * have become available.
+     */
+    public static class ThumbnailChange extends EventObject
+    {
+        private static final long serialVersionUID = 1L;
+
+        public ThumbnailChange(Frame frame)
+        {
+            super(frame);
+        }
+    }
+
     /**
      * Event to indicate that the origin of a frame has changed.
      * The old origin is included in the message,
@@ -1834,6 +2033,7 @@ public class Frame extends GlobalAttributed implements NamedObject, Cloneable
         // Adjust properties
         frameCopy.setFrameOrigin(origin);
         frameCopy.setBackgroundImage(background, backgroundBounds);
+        frameCopy.thumbnails = thumbnails.clone();
         frameCopy.setWidgetColor(widgetColor);
         frameCopy.setSpeakerText(speakerText);
         frameCopy.setListenTimeInSecs(listenTimeInSecs);
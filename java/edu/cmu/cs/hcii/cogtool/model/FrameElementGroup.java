@@ -94,6 +94,7 @@ package edu.cmu.cs.hcii.cogtool.model;
 import java.util.EventObject;
 import java.util.Iterator;
 
+import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
 
@@ -105,6 +106,8 @@ public class FrameElementGroup extends Association<FrameElement>
          * The different types of changes
          */
         public static final int AUXILIARY = 1;
+        public static final int MEMBERSHIP = 2;
+        public static final int NAME = 3;
 
         protected int type;
 
@@ -190,6 +193,8 @@ public class FrameElementGroup extends Association<FrameElement>
         // and does *not* perform the addToAssociation call.
         members.add(index, elt);
         elt.addToEltGroup(this);
+
+        raiseAlert(new FrameElementGroup.GroupChange(this, FrameElementGroup.GroupChange.MEMBERSHIP));
     }
 
     @Override
@@ -198,12 +203,23 @@ public class FrameElementGroup extends Association<FrameElement>
         if (super.remove(elt)) {
             elt.removeFromEltGroup(this);
 
+            raiseAlert(new FrameElementGroup.GroupChange(this, FrameElementGroup.GroupChange.MEMBERSHIP));
+
             return true;
         }
 
         return false;
     }
 
+    @Override
+    public void setName(String newName)
+    {
+        if (! NullSafe.equals(getName(), newName)) {
+            super.setName(newName);
+            raiseAlert(new FrameElementGroup.GroupChange(this, FrameElementGroup.GroupChange.NAME));
+        }
+    }
+
     @Override
     public DoubleRectangle getGroupBounds()
     {
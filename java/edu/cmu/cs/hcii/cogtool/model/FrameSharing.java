@@ -0,0 +1,606 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import edu.cmu.cs.hcii.cogtool.util.ImageStore;
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Support for the persistence of design variants (see
+ * Design.createVariant).  When a variant is saved, each of its frames that
+ * is still identical to the same-named frame of its base design is saved
+ * as a reference to that base frame instead of as a full copy; only the
+ * frames the variant has changed are written out.
+ * <p>
+ * A frame saved this way is reconstituted by duplicating the base frame
+ * once it has been loaded.  So that other objects in the serialization
+ * (such as script steps) may refer to the frame's widgets, devices,
+ * transitions, and groups, the saver reserves an id for each of them;
+ * the loader registers the corresponding element of the duplicate under
+ * that id.  Elements are enumerated in an order determined by the base
+ * frame alone (see getSharedElements) so that both sides agree.
+ * <p>
+ * Because the incident transitions of such a frame are not saved, the
+ * incident transitions of all the frames of a variant are rebuilt when the
+ * variant is loaded (see relinkVariant).
+ */
+public class FrameSharing
+{
+    /**
+     * Serializes a frame completely except for references to other frames
+     * (recorded by name only, since a variant's frames correspond to its
+     * base's frames by name), to its design, and to the transitions
+     * incident upon it.  Images are recorded by their ImageStore
+     * identifier, so that the comparison of two frames never compares
+     * image bytes.
+     * <p>
+     * The serialization is done as for copying an entire design, so that
+     * the transitions emanating from the frame are included.
+     */
+    protected static class FingerprintSaver extends ObjectSaver
+    {
+        protected Object root;
+
+        public FingerprintSaver(StringWriter sink, Object rootObject)
+            throws IOException
+        {
+            super(sink, Design.COPY_ENTIRE_DESIGN);
+
+            root = rootObject;
+        }
+
+        @Override
+        public <T> void saveObject(T value, String variable)
+            throws IOException
+        {
+            if (Frame.incidentTransitionsVAR.equals(variable)) {
+                return;
+            }
+
+            if ((value instanceof Frame) && (value != root)) {
+                saveString(((Frame) value).getName(), variable);
+            }
+            else if (value instanceof Design) {
+                saveString("", variable);
+            }
+            else if (value instanceof byte[]) {
+                saveInt(ImageStore.getId((byte[]) value), variable);
+            }
+            else {
+                super.saveObject(value, variable);
+            }
+        }
+    }
+
+    /**
+     * The fingerprints of the frames whose changes are tracked (see
+     * trackChanges); a frame maps to <code>null</code> until its
+     * fingerprint is computed and again after each change to it.  Only
+     * tracked frames are cached, since the fingerprint of any other frame
+     * could be out of date.
+     */
+    protected static Map<Frame, String> frameFingerprints =
+        new WeakHashMap<Frame, String>();
+
+    private FrameSharing() { }
+
+    /**
+     * Notes that every change to the given frame that could alter its
+     * fingerprint (including changes to its widgets, devices and their
+     * transitions, its element groups' names, text, members and
+     * attributes, and the renaming of other frames of its design) will be
+     * reported through noteChange, so that its fingerprint may be cached.
+     */
+    public static synchronized void trackChanges(Frame frame)
+    {
+        if (! frameFingerprints.containsKey(frame)) {
+            frameFingerprints.put(frame, null);
+        }
+    }
+
+    /**
+     * Notes that the given frame's changes are no longer reported.
+     */
+    public static synchronized void stopTracking(Frame frame)
+    {
+        frameFingerprints.remove(frame);
+    }
+
+    /**
+     * Forgets the cached fingerprint of the given frame, which has changed.
+     */
+    public static synchronized void noteChange(Frame frame)
+    {
+        if (frameFingerprints.containsKey(frame)) {
+            frameFingerprints.put(frame, null);
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the given frame, cached if its changes are
+     * tracked.
+     */
+    protected static synchronized String getFrameFingerprint(Frame frame)
+    {
+        String fingerprint = frameFingerprints.get(frame);
+
+        if (fingerprint == null) {
+            fingerprint = getFingerprint(frame);
+
+            if (frameFingerprints.containsKey(frame)) {
+                frameFingerprints.put(frame, fingerprint);
+            }
+        }
+
+        return fingerprint;
+    }
+
+    /**
+     * Returns the serialization used to compare the given object (a frame
+     * or an element of one) with its counterpart in another design.
+     */
+    protected static String getFingerprint(Object value)
+    {
+        StringWriter sink = new StringWriter();
+
+        try {
+            ObjectSaver saver = new FingerprintSaver(sink, value);
+
+            saver.saveObject(value);
+            saver.finish();
+        }
+        catch (IOException e) {
+            // StringWriter does not throw
+            throw new IllegalStateException("Frame comparison failed", e);
+        }
+
+        return sink.toString();
+    }
+
+    /**
+     * Whether the given frame belongs to a design variant being saved to a
+     * file, in which case its incident transitions are not saved.
+     */
+    public static boolean isVariantFrame(Frame frame, ObjectSaver saver)
+    {
+        Design design = frame.getDesign();
+
+        return (saver.getPurpose() == Project.FILE_PERSISTENCE) &&
+               (design != null) &&
+               (design.getBaseDesign() != null);
+    }
+
+    /**
+     * If the given frame belongs to a design variant being saved to a file
+     * and is identical to the same-named frame of the variant's base
+     * design, returns that base frame.  Otherwise, returns
+     * <code>null</code>, in which case the frame should be saved in full.
+     */
+    public static Frame getSharedBaseFrame(Frame frame, ObjectSaver saver)
+    {
+        if (! isVariantFrame(frame, saver)) {
+            return null;
+        }
+
+        Design baseDesign = frame.getDesign().getBaseDesign();
+        Frame baseFrame = baseDesign.getFrame(frame.getName());
+
+        if ((baseFrame == null) ||
+            ! getFrameFingerprint(baseFrame).equals(getFrameFingerprint(frame)))
+        {
+            return null;
+        }
+
+        return baseFrame;
+    }
+
+    /**
+     * Reserves ids in the given saver for the elements of the given frame
+     * that correspond to the elements of the given (identical) base frame.
+     *
+     * @return the reserved ids, in the order of getSharedElements, or
+     *         <code>null</code> if the elements cannot be paired or if any
+     *         of them has already been saved, in which case the frame
+     *         should be saved in full
+     */
+    public static int[] reserveIds(ObjectSaver saver,
+                                   Frame baseFrame,
+                                   Frame frame)
+    {
+        List<Object> elts = getSharedElements(baseFrame, frame);
+
+        if (elts == null) {
+            return null;
+        }
+
+        for (Object elt : elts) {
+            if (saver.isSaved(elt)) {
+                return null;
+            }
+        }
+
+        int[] ids = new int[elts.size()];
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = saver.reserveId(elts.get(i));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Duplicates that leave references to other frames unchanged; used
+     * when reconstituting a frame saved as a reference to its base frame.
+     * Such references are redirected to the variant's frames by
+     * relinkVariant once the entire variant has been loaded.
+     */
+    protected static final Frame.IFrameDuplicator IN_PLACE_DUPLICATOR =
+        new Frame.IFrameDuplicator() {
+            public Frame getOrDuplicate(Frame frameToCopy)
+            {
+                return frameToCopy;
+            }
+
+            public void recordDuplicateFrame(Frame originalFrame,
+                                             Frame frameDuplicate)
+            {
+                // Nothing to record; the duplicate is placed by the loader
+            }
+        };
+
+    /**
+     * Reconstitutes a frame that was saved as a reference to the given base
+     * frame: copies the base frame's contents into the given frame and
+     * registers the elements of the copy under the ids reserved for them
+     * when the frame was saved.  The frame's name and attributes have
+     * already been loaded.
+     */
+    public static void materialize(ObjectLoader l,
+                                   Frame frame,
+                                   Frame baseFrame,
+                                   int[] sharedIds)
+    {
+        Frame copy = baseFrame.duplicate(frame.getName(), IN_PLACE_DUPLICATOR);
+
+        for (InputDevice device : copy.getInputDevices()) {
+            device.setFrame(frame);
+            frame.devices.put(device.getDeviceType(), device);
+        }
+
+        for (IWidget widget : copy.getWidgets()) {
+            widget.setFrame(frame);
+            frame.widgets.add(widget);
+        }
+
+        frame.widgetNames.invalidate();
+        frame.eltGroups.addAll(copy.getEltGroups());
+
+        frame.origin = copy.origin;
+        frame.background = copy.background;
+        frame.backgroundBounds = copy.backgroundBounds;
+        frame.thumbnails = copy.thumbnails;
+        frame.widgetColor = copy.widgetColor;
+        frame.listenTimeInSecs = copy.listenTimeInSecs;
+        frame.speakerText = copy.speakerText;
+
+        List<Object> elts = getSharedElements(baseFrame, frame);
+
+        if ((elts == null) || (elts.size() != sharedIds.length)) {
+            throw new IllegalStateException("Shared frame does not match its base frame: "
+                                                + frame.getName());
+        }
+
+        for (int i = 0; i < sharedIds.length; i++) {
+            l.registerObject(sharedIds[i], elts.get(i));
+        }
+    }
+
+    /**
+     * Orders transitions by the serialization of their actions, since the
+     * iteration order of a source's transitions is not preserved by a
+     * save and load.
+     */
+    protected static class TransitionOrder implements Comparator<Transition>
+    {
+        protected Map<Transition, String> keys =
+            new IdentityHashMap<Transition, String>();
+
+        protected String getKey(Transition t)
+        {
+            String key = keys.get(t);
+
+            if (key == null) {
+                key = getFingerprint(t.getAction());
+                keys.put(t, key);
+            }
+
+            return key;
+        }
+
+        public int compare(Transition l, Transition r)
+        {
+            return getKey(l).compareTo(getKey(r));
+        }
+    }
+
+    /**
+     * Pairs an element of a base frame with its counterpart, adding the
+     * counterpart to the given list the first time the base element is
+     * seen.
+     *
+     * @return false if there is no counterpart or if the base element
+     *         was previously paired with a different one
+     */
+    protected static boolean pair(Object baseElt,
+                                  Object elt,
+                                  Map<Object, Object> paired,
+                                  List<Object> elts)
+    {
+        if (elt == null) {
+            return false;
+        }
+
+        Object pairedElt = paired.get(baseElt);
+
+        if (pairedElt != null) {
+            return pairedElt == elt;
+        }
+
+        paired.put(baseElt, elt);
+        elts.add(elt);
+
+        return true;
+    }
+
+    protected static boolean pairTransitions(TransitionSource baseSource,
+                                             TransitionSource source,
+                                             Map<Object, Object> paired,
+                                             List<Object> elts)
+    {
+        Map<AAction, Transition> transitions = source.getTransitions();
+        List<Transition> baseTransitions =
+            new ArrayList<Transition>(baseSource.getTransitions().values());
+
+        if (baseTransitions.size() != transitions.size()) {
+            return false;
+        }
+
+        TransitionOrder order = new TransitionOrder();
+
+        Collections.sort(baseTransitions, order);
+
+        Iterator<Transition> baseIt = baseTransitions.iterator();
+        String prevKey = null;
+
+        while (baseIt.hasNext()) {
+            Transition baseTransition = baseIt.next();
+            String key = order.getKey(baseTransition);
+
+            // Distinct actions must have distinct serializations
+            if (key.equals(prevKey)) {
+                return false;
+            }
+
+            prevKey = key;
+
+            Transition transition =
+                transitions.get(baseTransition.getAction());
+
+            if (! pair(baseTransition, transition, paired, elts) ||
+                ! pair(baseTransition.getAction(),
+                       transition.getAction(),
+                       paired,
+                       elts))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the elements of the given frame that correspond to the
+     * elements of the given base frame that other objects may refer to:
+     * input devices (by type), widgets (by name) and their parent groups,
+     * the transitions emanating from each (by action) and their actions,
+     * and frame element groups (by name).
+     *
+     * @return the corresponding elements, in an order determined by the
+     *         base frame, or <code>null</code> if some element of the base
+     *         frame has no counterpart
+     */
+    public static List<Object> getSharedElements(Frame baseFrame, Frame frame)
+    {
+        Map<Object, Object> paired = new IdentityHashMap<Object, Object>();
+        List<Object> elts = new ArrayList<Object>();
+
+        for (InputDevice baseDevice : baseFrame.getInputDevices()) {
+            InputDevice device =
+                frame.getInputDevice(baseDevice.getDeviceType());
+
+            if (! pair(baseDevice, device, paired, elts) ||
+                ! pairTransitions(baseDevice, device, paired, elts))
+            {
+                return null;
+            }
+        }
+
+        for (IWidget baseWidget : baseFrame.getWidgets()) {
+            IWidget widget = frame.getWidget(baseWidget.getName());
+
+            if ((baseFrame.getWidget(baseWidget.getName()) != baseWidget) ||
+                ! pair(baseWidget, widget, paired, elts) ||
+                ! pairTransitions(baseWidget, widget, paired, elts))
+            {
+                return null;
+            }
+
+            SimpleWidgetGroup baseGroup = baseWidget.getParentGroup();
+
+            if ((baseGroup != null) &&
+                ! pair(baseGroup, widget.getParentGroup(), paired, elts))
+            {
+                return null;
+            }
+        }
+
+        for (FrameElementGroup baseGroup : baseFrame.getEltGroups()) {
+            String groupName = baseGroup.getName();
+
+            if ((groupName == null) ||
+                (baseFrame.getEltGroup(groupName) != baseGroup) ||
+                ! pair(baseGroup, frame.getEltGroup(groupName), paired, elts))
+            {
+                return null;
+            }
+        }
+
+        return elts;
+    }
+
+    /**
+     * Completes the loading of a design variant: redirects the transitions
+     * of frames reconstituted from base frames (see materialize) to the
+     * variant's own frames and rebuilds the incident transitions of all
+     * of the variant's frames, which are not saved for variants.
+     */
+    public static void relinkVariant(Design variant)
+    {
+        for (Frame frame : variant.getFrames()) {
+            frame.incidentTransitions.clear();
+        }
+
+        for (Frame frame : variant.getFrames()) {
+            relinkTransitions(variant, frame.getInputDevices().iterator());
+            relinkTransitions(variant, frame.getWidgets().iterator());
+        }
+    }
+
+    protected static void relinkTransitions(Design variant,
+                                            Iterator<? extends TransitionSource> sources)
+    {
+        while (sources.hasNext()) {
+            TransitionSource source = sources.next();
+
+            for (Transition t : source.getTransitions().values()) {
+                Frame destination = t.getDestination();
+
+                if (destination.getDesign() != variant) {
+                    destination.incidentTransitions.remove(t);
+                    destination = variant.getFrame(destination.getName());
+
+                    if (destination == null) {
+                        throw new IllegalStateException("Missing variant frame: "
+                                                            + t.getDestination().getName());
+                    }
+
+                    t.destination = destination;
+                }
+
+                destination.incidentTransitions.add(t);
+            }
+        }
+    }
+}
@@ -287,12 +287,11 @@ public class GLSASimilarity extends CachedTermSimilarity
         }
     }
 
-    protected static ProcessWordFrequency wordFreqParser =
-        new ProcessWordFrequency();
-
     @Override
     protected IWordFrequencyParser getWordFreqParser(String word, List<String> errors)
     {
+        ProcessWordFrequency wordFreqParser = new ProcessWordFrequency();
+
         wordFreqParser.reset(word, errors);
 
         return wordFreqParser;
@@ -462,14 +461,14 @@ public class GLSASimilarity extends CachedTermSimilarity
         }
     }
 
-    protected static ProcessGoalSimilarity goalSimilarityParser =
-        new ProcessGoalSimilarity();
-
     @Override
     protected ISimilarityParser getSimilarityParser(String goal,
                                                     String search,
                                                     List<String> errors)
     {
+        ProcessGoalSimilarity goalSimilarityParser =
+            new ProcessGoalSimilarity();
+
         goalSimilarityParser.reset(goal, search, errors);
 
         return goalSimilarityParser;
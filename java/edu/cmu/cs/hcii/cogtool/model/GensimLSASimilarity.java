@@ -424,8 +424,6 @@ public class GensimLSASimilarity extends CachedTermSimilarity
         }
     }
 
-    protected ProcessGoalSimilarity goalSimilarityParser = null;
-
     protected GensimLSASimilarity()
     {
         // For create and loading
@@ -478,9 +476,8 @@ public class GensimLSASimilarity extends CachedTermSimilarity
                                                     String search,
                                                     List<String> errors)
     {
-        if (goalSimilarityParser == null) {
-            goalSimilarityParser = new ProcessGoalSimilarity();
-        }
+        ProcessGoalSimilarity goalSimilarityParser =
+            new ProcessGoalSimilarity();
 
         goalSimilarityParser.reset(goal, search, errors);
 
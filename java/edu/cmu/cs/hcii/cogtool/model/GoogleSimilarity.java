@@ -372,15 +372,15 @@ public class GoogleSimilarity extends CachedTermSimilarity
         }
     }
 
-    public static ProcessTermFrequency termFreqParser =
-        new ProcessTermFrequency();
-
     protected double getTermFrequency(String term, List<String> errors)
     {
         if (term == null) {
             return 0.0;
         }
 
+        // A parser per fetch so that terms may be fetched concurrently
+        ProcessTermFrequency termFreqParser = new ProcessTermFrequency();
+
         termFreqParser.reset(term, errors, site);
 
         if (FetchURLUtil.processURL(termFreqParser)) {
@@ -434,6 +434,8 @@ public class GoogleSimilarity extends CachedTermSimilarity
     protected IWordFrequencyParser getWordFreqParser(String word,
                                                      List<String> errors)
     {
+        ProcessTermFrequency termFreqParser = new ProcessTermFrequency();
+
         termFreqParser.reset(word, errors);
 
         return termFreqParser;
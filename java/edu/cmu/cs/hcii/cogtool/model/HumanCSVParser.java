@@ -91,11 +91,11 @@
 
 package edu.cmu.cs.hcii.cogtool.model;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
-import edu.cmu.cs.hcii.cogtool.util.CSVSupport;
+import edu.cmu.cs.hcii.cogtool.util.CSVReader;
 import edu.cmu.cs.hcii.cogtool.util.StringUtil;
 
 public class HumanCSVParser implements TraceParser<ResultStep>
@@ -119,243 +119,259 @@ public class HumanCSVParser implements TraceParser<ResultStep>
      */
     public List<ResultStep> parseTrace(List<String> traceLines)
     {
-        List<ResultStep> steps = new ArrayList<ResultStep>();
-        String line;
+        return parseColumns(traceLines, null).getSteps();
+    }
 
-        boolean resourceFound = false;
-        boolean startTimeFound = false;
-        boolean endTimeFound = false;
-        boolean durationFound = false;
+    /**
+     * Parses a .csv file of human data into the compact form kept for
+     * bulk imports (see HumanDataImport).
+     *
+     * @param traceLines the lines of the file, starting with the header
+     * @param traceName the name for the result, usually the file's name
+     * @return the steps found; a trace without steps if the file was not
+     *         in the correct format
+     */
+    public HumanTrace parseColumns(List<String> traceLines, String traceName)
+    {
+        ColumnCollector collector = new ColumnCollector(traceName);
+        CSVReader cells = new CSVReader();
 
-        int resourcePos = -1;
-        int descriptionPos = -1;
-        int targetPos = -1;
-        int startPos = -1;
-        int endPos = -1;
-        int durationPos = -1;
+        for (String line : traceLines) {
+            collector.addLine(cells, line);
+        }
 
-        int maxUsefulPos = -1;
+        return collector.getTrace();
+    }
 
-        int headerLength = -1;
+    /**
+     * As parseColumns(List, String), but streams the lines of the file
+     * from the given source, so that the file is never held in memory.
+     * The caller remains responsible for closing the source.
+     */
+    public HumanTrace parseColumns(Reader traceSource, String traceName)
+        throws IOException
+    {
+        ColumnCollector collector = new ColumnCollector(traceName);
+        CSVReader cells = new CSVReader(traceSource);
 
-        // look in first line for
-        if (traceLines.size() > 0) {
-            String headerLine = traceLines.get(0).trim();
+        while (cells.nextLine()) {
+            collector.addLine(cells, cells.getLine());
+        }
 
-            String[] headers = CSVSupport.getCells(headerLine);
+        return collector.getTrace();
+    }
 
-            headerLength = headers.length;
+    /**
+     * Collects the steps of a human data file, one line at a time.
+     * Cells are inspected as views of the CSVReader's buffer; only the
+     * strings kept by a step are created.  Since start times are relative
+     * to the earliest start time in the file, they are adjusted once all
+     * lines have been seen.
+     */
+    protected static class ColumnCollector
+    {
+        protected HumanTrace steps;
 
-            for (int h = 0; h < headerLength; h++) {
-                String header = headers[h].trim();
+        protected int currentLine = 0;
 
-                if (RESOURCE_HEADER.equalsIgnoreCase(header)) {
-                    resourceFound = true;
-                    resourcePos = h;
+        protected boolean headerSufficient = false;
 
-                    if (maxUsefulPos < resourcePos) {
-                        maxUsefulPos = resourcePos;
-                    }
-                }
-                else if (START_TIME_HEADER.equalsIgnoreCase(header)) {
-                    startTimeFound = true;
-                    startPos = h;
+        protected int resourcePos = -1;
+        protected int descriptionPos = -1;
+        protected int targetPos = -1;
+        protected int startPos = -1;
+        protected int endPos = -1;
+        protected int durationPos = -1;
 
-                    if (maxUsefulPos < startPos) {
-                        maxUsefulPos = startPos;
-                    }
-                }
-                else if (END_TIME_HEADER.equalsIgnoreCase(header)) {
-                    endTimeFound = true;
-                    endPos = h;
+        protected int maxUsefulPos = -1;
 
-                    if (maxUsefulPos < endPos) {
-                        maxUsefulPos = endPos;
-                    }
-                }
-                else if (DURATION_HEADER.equalsIgnoreCase(header)) {
-                    durationFound = true;
-                    durationPos = h;
+        protected int baselineTime = Integer.MAX_VALUE;
 
-                    if (maxUsefulPos < durationPos) {
-                        maxUsefulPos = durationPos;
-                    }
+        public ColumnCollector(String traceName)
+        {
+            steps = new HumanTrace(traceName);
+        }
+
+        public void addLine(CSVReader cells, CharSequence line)
+        {
+            int lineStart = 0;
+            int lineEnd = line.length();
+
+            // As String.trim, but without creating a string
+            while ((lineStart < lineEnd) && (line.charAt(lineStart) <= ' ')) {
+                lineStart++;
+            }
+            while ((lineStart < lineEnd) && (line.charAt(lineEnd - 1) <= ' '))
+            {
+                lineEnd--;
+            }
+
+            cells.tokenize(line, lineStart, lineEnd);
+
+            if (currentLine == 0) {
+                parseHeader(cells);
+            }
+
+            // If we have found sufficient header info, use every line
+            if (headerSufficient) {
+                /*
+                 * Human csv file has the following values
+                 * resource, description, x position, y position, real time,
+                 * frame, start time, end time, duration
+                 */
+
+                if (lineStart < lineEnd) {
+                    addBaseline(cells);
                 }
-                else if (DESCRIPTION_HEADER.equalsIgnoreCase(header)) {
-                    descriptionPos = h;
 
-                    if (maxUsefulPos < descriptionPos) {
-                        maxUsefulPos = descriptionPos;
-                    }
+                // make sure we're not in the header
+                if (currentLine > 0) {
+                    addStep(cells);
                 }
-                else if (TARGET_HEADER.equalsIgnoreCase(header)) {
-                    targetPos = h;
+            }
 
-                    if (maxUsefulPos < targetPos) {
-                        maxUsefulPos = targetPos;
-                    }
+            currentLine++;
+        }
+
+        protected int updateMaxUsefulPos(int pos)
+        {
+            if (maxUsefulPos < pos) {
+                maxUsefulPos = pos;
+            }
+
+            return pos;
+        }
+
+        protected void parseHeader(CSVReader cells)
+        {
+            int headerLength = cells.getCellCount();
+
+            for (int h = 0; h < headerLength; h++) {
+                CSVReader.Cell header = cells.getCell(h).trim();
+
+                if (header.contentEqualsIgnoreCase(RESOURCE_HEADER)) {
+                    resourcePos = updateMaxUsefulPos(h);
                 }
-                else if (XPOS_HEADER.equalsIgnoreCase(header)) {
-                    // ignore for now
+                else if (header.contentEqualsIgnoreCase(START_TIME_HEADER)) {
+                    startPos = updateMaxUsefulPos(h);
                 }
-                else if (YPOS_HEADER.equalsIgnoreCase(header)) {
-                    // ignore for now
+                else if (header.contentEqualsIgnoreCase(END_TIME_HEADER)) {
+                    endPos = updateMaxUsefulPos(h);
                 }
-                else if (FRAME_HEADER.equalsIgnoreCase(header)) {
-                    // ignore for now
+                else if (header.contentEqualsIgnoreCase(DURATION_HEADER)) {
+                    durationPos = updateMaxUsefulPos(h);
                 }
+                else if (header.contentEqualsIgnoreCase(DESCRIPTION_HEADER))
+                {
+                    descriptionPos = updateMaxUsefulPos(h);
+                }
+                else if (header.contentEqualsIgnoreCase(TARGET_HEADER)) {
+                    targetPos = updateMaxUsefulPos(h);
+                }
+
+                // xpos, ypos, and frame are ignored for now
             }
+
+            headerSufficient = (resourcePos > -1) && (startPos > -1) &&
+                               ((endPos > -1) || (durationPos > -1));
         }
 
-        int baselineTime = Integer.MAX_VALUE;
+        protected void addBaseline(CSVReader cells)
+        {
+            try {
+                int sTime = getMilliseconds(cells, startPos);
 
-        Iterator<String> traceIterator = traceLines.iterator();
+                if (sTime >= 0) {
+                    baselineTime = Math.min(baselineTime, sTime);
+                }
+            }
+            catch (NumberFormatException e) {
+                // ignore and go on
+            }
+            catch (IndexOutOfBoundsException e) {
+                // ignore and go on
+            }
+        }
 
-        // If we have found sufficient header info, iterate through file
-        if (resourceFound && startTimeFound && (endTimeFound || durationFound))
+        protected void addStep(CSVReader cells)
         {
-            // iterate through once to get baseline start time
-            while (traceIterator.hasNext()) {
-                line = traceIterator.next().trim();
+            // We only care if length is >= max useful position,
+            // since we're not using any components beyond that column
+            if (cells.getCellCount() < maxUsefulPos) {
+                return;
+            }
 
-                /*
-                 * Human csv file has the following values
-                 * resource, description, x position, y position, real time,
-                 * frame, start time, end time, duration
-                 */
+            // create regular result step:
+            //     start time, duration, resource,
+            //     description (operation), target frame,
+            //     start trace line, end trace line
 
-                if (line.length() > 0) {
-                    String[] stepComponents = CSVSupport.getCells(line);
+            try {
+                boolean hasResource =
+                    ! cells.getCell(resourcePos).trim().isEmpty();
 
-                    try {
-                        int sTime =
-                            (int) (1000 * StringUtil.getSecondsFromString(stepComponents[startPos].trim()));
-                        //sTime = (int) (1000 * Double.parseDouble(stepComponents[startPos].trim()));
+                // Times are in milliseconds
+                int startTime = getMilliseconds(cells, startPos);
 
-                        if (sTime >= 0) {
-                            baselineTime = Math.min(baselineTime, sTime);
-                        }
-                    }
-                    catch (NumberFormatException e) {
-                        // ignore and go on
-                    }
-                    catch (IndexOutOfBoundsException e) {
-                        // ignore and go on
-                    }
-                    catch (NullPointerException e) {
-                        // ignore and go on
-                    }
-                }
-            }
+                int duration = 0;
 
-            int currentLine = 0;
+                if (durationPos > -1) {
+                    duration = getMilliseconds(cells, durationPos);
+                }
+                else if (endPos > -1) {
+                    duration = getMilliseconds(cells, endPos) - startTime;
+                }
 
-            // reset iterator
-            traceIterator = traceLines.iterator();
+                if (hasResource && (startTime > -1)) {
+                    String resource =
+                        cells.getCell(resourcePos).trim().toString();
+                    String description = "";
+                    String target = null;
 
-            while (traceIterator.hasNext()) {
-                line = (traceIterator.next()).trim();
+                    if (descriptionPos > -1) {
+                        description =
+                            cells.getCell(descriptionPos).trim().toString();
+                    }
 
-                // make sure we're not in the header
-                if (currentLine > 0) {
-                    /*
-                     * Human csv file has the following values:
-                     * resource, description, x position, y position,
-                     * real time, frame, start time, end time, duration
-                     */
-
-                    String[] stepComponents = CSVSupport.getCells(line);
-
-                    // We only care if length is >= max useful position,
-                    // since we're not using any components beyond that column
-                    if (stepComponents.length >= maxUsefulPos) {
-                        // We're parsing a line from the behavior graph
-
-                        /* resource = stepComponents[resourcePos]
-                         * description = stepComponents[descriptionPos]
-                         * start time = stepComponents[startPos]
-                         * end time = stepComponents[endPos]
-                         * duration = stepComponents[durationPos]
-                         * target = stepComponents[targetPos]
-                         */
-
-                        // create regular result step:
-                        //     start time, duration, resource,
-                        //     description (operation), target frame,
-                        //     start trace line, end trace line
-
-                        try {
-                            String resource =
-                                stepComponents[resourcePos].trim();
-                            String description = "";
-                            String target = null;
-
-                            if (descriptionPos > -1) {
-                                description =
-                                    stepComponents[descriptionPos].trim();
-                            }
-
-                            if (targetPos > -1) {
-                                target =  stepComponents[targetPos].trim();
-                                description += " - " + target;
-                            }
-
-                            // Times are in milliseconds
-                            int startTime =
-                                (int) (1000 * StringUtil.getSecondsFromString(stepComponents[startPos].trim()));
-
-                            int duration = 0;
-
-                            if (durationPos > -1) {
-                                duration =
-                                    (int) (1000 * StringUtil.getSecondsFromString(stepComponents[durationPos].trim()));
-                            }
-                            else if (endPos > -1) {
-                                duration =
-                                    (int) (1000 * StringUtil.getSecondsFromString(stepComponents[endPos].trim())) - startTime;
-                            }
-
-                            if ((! resource.equals("")) && (startTime > -1)) {
-                                ResultStep newStep =
-                                    new ResultStep(startTime - baselineTime,
-                                                   duration,
-                                                   resource,
-                                                   description,
-                                                   target,
-                                                   currentLine,
-                                                   currentLine + 1);
-
-//                              try {
-//                                  newStep.colorVal =
-//                                      Integer.parseInt(stepComponents[5].trim(),
-//                                                       16);
-//                              }
-//                              catch (IndexOutOfBoundsException e) {
-//                                  newStep.colorVal = 0x999999;
-//                              }
-//                              catch (NumberFormatException e) {
-//                                  newStep.colorVal = 0x999999;
-//                              }
-
-                                steps.add(newStep);
-                            }
-                        }
-                        catch (NumberFormatException e) {
-                            // ignore and go on
-                        }
-                        catch (IndexOutOfBoundsException e) {
-                            // ignore and go on
-                        }
-                        catch (NullPointerException e) {
-                            // ignore and go on
-                        }
+                    if (targetPos > -1) {
+                        target = cells.getCell(targetPos).trim().toString();
+                        description += " - " + target;
                     }
+
+                    steps.addStep(startTime,
+                                  duration,
+                                  resource,
+                                  description,
+                                  target,
+                                  currentLine);
                 }
+            }
+            catch (NumberFormatException e) {
+                // ignore and go on
+            }
+            catch (IndexOutOfBoundsException e) {
+                // ignore and go on
+            }
+        }
 
-                currentLine++;
+        protected static int getMilliseconds(CSVReader cells, int pos)
+        {
+            CSVReader.Cell cell = cells.getCell(pos).trim();
+
+            // Only hour:min:seconds:tick times need a string to parse
+            if (cell.contains(':')) {
+                return (int) (1000 * StringUtil.getSecondsFromString(cell.toString()));
             }
+
+            return (int) (1000 * cell.toDouble());
         }
 
-        return steps;
+        public HumanTrace getTrace()
+        {
+            steps.offsetStartTimes(- baselineTime);
+            steps.trimToSize();
+
+            return steps;
+        }
     }
 }
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cmu.cs.hcii.cogtool.util.Cancelable;
+import edu.cmu.cs.hcii.cogtool.util.ProgressCallback;
+import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
+
+/**
+ * Imports the human data of many participants at once: every .csv file
+ * of a directory is parsed by HumanCSVParser, in parallel on the
+ * ThreadManager's workers, into the
+ * compact form of a HumanTrace.  The traces may then be attached to any
+ * number of task applications as a TimeDistributionPredictionResult whose
+ * task time is the mean over the participants and whose statistics
+ * include precomputed percentiles (see createResult).
+ */
+public class HumanDataImport
+{
+    public static final String CSV_EXTENSION = ".csv";
+
+    public static final FileFilter CSV_FILES =
+        new FileFilter() {
+            public boolean accept(File f)
+            {
+                return f.isFile() &&
+                       f.getName().toLowerCase().endsWith(CSV_EXTENSION);
+            }
+        };
+
+    protected List<File> files;
+
+    // The outcome of parse(), in the order of the files
+    protected List<HumanTrace> traces = null;
+    protected List<String> errors = new ArrayList<String>();
+
+    /**
+     * Import the .csv files of the given directory, in order by name.
+     */
+    public HumanDataImport(File directory)
+    {
+        File[] csvFiles = directory.listFiles(CSV_FILES);
+
+        if (csvFiles == null) {
+            csvFiles = new File[0];
+        }
+
+        Arrays.sort(csvFiles);
+
+        files = Arrays.asList(csvFiles);
+    }
+
+    public HumanDataImport(List<File> csvFiles)
+    {
+        files = new ArrayList<File>(csvFiles);
+    }
+
+    public List<File> getFiles()
+    {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Parse all of the files; those that cannot be read or that contain
+     * no steps are skipped and reported by getErrors().
+     *
+     * @return the traces of the files that yielded steps, in the order of
+     *         the files
+     */
+    public List<HumanTrace> parse()
+    {
+        return parse(null, null);
+    }
+
+    /**
+     * As parse(), but reports the fraction of the files parsed to the
+     * given progress callback (serially), and gives up as soon as the
+     * given cancelable is canceled, returning <code>null</code>; either
+     * may be <code>null</code>.
+     */
+    public List<HumanTrace> parse(final ProgressCallback progress,
+                                  final Cancelable cancelable)
+    {
+        final List<Callable<HumanTrace>> work =
+            new ArrayList<Callable<HumanTrace>>();
+        final AtomicInteger parsedCount = new AtomicInteger(0);
+
+        for (final File file : files) {
+            work.add(new Callable<HumanTrace>() {
+                public HumanTrace call() throws IOException
+                {
+                    if ((cancelable != null) && cancelable.isCanceled()) {
+                        return null;
+                    }
+
+                    FileReader reader = new FileReader(file);
+
+                    try {
+                        return new HumanCSVParser().parseColumns(reader,
+                                                                 file.getName());
+                    }
+                    finally {
+                        reader.close();
+
+                        if (progress != null) {
+                            int done = parsedCount.incrementAndGet();
+
+                            synchronized (progress) {
+                                progress.updateProgress(((double) done)
+                                                            / work.size(),
+                                                        file.getName());
+                            }
+                        }
+                    }
+                }
+            });
+        }
+
+        List<HumanTrace> parsed = new ArrayList<HumanTrace>();
+
+        errors.clear();
+
+        try {
+            List<Future<HumanTrace>> results = ThreadManager.invokeAll(work);
+
+            for (int i = 0; i < results.size(); i++) {
+                String fileName = files.get(i).getName();
+
+                try {
+                    HumanTrace trace = results.get(i).get();
+
+                    if ((trace == null) || (trace.getStepCount() == 0)) {
+                        errors.add(fileName + ": no steps found");
+                    }
+                    else {
+                        parsed.add(trace);
+                    }
+                }
+                catch (ExecutionException e) {
+                    if (! (e.getCause() instanceof IOException)) {
+                        throw new IPredictionAlgo.ComputationException("Human data import failed",
+                                                                       e.getCause());
+                    }
+
+                    errors.add(fileName + ": " + e.getCause().getMessage());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        if ((cancelable != null) && cancelable.isCanceled()) {
+            return null;
+        }
+
+        traces = parsed;
+
+        return traces;
+    }
+
+    /**
+     * The traces found by the last parse, or <code>null</code> if none
+     */
+    public List<HumanTrace> getTraces()
+    {
+        return traces;
+    }
+
+    /**
+     * Descriptions of the files skipped by the last parse
+     */
+    public List<String> getErrors()
+    {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Create the result holding the parsed traces for the given script;
+     * the participants' results share the traces, so this may be called
+     * for any number of task applications.
+     *
+     * @param resultName the name of the result, usually the directory's
+     * @param script the script of the task application to receive it
+     */
+    public TimeDistributionPredictionResult createResult(String resultName,
+                                                         Script script)
+    {
+        List<APredictionResult> participants =
+            new ArrayList<APredictionResult>(traces.size());
+        List<String> summary = new ArrayList<String>(traces.size());
+        double[] taskTimes = new double[traces.size()];
+        RunStatistics stats = new RunStatistics();
+
+        for (int i = 0; i < taskTimes.length; i++) {
+            HumanTrace trace = traces.get(i);
+
+            taskTimes[i] = trace.getTaskTime();
+            stats.addRun(taskTimes[i], null);
+            participants.add(new HumanDataResult(script, trace));
+            summary.add(trace.getName() + ": " + taskTimes[i]);
+        }
+
+        stats.computePercentiles(taskTimes);
+
+        return new TimeDistributionPredictionResult(resultName,
+                                                    script,
+                                                    HumanDataAlgo.ONLY,
+                                                    summary,
+                                                    new ArrayList<String>(errors),
+                                                    participants,
+                                                    stats);
+    }
+}
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * The steps of one participant's imported human data (see HumanCSVParser),
+ * kept column by column in arrays rather than as one ResultStep per step;
+ * studies may import hundreds of participant logs, each of hundreds of
+ * steps.  The corresponding ResultStep objects are created only when
+ * requested (see getSteps).
+ * <p>
+ * Times are in milliseconds, relative to the earliest start time in the
+ * participant's log.  Resource names are interned since most steps share
+ * one of only a few.
+ */
+public class HumanTrace
+{
+    public static final int edu_cmu_cs_hcii_cogtool_model_HumanTrace_version = 0;
+
+    protected static final String nameVAR = "name";
+    protected static final String startTimesVAR = "startTimes";
+    protected static final String durationsVAR = "durations";
+    protected static final String traceLinesVAR = "traceLines";
+    protected static final String resourcesVAR = "resources";
+    protected static final String operationsVAR = "operations";
+    protected static final String targetsVAR = "targets";
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected String name;
+    protected int stepCount = 0;
+    protected int[] startTimes;
+    protected int[] durations;
+
+    // Index of the line of the log from which each step was parsed
+    protected int[] traceLines;
+
+    protected String[] resources;
+    protected String[] operations;
+    protected String[] targets;
+
+    private static ObjectSaver.IDataSaver<HumanTrace> SAVER =
+        new ObjectSaver.ADataSaver<HumanTrace>() {
+            @Override
+            public int getVersion()
+            {
+                return edu_cmu_cs_hcii_cogtool_model_HumanTrace_version;
+            }
+
+            @Override
+            public void saveData(HumanTrace v, ObjectSaver saver)
+                throws java.io.IOException
+            {
+                v.trimToSize();
+
+                saver.saveString(v.name, nameVAR);
+                saver.saveObject(v.startTimes, startTimesVAR);
+                saver.saveObject(v.durations, durationsVAR);
+                saver.saveObject(v.traceLines, traceLinesVAR);
+                saver.saveObject(v.resources, resourcesVAR);
+                saver.saveObject(v.operations, operationsVAR);
+                saver.saveObject(v.targets, targetsVAR);
+            }
+        };
+
+    public static void registerSaver()
+    {
+        ObjectSaver.registerSaver(HumanTrace.class.getName(), SAVER);
+    }
+
+    private static ObjectLoader.IObjectLoader<HumanTrace> LOADER =
+        new ObjectLoader.AObjectLoader<HumanTrace>() {
+            @Override
+            public HumanTrace createObject()
+            {
+                return new HumanTrace();
+            }
+
+            @Override
+            public void set(HumanTrace target, String variable, Object value)
+            {
+                if (variable != null) {
+                    if (variable.equals(nameVAR)) {
+                        target.name = (String) value;
+                    }
+                    else if (variable.equals(startTimesVAR)) {
+                        target.startTimes = (int[]) value;
+                    }
+                    else if (variable.equals(durationsVAR)) {
+                        target.durations = (int[]) value;
+                    }
+                    else if (variable.equals(traceLinesVAR)) {
+                        target.traceLines = (int[]) value;
+                    }
+                    else if (variable.equals(resourcesVAR)) {
+                        target.resources = (String[]) value;
+                    }
+                    else if (variable.equals(operationsVAR)) {
+                        target.operations = (String[]) value;
+                    }
+                    else if (variable.equals(targetsVAR)) {
+                        target.targets = (String[]) value;
+                    }
+                }
+            }
+
+            @Override
+            public Class<?> getArrayEltType(String variable, String className)
+            {
+                if (variable.equals(resourcesVAR) ||
+                    variable.equals(operationsVAR) ||
+                    variable.equals(targetsVAR))
+                {
+                    return String.class;
+                }
+
+                return Integer.TYPE;
+            }
+
+            @Override
+            public void evolve(HumanTrace target)
+            {
+                target.stepCount = target.startTimes.length;
+
+                for (int i = 0; i < target.stepCount; i++) {
+                    target.resources[i] = target.resources[i].intern();
+                }
+            }
+        };
+
+    public static void registerLoader()
+    {
+        ObjectLoader.registerLoader(HumanTrace.class.getName(),
+                                    edu_cmu_cs_hcii_cogtool_model_HumanTrace_version,
+                                    LOADER);
+    }
+
+    // For loading
+    protected HumanTrace() { }
+
+    public HumanTrace(String traceName)
+    {
+        name = traceName;
+        startTimes = new int[INITIAL_CAPACITY];
+        durations = new int[INITIAL_CAPACITY];
+        traceLines = new int[INITIAL_CAPACITY];
+        resources = new String[INITIAL_CAPACITY];
+        operations = new String[INITIAL_CAPACITY];
+        targets = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Append a step; times are in milliseconds.
+     */
+    public void addStep(int startTime,
+                        int duration,
+                        String resource,
+                        String operation,
+                        String target,
+                        int traceLine)
+    {
+        if (stepCount == startTimes.length) {
+            ensureCapacity(2 * stepCount);
+        }
+
+        startTimes[stepCount] = startTime;
+        durations[stepCount] = duration;
+        traceLines[stepCount] = traceLine;
+        resources[stepCount] = resource.intern();
+        operations[stepCount] = operation;
+        targets[stepCount] = target;
+
+        stepCount++;
+    }
+
+    protected void ensureCapacity(int capacity)
+    {
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        traceLines = Arrays.copyOf(traceLines, capacity);
+        resources = Arrays.copyOf(resources, capacity);
+        operations = Arrays.copyOf(operations, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+    }
+
+    /**
+     * Shift the start times of all steps added so far, e.g., to make them
+     * relative to a baseline known only once every step has been read.
+     */
+    public void offsetStartTimes(int offset)
+    {
+        for (int i = 0; i < stepCount; i++) {
+            startTimes[i] += offset;
+        }
+    }
+
+    /**
+     * Release the unused capacity of the columns once all steps are added.
+     */
+    public void trimToSize()
+    {
+        if (stepCount < startTimes.length) {
+            ensureCapacity(stepCount);
+        }
+    }
+
+    /**
+     * The name of the trace, usually the name of the imported file
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getStepCount()
+    {
+        return stepCount;
+    }
+
+    public int getStartTime(int stepIndex)
+    {
+        return startTimes[stepIndex];
+    }
+
+    public int getDuration(int stepIndex)
+    {
+        return durations[stepIndex];
+    }
+
+    public String getResource(int stepIndex)
+    {
+        return resources[stepIndex];
+    }
+
+    /**
+     * The end of the last step to finish, in seconds, or
+     * TimePredictionResult.UNSET_TIME if there are no steps.
+     */
+    public double getTaskTime()
+    {
+        if (stepCount == 0) {
+            return TimePredictionResult.UNSET_TIME;
+        }
+
+        int taskTime = Integer.MIN_VALUE;
+
+        for (int i = 0; i < stepCount; i++) {
+            taskTime = Math.max(taskTime, startTimes[i] + durations[i]);
+        }
+
+        // Scale time to seconds.
+        return taskTime / 1000.0;
+    }
+
+    /**
+     * Create the ResultStep objects for the steps of the trace.
+     */
+    public List<ResultStep> getSteps()
+    {
+        List<ResultStep> steps = new ArrayList<ResultStep>(stepCount);
+
+        for (int i = 0; i < stepCount; i++) {
+            steps.add(new ResultStep(startTimes[i],
+                                     durations[i],
+                                     resources[i],
+                                     operations[i],
+                                     targets[i],
+                                     traceLines[i],
+                                     traceLines[i] + 1));
+        }
+
+        return steps;
+    }
+}
@@ -98,8 +98,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -107,10 +109,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.xerces.parsers.DOMParser;
 import org.eclipse.ecf.core.util.Base64;
 import org.eclipse.swt.graphics.Image;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -458,6 +468,14 @@ public class ImportCogToolXML
     // Image data cache; maps image name to data (byte[])
     private Map<String, byte[]> cachedImages = new HashMap<String, byte[]>();
 
+    // Owner of the elements built while streaming
+    private Document fragmentDocument = null;
+
+    // Image data decoded while streaming, keyed by the (childless)
+    // backgroundImageData element that held the encoded text
+    private Map<Node, byte[]> decodedImageData =
+        new IdentityHashMap<Node, byte[]>();
+
     private static ObjectLoader.IObjectLoader<Design> designLoader =
         Design.getImportLoader();
     private static ObjectLoader.IObjectLoader<Frame> frameLoader =
@@ -469,34 +487,30 @@ public class ImportCogToolXML
     
     private static boolean inImportFromXML = false;
 
+    /**
+     * Imports the given file using a streaming (pull) parser; only one
+     * task, frame, or demonstration element is held in memory at a time
+     * and embedded image data is decoded as it is read.
+     */
     public boolean importXML(File inputFile,
                              TaskParent parent,
                              CognitiveModelGenerator modelGen)
                    throws IOException, SAXException, SecurityException
     {
-        InputStream fis = null;
-        fis = new FileInputStream(inputFile);
-        boolean result = false;
+        modelGenerator = modelGen;
 
-        try {
-            Reader input = new InputStreamReader(fis, "UTF-8");
+        // Set the path for loading images
+        directoryPath = inputFile.getParent() + File.separator;
 
-            try {
-                result = importXML(input,
-                                   inputFile.getParent() + File.separator,
-                                   parent,
-                                   modelGen);
+        // Tasks must be known before the demonstrations that refer to them
+        // are imported, but they may follow the designs in the file (as
+        // written by ExportCogToolXML); read the file once for each.
+        streamFile(inputFile, parent, false);
+        streamFile(inputFile, parent, true);
 
-            }
-            finally {
-                input.close();
-            }
-        }
-        finally {
-            fis.close();
-        }
+        checkFailedImages();
 
-        return result;
+        return true;
     }
 
     public boolean importXML(Reader input,
@@ -520,6 +534,13 @@ public class ImportCogToolXML
         Document document = parser.getDocument();
         parseFile(document, taskParent);
 
+        checkFailedImages();
+
+        return true;
+    }
+
+    private void checkFailedImages()
+    {
         if (failedImages.size() > 0) {
             String failedImageString = "Failed to load the following images:";
             Iterator<String> fIter = failedImages.iterator();
@@ -531,8 +552,371 @@ public class ImportCogToolXML
 
             throw new GraphicsUtil.ImageException(failedImageString);
         }
+    }
 
-        return true;
+    /**
+     * Decodes Base64 text incrementally, as it arrives from the parser,
+     * so that the encoded form of an image is never held in full.
+     */
+    private static class ImageDataDecoder
+    {
+        private static final int INITIAL_CAPACITY = 64 * 1024;
+
+        private byte[] data = new byte[INITIAL_CAPACITY];
+        private int length = 0;
+        private int bits = 0;
+        private int bitCount = 0;
+        private boolean done = false;
+
+        private static int decodeChar(char c)
+        {
+            if ((c >= 'A') && (c <= 'Z')) {
+                return c - 'A';
+            }
+            if ((c >= 'a') && (c <= 'z')) {
+                return c - 'a' + 26;
+            }
+            if ((c >= '0') && (c <= '9')) {
+                return c - '0' + 52;
+            }
+            if (c == '+') {
+                return 62;
+            }
+            if (c == '/') {
+                return 63;
+            }
+
+            return -1;
+        }
+
+        public void decode(char[] chars, int start, int count)
+        {
+            int end = start + count;
+
+            for (int i = start; (i < end) && ! done; i++) {
+                char c = chars[i];
+
+                if (c == '=') {
+                    done = true;
+                    break;
+                }
+
+                int value = decodeChar(c);
+
+                // Ignore whitespace and anything else outside the alphabet
+                if (value >= 0) {
+                    bits = (bits << 6) | value;
+                    bitCount += 6;
+
+                    if (bitCount >= 8) {
+                        bitCount -= 8;
+
+                        if (length == data.length) {
+                            data = Arrays.copyOf(data, length * 2);
+                        }
+
+                        data[length++] = (byte) (bits >> bitCount);
+                        bits &= (1 << bitCount) - 1;
+                    }
+                }
+            }
+        }
+
+        public byte[] getData()
+        {
+            return (length == data.length) ? data
+                                           : Arrays.copyOf(data, length);
+        }
+    }
+
+    private static XMLInputFactory streamFactory = null;
+
+    private static XMLInputFactory getStreamFactory()
+    {
+        if (streamFactory == null) {
+            streamFactory = XMLInputFactory.newInstance();
+
+            streamFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+                                      Boolean.FALSE);
+            streamFactory.setProperty(XMLInputFactory.IS_COALESCING,
+                                      Boolean.FALSE);
+        }
+
+        return streamFactory;
+    }
+
+    private void streamFile(File inputFile,
+                            TaskParent taskParent,
+                            boolean importDesigns)
+        throws IOException, SAXException
+    {
+        InputStream fis = new FileInputStream(inputFile);
+
+        try {
+            Reader input = new InputStreamReader(fis, "UTF-8");
+
+            try {
+                XMLStreamReader reader =
+                    getStreamFactory().createXMLStreamReader(input);
+
+                try {
+                    if (fragmentDocument == null) {
+                        fragmentDocument =
+                            DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+                    }
+
+                    while (reader.hasNext()) {
+                        if ((reader.next() == XMLStreamConstants.START_ELEMENT) &&
+                            getElementName(reader).equalsIgnoreCase(COGTOOL_IMPORT_ELT))
+                        {
+                            dtdVersion = getAttributeValue(reader, VERSION_ATTR);
+
+                            streamImportChildren(reader,
+                                                 taskParent,
+                                                 importDesigns);
+                        }
+                    }
+                }
+                finally {
+                    reader.close();
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (XMLStreamException ex) {
+            throw new SAXException(ex);
+        }
+        catch (ParserConfigurationException ex) {
+            throw new SAXException(ex);
+        }
+        finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Streaming counterpart to parseFile; the reader is positioned at the
+     * start of a cogtoolimport element and is left at its end.
+     * Depending on importDesigns, either the tasks and task groups or
+     * the designs are imported; the other elements are skipped.
+     */
+    private void streamImportChildren(XMLStreamReader reader,
+                                      TaskParent taskParent,
+                                      boolean importDesigns)
+        throws XMLStreamException, IOException
+    {
+        while (true) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String eltName = getElementName(reader);
+
+                if (importDesigns) {
+                    if (eltName.equalsIgnoreCase(DESIGN_ELT)) {
+                        streamDesign(reader, taskParent);
+                    }
+                    else {
+                        skipElement(reader);
+                    }
+                }
+                else if (eltName.equalsIgnoreCase(TASK_GROUP_ELT)) {
+                    parseTaskGroup(readElement(reader), null);
+                }
+                else if (eltName.equalsIgnoreCase(TASK_ELT)) {
+                    parseTask(readElement(reader), taskParent);
+                }
+                else {
+                    skipElement(reader);
+                }
+            }
+        }
+    }
+
+    /**
+     * Streaming counterpart to parseDesign; each child element (device,
+     * frame, or demonstration) is read and imported before the next one.
+     */
+    private void streamDesign(XMLStreamReader reader, TaskParent taskParent)
+        throws XMLStreamException, IOException
+    {
+        DesignImport designImport = startDesign(createElement(reader));
+
+        while (true) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                Node child = readElement(reader);
+
+                try {
+                    parseDesignChild(designImport, child, taskParent);
+                }
+                finally {
+                    decodedImageData.clear();
+                }
+            }
+        }
+
+        finishDesign(designImport);
+    }
+
+    private static String getElementName(XMLStreamReader reader)
+    {
+        String prefix = reader.getPrefix();
+
+        if ((prefix != null) && ! prefix.equals("")) {
+            return prefix + ":" + reader.getLocalName();
+        }
+
+        return reader.getLocalName();
+    }
+
+    private static String getAttributeValue(XMLStreamReader reader,
+                                            String attr)
+    {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (attr.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a childless element holding the name and attributes of the
+     * element at which the reader is positioned.
+     */
+    private Element createElement(XMLStreamReader reader)
+    {
+        Element elt = fragmentDocument.createElement(getElementName(reader));
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String attrName = reader.getAttributeLocalName(i);
+
+            if ((prefix != null) && ! prefix.equals("")) {
+                attrName = prefix + ":" + attrName;
+            }
+
+            elt.setAttribute(attrName, reader.getAttributeValue(i));
+        }
+
+        return elt;
+    }
+
+    /**
+     * Reads the element at which the reader is positioned, with all of its
+     * content, into a DOM element suitable for the Node-based parse
+     * methods.  The contents of backgroundImageData elements are decoded
+     * directly into decodedImageData instead of becoming text nodes.
+     * The reader is left at the end of the element.
+     */
+    private Element readElement(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        Element elt = createElement(reader);
+        StringBuilder text = null;
+
+        while (true) {
+            int event = reader.next();
+
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE: {
+                    if (text == null) {
+                        text = new StringBuilder();
+                    }
+
+                    text.append(reader.getTextCharacters(),
+                                reader.getTextStart(),
+                                reader.getTextLength());
+                    break;
+                }
+                case XMLStreamConstants.START_ELEMENT: {
+                    if (text != null) {
+                        elt.appendChild(fragmentDocument.createTextNode(text.toString()));
+                        text = null;
+                    }
+
+                    if (getElementName(reader).equalsIgnoreCase(BKG_IMAGE_DATA_ELT)) {
+                        elt.appendChild(readImageData(reader));
+                    }
+                    else {
+                        elt.appendChild(readElement(reader));
+                    }
+                    break;
+                }
+                case XMLStreamConstants.END_ELEMENT: {
+                    if (text != null) {
+                        elt.appendChild(fragmentDocument.createTextNode(text.toString()));
+                    }
+
+                    return elt;
+                }
+            }
+        }
+    }
+
+    private Element readImageData(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        Element elt = createElement(reader);
+        ImageDataDecoder decoder = new ImageDataDecoder();
+
+        while (true) {
+            int event = reader.next();
+
+            if ((event == XMLStreamConstants.CHARACTERS) ||
+                (event == XMLStreamConstants.CDATA) ||
+                (event == XMLStreamConstants.SPACE))
+            {
+                decoder.decode(reader.getTextCharacters(),
+                               reader.getTextStart(),
+                               reader.getTextLength());
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                skipElement(reader);
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        decodedImageData.put(elt, decoder.getData());
+
+        return elt;
+    }
+
+    /**
+     * Skips the element at which the reader is positioned, leaving
+     * the reader at its end.
+     */
+    private static void skipElement(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        int depth = 1;
+
+        while (depth > 0) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
     }
 
 
@@ -581,6 +965,28 @@ public class ImportCogToolXML
         return "";
     }
 
+    /**
+     * Returns the image data held by the given backgroundImageData element,
+     * or <code>null</code> if it is empty.  When streaming, the data has
+     * already been decoded as the element was read.
+     */
+    private byte[] getImageData(Node node)
+    {
+        if (decodedImageData.containsKey(node)) {
+            byte[] image = decodedImageData.get(node);
+
+            return ((image != null) && (image.length > 0)) ? image : null;
+        }
+
+        String imageData = getElementText(node);
+
+        if (! imageData.equals("")) {
+            return Base64.decode(imageData);
+        }
+
+        return null;
+    }
+
     /**
      * Imports an XML file containing a design
      * and possibly a demonstration
@@ -648,6 +1054,20 @@ public class ImportCogToolXML
         getTask(getAttributeValue(node, NAME_ATTR), null, taskParent);
     }
 
+    /**
+     * Holds a design under construction so that the children of its
+     * element may be parsed one at a time.
+     */
+    private static class DesignImport
+    {
+        public Design design;
+        public List<Demonstration> demonstrations =
+            new ArrayList<Demonstration>();
+        public Collection<DeviceType> deviceTypes;
+        public Collection<?> frames;
+        public ObjectLoader.IAggregateLoader deviceTypesLoader;
+    }
+
     /**
      * Imports a design
      * @param node
@@ -658,92 +1078,126 @@ public class ImportCogToolXML
         NodeList children = node.getChildNodes();
 
         if (children != null) {
-            Design design = designLoader.createObject();
-            List<Demonstration> demonstrations =
-                new ArrayList<Demonstration>();
+            DesignImport designImport = startDesign(node);
 
-            designLoader.set(design,
-                             Design.nameVAR,
-                             getAttributeValue(node, NAME_ATTR));
-            addAttributes(design, node);
+            for (int i = 0; i < children.getLength(); i++) {
+                parseDesignChild(designImport, children.item(i), taskParent);
+            }
 
-            @SuppressWarnings("unchecked")
-            Collection<DeviceType> deviceTypes = (Collection<DeviceType>)
-                designLoader.createCollection(design, Design.deviceTypesVAR, 1);
-            Collection<?> frames =
-                designLoader.createCollection(design, Design.framesVAR, 1);
+            finishDesign(designImport);
+        }
+    }
 
+    /**
+     * Creates the design described by the attributes of the given node;
+     * the node's children are not examined.
+     */
+    private DesignImport startDesign(Node node)
+    {
+        DesignImport designImport = new DesignImport();
+        Design design = designLoader.createObject();
 
-            ObjectLoader.IAggregateLoader deviceTypesLoader =
-                designLoader.getLoader(Design.deviceTypesVAR);
+        designImport.design = design;
 
-            for (int i = 0; i < children.getLength(); i++) {
-                Node child = children.item(i);
-                String nodeName = child.getNodeName();
+        designLoader.set(design,
+                         Design.nameVAR,
+                         getAttributeValue(node, NAME_ATTR));
+        addAttributes(design, node);
 
-                if (nodeName.equalsIgnoreCase(DEVICE_ELT)) {
-                    String device = getElementText(child);
+        @SuppressWarnings("unchecked")
+        Collection<DeviceType> deviceTypes = (Collection<DeviceType>)
+            designLoader.createCollection(design, Design.deviceTypesVAR, 1);
 
-                    if (device.equalsIgnoreCase(KEYBOARD_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Keyboard);
-                    }
-                    else if (device.equalsIgnoreCase(MOUSE_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Mouse);
-                    }
-                    else if (device.equalsIgnoreCase(TOUCHSCREEN_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Touchscreen);
-                    }
-                    else if (device.equalsIgnoreCase(MICROPHONE_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Voice);
-                    }
-                    else if (device.equalsIgnoreCase(DISPLAY_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Display);
-                    }
-                    else if (device.equalsIgnoreCase(SPEAKER_DEVICE)) {
-                        deviceTypesLoader.addToCollection(objLoader,
-                                                          deviceTypes,
-                                                          DeviceType.Speaker);
-                    }
-                    else {
-                        // "unknown device"
-                        failedObjectErrors.add("Unknown Design device: "
-                                                        + device);
-                    }
-                }
-                else if (nodeName.equalsIgnoreCase(FRAME_ELT)) {
-                    parseFrame(design, child);
-                    // No need to add frame to the design here; done already!
-                }
-                else if (nodeName.equalsIgnoreCase(DEMONSTRATION_ELT)) {
-                    Demonstration demo = parseDemonstration(design, 
-                                                            child,
-                                                            taskParent);
+        designImport.deviceTypes = deviceTypes;
+        designImport.frames =
+            designLoader.createCollection(design, Design.framesVAR, 1);
+        designImport.deviceTypesLoader =
+            designLoader.getLoader(Design.deviceTypesVAR);
 
-                    if (demo != null) {
-                        demonstrations.add(demo);
-                    }
-                }
+        return designImport;
+    }
+
+    /**
+     * Imports a single child of a design element: a device, frame,
+     * or demonstration.
+     */
+    private void parseDesignChild(DesignImport designImport,
+                                  Node child,
+                                  TaskParent taskParent)
+        throws IOException
+    {
+        Design design = designImport.design;
+        Collection<DeviceType> deviceTypes = designImport.deviceTypes;
+        ObjectLoader.IAggregateLoader deviceTypesLoader =
+            designImport.deviceTypesLoader;
+        String nodeName = child.getNodeName();
+
+        if (nodeName.equalsIgnoreCase(DEVICE_ELT)) {
+            String device = getElementText(child);
+
+            if (device.equalsIgnoreCase(KEYBOARD_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Keyboard);
+            }
+            else if (device.equalsIgnoreCase(MOUSE_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Mouse);
+            }
+            else if (device.equalsIgnoreCase(TOUCHSCREEN_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Touchscreen);
+            }
+            else if (device.equalsIgnoreCase(MICROPHONE_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Voice);
+            }
+            else if (device.equalsIgnoreCase(DISPLAY_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Display);
+            }
+            else if (device.equalsIgnoreCase(SPEAKER_DEVICE)) {
+                deviceTypesLoader.addToCollection(objLoader,
+                                                  deviceTypes,
+                                                  DeviceType.Speaker);
             }
+            else {
+                // "unknown device"
+                failedObjectErrors.add("Unknown Design device: "
+                                                + device);
+            }
+        }
+        else if (nodeName.equalsIgnoreCase(FRAME_ELT)) {
+            parseFrame(design, child);
+            // No need to add frame to the design here; done already!
+        }
+        else if (nodeName.equalsIgnoreCase(DEMONSTRATION_ELT)) {
+            Demonstration demo = parseDemonstration(design,
+                                                    child,
+                                                    taskParent);
 
-            if ((design.getName() == null) ||
-                (deviceTypes.size() == 0) ||
-                (frames.size() == 0))
-            {
-                throw new ImportFailedException("No design found");
+            if (demo != null) {
+                designImport.demonstrations.add(demo);
             }
+        }
+    }
 
-            designs.put(design, demonstrations);
+    private void finishDesign(DesignImport designImport)
+    {
+        Design design = designImport.design;
+
+        if ((design.getName() == null) ||
+            (designImport.deviceTypes.size() == 0) ||
+            (designImport.frames.size() == 0))
+        {
+            throw new ImportFailedException("No design found");
         }
+
+        designs.put(design, designImport.demonstrations);
     }
 
 
@@ -840,13 +1294,10 @@ public class ImportCogToolXML
                     }
                 }
                 else if (nodeName.equalsIgnoreCase(BKG_IMAGE_DATA_ELT)) {
-                    String backgroundImageData = getElementText(child);
                     String imageName = getAttributeValue(child, NAME_ATTR);
-                    byte[] image = null;
-
-                    if (backgroundImageData != "") {
-                        image = Base64.decode(backgroundImageData);
+                    byte[] image = getImageData(child);
 
+                    if (image != null) {
                         if ((imageName != null) && ! imageName.equals("")) {
                             cachedImages.put(imageName, image);
                         }
@@ -1405,11 +1856,9 @@ public class ImportCogToolXML
                     }
                 }
                 else if (nodeName.equalsIgnoreCase(BKG_IMAGE_DATA_ELT)) {
-                    String backgroundImageData = getElementText(child);
-
-                    if (backgroundImageData != "") {
-                        byte[] image = Base64.decode(backgroundImageData);
+                    byte[] image = getImageData(child);
 
+                    if (image != null) {
                         widgetLoader.set(widget, Widget.widgetImageVAR, image);
 
                         String imageName = getAttributeValue(child, NAME_ATTR);
@@ -357,6 +357,19 @@ public class KLMCognitiveGenerator implements CognitiveModelGenerator
             }
         }
 
+        @Override
+        public boolean isEquivalent(DefaultModelGeneratorState otherState)
+        {
+            if (! super.isEquivalent(otherState)) {
+                return false;
+            }
+
+            KLMGeneratorState klmState = (KLMGeneratorState) otherState;
+
+            return (fsmState == klmState.getFSMState()) &&
+                   (lastCommandChar == klmState.getLastCmdChar());
+        }
+
         public int getFSMState()
         {
             return fsmState;
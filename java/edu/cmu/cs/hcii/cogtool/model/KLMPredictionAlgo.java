@@ -0,0 +1,971 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.cmu.cs.hcii.cogtool.util.Cancelable;
+import edu.cmu.cs.hcii.cogtool.util.KeyboardUtil;
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+import edu.cmu.cs.hcii.cogtool.util.ProcessTraceCallback;
+
+/**
+ * A prediction algorithm that computes task time entirely in Java by walking
+ * the generated script and summing operator durations, instead of running
+ * the script through ACT-R in a Lisp subprocess.  The operators mirror the
+ * productions ACTRPredictionAlgo emits for each script step, and their
+ * durations are taken from the ACT-R and EMMA parameters CogTool installs
+ * (see cogtool-actr.lisp and emma.lisp): mouse movements use Fitts's law on
+ * the target widget's geometry and look-at's use EMMA's eye-movement and
+ * encoding equations.
+ *
+ * No parallelism between modules is modeled, so the result is an estimate;
+ * it is cheap enough (linear in the number of script steps, no I/O) to be
+ * recomputed whenever a demonstration changes.
+ */
+public class KLMPredictionAlgo extends APredictionAlgo
+{
+    public static final KLMPredictionAlgo ONLY = new KLMPredictionAlgo();
+
+    public static final int edu_cmu_cs_hcii_cogtool_model_KLMPredictionAlgo_version = 0;
+
+    private static ObjectSaver.IDataSaver<KLMPredictionAlgo> SAVER =
+        new ObjectSaver.ADataSaver<KLMPredictionAlgo>() {
+            @Override
+            public int getVersion()
+            {
+                return edu_cmu_cs_hcii_cogtool_model_KLMPredictionAlgo_version;
+            }
+
+            @Override
+            public void saveData(KLMPredictionAlgo v, ObjectSaver saver)
+            {
+                // Nothing to save; it's an ONLY!
+            }
+        };
+
+    public static void registerSaver()
+    {
+        ObjectSaver.registerSaver(KLMPredictionAlgo.class.getName(), SAVER);
+    }
+
+    private static ObjectLoader.IObjectLoader<KLMPredictionAlgo> LOADER =
+        new ObjectLoader.AObjectLoader<KLMPredictionAlgo>() {
+            @Override
+            public KLMPredictionAlgo createObject()
+            {
+                return ONLY;
+            }
+        };
+
+    public static void registerLoader()
+    {
+        ObjectLoader.registerLoader(KLMPredictionAlgo.class.getName(),
+                                    edu_cmu_cs_hcii_cogtool_model_KLMPredictionAlgo_version,
+                                    LOADER);
+    }
+
+    // All durations are in seconds.
+
+    /** ACT-R's default production cycle time */
+    public static final double PRODUCTION_TIME = 0.050;
+
+    /** ACT-R motor module initiation time */
+    public static final double MOTOR_INIT_TIME = 0.050;
+
+    /** ACT-R motor module burst time (key or button closure) */
+    public static final double MOTOR_BURST_TIME = 0.050;
+
+    /** Minimum aimed-movement time (ACT-R :min-fitts-time) */
+    public static final double MIN_FITTS_TIME = 0.100;
+
+    /** Fitts coefficient ACT-R uses for move-cursor */
+    public static final double MOUSE_FITTS_COEFF = 0.100;
+
+    /** Fitts coefficient ACT-R uses for hand movements (pecks, taps) */
+    public static final double PECK_FITTS_COEFF = 0.075;
+
+    /**
+     * Moving the hand between mouse and keyboard, after its production and
+     * initiation; ACT-R's hand-to-home is a Fitts movement of about 21 key
+     * widths to a 4-key target, followed by a burst.
+     */
+    public static final double HOMING_TIME = 0.300;
+
+    /** Execution time of a single graffiti gesture (cogtool-actr.lisp) */
+    public static final double GRAFFITI_TIME = 0.580;
+
+    /** ACT-R's articulation time per character (3 chars per 0.15s syllable) */
+    public static final double ARTICULATION_TIME_PER_CHAR = 0.050;
+
+    /** EMMA visual encoding factor, as set by CogTool */
+    public static final double ENCODING_FACTOR = 0.006;
+
+    /** EMMA visual encoding exponent, as set by CogTool */
+    public static final double ENCODING_EXPONENT = 0.4;
+
+    /** EMMA default visual object frequency */
+    public static final double OBJECT_FREQUENCY = 0.01;
+
+    /** EMMA saccade preparation time */
+    public static final double SACCADE_PREP_TIME = 0.135;
+
+    /** EMMA saccade execution: initiation plus base time */
+    public static final double SACCADE_BASE_TIME = 0.050 + 0.020;
+
+    /** EMMA saccade execution time per degree of visual angle */
+    public static final double SACCADE_RATE = 0.002;
+
+    /** ACT-R's default display resolution, in pixels per inch */
+    public static final double PIXELS_PER_INCH = 72.0;
+
+    /** ACT-R's default viewing distance, in inches */
+    public static final double VIEWING_DISTANCE = 15.0;
+
+    protected KLMPredictionAlgo() { }
+
+    /**
+     * Converts a distance on the display into degrees of visual angle.
+     */
+    public static double pixelsToDegrees(double pixels)
+    {
+        return Math.toDegrees(Math.atan2(pixels / PIXELS_PER_INCH,
+                                         VIEWING_DISTANCE));
+    }
+
+    /**
+     * Fitts's law movement time, ACT-R style: never less than MIN_FITTS_TIME.
+     */
+    public static double fittsTime(double coefficient,
+                                   double distance,
+                                   double width)
+    {
+        if (width <= 0.0) {
+            width = 1.0;
+        }
+
+        double time = coefficient * (Math.log((distance / width) + 0.5)
+                                             / Math.log(2.0));
+
+        return Math.max(MIN_FITTS_TIME, time);
+    }
+
+    /**
+     * The effective width of the given bounds when approached from
+     * (fromX, fromY): the length of the chord through the center of the
+     * bounds along the direction of movement.
+     */
+    public static double approachWidth(DoubleRectangle bounds,
+                                       double fromX,
+                                       double fromY)
+    {
+        double dx = (bounds.x + bounds.width / 2.0) - fromX;
+        double dy = (bounds.y + bounds.height / 2.0) - fromY;
+
+        if ((dx == 0.0) && (dy == 0.0)) {
+            return Math.min(bounds.width, bounds.height);
+        }
+
+        double theta = Math.atan2(dy, dx);
+        double cos = Math.abs(Math.cos(theta));
+        double sin = Math.abs(Math.sin(theta));
+
+        double alongX = (cos > 0.0) ? (bounds.width / cos) : Double.MAX_VALUE;
+        double alongY = (sin > 0.0) ? (bounds.height / sin) : Double.MAX_VALUE;
+
+        return Math.min(alongX, alongY);
+    }
+
+    /**
+     * EMMA's time to encode an object at the given eccentricity (degrees)
+     */
+    public static double encodingTime(double eccentricity)
+    {
+        return ENCODING_FACTOR
+                   * (- Math.log(OBJECT_FREQUENCY))
+                   * Math.exp(ENCODING_EXPONENT * eccentricity);
+    }
+
+    /**
+     * EMMA's time to shift attention to an object at the given eccentricity
+     * (degrees).  Encoding begins at once; if it does not finish before the
+     * saccade is prepared, the eye moves and the remaining fraction of the
+     * encoding completes at the fovea.
+     */
+    public static double attentionShiftTime(double eccentricity)
+    {
+        double encoding = encodingTime(eccentricity);
+
+        if (encoding <= SACCADE_PREP_TIME) {
+            return encoding;
+        }
+
+        double remaining = 1.0 - (SACCADE_PREP_TIME / encoding);
+
+        return SACCADE_PREP_TIME
+                   + SACCADE_BASE_TIME + (SACCADE_RATE * eccentricity)
+                   + (remaining * encodingTime(0.0));
+    }
+
+    /**
+     * The values an estimate depends on that a parameter sweep may vary,
+     * each identified by one of the constants below.  The defaults are the
+     * scripted durations and the ACT-R values documented above.
+     */
+    public static class Parameters
+    {
+        /** Duration of every think step; negative keeps each step's own */
+        public static final int THINK_DURATION = 0;
+
+        /** Multiplier applied to every system delay */
+        public static final int SYSTEM_DELAY_SCALE = 1;
+
+        /** Multiplier applied to the size of every movement target */
+        public static final int WIDGET_SCALE = 2;
+
+        /** ACT-R's production cycle time (:dat) */
+        public static final int PRODUCTION_TIME = 3;
+
+        /** ACT-R's motor initiation time (:motor-initiation-time) */
+        public static final int MOTOR_INITIATION = 4;
+
+        /** ACT-R's Fitts coefficient for hand movements (:peck-fitts-coeff) */
+        public static final int PECK_FITTS_COEFF = 5;
+
+        public static final int PARAMETER_COUNT = 6;
+
+        protected double[] values;
+
+        public Parameters()
+        {
+            values = new double[] { -1.0,
+                                    1.0,
+                                    1.0,
+                                    KLMPredictionAlgo.PRODUCTION_TIME,
+                                    MOTOR_INIT_TIME,
+                                    KLMPredictionAlgo.PECK_FITTS_COEFF };
+        }
+
+        public Parameters(Parameters copyFrom)
+        {
+            values = copyFrom.values.clone();
+        }
+
+        public double get(int parameter)
+        {
+            return values[parameter];
+        }
+
+        public void set(int parameter, double value)
+        {
+            values[parameter] = value;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return (other != null) &&
+                   (other.getClass() == Parameters.class) &&
+                   Arrays.equals(values, ((Parameters) other).values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(values);
+        }
+
+        @Override
+        public String toString()
+        {
+            return Arrays.toString(values);
+        }
+    }
+
+    /**
+     * The default parameter values; do not modify!
+     */
+    public static final Parameters DEFAULT_PARAMETERS = new Parameters();
+
+    /**
+     * One operator of a compiled script.  Its duration is the sum of its
+     * production cycles, its motor initiations, a fixed part and (for
+     * aimed movements) a Fitts's law movement time, except that think and
+     * system delay operators may be overridden or scaled by the parameters.
+     */
+    protected static class Operator
+    {
+        protected static final int MOTOR = 0;
+        protected static final int THINK = 1;
+        protected static final int DELAY = 2;
+
+        protected String name;
+        protected String target;
+        protected int kind = MOTOR;
+        protected int productions = 0;
+        protected int initiations = 0;
+        protected double fixedTime = 0.0;
+
+        // Aimed movements only; a negative distance means no movement
+        protected double fittsDistance = -1.0;
+        protected double fittsWidth = 0.0;
+        protected boolean isPeck = false;
+
+        public Operator(String operatorName, String targetName)
+        {
+            name = operatorName;
+            target = targetName;
+        }
+
+        public double getDuration(Parameters p)
+        {
+            if (kind == THINK) {
+                double thinkDuration = p.get(Parameters.THINK_DURATION);
+
+                return (thinkDuration >= 0.0) ? thinkDuration : fixedTime;
+            }
+
+            if (kind == DELAY) {
+                return fixedTime * p.get(Parameters.SYSTEM_DELAY_SCALE);
+            }
+
+            double duration = fixedTime;
+
+            if (productions > 0) {
+                duration +=
+                    productions * p.get(Parameters.PRODUCTION_TIME);
+            }
+
+            if (initiations > 0) {
+                duration +=
+                    initiations * p.get(Parameters.MOTOR_INITIATION);
+            }
+
+            if (fittsDistance >= 0.0) {
+                double coefficient =
+                    isPeck ? p.get(Parameters.PECK_FITTS_COEFF)
+                           : MOUSE_FITTS_COEFF;
+
+                duration +=
+                    fittsTime(coefficient,
+                              fittsDistance,
+                              fittsWidth * p.get(Parameters.WIDGET_SCALE));
+            }
+
+            return duration;
+        }
+
+        /**
+         * Adds the parameters this operator's duration depends on to the
+         * given bit mask, indexed by the Parameters constants.
+         */
+        public int addDependencies(int mask)
+        {
+            if (kind == THINK) {
+                return mask | (1 << Parameters.THINK_DURATION);
+            }
+
+            if (kind == DELAY) {
+                return mask | (1 << Parameters.SYSTEM_DELAY_SCALE);
+            }
+
+            if (productions > 0) {
+                mask |= (1 << Parameters.PRODUCTION_TIME);
+            }
+
+            if (initiations > 0) {
+                mask |= (1 << Parameters.MOTOR_INITIATION);
+            }
+
+            if (fittsDistance >= 0.0) {
+                mask |= (1 << Parameters.WIDGET_SCALE);
+
+                if (isPeck) {
+                    mask |= (1 << Parameters.PECK_FITTS_COEFF);
+                }
+            }
+
+            return mask;
+        }
+    }
+
+    /**
+     * The operators of a script, in order, with the geometry each needs
+     * already resolved.  Compiling reads the model and must happen in the
+     * main thread; once compiled, a script no longer refers to the model
+     * and may be evaluated for any number of parameter values, in any
+     * thread.
+     */
+    public static class CompiledScript
+    {
+        protected List<Operator> operators;
+        protected int dependencies = 0;
+
+        protected CompiledScript(List<Operator> ops)
+        {
+            operators = ops;
+
+            for (Operator op : operators) {
+                dependencies = op.addDependencies(dependencies);
+            }
+        }
+
+        /**
+         * Whether changing the given parameter (one of the Parameters
+         * constants) can change the result of evaluate.
+         */
+        public boolean dependsOn(int parameter)
+        {
+            return (dependencies & (1 << parameter)) != 0;
+        }
+
+        public int getOperatorCount()
+        {
+            return operators.size();
+        }
+
+        /**
+         * Computes the task time, in seconds, for the given parameters.
+         * If traceLines is not null, one line per operator is appended to
+         * it giving the operator's start time, its name and its target.
+         */
+        public double evaluate(Parameters p, List<String> traceLines)
+        {
+            double time = 0.0;
+
+            for (Operator op : operators) {
+                if (traceLines != null) {
+                    StringBuilder line = new StringBuilder();
+
+                    line.append(String.format("%.3f", new Double(time)));
+                    line.append('\t');
+                    line.append(op.name);
+
+                    if (op.target != null) {
+                        line.append('\t');
+                        line.append(op.target);
+                    }
+
+                    traceLines.add(line.toString());
+                }
+
+                time += op.getDuration(p);
+            }
+
+            return time;
+        }
+
+        public double evaluate(Parameters p)
+        {
+            return evaluate(p, null);
+        }
+    }
+
+    /**
+     * Walks the script's step states, translating each into operators.
+     */
+    protected static class Compiler extends AScriptStep.ScriptStepVisitor
+    {
+        protected List<Operator> operators = new ArrayList<Operator>();
+
+        // ACT-R starts both the cursor and the eye at the display origin.
+        protected double cursorX = 0.0;
+        protected double cursorY = 0.0;
+        protected double eyeX = 0.0;
+        protected double eyeY = 0.0;
+
+        protected IWidget lastLookedAtWidget = null;
+        protected Boolean lastKeyLeftHand = null;
+
+        public CompiledScript getCompiledScript()
+        {
+            return new CompiledScript(operators);
+        }
+
+        protected Operator addOperator(String name,
+                                       String target,
+                                       int productions,
+                                       int initiations,
+                                       double fixedTime)
+        {
+            Operator op = new Operator(name, target);
+
+            op.productions = productions;
+            op.initiations = initiations;
+            op.fixedTime = fixedTime;
+            operators.add(op);
+
+            return op;
+        }
+
+        protected static String targetName(TransitionSource source)
+        {
+            return (source != null) ? source.getName() : null;
+        }
+
+        public void compileStepState(DefaultModelGeneratorState stepState)
+        {
+            AScriptStep step = stepState.getScriptStep();
+            TransitionSource focus = step.getStepFocus();
+
+            // Same implicit look-at rule as ACTRPredictionAlgo
+            if ((focus instanceof IWidget) &&
+                ! ((IWidget) focus).sameLocation(lastLookedAtWidget) &&
+                ! (step instanceof LookAtScriptStep))
+            {
+                if (! (step instanceof TextActionSegment)) {
+                    lookAt((IWidget) focus);
+                }
+            }
+
+            step.accept(this);
+        }
+
+        protected void lookAt(IWidget widget)
+        {
+            DoubleRectangle bounds = widget.getEltBounds();
+            double x = bounds.x + bounds.width / 2.0;
+            double y = bounds.y + bounds.height / 2.0;
+            double eccentricity =
+                pixelsToDegrees(Math.hypot(x - eyeX, y - eyeY));
+
+            addOperator("LOOK-AT",
+                        widget.getName(),
+                        1,
+                        0,
+                        attentionShiftTime(eccentricity));
+
+            eyeX = x;
+            eyeY = y;
+            lastLookedAtWidget = widget;
+        }
+
+        protected void moveCursor(String name,
+                                  TransitionSource target,
+                                  boolean isPeck)
+        {
+            // find-location and the move itself are separate productions
+            Operator op = addOperator(name, targetName(target), 2, 1, 0.0);
+
+            if (target instanceof IWidget) {
+                DoubleRectangle bounds = ((IWidget) target).getEltBounds();
+                double x = bounds.x + bounds.width / 2.0;
+                double y = bounds.y + bounds.height / 2.0;
+
+                op.fittsDistance = Math.hypot(x - cursorX, y - cursorY);
+                op.fittsWidth = approachWidth(bounds, cursorX, cursorY);
+                op.isPeck = isPeck;
+
+                cursorX = x;
+                cursorY = y;
+            }
+            else {
+                op.fixedTime = MIN_FITTS_TIME;
+            }
+        }
+
+        protected void press(String name, TransitionSource target, int times)
+        {
+            for (int i = 0; i < times; i++) {
+                addOperator(name, targetName(target), 1, 1, MOTOR_BURST_TIME);
+            }
+        }
+
+        protected void typeCharacters(String text)
+        {
+            for (int i = 0; i < text.length(); i++) {
+                char ch = text.charAt(i);
+                Boolean leftHand =
+                    Boolean.valueOf(KeyboardUtil.needsLeftHand(ch));
+                double motorTime = MOTOR_BURST_TIME;
+
+                // A keystroke with the same hand must wait for the previous
+                // keystroke's execution to finish.
+                if (leftHand.equals(lastKeyLeftHand)) {
+                    motorTime += MOTOR_BURST_TIME;
+                }
+
+                addOperator("KEYSTROKE", String.valueOf(ch), 1, 1, motorTime);
+                lastKeyLeftHand = leftHand;
+            }
+        }
+
+        protected void delay(String name, String label, double duration)
+        {
+            if (duration > 0.0) {
+                Operator op = addOperator(name, label, 0, 0, duration);
+
+                op.kind = Operator.DELAY;
+            }
+        }
+
+        protected void visitAction(AAction action, TransitionSource source)
+        {
+            ActionType type = action.getType();
+
+            if (! type.equals(ActionType.KeyPress)) {
+                lastKeyLeftHand = null;
+            }
+
+            if (type.equals(ActionType.ButtonPress)) {
+                MousePressType pt = ((ButtonAction) action).getPressType();
+                int times = 1;
+
+                if (pt.equals(MousePressType.Double)) {
+                    times = 2;
+                }
+                else if (pt.equals(MousePressType.Triple)) {
+                    times = 3;
+                }
+                else if (pt.equals(MousePressType.Hover)) {
+                    times = 0;
+                }
+
+                press("CLICK", source, times);
+            }
+            else if (type.equals(ActionType.MouseOver) ||
+                     type.equals(ActionType.MoveMouse))
+            {
+                moveCursor(type.equals(ActionType.MouseOver) ? "HOVER"
+                                                             : "MOVE-MOUSE",
+                           source,
+                           false);
+            }
+            else if (type.equals(ActionType.KeyPress)) {
+                typeCharacters(((KeyAction) action).getText());
+            }
+            else if (type.equals(ActionType.GraffitiStroke)) {
+                String cmd = ((GraffitiAction) action).getText();
+
+                for (int i = 0; i < cmd.length(); i++) {
+                    addOperator("GRAFFITI",
+                                String.valueOf(cmd.charAt(i)),
+                                1,
+                                1,
+                                GRAFFITI_TIME);
+                }
+            }
+            else if (type.equals(ActionType.Voice)) {
+                String utterance = ((VoiceAction) action).getText();
+                int length = (utterance != null) ? utterance.length() : 0;
+
+                addOperator("SAY",
+                            utterance,
+                            1,
+                            1,
+                            ARTICULATION_TIME_PER_CHAR * length);
+            }
+            else if (type.equals(ActionType.Home)) {
+                HomeAction homeAction = (HomeAction) action;
+
+                addOperator((homeAction.getHomeTarget() == HandLocation.OnKeyboard)
+                                ? "HOME-KEYBOARD"
+                                : "HOME-MOUSE",
+                            null,
+                            1,
+                            1,
+                            HOMING_TIME);
+            }
+            else if (type.equals(ActionType.Tap)) {
+                tap(((TapAction) action).getTapPressType(), source, true);
+            }
+        }
+
+        protected void tap(TapPressType tpt,
+                           TransitionSource source,
+                           boolean moveRequired)
+        {
+            int times = 1;
+
+            if (tpt == TapPressType.DoubleTap) {
+                times = 2;
+            }
+            else if (tpt == TapPressType.TripleTap) {
+                times = 3;
+            }
+
+            if (moveRequired) {
+                moveCursor("MOVE-FINGER", source, true);
+            }
+
+            if (tpt != TapPressType.Hover) {
+                press("TAP", source, times);
+            }
+        }
+
+        @Override
+        public void visit(ActionScriptStep step)
+        {
+            visitAction(step.getAction(), step.getStepFocus());
+        }
+
+        @Override
+        public void visit(TransitionScriptStep step)
+        {
+            Transition t = step.getTransition();
+
+            visitAction(t.getAction(), t.getSource());
+        }
+
+        @Override
+        public void visit(TapScriptStep step)
+        {
+            lastKeyLeftHand = null;
+            tap(((TapAction) step.getAction()).getTapPressType(),
+                step.getStepFocus(),
+                step.isMoveRequired());
+        }
+
+        @Override
+        public void visit(TextActionSegment step)
+        {
+            typeCharacters(step.getText());
+        }
+
+        @Override
+        public void visit(LookAtScriptStep step)
+        {
+            lookAt(step.getLookAtTarget());
+        }
+
+        @Override
+        public void visit(ThinkScriptStep step)
+        {
+            String label = step.getLabel();
+
+            if ((label == null) || (label.length() == 0)) {
+                label = "THINK";
+            }
+
+            Operator op =
+                addOperator(label, null, 0, 0, step.getThinkDuration());
+
+            op.kind = Operator.THINK;
+        }
+
+        @Override
+        public void visit(DelayScriptStep step)
+        {
+            delay("WAIT", step.getLabel(), step.getDelayDuration());
+        }
+
+        @Override
+        public void visit(TransitionDelayScriptStep step)
+        {
+            // The KLM generator inserts these for every transition
+            // (or action) that has a system delay.
+            delay("WAIT", step.getDelayLabel(), step.getDelayInSecs());
+        }
+
+        @Override
+        public void visit(HearScriptStep step)
+        {
+            double duration = step.getListenTimeInSecs();
+            String text = step.getTextToHear();
+
+            if ((duration == Frame.NO_LISTEN_TIME) && (text != null)) {
+                duration = ARTICULATION_TIME_PER_CHAR * text.length();
+            }
+
+            addOperator("HEAR", text, 1, 0, duration);
+        }
+
+        @Override
+        public void visit(DriveScriptStep step)
+        {
+            // Driving is not supported by the ACT-R models either.
+        }
+    }
+
+    /**
+     * Translates the given script into operators that can be evaluated
+     * repeatedly without consulting the model again.
+     */
+    public CompiledScript compile(Script script)
+    {
+        Compiler compiler = new Compiler();
+        Iterator<DefaultModelGeneratorState> stepStates =
+            script.getStepStates().iterator();
+
+        while (stepStates.hasNext()) {
+            compiler.compileStepState(stepStates.next());
+        }
+
+        return compiler.getCompiledScript();
+    }
+
+    /**
+     * Whether this algorithm's estimates approximate the results of the
+     * given algorithm: only the ACT-R algorithms run the KLM scripts whose
+     * operators this algorithm sums.
+     */
+    public static boolean approximates(CognitiveModelGenerator gen,
+                                       IPredictionAlgo alg)
+    {
+        return (gen == KLMCognitiveGenerator.ONLY) &&
+               ((alg instanceof ACTRPredictionAlgo) || (alg == ONLY));
+    }
+
+    /**
+     * Estimates the task time for the given script, in seconds, using the
+     * default parameters.  If traceLines is not null, one line per
+     * operator is appended to it.
+     */
+    public double estimate(Script script, List<String> traceLines)
+    {
+        return compile(script).evaluate(DEFAULT_PARAMETERS, traceLines);
+    }
+
+    public double estimate(Script script)
+    {
+        return estimate(script, null);
+    }
+
+    protected class KLMAnalysisInput extends AAnalysisInput
+    {
+        protected Script script;
+
+        public KLMAnalysisInput(Script s)
+        {
+            script = s;
+        }
+
+        public IAnalysisOutput compute(ProcessTraceCallback progressCallback,
+                                       Cancelable cancelable)
+        {
+            final List<String> traceLines = new ArrayList<String>();
+            final List<String> errorLines = new ArrayList<String>();
+            double time;
+
+            try {
+                time = estimate(script, traceLines);
+            }
+            catch (RuntimeException e) {
+                errorLines.add(e.toString());
+                time = TimePredictionResult.UNSET_TIME;
+            }
+
+            final double taskTime = time;
+
+            return new IAnalysisOutput() {
+                public APredictionResult completeWork()
+                {
+                    if (taskTime < 0.0) {
+                        return new TimePredictionResult("KLM Error",
+                                                        script,
+                                                        KLMPredictionAlgo.this,
+                                                        traceLines,
+                                                        errorLines);
+                    }
+
+                    return new TimePredictionResult("KLM Time: " + taskTime,
+                                                    script,
+                                                    KLMPredictionAlgo.this,
+                                                    traceLines,
+                                                    errorLines,
+                                                    null,
+                                                    taskTime);
+                }
+            };
+        }
+    }
+
+    @Override
+    public IAnalysisInput prepareComputation(Script script)
+    {
+        return new KLMAnalysisInput(script);
+    }
+}
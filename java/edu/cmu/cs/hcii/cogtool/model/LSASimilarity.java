@@ -407,8 +407,6 @@ public class LSASimilarity extends CachedTermSimilarity
         }
     }
 
-    protected ProcessGoalSimilarity goalSimilarityParser = null;
-
     protected LSASimilarity()
     {
         // For create and loading
@@ -461,9 +459,8 @@ public class LSASimilarity extends CachedTermSimilarity
                                                     String search,
                                                     List<String> errors)
     {
-        if (goalSimilarityParser == null) {
-            goalSimilarityParser = new ProcessGoalSimilarity();
-        }
+        ProcessGoalSimilarity goalSimilarityParser =
+            new ProcessGoalSimilarity();
 
         goalSimilarityParser.reset(goal, search, errors);
 
@@ -167,9 +167,12 @@ public class MSRSimilarity extends CachedTermSimilarity
     @Override
     protected IWordFrequencyParser getWordFreqParser(String word, List<String> errors)
     {
-        GoogleSimilarity.termFreqParser.reset(word, errors);
+        GoogleSimilarity.ProcessTermFrequency termFreqParser =
+            new GoogleSimilarity.ProcessTermFrequency();
 
-        return GoogleSimilarity.termFreqParser;
+        termFreqParser.reset(word, errors);
+
+        return termFreqParser;
     } // getWordFreqParser
 
     protected static class ProcessGoalSimilarity
@@ -313,14 +316,14 @@ public class MSRSimilarity extends CachedTermSimilarity
         }
     }
 
-    protected static ProcessGoalSimilarity goalSimilarityParser =
-        new ProcessGoalSimilarity();
-
     @Override
     protected ISimilarityParser getSimilarityParser(String goalWord,
                                                     String searchWord,
                                                     List<String> errors)
     {
+        ProcessGoalSimilarity goalSimilarityParser =
+            new ProcessGoalSimilarity();
+
         goalSimilarityParser.reset(goalWord, searchWord, errors);
 
         return goalSimilarityParser;
@@ -0,0 +1,552 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.CompiledScript;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.Parameters;
+import edu.cmu.cs.hcii.cogtool.util.Cancelable;
+import edu.cmu.cs.hcii.cogtool.util.L10N;
+import edu.cmu.cs.hcii.cogtool.util.ProgressCallback;
+import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
+
+/**
+ * Computes KLMPredictionAlgo task times for a set of task applications at
+ * every combination of a set of parameter values (think durations, system
+ * delay and widget scale factors, ACT-R timing parameters), producing a
+ * matrix with one row per task application and one column per
+ * combination.
+ *
+ * The times are KLM estimates, not ACT-R predictions: they show how a
+ * task's time responds to the parameters, but are not calibrated to the
+ * results ACT-R computes for the same script.
+ *
+ * The project is never modified: each script is compiled once, by
+ * compile() (call it in the main UI thread), and the variants are produced
+ * by evaluating the compiled script with different parameters, in parallel
+ * on the ThreadManager's workers.  Combinations that differ only in
+ * parameters a script does not depend on (e.g., think duration for a
+ * script without think steps) share a single evaluation.
+ */
+public class ParameterSweep
+{
+    /**
+     * The task times computed by a sweep; a time is
+     * TimePredictionResult.UNSET_TIME if the task application has no
+     * script that can be estimated.
+     */
+    public static class Result
+    {
+        protected List<TaskApplication> rows;
+        protected Parameters[] columns;
+        protected double[][] times;
+        protected int evaluationCount;
+
+        protected Result(List<TaskApplication> taskApps,
+                         Parameters[] points,
+                         double[][] taskTimes,
+                         int evaluations)
+        {
+            rows = taskApps;
+            columns = points;
+            times = taskTimes;
+            evaluationCount = evaluations;
+        }
+
+        public int getRowCount()
+        {
+            return rows.size();
+        }
+
+        public int getColumnCount()
+        {
+            return columns.length;
+        }
+
+        public TaskApplication getTaskApplication(int row)
+        {
+            return rows.get(row);
+        }
+
+        public Parameters getParameters(int column)
+        {
+            return columns[column];
+        }
+
+        public double getTime(int row, int column)
+        {
+            return times[row][column];
+        }
+
+        /**
+         * The number of times a compiled script was actually evaluated;
+         * at most getRowCount() * getColumnCount().
+         */
+        public int getEvaluationCount()
+        {
+            return evaluationCount;
+        }
+    }
+
+    protected static final String[] PARAMETER_NAMES =
+        { L10N.get("PSW.ThinkDuration", "Think duration (s)"),
+          L10N.get("PSW.SystemDelayScale", "System delay scale"),
+          L10N.get("PSW.WidgetScale", "Widget size scale"),
+          L10N.get("PSW.ProductionTime", "Production cycle time (s)"),
+          L10N.get("PSW.MotorInitiation", "Motor initiation time (s)"),
+          L10N.get("PSW.PeckFittsCoeff", "Peck Fitts coefficient") };
+
+    /**
+     * Think durations swept unless the user chooses others: from half to one
+     * and a half times the 1.2 s KLM mental operator, in 0.3 s steps.
+     */
+    protected static final double[] DEFAULT_THINK_DURATIONS =
+        { 0.6, 0.9, 1.2, 1.5, 1.8 };
+
+    /**
+     * System delay and widget size scales swept unless the user chooses
+     * others: half, as designed, and twice.
+     */
+    protected static final double[] DEFAULT_SCALES = { 0.5, 1.0, 2.0 };
+
+    public static String getParameterName(int parameter)
+    {
+        return PARAMETER_NAMES[parameter];
+    }
+
+    /**
+     * Returns the values a parameter is swept over unless the user chooses
+     * others; the ACT-R timing parameters are held at their ACT-R defaults.
+     */
+    public static double[] getDefaultValues(int parameter)
+    {
+        switch (parameter) {
+            case Parameters.THINK_DURATION: {
+                return DEFAULT_THINK_DURATIONS.clone();
+            }
+            case Parameters.SYSTEM_DELAY_SCALE:
+            case Parameters.WIDGET_SCALE: {
+                return DEFAULT_SCALES.clone();
+            }
+            default: {
+                return new double[] {
+                    KLMPredictionAlgo.DEFAULT_PARAMETERS.get(parameter)
+                };
+            }
+        }
+    }
+
+    protected List<TaskApplication> taskApps;
+    protected Parameters baseParameters = new Parameters();
+    protected List<Integer> sweptParameters = new ArrayList<Integer>();
+    protected List<double[]> sweptValues = new ArrayList<double[]>();
+    protected CompiledScript[] compiled = null;
+
+    public ParameterSweep(Collection<TaskApplication> tas)
+    {
+        taskApps = new ArrayList<TaskApplication>(tas);
+    }
+
+    /**
+     * Sweeps every task application of the project, design by design, in
+     * task order.
+     */
+    public ParameterSweep(Project project)
+    {
+        taskApps = new ArrayList<TaskApplication>();
+
+        Iterator<Design> designs = project.getDesigns().iterator();
+
+        while (designs.hasNext()) {
+            addTaskApplications(project,
+                                designs.next(),
+                                project.getUndertakings());
+        }
+    }
+
+    protected void addTaskApplications(Project project,
+                                       Design design,
+                                       List<AUndertaking> tasks)
+    {
+        Iterator<AUndertaking> taskIt = tasks.iterator();
+
+        while (taskIt.hasNext()) {
+            AUndertaking task = taskIt.next();
+
+            if (task.isTaskGroup()) {
+                addTaskApplications(project,
+                                    design,
+                                    ((TaskGroup) task).getUndertakings());
+            }
+            else {
+                TaskApplication ta = project.getTaskApplication(task, design);
+
+                if (ta != null) {
+                    taskApps.add(ta);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the task applications swept, in row order.
+     */
+    public List<TaskApplication> getTaskApplications()
+    {
+        return Collections.unmodifiableList(taskApps);
+    }
+
+    /**
+     * Sets the values used for the parameters that are not swept.
+     */
+    public void setBaseParameters(Parameters p)
+    {
+        baseParameters = new Parameters(p);
+    }
+
+    /**
+     * Adds a parameter to sweep over the given values.  The parameter is
+     * one of the KLMPredictionAlgo.Parameters constants.
+     */
+    public void addDimension(int parameter, double[] values)
+    {
+        if ((parameter < 0) || (parameter >= Parameters.PARAMETER_COUNT)) {
+            throw new IllegalArgumentException("Unknown parameter: "
+                                                   + parameter);
+        }
+        if (sweptParameters.contains(new Integer(parameter))) {
+            throw new IllegalArgumentException("Parameter already swept: "
+                                                   + parameter);
+        }
+
+        sweptParameters.add(new Integer(parameter));
+        sweptValues.add(values.clone());
+    }
+
+    /**
+     * Adds a parameter to sweep from first to last (inclusive) in the
+     * given number of evenly spaced steps.
+     */
+    public void addDimension(int parameter,
+                             double first,
+                             double last,
+                             int steps)
+    {
+        double[] values = new double[steps];
+
+        for (int i = 0; i < steps; i++) {
+            values[i] =
+                (steps == 1) ? first
+                             : first + ((last - first) * i) / (steps - 1);
+        }
+
+        addDimension(parameter, values);
+    }
+
+    /**
+     * Returns the parameters swept, in the order added.
+     */
+    public int[] getSweptParameters()
+    {
+        int[] parameters = new int[sweptParameters.size()];
+
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = sweptParameters.get(i).intValue();
+        }
+
+        return parameters;
+    }
+
+    public int getPointCount()
+    {
+        int count = 1;
+
+        for (double[] values : sweptValues) {
+            count *= values.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the parameters of the given combination; the last dimension
+     * added varies fastest.
+     */
+    public Parameters getPoint(int index)
+    {
+        Parameters p = new Parameters(baseParameters);
+
+        for (int i = sweptValues.size() - 1; i >= 0; i--) {
+            double[] values = sweptValues.get(i);
+
+            p.set(sweptParameters.get(i).intValue(),
+                  values[index % values.length]);
+            index /= values.length;
+        }
+
+        return p;
+    }
+
+    /**
+     * Replaces the values of the parameters the script does not depend on
+     * by the base values, so that equivalent combinations compare equal.
+     */
+    protected Parameters relevantPart(CompiledScript compiled, Parameters p)
+    {
+        Parameters relevant = new Parameters(p);
+
+        for (int i = 0; i < Parameters.PARAMETER_COUNT; i++) {
+            if (! compiled.dependsOn(i)) {
+                relevant.set(i, baseParameters.get(i));
+            }
+        }
+
+        return relevant;
+    }
+
+    /**
+     * Compiles the script of every task application that has one; this
+     * reads the project, so call it in the main UI thread before handing
+     * the sweep to a work thread.  compute() compiles first if needed.
+     */
+    public void compile()
+    {
+        int rowCount = taskApps.size();
+
+        compiled = new CompiledScript[rowCount];
+
+        for (int row = 0; row < rowCount; row++) {
+            TaskApplication ta = taskApps.get(row);
+            Script script = ta.getScript(ta.getFirstModelGenerator());
+
+            if ((script != null) &&
+                ta.getDemonstration().isStartFrameChosen())
+            {
+                compiled[row] = KLMPredictionAlgo.ONLY.compile(script);
+            }
+        }
+    }
+
+    public Result compute()
+    {
+        return compute(null, null);
+    }
+
+    /**
+     * Computes the sweep, evaluating the compiled scripts on the
+     * ThreadManager's workers; the calling thread takes part.
+     *
+     * @param progress notified (serially) as the evaluations finish;
+     *                 may be null
+     * @param cancelable checked between evaluations; may be null
+     * @return the result matrix, or null if the sweep was canceled
+     */
+    public Result compute(final ProgressCallback progress,
+                          final Cancelable cancelable)
+    {
+        if (compiled == null) {
+            compile();
+        }
+
+        final Parameters[] points = new Parameters[getPointCount()];
+
+        for (int i = 0; i < points.length; i++) {
+            points[i] = getPoint(i);
+        }
+
+        int rowCount = taskApps.size();
+        final double[][] times = new double[rowCount][points.length];
+
+        for (int row = 0; row < rowCount; row++) {
+            Arrays.fill(times[row], TimePredictionResult.UNSET_TIME);
+        }
+
+        // Split each row into chunks so that the workers stay busy even
+        // when there are fewer rows than threads; chunks of one row share
+        // that row's cache of evaluations.
+        int threadCount = ThreadManager.getParallelism();
+        int chunksPerRow =
+            (rowCount == 0) ? 1 : (threadCount + rowCount - 1) / rowCount;
+        int chunkSize =
+            Math.max(1, (points.length + chunksPerRow - 1) / chunksPerRow);
+
+        final AtomicInteger evaluations = new AtomicInteger(0);
+        final AtomicInteger finishedChunks = new AtomicInteger(0);
+        final List<Callable<Object>> work = new ArrayList<Callable<Object>>();
+
+        for (int row = 0; row < rowCount; row++) {
+            if (compiled[row] == null) {
+                continue;
+            }
+
+            final CompiledScript script = compiled[row];
+            final double[] rowTimes = times[row];
+            final Map<Parameters, Double> cache =
+                new ConcurrentHashMap<Parameters, Double>();
+
+            for (int start = 0; start < points.length; start += chunkSize) {
+                final int first = start;
+                final int last = Math.min(points.length, start + chunkSize);
+
+                work.add(new Callable<Object>() {
+                    public Object call()
+                    {
+                        for (int col = first; col < last; col++) {
+                            if ((cancelable != null) &&
+                                cancelable.isCanceled())
+                            {
+                                return null;
+                            }
+
+                            Parameters key = relevantPart(script, points[col]);
+                            Double time = cache.get(key);
+
+                            if (time == null) {
+                                time = new Double(script.evaluate(key));
+                                cache.put(key, time);
+                                evaluations.incrementAndGet();
+                            }
+
+                            rowTimes[col] = time.doubleValue();
+                        }
+
+                        if (progress != null) {
+                            int done = finishedChunks.incrementAndGet();
+
+                            synchronized (progress) {
+                                progress.updateProgress(((double) done)
+                                                            / work.size(),
+                                                        null);
+                            }
+                        }
+
+                        return null;
+                    }
+                });
+            }
+        }
+
+        try {
+            List<Future<Object>> results = ThreadManager.invokeAll(work);
+
+            for (Future<Object> result : results) {
+                result.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e) {
+            throw new IPredictionAlgo.ComputationException("Parameter sweep failed",
+                                                           e.getCause());
+        }
+
+        if ((cancelable != null) && cancelable.isCanceled()) {
+            return null;
+        }
+
+        return new Result(taskApps, points, times, evaluations.get());
+    }
+}
@@ -105,9 +105,11 @@ import java.util.Set;
 
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
+import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
 import edu.cmu.cs.hcii.cogtool.util.GlobalAttributed;
 import edu.cmu.cs.hcii.cogtool.util.NameChangeAlert;
 import edu.cmu.cs.hcii.cogtool.util.NamedObject;
+import edu.cmu.cs.hcii.cogtool.util.NamedObjectUtil;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
 import edu.cmu.cs.hcii.cogtool.util.RandomGUID;
@@ -169,6 +171,24 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
     protected List<Design> designs = new ArrayList<Design>();
     protected List<AUndertaking> undertakings = new ArrayList<AUndertaking>();
 
+    /**
+     * Index of the top-level undertakings by name; see getUndertaking.
+     */
+    protected NamedObjectUtil.NameIndex<AUndertaking> undertakingNames =
+        new NamedObjectUtil.NameIndex<AUndertaking>(undertakings);
+
+    /**
+     * Undertakings do not know their project, so the project observes
+     * the renaming of its top-level undertakings to keep the index current.
+     */
+    protected AlertHandler undertakingRenameHandler =
+        new AlertHandler() {
+            public void handleAlert(EventObject alert)
+            {
+                undertakingNames.renamed((AUndertaking) alert.getSource());
+            }
+        };
+
     /**
      * When creating Maps specifying the TaskApplication value for
      * each (Design, AUndertaking) pair, we need a type for the Map
@@ -359,6 +379,24 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
             @Override
             public ObjectLoader.IAggregateLoader getLoader(String variable)
             {
+                if (variable.equals(undertakingsVAR)) {
+                    return new ObjectLoader.AAggregateLoader() {
+                        @Override
+                        public <T> void addToCollection(ObjectLoader l,
+                                                        Collection<? super T> c,
+                                                        T v)
+                        {
+                            super.addToCollection(l, c, v);
+
+                            // Collection is 0, Project is 1
+                            Project parent = (Project) l.getPendingObject(1);
+
+                            parent.observeUndertaking((AUndertaking) v);
+                            parent.undertakingNames.invalidate();
+                        }
+                    };
+                }
+
                 if (variable.equals(taskApplicationsVAR)) {
                     return new ObjectLoader.AAggregateLoader() {
                         @Override
@@ -757,6 +795,13 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
         if (index != -1) {
             designs.remove(designToRemove);
 
+            // Variants of the removed design now derive from its base
+            for (Design design : designs) {
+                if (design.getBaseDesign() == designToRemove) {
+                    design.setBaseDesign(designToRemove.getBaseDesign());
+                }
+            }
+
             raiseAlert(new Project.DesignChange(this, designToRemove, index, false));
 
             return true;
@@ -1145,17 +1190,17 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
      */
     public AUndertaking getUndertaking(String undertakingName)
     {
-        Iterator<AUndertaking> undertakingIterator = undertakings.iterator();
-
-        while (undertakingIterator.hasNext()) {
-            AUndertaking testUndertaking = undertakingIterator.next();
-
-            if (testUndertaking.getName().equals(undertakingName)) {
-                return testUndertaking;
-            }
-        }
+        return undertakingNames.get(undertakingName);
+    }
 
-        return null;
+    /**
+     * Observe renames of the given top-level undertaking.
+     */
+    protected void observeUndertaking(AUndertaking undertaking)
+    {
+        undertaking.addHandler(this,
+                               NameChangeAlert.class,
+                               undertakingRenameHandler);
     }
 
     /**
@@ -1179,6 +1224,8 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
         // Must check for undertaking name uniqueness
         if (getUndertaking(newUndertaking.getName()) == null) {
             undertakings.add(newUndertaking);
+            undertakingNames.added(newUndertaking);
+            observeUndertaking(newUndertaking);
             newUndertaking.setTaskGroup(null);
 
             raiseAlert(new TaskChange(this, newUndertaking));
@@ -1215,6 +1262,8 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
         // Must check for undertaking name uniqueness
         else if (getUndertaking(newUndertaking.getName()) == null) {
             undertakings.add(index, newUndertaking);
+            undertakingNames.added(newUndertaking);
+            observeUndertaking(newUndertaking);
             newUndertaking.setTaskGroup(null);
 
             raiseAlert(new TaskChange(this, newUndertaking, index, true));
@@ -1264,6 +1313,9 @@ public class Project extends GlobalAttributed implements TaskParent, NamedObject
 
         if (index != -1) {
             undertakings.remove(undertakingToRemove);
+            undertakingNames.removed(undertakingToRemove);
+            undertakingToRemove.removeHandler(NameChangeAlert.class,
+                                              undertakingRenameHandler);
 
             raiseAlert(new TaskChange(this,
                                       undertakingToRemove,
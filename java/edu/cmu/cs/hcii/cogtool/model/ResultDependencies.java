@@ -0,0 +1,449 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import edu.cmu.cs.hcii.cogtool.CogToolPref;
+import edu.cmu.cs.hcii.cogtool.util.ImageStore;
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Records what a computed result depended upon: the frames its script
+ * visited, by name, with fingerprints of their contents at the time of
+ * computation (which cover the frames' widgets and the transitions
+ * emanating from them), the design's device types, and the preference
+ * values that parameterize the computation.  The record is persisted with
+ * the result, so that results invalidated by edits can be found (see
+ * isStale) even in a later session.
+ * <p>
+ * The record holds no reference to the design or its frames, so a result
+ * never keeps a deleted frame alive or saves it; a frame that is no
+ * longer found by name in the result's design has changed.
+ * <p>
+ * Comparing fingerprints requires serializing the frames, so the record
+ * also keeps a flag that is set by StaleResultTracker whenever an alert
+ * signals a change to one of the frames; until then, only the preference
+ * values are compared.
+ */
+public class ResultDependencies
+{
+    public static final int edu_cmu_cs_hcii_cogtool_model_ResultDependencies_version = 0;
+
+    protected static final String frameNamesVAR = "frameNames";
+    protected static final String fingerprintsVAR = "fingerprints";
+    protected static final String settingsVAR = "settings";
+    protected static final String changedVAR = "changed";
+
+    /**
+     * As FrameSharing's fingerprint, but omitting the parts of a frame that
+     * cannot affect a computation (its position in the design window, its
+     * widget color, and its thumbnails) and recording images by a hash of
+     * their contents, which, unlike interned image identifiers, does not
+     * vary from session to session.
+     */
+    protected static class FingerprintSaver
+                                       extends FrameSharing.FingerprintSaver
+    {
+        public FingerprintSaver(StringWriter sink, Object rootObject)
+            throws IOException
+        {
+            super(sink, rootObject);
+        }
+
+        @Override
+        public <T> void saveObject(T value, String variable)
+            throws IOException
+        {
+            if (Frame.originVAR.equals(variable) ||
+                THUMBNAIL_VARS.contains(variable))
+            {
+                return;
+            }
+
+            if (value instanceof byte[]) {
+                saveInt(getImageHash((byte[]) value), variable);
+            }
+            else {
+                super.saveObject(value, variable);
+            }
+        }
+
+        @Override
+        public void saveInt(int value, String variable)
+            throws IOException
+        {
+            if (! Frame.widgetColorVAR.equals(variable)) {
+                super.saveInt(value, variable);
+            }
+        }
+    }
+
+    protected static final List<String> THUMBNAIL_VARS =
+        Arrays.asList(Frame.thumbnailVARS);
+
+    // Maps interned image data (by identity, held weakly) to the hash of
+    // its contents
+    protected static Map<byte[], Integer> imageHashes =
+        new WeakHashMap<byte[], Integer>();
+
+    protected static synchronized int getImageHash(byte[] imageData)
+    {
+        byte[] interned = ImageStore.intern(imageData);
+        Integer hash = imageHashes.get(interned);
+
+        if (hash == null) {
+            hash = new Integer(Arrays.hashCode(interned));
+            imageHashes.put(interned, hash);
+        }
+
+        return hash.intValue();
+    }
+
+    protected String[] frameNames;
+    protected int[] fingerprints;
+    protected String settings;
+    protected boolean changed = false;
+
+    private static ObjectSaver.IDataSaver<ResultDependencies> SAVER =
+        new ObjectSaver.ADataSaver<ResultDependencies>() {
+            @Override
+            public int getVersion()
+            {
+                return edu_cmu_cs_hcii_cogtool_model_ResultDependencies_version;
+            }
+
+            @Override
+            public void saveData(ResultDependencies v, ObjectSaver saver)
+                throws java.io.IOException
+            {
+                saver.saveObject(v.frameNames, frameNamesVAR);
+                saver.saveObject(v.fingerprints, fingerprintsVAR);
+                saver.saveString(v.settings, settingsVAR);
+                saver.saveBoolean(v.changed, changedVAR);
+            }
+        };
+
+    public static void registerSaver()
+    {
+        ObjectSaver.registerSaver(ResultDependencies.class.getName(), SAVER);
+    }
+
+    private static ObjectLoader.IObjectLoader<ResultDependencies> LOADER =
+        new ObjectLoader.AObjectLoader<ResultDependencies>() {
+            @Override
+            public ResultDependencies createObject()
+            {
+                return new ResultDependencies();
+            }
+
+            @Override
+            public void set(ResultDependencies target,
+                            String variable,
+                            Object value)
+            {
+                if (variable != null) {
+                    if (variable.equals(frameNamesVAR)) {
+                        target.frameNames = (String[]) value;
+                    }
+                    else if (variable.equals(fingerprintsVAR)) {
+                        target.fingerprints = (int[]) value;
+                    }
+                    else if (variable.equals(settingsVAR)) {
+                        target.settings = (String) value;
+                    }
+                }
+            }
+
+            @Override
+            public void set(ResultDependencies target,
+                            String variable,
+                            boolean value)
+            {
+                if (variable != null) {
+                    if (variable.equals(changedVAR)) {
+                        target.changed = value;
+                    }
+                }
+            }
+
+            @Override
+            public Class<?> getArrayEltType(String variable, String className)
+            {
+                if (variable.equals(frameNamesVAR)) {
+                    return String.class;
+                }
+
+                return Integer.TYPE;
+            }
+        };
+
+    public static void registerLoader()
+    {
+        ObjectLoader.registerLoader(ResultDependencies.class.getName(),
+                                    edu_cmu_cs_hcii_cogtool_model_ResultDependencies_version,
+                                    LOADER);
+    }
+
+    protected ResultDependencies()
+    {
+        // For loading
+    }
+
+    /**
+     * Records the current state of what a computation of the given script
+     * depends upon; must be called before the design can be edited further.
+     */
+    public ResultDependencies(Script script)
+    {
+        Demonstration demo = script.getDemonstration();
+        Set<Frame> usedFrames = new LinkedHashSet<Frame>();
+
+        if (demo.getStartFrame() != null) {
+            usedFrames.add(demo.getStartFrame());
+        }
+
+        for (DefaultModelGeneratorState state : script.getStepStates()) {
+            AScriptStep step = state.getScriptStep();
+
+            if (step.getCurrentFrame() != null) {
+                usedFrames.add(step.getCurrentFrame());
+            }
+            if (step.getDestinationFrame() != null) {
+                usedFrames.add(step.getDestinationFrame());
+            }
+        }
+
+        frameNames = new String[usedFrames.size()];
+        fingerprints = new int[usedFrames.size()];
+
+        int i = 0;
+
+        for (Frame frame : usedFrames) {
+            frameNames[i] = frame.getName();
+            fingerprints[i] = getFingerprint(frame);
+            i++;
+        }
+
+        settings = getSettings(demo.getTaskApplication().getDesign());
+    }
+
+    /**
+     * Copies the given record, for a copy of its result; the copy is
+     * checked against the design of the copy's own task application.
+     */
+    public ResultDependencies(ResultDependencies copyFrom)
+    {
+        frameNames = copyFrom.frameNames;
+        fingerprints = copyFrom.fingerprints;
+        settings = copyFrom.settings;
+        changed = copyFrom.changed;
+    }
+
+    protected static int getFingerprint(Frame frame)
+    {
+        StringWriter sink = new StringWriter();
+
+        try {
+            ObjectSaver saver = new FingerprintSaver(sink, frame);
+
+            saver.saveObject(frame);
+            saver.finish();
+        }
+        catch (IOException e) {
+            // StringWriter does not throw
+            throw new IllegalStateException("Frame fingerprint failed", e);
+        }
+
+        return sink.toString().hashCode();
+    }
+
+    /**
+     * The values that parameterize a computation for the given design
+     * other than the contents of its frames.
+     */
+    protected static String getSettings(Design d)
+    {
+        boolean alternative =
+            CogToolPref.RESEARCH.getBoolean() &&
+            CogToolPref.ACTR_ALTERNATIVE_PARAMETERS.getBoolean();
+
+        StringBuilder s = new StringBuilder();
+
+        s.append(DeviceType.buildDeviceSet(d.getDeviceTypes()));
+        s.append(';');
+        s.append(alternative ? CogToolPref.VISUAL_ATTENTION.getInt()
+                             : CogToolPref.VISUAL_ATTENTION.getIntDefault());
+        s.append(';');
+        s.append(alternative ? CogToolPref.MOTOR_INITIATION.getInt()
+                             : CogToolPref.MOTOR_INITIATION.getIntDefault());
+        s.append(';');
+        s.append(alternative ? CogToolPref.PECK_FITTS_COEFF.getInt()
+                             : CogToolPref.PECK_FITTS_COEFF.getIntDefault());
+        s.append(';');
+        s.append(alternative ? CogToolPref.ACTR_DAT.getInt()
+                             : CogToolPref.ACTR_DAT.getIntDefault());
+        s.append(';');
+        s.append(CogToolPref.USE_EMMA.getBoolean());
+        s.append(';');
+        s.append(CogToolPref.SYSWVO.getBoolean());
+
+        return s.toString();
+    }
+
+    /**
+     * Whether the given frame of the result's design is one the result
+     * depends upon.
+     */
+    public boolean dependsOn(Frame frame)
+    {
+        for (String frameName : frameNames) {
+            if (frameName.equals(frame.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Notes that something this record may depend upon has changed;
+     * called by StaleResultTracker.
+     */
+    public void noteChange()
+    {
+        changed = true;
+    }
+
+    public boolean hasChanged()
+    {
+        return changed;
+    }
+
+    /**
+     * Determines whether a result computed with these dependencies would
+     * differ if computed now in the given design (that of the result's
+     * task application).  If changes were noted but the frames turn out
+     * to be as they were (e.g., the changes were undone), the noted
+     * changes are forgotten.
+     */
+    public boolean isStale(Design design)
+    {
+        if (! settings.equals(getSettings(design))) {
+            return true;
+        }
+
+        if (changed) {
+            for (int i = 0; i < frameNames.length; i++) {
+                Frame frame = design.getFrame(frameNames[i]);
+
+                if ((frame == null) ||
+                    (fingerprints[i] != getFingerprint(frame)))
+                {
+                    return true;
+                }
+            }
+
+            changed = false;
+        }
+
+        return false;
+    }
+}
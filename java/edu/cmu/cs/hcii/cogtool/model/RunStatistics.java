@@ -0,0 +1,458 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Summary of a (possibly large) number of model runs, accumulated one run
+ * at a time so that the runs themselves need not be kept.  Maintains the
+ * count, mean, variance (by Welford's method) and extremes of the task
+ * times of the successful runs, the number of failed runs, and how often
+ * each distinct path through the design's frames was taken.  When all of
+ * the task times are at hand (e.g., for imported human data), selected
+ * percentiles may also be recorded; see computePercentiles.
+ */
+public class RunStatistics
+{
+    /**
+     * Separates frame names in a path key
+     */
+    public static final String PATH_SEPARATOR = " > ";
+
+    protected int runCount = 0;
+    protected int failureCount = 0;
+    protected double mean = 0.0;
+    protected double sumSquaredDeviations = 0.0;
+    protected double minimum = Double.NaN;
+    protected double maximum = Double.NaN;
+
+    /**
+     * The most distinct paths whose counts are kept; see addPath
+     */
+    public static final int MAX_PATH_COUNTS = 100;
+
+    /**
+     * Maps each of at most MAX_PATH_COUNTS paths (frame names joined by
+     * PATH_SEPARATOR) to the number of runs that took it
+     */
+    protected Map<String, Integer> pathCounts =
+        new HashMap<String, Integer>();
+
+    /**
+     * The percentile ranks recorded by computePercentiles
+     */
+    public static final double[] PERCENTILE_RANKS =
+        { 5.0, 10.0, 25.0, 50.0, 75.0, 90.0, 95.0 };
+
+    /**
+     * Task time at each of PERCENTILE_RANKS, or null if not computed
+     */
+    protected double[] percentiles = null;
+
+    public static final int edu_cmu_cs_hcii_cogtool_model_RunStatistics_version = 1;
+
+    protected static final String runCountVAR = "runCount";
+    protected static final String failureCountVAR = "failureCount";
+    protected static final String meanVAR = "mean";
+    protected static final String sumSquaredDeviationsVAR = "sumSquaredDeviations";
+    protected static final String minimumVAR = "minimum";
+    protected static final String maximumVAR = "maximum";
+    protected static final String pathCountsVAR = "pathCounts";
+    protected static final String percentilesVAR = "percentiles";
+
+    private static ObjectSaver.IDataSaver<RunStatistics> SAVER =
+        new ObjectSaver.ADataSaver<RunStatistics>() {
+            @Override
+            public int getVersion()
+            {
+                return edu_cmu_cs_hcii_cogtool_model_RunStatistics_version;
+            }
+
+            @Override
+            public void saveData(RunStatistics v, ObjectSaver saver)
+                throws java.io.IOException
+            {
+                saver.saveInt(v.runCount, runCountVAR);
+                saver.saveInt(v.failureCount, failureCountVAR);
+                saver.saveDouble(v.mean, meanVAR);
+                saver.saveDouble(v.sumSquaredDeviations,
+                                 sumSquaredDeviationsVAR);
+                saver.saveDouble(v.minimum, minimumVAR);
+                saver.saveDouble(v.maximum, maximumVAR);
+                saver.saveObject(v.pathCounts, pathCountsVAR);
+                saver.saveObject(v.percentiles, percentilesVAR);
+            }
+        };
+
+    public static void registerSaver()
+    {
+        ObjectSaver.registerSaver(RunStatistics.class.getName(), SAVER);
+    }
+
+    private static ObjectLoader.IObjectLoader<RunStatistics> LOADER =
+        new ObjectLoader.AObjectLoader<RunStatistics>() {
+            @Override
+            public RunStatistics createObject()
+            {
+                return new RunStatistics();
+            }
+
+            @Override
+            public void set(RunStatistics target, String variable, int value)
+            {
+                if (variable != null) {
+                    if (variable.equals(runCountVAR)) {
+                        target.runCount = value;
+                    }
+                    else if (variable.equals(failureCountVAR)) {
+                        target.failureCount = value;
+                    }
+                }
+            }
+
+            @Override
+            public void set(RunStatistics target,
+                            String variable,
+                            double value)
+            {
+                if (variable != null) {
+                    if (variable.equals(meanVAR)) {
+                        target.mean = value;
+                    }
+                    else if (variable.equals(sumSquaredDeviationsVAR)) {
+                        target.sumSquaredDeviations = value;
+                    }
+                    else if (variable.equals(minimumVAR)) {
+                        target.minimum = value;
+                    }
+                    else if (variable.equals(maximumVAR)) {
+                        target.maximum = value;
+                    }
+                }
+            }
+
+            @Override
+            public Map<?, ?> createMap(RunStatistics target,
+                                       String variable,
+                                       int size)
+            {
+                if (variable != null) {
+                    if (variable.equals(pathCountsVAR)) {
+                        return target.pathCounts;
+                    }
+                }
+
+                return null;
+            }
+
+            @Override
+            public void set(RunStatistics target,
+                            String variable,
+                            Object value)
+            {
+                if (variable != null) {
+                    if (variable.equals(percentilesVAR)) {
+                        target.percentiles = (double[]) value;
+                    }
+                }
+            }
+
+            @Override
+            public Class<?> getArrayEltType(String variable, String className)
+            {
+                return Double.TYPE;
+            }
+        };
+
+    public static void registerLoader()
+    {
+        // Version 0 lacks percentiles, which then remain null
+        ObjectLoader.registerLoader(RunStatistics.class.getName(),
+                                    0,
+                                    LOADER);
+        ObjectLoader.registerLoader(RunStatistics.class.getName(),
+                                    edu_cmu_cs_hcii_cogtool_model_RunStatistics_version,
+                                    LOADER);
+    }
+
+    /**
+     * Record a successful run that took the given task time (in seconds)
+     * along the given path.
+     */
+    public void addRun(double taskTime, String path)
+    {
+        runCount++;
+
+        double delta = taskTime - mean;
+
+        mean += delta / runCount;
+        sumSquaredDeviations += delta * (taskTime - mean);
+
+        if ((runCount == 1) || (taskTime < minimum)) {
+            minimum = taskTime;
+        }
+        if ((runCount == 1) || (taskTime > maximum)) {
+            maximum = taskTime;
+        }
+
+        addPath(path);
+    }
+
+    /**
+     * Record a run that failed to produce a task time.
+     */
+    public void addFailure(String path)
+    {
+        failureCount++;
+        addPath(path);
+    }
+
+    /**
+     * Counts the given path by the Space-Saving method, so that the number
+     * of paths kept stays bounded however many distinct paths the runs take:
+     * once MAX_PATH_COUNTS paths are kept, a new path replaces the one with
+     * the smallest count and inherits that count plus one.  A kept path's
+     * count thus never underestimates, and overestimates by at most the
+     * count it inherited; every path taken by more than
+     * 1 / MAX_PATH_COUNTS of the runs is kept.
+     */
+    protected void addPath(String path)
+    {
+        if (path != null) {
+            Integer count = pathCounts.get(path);
+
+            if (count != null) {
+                pathCounts.put(path, Integer.valueOf(count.intValue() + 1));
+            }
+            else if (pathCounts.size() < MAX_PATH_COUNTS) {
+                pathCounts.put(path, Integer.valueOf(1));
+            }
+            else {
+                String fewestPath = null;
+                int fewest = Integer.MAX_VALUE;
+
+                for (Map.Entry<String, Integer> entry : pathCounts.entrySet()) {
+                    if (entry.getValue().intValue() < fewest) {
+                        fewestPath = entry.getKey();
+                        fewest = entry.getValue().intValue();
+                    }
+                }
+
+                pathCounts.remove(fewestPath);
+                pathCounts.put(path, Integer.valueOf(fewest + 1));
+            }
+        }
+    }
+
+    /**
+     * Number of successful runs
+     */
+    public int getRunCount()
+    {
+        return runCount;
+    }
+
+    public int getFailureCount()
+    {
+        return failureCount;
+    }
+
+    /**
+     * Mean task time of the successful runs, or -1.0 if there were none
+     */
+    public double getMean()
+    {
+        return (runCount == 0) ? -1.0 : mean;
+    }
+
+    /**
+     * Sample standard deviation of the successful runs' task times
+     */
+    public double getStandardDeviation()
+    {
+        return (runCount < 2) ? 0.0
+                              : Math.sqrt(sumSquaredDeviations / (runCount - 1));
+    }
+
+    public double getMinimum()
+    {
+        return minimum;
+    }
+
+    public double getMaximum()
+    {
+        return maximum;
+    }
+
+    /**
+     * Record the task times at each of PERCENTILE_RANKS among the given
+     * task times (in seconds) of all the successful runs, interpolating
+     * linearly between the closest ranks.
+     */
+    public void computePercentiles(double[] taskTimes)
+    {
+        if (taskTimes.length == 0) {
+            percentiles = null;
+            return;
+        }
+
+        double[] sorted = taskTimes.clone();
+
+        Arrays.sort(sorted);
+
+        percentiles = new double[PERCENTILE_RANKS.length];
+
+        for (int i = 0; i < PERCENTILE_RANKS.length; i++) {
+            double position =
+                PERCENTILE_RANKS[i] / 100.0 * (sorted.length - 1);
+            int below = (int) Math.floor(position);
+            int above = Math.min(below + 1, sorted.length - 1);
+
+            percentiles[i] = sorted[below]
+                                + (position - below)
+                                    * (sorted[above] - sorted[below]);
+        }
+    }
+
+    /**
+     * Task time at the given index into PERCENTILE_RANKS, or -1.0 if
+     * percentiles have not been computed
+     */
+    public double getPercentile(int rankIndex)
+    {
+        return (percentiles == null) ? -1.0 : percentiles[rankIndex];
+    }
+
+    public boolean hasPercentiles()
+    {
+        return percentiles != null;
+    }
+
+    /**
+     * Maps each path taken (frame names joined by PATH_SEPARATOR) to the
+     * number of runs, successful or not, that took it.  If the runs took
+     * more than MAX_PATH_COUNTS distinct paths, only the most frequent are
+     * present and their counts may be overestimates; see addPath.
+     */
+    public Map<String, Integer> getPathCounts()
+    {
+        return Collections.unmodifiableMap(pathCounts);
+    }
+
+    /**
+     * The path taken by the most runs, or null if no path was recorded
+     */
+    public String getMostFrequentPath()
+    {
+        String mostPath = null;
+        int most = 0;
+
+        for (Map.Entry<String, Integer> entry : pathCounts.entrySet()) {
+            if ((entry.getValue().intValue() > most) ||
+                ((entry.getValue().intValue() == most) &&
+                 (entry.getKey().compareTo(mostPath) < 0)))
+            {
+                mostPath = entry.getKey();
+                most = entry.getValue().intValue();
+            }
+        }
+
+        return mostPath;
+    }
+}
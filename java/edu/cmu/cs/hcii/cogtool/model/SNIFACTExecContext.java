@@ -103,14 +103,16 @@ import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
  * Represents the "context" of the SNIF-ACT computation, which is saved as an
  * attribute of the resulting task group.  It contains the parameters passed to
  * SNIF-ACT and the list of tasks that were added to the group when the
- * computation ended.
+ * computation ended.  If the runs were aggregated, it also holds the
+ * statistics summarizing all of them, since only a sample became tasks.
  */
 public class SNIFACTExecContext
 {
-    public static final int edu_cmu_cs_hcii_cogtool_model_SNIFACTExecContext_version = 0;
+    public static final int edu_cmu_cs_hcii_cogtool_model_SNIFACTExecContext_version = 1;
 
     protected static final String parametersVAR = "parameters";
     protected static final String addedTasksVAR = "addedTasks";
+    protected static final String statisticsVAR = "statistics";
 
     private static ObjectSaver.IDataSaver<SNIFACTExecContext> SAVER =
         new ObjectSaver.ADataSaver<SNIFACTExecContext>() {
@@ -126,6 +128,7 @@ public class SNIFACTExecContext
             {
                 saver.saveObject(v.parameters, parametersVAR);
                 saver.saveObject(v.addedTasks, addedTasksVAR);
+                saver.saveObject(v.statistics, statisticsVAR);
             }
         };
 
@@ -151,6 +154,9 @@ public class SNIFACTExecContext
                     if (variable.equals(parametersVAR)) {
                         target.parameters = (SNIFACTParameters) value;
                     }
+                    else if (variable.equals(statisticsVAR)) {
+                        target.statistics = (RunStatistics) value;
+                    }
                 }
             }
 
@@ -172,6 +178,10 @@ public class SNIFACTExecContext
     public static void registerLoader()
     {
         SNIFACTParameters.registerLoader();
+        // Version 0 lacks statistics, which then remains null
+        ObjectLoader.registerLoader(SNIFACTExecContext.class.getName(),
+                                    0,
+                                    LOADER);
         ObjectLoader.registerLoader(SNIFACTExecContext.class.getName(),
                                     edu_cmu_cs_hcii_cogtool_model_SNIFACTExecContext_version,
                                     LOADER);
@@ -179,6 +189,7 @@ public class SNIFACTExecContext
 
     protected SNIFACTParameters parameters;
     protected List<AUndertaking> addedTasks = new ArrayList<AUndertaking>();
+    protected RunStatistics statistics = null;
 
     protected SNIFACTExecContext()
     {
@@ -205,6 +216,20 @@ public class SNIFACTExecContext
         return addedTasks;
     }
 
+    public void setStatistics(RunStatistics stats)
+    {
+        statistics = stats;
+    }
+
+    /**
+     * Summary of all the computation's runs, or null if every run was
+     * added as a task
+     */
+    public RunStatistics getStatistics()
+    {
+        return statistics;
+    }
+
     public SNIFACTExecContext duplicate()
     {
         SNIFACTParameters newParms =
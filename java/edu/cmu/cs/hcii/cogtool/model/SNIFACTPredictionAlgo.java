@@ -96,13 +96,21 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import edu.cmu.cs.hcii.cogtool.CogToolPref;
 import edu.cmu.cs.hcii.cogtool.model.ISimilarityDictionary.DictEntry;
 import edu.cmu.cs.hcii.cogtool.model.ISimilarityDictionary.DictValue;
 import edu.cmu.cs.hcii.cogtool.util.Cancelable;
@@ -113,6 +121,8 @@ import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
 import edu.cmu.cs.hcii.cogtool.util.ProcessTraceCallback;
 import edu.cmu.cs.hcii.cogtool.util.Subprocess;
+import edu.cmu.cs.hcii.cogtool.util.SynchronizedTraceCallback;
+import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
 
 public class SNIFACTPredictionAlgo extends APredictionAlgo
 {
@@ -174,6 +184,13 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
     
     public static File exportCTEModelFile = null;
 
+    /**
+     * When runs are aggregated (see CogToolPref.CTE_AGGREGATE_RUNS), the
+     * number of runs kept in full, chosen uniformly at random; the rest
+     * contribute only to the result's RunStatistics.
+     */
+    public static final int AGGREGATE_SAMPLE_SIZE = 10;
+
     /**
      * The five parameters that the SNIF-ACT algorithm needs for execution.
      * @author rmyers
@@ -392,18 +409,25 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
         protected List<List<ResultStep>> resultStepList;
         protected List<List<String>> traces;
         protected List<String> errorLines;
+        protected RunStatistics statistics;
 
+        /**
+         * If stats is not null, the given lists hold only a sample of the
+         * runs it summarizes.
+         */
         public SNIFACTAnalysisOutput(Design d,
                                      List<List<AScriptStep>> stepLists,
                                      List<List<ResultStep>> results,
                                      List<List<String>> traceList,
-                                     List<String> errors)
+                                     List<String> errors,
+                                     RunStatistics stats)
         {
             design = d;
             scriptStepLists = stepLists;
             resultStepList = results;
             traces = traceList;
             errorLines = errors;
+            statistics = stats;
         }
 
         /**
@@ -423,8 +447,6 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
                 List<AScriptStep> steps = scriptStepLists.get(i);
                 List<String> traceLines = traces.get(i);
                 List<ResultStep> resultSteps = resultStepList.get(i);
-                int lineCount = traceLines.size();
-                String lastLine = traceLines.get(lineCount - 1);
 
                 Task t = new Task();
 
@@ -434,17 +456,8 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
                 d.setStartFrameChosen(true);
                 d.setStartFrame(design.getFrame(parameters.startFrame));
 
-                double taskTime = -1.0;
-                TimePredictionResult result = null;
-                try {
-                    taskTime = Double.parseDouble(lastLine);
-                }
-                catch (NumberFormatException e) {
-                    // -1.0 is a flag indicating failure, so don't need to do
-                    // anything here (but don't crash!)
-                }
-
-                result =
+                double taskTime = parseTaskTime(traceLines);
+                TimePredictionResult result =
                     new SNIFACTPredictionResult(parameters.taskName,
                                                 SNIFACTPredictionAlgo.ONLY,
                                                 traceLines,
@@ -468,6 +481,16 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
                 traceLines.addAll(traceList);
             }
 
+            if (statistics != null) {
+                return new TimeDistributionPredictionResult(parameters.taskName,
+                                                            null,
+                                                            SNIFACTPredictionAlgo.ONLY,
+                                                            traceLines,
+                                                            errorLines,
+                                                            results,
+                                                            statistics);
+            }
+
             return new TimeDistributionPredictionResult(parameters.taskName,
                                                         null,
                                                         SNIFACTPredictionAlgo.ONLY,
@@ -866,139 +889,422 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
     {
         private Design design;
         private String lispMem;
-        private File file;
+        private List<File> files;
         private String cmd;
 
+        /**
+         * @param inputFiles one ACT-R model file per Lisp process; the runs
+         *                   of each follow those of the previous one
+         */
         public SNIFACTAnalysisInput(Design d,
                                     String imageFile,
-                                    String inputFile,
+                                    List<File> inputFiles,
                                     String cmdStr)
         {
             design = d;
             lispMem = imageFile;
-            file = new File(inputFile);
+            files = inputFiles;
             cmd = cmdStr;
         }
 
+        /**
+         * Collects the runs of every shard as their trace lines arrive.
+         * Each run is parsed as soon as its RUN_MARKER is seen; when
+         * aggregating, only a uniform sample of the runs (reservoir
+         * sampling) is kept and the rest contribute only to the
+         * statistics, so memory does not grow with the number of runs.
+         * Runs arrive from several processes at once; they are processed
+         * one at a time since parsing looks up the design's frames.
+         */
+        protected class RunCollector
+        {
+            protected final RunStatistics stats;
+            protected final List<SampledRun> runs = new ArrayList<SampledRun>();
+            protected final Random sampler = new Random();
+            protected int runCount = 0;
 
-        public IAnalysisOutput compute(ProcessTraceCallback progressCallback,
-                                       Cancelable cancelable)
+            public RunCollector(boolean aggregate)
+            {
+                stats = aggregate ? new RunStatistics() : null;
+            }
+
+            public synchronized void addRun(int shard,
+                                            int shardRunIndex,
+                                            List<String> traceLines)
+            {
+                List<ResultStep> resultSteps =
+                    (new ACTRTraceParser()).parseTrace(traceLines);
+                List<AScriptStep> stepList = extractScriptSteps(resultSteps);
+                SampledRun run = new SampledRun(shard,
+                                                shardRunIndex,
+                                                traceLines,
+                                                resultSteps,
+                                                stepList);
+
+                if (stats == null) {
+                    runs.add(run);
+                }
+                else {
+                    double taskTime = parseTaskTime(traceLines);
+                    String path = getFramePath(stepList);
+
+                    if (taskTime == -1.0) {
+                        stats.addFailure(path);
+                    }
+                    else {
+                        stats.addRun(taskTime, path);
+                    }
+
+                    if (runs.size() < AGGREGATE_SAMPLE_SIZE) {
+                        runs.add(run);
+                    }
+                    else {
+                        int slot = sampler.nextInt(runCount + 1);
+
+                        if (slot < AGGREGATE_SAMPLE_SIZE) {
+                            runs.set(slot, run);
+                        }
+                    }
+                }
+
+                runCount++;
+            }
+
+            /**
+             * The runs kept, in shard order
+             */
+            public synchronized List<SampledRun> getRuns()
+            {
+                Collections.sort(runs, SampledRun.RUN_ORDER);
+
+                return runs;
+            }
+        }
+
+        /**
+         * Receives the standard output of one shard's Lisp process
+         * (SNIF-ACT writes all the runs of a process to a single trace,
+         * separated by RUN_MARKER) and hands each run to the collector as
+         * soon as it is complete.  As a list, it holds only the lines of
+         * the run in progress.
+         */
+        protected class ShardTraceSink extends AbstractList<String>
         {
-            // A list of trace lines generated by SNIF-ACT; will be accumulated
-            // in one large list and parsed later into a list of lists.
-            List<String> traces = new ArrayList<String>();
+            protected final int shard;
+            protected final RunCollector collector;
+            protected List<String> currentRun = new ArrayList<String>();
+            protected int shardRunIndex = 0;
 
-            // A list of lists of script steps, to be parsed from the
-            // multiple ACT-R traces
-            List<List<AScriptStep>> stepLists =
-                new ArrayList<List<AScriptStep>>();
+            public ShardTraceSink(int shardIndex, RunCollector runCollector)
+            {
+                shard = shardIndex;
+                collector = runCollector;
+            }
 
-            // Saving the results of all of the trace parsings for the
-            // prediction result object
-            List<List<ResultStep>> resultStepList =
-                new ArrayList<List<ResultStep>>();
+            @Override
+            public boolean add(String line)
+            {
+                if (RUN_MARKER.equals(line)) {
+                    finishRun();
+                }
+                else {
+                    currentRun.add(line);
+                }
 
-            List<String> errorLines = new ArrayList<String>();
-            List<File> files = new ArrayList<File>();
-            files.add(file);
-            try {
-                Subprocess.execLisp(lispMem,
-                                    files,
-                                    cmd,
-                                    traces,
-                                    errorLines,
-                                    progressCallback,
-                                    cancelable); // ignore return value
+                return true;
             }
-            catch (Subprocess.ExecuteException ex) {
-                throw new ComputationException("Executing LISP failed", ex);
+
+            /**
+             * Hands the run in progress to the collector; called for each
+             * RUN_MARKER and once more when the process has finished.
+             */
+            public void finishRun()
+            {
+                collector.addRun(shard, shardRunIndex++, currentRun);
+                currentRun = new ArrayList<String>();
             }
 
-            List<List<String>> traceList = parseTracelineLists(traces);
+            @Override
+            public String get(int index)
+            {
+                return currentRun.get(index);
+            }
 
-            // iterate over the runs, setting traceLines to each
-            // run's trace
-            for (List<String> traceLines : traceList) {
-                // two kinds of steps here: stepList collections the ScriptSteps
-                // that we'll populate the script editor with, while resultSteps
-                // is the visualization result steps, a different animal
-                List<AScriptStep> stepList = new ArrayList<AScriptStep>();
+            @Override
+            public int size()
+            {
+                return currentRun.size();
+            }
+        }
 
-                List<ResultStep> resultSteps =
-                    (new ACTRTraceParser()).parseTrace(traceLines);
-                resultStepList.add(resultSteps);
-
-                StepExtractor currentExtractor = null;
-                Frame currentFrame =
-                    design.getFrame(parameters.startFrame);
-                Frame newFrame = null;
-
-                for (ResultStep step : resultSteps) {
-                    StepExtractor nextExtractor = null;
-                    for (StepExtractor element : STEP_EXTRACTORS) {
-                        if (element.matchesResultStep(step)) {
-                            // no step should match two different extractors
-                            nextExtractor = element;
-                            break;
+        /**
+         * Execute each model file in its own Lisp process, concurrently,
+         * streaming the runs of each to the given collector.
+         * The processes are run by ThreadManager's workers; they share
+         * the given callback, so calls to it are serialized.
+         */
+        protected void runShards(ProcessTraceCallback progressCallback,
+                                 final Cancelable cancelable,
+                                 final RunCollector collector,
+                                 List<String> errorLines)
+        {
+            int shardCount = files.size();
+            final ProcessTraceCallback sharedCallback =
+                SynchronizedTraceCallback.wrap(progressCallback);
+            final List<List<String>> shardErrors =
+                new ArrayList<List<String>>(shardCount);
+            List<Callable<Object>> shards =
+                new ArrayList<Callable<Object>>(shardCount);
+
+            for (int i = 0; i < shardCount; i++) {
+                final int shard = i;
+
+                shardErrors.add(new ArrayList<String>());
+
+                shards.add(new Callable<Object>() {
+                    public Object call()
+                    {
+                        ShardTraceSink traceLines =
+                            new ShardTraceSink(shard, collector);
+
+                        try {
+                            Subprocess.execLisp(lispMem,
+                                                files.subList(shard, shard + 1),
+                                                cmd,
+                                                traceLines,
+                                                shardErrors.get(shard),
+                                                sharedCallback,
+                                                cancelable); // ignore return value
                         }
+                        catch (Subprocess.ExecuteException ex) {
+                            throw new ComputationException("Executing LISP failed",
+                                                           ex);
+                        }
+
+                        traceLines.finishRun();
+
+                        return null;
                     }
-                    if (nextExtractor == null) {
-                        continue;
+                });
+            }
+
+            List<Future<Object>> results;
+
+            try {
+                results = ThreadManager.invokeAll(shards);
+            }
+            catch (InterruptedException ex) {
+                throw new ComputationException("Interrupted executing LISP", ex);
+            }
+
+            for (int i = 0; i < shardCount; i++) {
+                errorLines.addAll(shardErrors.get(i));
+
+                try {
+                    results.get(i).get();
+                }
+                catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
                     }
 
-                    // First compare nextExtractor to currentExtractor; if they
-                    // are different, flush currentExtractor before updating it.
-                    if (currentExtractor != nextExtractor) {
-                        if (currentExtractor != null) {
-                            AScriptStep scriptStep =
-                                currentExtractor.generateStep(StepExtractor.FLUSH,
-                                                              currentFrame);
-                            if (scriptStep != null) {
-                                stepList.add(scriptStep);
-                                newFrame = scriptStep.getDestinationFrame();
-                            }
-                        }
+                    throw new ComputationException("Executing LISP failed",
+                                                   ex.getCause());
+                }
+                catch (InterruptedException ex) {
+                    throw new ComputationException("Interrupted executing LISP", ex);
+                }
+            }
+        }
 
-                        currentExtractor = nextExtractor;
+        /**
+         * Generate the script steps that the given run's result steps
+         * demonstrate.
+         */
+        protected List<AScriptStep> extractScriptSteps(List<ResultStep> resultSteps)
+        {
+            // two kinds of steps here: stepList collections the ScriptSteps
+            // that we'll populate the script editor with, while resultSteps
+            // is the visualization result steps, a different animal
+            List<AScriptStep> stepList = new ArrayList<AScriptStep>();
+
+            StepExtractor currentExtractor = null;
+            Frame currentFrame =
+                design.getFrame(parameters.startFrame);
+
+            for (ResultStep step : resultSteps) {
+                StepExtractor nextExtractor = null;
+                for (StepExtractor element : STEP_EXTRACTORS) {
+                    if (element.matchesResultStep(step)) {
+                        // no step should match two different extractors
+                        nextExtractor = element;
+                        break;
                     }
+                }
+                if (nextExtractor == null) {
+                    continue;
+                }
 
-                    // Update the internal state of the current extractor based on
-                    // the current step.  This may cause a script step to be
-                    // generated, so add it to the list if so.
+                // First compare nextExtractor to currentExtractor; if they
+                // are different, flush currentExtractor before updating it.
+                if (currentExtractor != nextExtractor) {
                     if (currentExtractor != null) {
                         AScriptStep scriptStep =
-                            currentExtractor.generateStep(step, currentFrame);
+                            currentExtractor.generateStep(StepExtractor.FLUSH,
+                                                          currentFrame);
                         if (scriptStep != null) {
                             stepList.add(scriptStep);
-                            newFrame = scriptStep.getDestinationFrame();
                         }
                     }
+
+                    currentExtractor = nextExtractor;
                 }
 
-                // If necessary, flush the extractor for the last step in the trace.
+                // Update the internal state of the current extractor based on
+                // the current step.  This may cause a script step to be
+                // generated, so add it to the list if so.
                 if (currentExtractor != null) {
                     AScriptStep scriptStep =
-                        currentExtractor.generateStep(StepExtractor.FLUSH,
-                                                      currentFrame);
+                        currentExtractor.generateStep(step, currentFrame);
                     if (scriptStep != null) {
                         stepList.add(scriptStep);
                     }
                 }
+            }
 
-                stepLists.add(stepList);
-                if (newFrame != null) {
-                    currentFrame = newFrame;
+            // If necessary, flush the extractor for the last step in the trace.
+            if (currentExtractor != null) {
+                AScriptStep scriptStep =
+                    currentExtractor.generateStep(StepExtractor.FLUSH,
+                                                  currentFrame);
+                if (scriptStep != null) {
+                    stepList.add(scriptStep);
                 }
             }
 
+            return stepList;
+        }
+
+        /**
+         * The names of the frames visited by the given script steps,
+         * starting with the start frame, joined by
+         * RunStatistics.PATH_SEPARATOR.
+         */
+        protected String getFramePath(List<AScriptStep> stepList)
+        {
+            Frame lastFrame = design.getFrame(parameters.startFrame);
+            StringBuilder path = new StringBuilder(parameters.startFrame);
+
+            for (AScriptStep step : stepList) {
+                Frame destination = step.getDestinationFrame();
+
+                if ((destination != null) && (destination != lastFrame)) {
+                    path.append(RunStatistics.PATH_SEPARATOR);
+                    path.append(destination.getName());
+                    lastFrame = destination;
+                }
+            }
+
+            return path.toString();
+        }
+
+        public IAnalysisOutput compute(ProcessTraceCallback progressCallback,
+                                       Cancelable cancelable)
+        {
+            // A list of lists of script steps, to be parsed from the
+            // multiple ACT-R traces
+            List<List<AScriptStep>> stepLists =
+                new ArrayList<List<AScriptStep>>();
+
+            // Saving the results of all of the trace parsings for the
+            // prediction result object
+            List<List<ResultStep>> resultStepList =
+                new ArrayList<List<ResultStep>>();
+
+            List<List<String>> traceList = new ArrayList<List<String>>();
+
+            List<String> errorLines = new ArrayList<String>();
+
+            // When aggregating, every run is summarized in the collector's
+            // statistics but only a sample of the runs is kept
+            RunCollector collector =
+                new RunCollector(CogToolPref.CTE_AGGREGATE_RUNS.getBoolean());
+
+            runShards(progressCallback, cancelable, collector, errorLines);
+
+            for (SampledRun run : collector.getRuns()) {
+                traceList.add(run.traceLines);
+                resultStepList.add(run.resultSteps);
+                stepLists.add(run.scriptSteps);
+            }
+
             return new SNIFACTAnalysisOutput(design,
                                              stepLists,
                                              resultStepList,
                                              traceList,
-                                             errorLines);
+                                             errorLines,
+                                             collector.stats);
+        }
+    }
+
+    /**
+     * A run kept in full by a computation
+     */
+    protected static class SampledRun
+    {
+        public static final Comparator<SampledRun> RUN_ORDER =
+            new Comparator<SampledRun>() {
+                public int compare(SampledRun l, SampledRun r)
+                {
+                    if (l.shard != r.shard) {
+                        return l.shard - r.shard;
+                    }
+
+                    return l.shardRunIndex - r.shardRunIndex;
+                }
+            };
+
+        public final int shard;
+        public final int shardRunIndex;
+        public final List<String> traceLines;
+        public final List<ResultStep> resultSteps;
+        public final List<AScriptStep> scriptSteps;
+
+        public SampledRun(int shardIndex,
+                          int index,
+                          List<String> trace,
+                          List<ResultStep> results,
+                          List<AScriptStep> steps)
+        {
+            shard = shardIndex;
+            shardRunIndex = index;
+            traceLines = trace;
+            resultSteps = results;
+            scriptSteps = steps;
         }
     }
 
+    /**
+     * The task time of a run is the last line of its trace; returns -1.0,
+     * the flag for failure, if there is no such time.
+     */
+    protected static double parseTaskTime(List<String> traceLines)
+    {
+        int lineCount = traceLines.size();
+
+        if (lineCount > 0) {
+            try {
+                return Double.parseDouble(traceLines.get(lineCount - 1));
+            }
+            catch (NumberFormatException e) {
+                // -1.0 is a flag indicating failure, so don't need to do
+                // anything here (but don't crash!)
+            }
+        }
+
+        return -1.0;
+    }
+
     protected String createSimilarityScoresFile(ISimilarityDictionary dict)
     {
 //        if (dict.size() == 0) {
@@ -1057,40 +1363,50 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
         return scoresPath;
     }
 
+    protected SNIFACTPredictionAlgo() { }
+
+    public void setParameters(SNIFACTParameters parms)
+    {
+        parameters = parms;
+    }
+    
     /**
-     * SNIF-ACT returns a single trace file for all of its runs, so return a
-     * list of lists of trace lines.
+     * The first element of *cogtool-random-seed*'s default, '(1 0), in
+     * cogtool-actr.lisp; the Lisp processes' seeds are derived from it.
      */
-    protected List<List<String>> parseTracelineLists(List<String> traceLines)
-    {
-        List<List<String>> traces = new ArrayList<List<String>>();
-        List<String> curList = new ArrayList<String>();
-        Iterator<String> lines = traceLines.iterator();
+    public static final long COGTOOL_RANDOM_SEED = 1;
 
-        while (lines.hasNext()) {
-            String line = lines.next();
-
-            if (RUN_MARKER.equals(line)) {
-                traces.add(curList);
-                curList = new ArrayList<String>();
-            }
-            else {
-                curList.add(line);
-            }
-        }
+    /**
+     * The random seed for the given Lisp process of a computation.  It
+     * depends only on COGTOOL_RANDOM_SEED and the shard index, so the same
+     * computation on the same number of processes is reproducible; the
+     * two are mixed (as in SplitMix64) so that neighboring shards do not
+     * draw related sequences.
+     *
+     * @return a seed between 1 and Integer.MAX_VALUE - 1
+     */
+    protected static long getShardSeed(int shard)
+    {
+        long z = (COGTOOL_RANDOM_SEED + shard) * 0x9E3779B97F4A7C15L;
 
-        traces.add(curList);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
 
-        return traces;
+        return 1 + ((z >>> 1) % (Integer.MAX_VALUE - 1));
     }
 
-    protected SNIFACTPredictionAlgo() { }
-
-    public void setParameters(SNIFACTParameters parms)
+    /**
+     * The number of Lisp processes among which to divide the given number
+     * of runs: one per processor, but no more than there are runs.
+     */
+    protected static int getShardCount(int numRuns)
     {
-        parameters = parms;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        return Math.max(1, Math.min(numRuns, processors));
     }
-    
+
     @Override
     public IAnalysisInput prepareComputation(Design design)
     {
@@ -1098,23 +1414,53 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
             (ISimilarityDictionary) design.getAttribute(WidgetAttributes.DICTIONARY_ATTR);
 
         String path = createSimilarityScoresFile(dict);
-        File actrFile = null;
+        List<File> actrFiles = new ArrayList<File>();
+
+        // An exported model file must hold all the runs
+        int shardCount =
+            (exportCTEModelFile == null) ? getShardCount(parameters.numRuns)
+                                         : 1;
 
         boolean oldEmitVirtualFrames = ACTRPredictionAlgo.emitVirtualFrames;
         try {
-            if (exportCTEModelFile == null) {
-            // Create a temp file to hold the ACT-R model
-                actrFile = File.createTempFile("cogtool-actr-model-", ".lisp");
-                actrFile.deleteOnExit();
-            } else {
-                actrFile = exportCTEModelFile;
-            }
             ACTRPredictionAlgo.emitVirtualFrames = true;
-            ACTR6PredictionAlgo.ONLY.outputModel(design,
-                                                 null,
-                                                 actrFile,
-                                                 path,
-                                                 parameters);
+
+            for (int shard = 0; shard < shardCount; shard++) {
+                File actrFile = null;
+
+                if (exportCTEModelFile == null) {
+                    // Create a temp file to hold the ACT-R model
+                    actrFile = File.createTempFile("cogtool-actr-model-", ".lisp");
+                    actrFile.deleteOnExit();
+                } else {
+                    actrFile = exportCTEModelFile;
+                }
+
+                // Divide the runs as evenly as possible, in order
+                int shardRuns = parameters.numRuns / shardCount;
+
+                if (shard < parameters.numRuns % shardCount) {
+                    shardRuns++;
+                }
+
+                SNIFACTParameters shardParms =
+                    new SNIFACTParameters(parameters.taskName,
+                                          shardRuns,
+                                          parameters.kValue,
+                                          parameters.startFrame,
+                                          parameters.targetFrames,
+                                          parameters.algorithm);
+
+                ACTR6PredictionAlgo.ONLY.outputModel(design,
+                                                     null,
+                                                     actrFile,
+                                                     path,
+                                                     shardParms,
+                                                     (exportCTEModelFile == null)
+                                                         ? getShardSeed(shard)
+                                                         : -1);
+                actrFiles.add(actrFile);
+            }
         }
         catch (IOException e) {
             throw new ComputationException("IOException creating ACT-R model", e);
@@ -1125,7 +1471,7 @@ public class SNIFACTPredictionAlgo extends APredictionAlgo
 
         return new SNIFACTAnalysisInput(design,
                                         "actr6.mem",
-                                        actrFile.getAbsolutePath(),
+                                        actrFiles,
                                         "*cogtool-result*");
     }
 }
@@ -94,9 +94,11 @@ package edu.cmu.cs.hcii.cogtool.model;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import edu.cmu.cs.hcii.cogtool.util.GlobalAttributed;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
@@ -696,6 +698,32 @@ public class Script extends GlobalAttributed
         return atIndex;
     }
 
+    /**
+     * Maps each demonstrated (owner) AScriptStep to the index of the first
+     * step state it owns.  The step state just before that index is the
+     * generator state with which the owner's steps were generated, which
+     * lets regeneration resume from (or converge onto) the existing states.
+     */
+    public Map<AScriptStep, Integer> getOwnerStartIndexes()
+    {
+        Map<AScriptStep, Integer> startIndexes =
+            new IdentityHashMap<AScriptStep, Integer>();
+        AScriptStep lastOwner = null;
+        int numStates = stepStates.size();
+
+        for (int i = 0; i < numStates; i++) {
+            AScriptStep owner = stepStates.get(i).getScriptStep().getOwner();
+
+            if ((owner != lastOwner) && ! startIndexes.containsKey(owner)) {
+                startIndexes.put(owner, new Integer(i));
+            }
+
+            lastOwner = owner;
+        }
+
+        return startIndexes;
+    }
+
     /**
      * Fetch the DefaultModelGeneratorState that precedes all steps inserted for the
      * demonstrated owner AScriptStep.  If the given step is <code>null</code>,
@@ -0,0 +1,426 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.EventObject;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
+import edu.cmu.cs.hcii.cogtool.util.NameChangeAlert;
+
+/**
+ * Observes the designs of a project, their frames, the frames' widgets,
+ * input devices and element groups, and the transitions emanating from
+ * the widgets and devices, noting in the ResultDependencies of each
+ * computed result any change to a frame the result depends upon.
+ * Changes that cannot affect a computation (such as moving a frame in
+ * the design window or regenerating its thumbnail) are ignored.
+ * <p>
+ * Objects added to the project while it is observed (including those
+ * restored by undo) are observed as they are added.
+ * <p>
+ * Every change to an observed frame, including those ignored here, is
+ * also reported to FrameSharing, which may therefore cache the frame's
+ * fingerprint between changes.
+ */
+public class StaleResultTracker
+{
+    protected Project project;
+
+    // Maps each observed element group to the frame it belongs to
+    protected Map<FrameElementGroup, Frame> groupFrames =
+        new IdentityHashMap<FrameElementGroup, Frame>();
+
+    protected AlertHandler projectHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                Project.DesignChange chg = (Project.DesignChange) alert;
+
+                if (chg.isAdd) {
+                    observeDesign((Design) chg.element);
+                }
+            }
+        };
+
+    protected AlertHandler designHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                Design design = (Design) alert.getSource();
+
+                // Fingerprints record the names of transition destinations
+                noteFrameSetChange(design);
+
+                if (alert instanceof Design.FrameChange) {
+                    Design.FrameChange chg = (Design.FrameChange) alert;
+                    Frame frame = (Frame) chg.element;
+
+                    if (chg.isAdd) {
+                        observeFrame(frame);
+                    }
+
+                    noteChange(design, frame);
+                }
+                else if (alert instanceof Design.FrameSetChange) {
+                    Design.FrameSetChange chg = (Design.FrameSetChange) alert;
+
+                    for (Frame frame : chg.frames) {
+                        if (chg.isAdd) {
+                            observeFrame(frame);
+                        }
+
+                        noteChange(design, frame);
+                    }
+                }
+                else if (alert instanceof Design.DeviceTypeChange) {
+                    noteChange(design, null);
+                }
+            }
+        };
+
+    protected AlertHandler frameHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                Frame frame = (Frame) alert.getSource();
+
+                if (alert instanceof NameChangeAlert) {
+                    // Fingerprints record the names of transition
+                    // destinations, and results refer to frames by name
+                    noteFrameSetChange(frame.getDesign());
+                    noteChange(frame.getDesign(), null);
+                    return;
+                }
+
+                FrameSharing.noteChange(frame);
+
+                if ((alert instanceof Frame.OriginChange) ||
+                    (alert instanceof Frame.ThumbnailChange))
+                {
+                    return;
+                }
+
+                if (alert instanceof Frame.WidgetChange) {
+                    Frame.WidgetChange chg = (Frame.WidgetChange) alert;
+
+                    if (chg.action == Frame.WidgetChange.WIDGET_COLORS_CHANGED)
+                    {
+                        return;
+                    }
+
+                    if ((chg.action == Frame.ElementChange.ELEMENT_ADD) &&
+                        (chg.getChangeElement() != null))
+                    {
+                        observeSource(chg.getChangeElement());
+                    }
+                }
+                else if (alert instanceof Frame.FrameEltGrpChange) {
+                    Frame.FrameEltGrpChange chg =
+                        (Frame.FrameEltGrpChange) alert;
+
+                    if (chg.action == Frame.ElementChange.ELEMENT_ADD) {
+                        observeGroup(frame, chg.getChangeElement());
+                    }
+                }
+
+                noteChange(frame.getDesign(), frame);
+            }
+        };
+
+    protected AlertHandler sourceHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                TransitionSource source = (TransitionSource) alert.getSource();
+
+                if (alert instanceof TransitionSource.TransitionChange) {
+                    TransitionSource.TransitionChange chg =
+                        (TransitionSource.TransitionChange) alert;
+
+                    if (chg.isAdd) {
+                        observeTransition((Transition) chg.element);
+                    }
+                }
+
+                noteChange(source.getFrame());
+            }
+        };
+
+    protected AlertHandler groupHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                // Auxiliary text, name, membership and attributes
+                noteChange(groupFrames.get(alert.getSource()));
+            }
+        };
+
+    protected AlertHandler transitionHandler =
+        new AlertHandler() {
+
+            public void handleAlert(EventObject alert)
+            {
+                Transition transition = (Transition) alert.getSource();
+                TransitionSource source = transition.getSource();
+
+                if (source != null) {
+                    noteChange(source.getFrame());
+                }
+            }
+        };
+
+    public StaleResultTracker(Project p)
+    {
+        project = p;
+
+        project.addHandler(this, Project.DesignChange.class, projectHandler);
+
+        for (Design design : project.getDesigns()) {
+            observeDesign(design);
+        }
+    }
+
+    protected void observeDesign(Design design)
+    {
+        design.addHandler(this, EventObject.class, designHandler);
+
+        for (Frame frame : design.getFrames()) {
+            observeFrame(frame);
+        }
+    }
+
+    protected void observeFrame(Frame frame)
+    {
+        frame.addHandler(this, EventObject.class, frameHandler);
+        FrameSharing.trackChanges(frame);
+
+        for (IWidget widget : frame.getWidgets()) {
+            observeSource(widget);
+        }
+
+        for (InputDevice device : frame.getInputDevices()) {
+            observeSource(device);
+        }
+
+        for (FrameElementGroup group : frame.getEltGroups()) {
+            observeGroup(frame, group);
+        }
+    }
+
+    protected void observeGroup(Frame frame, FrameElementGroup group)
+    {
+        groupFrames.put(group, frame);
+        group.addHandler(this, EventObject.class, groupHandler);
+    }
+
+    protected void observeSource(TransitionSource source)
+    {
+        source.addHandler(this, EventObject.class, sourceHandler);
+
+        for (Transition transition : source.getTransitions().values()) {
+            observeTransition(transition);
+        }
+    }
+
+    protected void observeTransition(Transition transition)
+    {
+        transition.addHandler(this, EventObject.class, transitionHandler);
+    }
+
+    protected void noteChange(Frame frame)
+    {
+        if (frame != null) {
+            FrameSharing.noteChange(frame);
+            noteChange(frame.getDesign(), frame);
+        }
+    }
+
+    /**
+     * Forgets the cached fingerprints of all the frames of the given
+     * design.
+     */
+    protected void noteFrameSetChange(Design design)
+    {
+        if (design != null) {
+            for (Frame frame : design.getFrames()) {
+                FrameSharing.noteChange(frame);
+            }
+        }
+    }
+
+    /**
+     * Notes the change in the dependencies of the computed results of the
+     * given design that depend upon the given frame (or in all of them, if
+     * the frame is <code>null</code>).
+     */
+    protected void noteChange(Design design, Frame frame)
+    {
+        if (design == null) {
+            return;
+        }
+
+        for (TaskApplication ta : project.taskApplicationsForDesign(design).values())
+        {
+            Iterator<CognitiveModelGenerator> modelGens =
+                ta.getModelGenerators();
+
+            while (modelGens.hasNext()) {
+                CognitiveModelGenerator modelGen = modelGens.next();
+                Iterator<IPredictionAlgo> algs =
+                    ta.getPredictionAlgs(modelGen);
+
+                while (algs.hasNext()) {
+                    APredictionResult result =
+                        ta.getResult(modelGen, algs.next());
+                    ResultDependencies deps =
+                        (result != null) ? result.getDependencies() : null;
+
+                    if ((deps != null) && ! deps.hasChanged() &&
+                        ((frame == null) || deps.dependsOn(frame)))
+                    {
+                        deps.noteChange();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops observing the project; objects removed from the project since
+     * they were first observed are not visited, but hold only handlers that
+     * would have no effect.
+     */
+    public void dispose()
+    {
+        project.removeAllHandlers(this);
+
+        for (Design design : project.getDesigns()) {
+            design.removeAllHandlers(this);
+
+            for (Frame frame : design.getFrames()) {
+                frame.removeAllHandlers(this);
+                FrameSharing.stopTracking(frame);
+
+                for (IWidget widget : frame.getWidgets()) {
+                    disposeSource(widget);
+                }
+
+                for (InputDevice device : frame.getInputDevices()) {
+                    disposeSource(device);
+                }
+            }
+        }
+
+        for (FrameElementGroup group : groupFrames.keySet()) {
+            group.removeAllHandlers(this);
+        }
+
+        groupFrames.clear();
+    }
+
+    protected void disposeSource(TransitionSource source)
+    {
+        source.removeAllHandlers(this);
+
+        for (Transition transition : source.getTransitions().values()) {
+            transition.removeAllHandlers(this);
+        }
+    }
+}
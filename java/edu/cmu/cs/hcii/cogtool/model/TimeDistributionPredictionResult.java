@@ -111,9 +111,16 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
      */
     protected List<APredictionResult> results;
 
-    public static final int edu_cmu_cs_hcii_cogtool_model_TimeDistributionPredictionResult_version = 0;
+    /**
+     * Summary of all the runs, required when only a sample of them is kept
+     * in results; may be null if results holds every run
+     */
+    protected RunStatistics statistics = null;
+
+    public static final int edu_cmu_cs_hcii_cogtool_model_TimeDistributionPredictionResult_version = 1;
 
     protected static final String resultsVAR = "results";
+    protected static final String statisticsVAR = "statistics";
 
     private static ObjectSaver.IDataSaver<TimeDistributionPredictionResult> SAVER =
         new ObjectSaver.ADataSaver<TimeDistributionPredictionResult>() {
@@ -128,6 +135,7 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
                 throws java.io.IOException
             {
                 saver.saveObject(v.results, resultsVAR);
+                saver.saveObject(v.statistics, statisticsVAR);
             }
         };
 
@@ -161,10 +169,26 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
 
                 return null;
             }
+
+            @Override
+            public void set(TimeDistributionPredictionResult target,
+                            String variable,
+                            Object value)
+            {
+                if (variable != null) {
+                    if (variable.equals(statisticsVAR)) {
+                        target.statistics = (RunStatistics) value;
+                    }
+                }
+            }
         };
 
     public static void registerLoader()
     {
+        // Version 0 lacks statistics, which then remains null
+        ObjectLoader.registerLoader(TimeDistributionPredictionResult.class.getName(),
+                                    0,
+                                    LOADER);
         ObjectLoader.registerLoader(TimeDistributionPredictionResult.class.getName(),
                                     edu_cmu_cs_hcii_cogtool_model_TimeDistributionPredictionResult_version,
                                     LOADER);
@@ -186,6 +210,26 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
         results = resultList;
     }
 
+    /**
+     * For a result summarized by stats, which may keep only a sample of
+     * its runs; the task time is the mean over all the successful runs
+     * summarized by stats.
+     */
+    public TimeDistributionPredictionResult(String predictionName,
+                                            Script s,
+                                            IPredictionAlgo predictionAlg,
+                                            List<String> traces,
+                                            List<String> errors,
+                                            List<APredictionResult> sample,
+                                            RunStatistics stats)
+    {
+        super(predictionName, s, predictionAlg, traces, errors, null,
+              stats.getMean());
+
+        results = sample;
+        statistics = stats;
+    }
+
     public TimeDistributionPredictionResult(String predictionName,
                                             Script s,
                                             IPredictionAlgo predictionAlg,
@@ -212,6 +256,15 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
         return results;
     }
 
+    /**
+     * Summary of all the runs; may be null if getResultList() holds every
+     * run
+     */
+    public RunStatistics getStatistics()
+    {
+        return statistics;
+    }
+
     @Override
     public List<ResultStep> getModelSteps()
     {
@@ -233,9 +286,19 @@ public class TimeDistributionPredictionResult extends TimePredictionResult
     {
         super.copyState(ta, fromResult);
 
+        if (fromResult instanceof TimeDistributionPredictionResult) {
+            statistics =
+                ((TimeDistributionPredictionResult) fromResult).statistics;
+        }
+
         results = new ArrayList<APredictionResult>();
 
-        Iterator<APredictionResult> allResults = results.iterator();
+        if (! (fromResult instanceof TimeDistributionPredictionResult)) {
+            return;
+        }
+
+        Iterator<APredictionResult> allResults =
+            ((TimeDistributionPredictionResult) fromResult).results.iterator();
 
         while (allResults.hasNext()) {
             APredictionResult result = allResults.next();
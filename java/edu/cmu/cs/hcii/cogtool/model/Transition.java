@@ -456,7 +456,9 @@ public class Transition extends GlobalAttributed implements TransitionDelay
                            duplicator.getOrDuplicate(destination),
                            action.duplicate());
 
-        newTransition.setDelayInfo(getDelayInSecs(), getDelayLabel());
+        // Copy the label as is (rather than its displayed default) so that
+        // the copy is identical; see FrameSharing
+        newTransition.setDelayInfo(delayInSecs, delayLabel);
         newTransition.copyAttributes(this);
 
         return newTransition;
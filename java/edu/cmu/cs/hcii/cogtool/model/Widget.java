@@ -98,6 +98,7 @@ import java.util.EventObject;
 import java.util.HashSet;
 import java.util.Set;
 
+import edu.cmu.cs.hcii.cogtool.util.ImageStore;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
 import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
@@ -263,7 +264,7 @@ public class Widget extends ATransitionSource implements IWidget
                     target.widgetType = (WidgetType) value;
                 }
                 else if (variable.equals(widgetImageVAR)) {
-                    target.widgetImage = (byte[]) value;
+                    target.widgetImage = ImageStore.intern((byte[]) value);
                 }
                 else if (variable.equals(parentGroupVAR)) {
                     target.parentGroup = (SimpleWidgetGroup) value;
@@ -514,6 +515,10 @@ public class Widget extends ATransitionSource implements IWidget
         if (name != newName) {
             super.setName(newName);
 
+            if (frame != null) {
+                frame.widgetRenamed(this);
+            }
+
             raiseAlert(new Widget.WidgetChange(this, Widget.WidgetChange.NAME));
         }
     }
@@ -536,6 +541,9 @@ public class Widget extends ATransitionSource implements IWidget
 
     public void setImage(byte[] i)
     {
+        // Widgets showing identical images share the image data
+        i = ImageStore.intern(i);
+
         if (widgetImage != i) {
             widgetImage = i;
             raiseAlert(new Widget.WidgetChange(this, Widget.WidgetChange.IMAGE));
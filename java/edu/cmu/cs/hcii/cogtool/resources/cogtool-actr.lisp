@@ -250,6 +250,11 @@
 ;; Note that the following is ignored if this variable has already been initialized
 (defvar *cogtool-random-seed* '(1 0))
 
+;; When the runs of an analysis are divided among several Lisp processes, the
+;; seed for this process's random number generator; ignored if nil or if
+;; *cogtool-random-seed* is set.
+(defvar *cogtool-shard-seed* nil)
+
 ;; Declare a global variable, in which we will store the current design
 (defvar *cogtool-design* nil)
 
@@ -1400,6 +1400,11 @@
 
 );end of define-model
 
+;; Seed this process once, before the first run; reset does not reseed, so the
+;; runs below still differ from one another.
+(when (and *cogtool-shard-seed* (not *cogtool-random-seed*))
+  (sgp-fct (list :seed *cogtool-shard-seed*)))
+
 (dotimes (*model-run* (1- *number-of-runs*))
 	(setq *cogtool-result* (cogtool-run-model))
 	(format t "~A~%<<< CT-Explorer: between runs marker >>>" *cogtool-result*)
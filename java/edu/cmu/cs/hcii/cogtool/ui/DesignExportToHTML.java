@@ -92,7 +92,6 @@
 package edu.cmu.cs.hcii.cogtool.ui;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -146,6 +145,7 @@ import edu.cmu.cs.hcii.cogtool.model.WidgetType;
 import edu.cmu.cs.hcii.cogtool.uimodel.FrameUIModel;
 import edu.cmu.cs.hcii.cogtool.util.Cancelable;
 import edu.cmu.cs.hcii.cogtool.util.FileUtil;
+import edu.cmu.cs.hcii.cogtool.util.ImageCache;
 import edu.cmu.cs.hcii.cogtool.util.KeyboardUtil;
 import edu.cmu.cs.hcii.cogtool.util.L10N;
 import edu.cmu.cs.hcii.cogtool.util.NamedObjectUtil;
@@ -498,8 +498,8 @@ public class DesignExportToHTML
 				}
 			}
 			finally {
-				// dispose the image, it's not needed any more.
-				img.dispose();
+				// release the image, it's not needed any more.
+				ImageCache.release(img);
 			}
 
 			try {
@@ -677,7 +677,7 @@ public class DesignExportToHTML
 	 *
 	 * Needs to pass it through a few SWT layers for it to work nicely though.
 	 *
-	 * NOTE: User of this class must dispose of the image themselves
+	 * NOTE: User of this class must release the image via ImageCache
 	 * @param frame
 	 * @return
 	 */
@@ -696,6 +696,8 @@ public class DesignExportToHTML
 
 		DoubleSize size = frameUI.getPreferredSize();
 
+		frameUI.dispose();
+
 		// Set a minimum size... this is duplicate code (more or less)
 		// from DesignUImodel.. but not sure how to take advantage of that
 		if (size.height < 100) {
@@ -714,7 +716,7 @@ public class DesignExportToHTML
 					PrecisionUtilities.ceiling(size.height));
 		}
 		else {
-			image = new Image(null, new ByteArrayInputStream(bgImg));
+			image = ImageCache.acquire(bgImg);
 		}
 
 		return image;
@@ -727,7 +729,7 @@ public class DesignExportToHTML
 	 *
 	 * Needs to pass it through a few SWT layers for it to work nicely though.
 	 *
-	 * NOTE: User of this class must dispose of the image themselves
+	 * NOTE: User of this class must release the image via ImageCache
 	 * @param frame
 	 * @return
 	 */
@@ -739,7 +741,7 @@ public class DesignExportToHTML
 			return null;
 		}
 
-		return new Image(null, new ByteArrayInputStream(bgImg));
+		return ImageCache.acquire(bgImg);
 	}
 
 	/**
@@ -1952,8 +1954,8 @@ public class DesignExportToHTML
 
 			properties += " background-image: url(" + imageName  + ");";
 
-			// dispose the image, it's not needed any more.
-			img.dispose();
+			// release the image, it's not needed any more.
+			ImageCache.release(img);
 		}
 
 		return "<div " + properties + "\"" + eventString + ">" + widget.getTitle() + "</div>\n";
@@ -1231,29 +1231,20 @@ public class FrameEditorMouseState extends Draw2DMouseState
                     DoubleRectangle region =
                         new DoubleRectangle(leftX, topY, width, height);
 
-                    // Loop through all figures and check for intersections
+                    // Check each figure intersecting the region
                     Iterator<GraphicalWidget<?>> gwFigures =
-                        ui.getFrameUI().getFigureListIterator();
+                        ui.getFrameUI().getWidgetFiguresInRegion(region).iterator();
 
                     while (gwFigures.hasNext()) {
                         GraphicalWidget<?> gw = gwFigures.next();
 
                         if (! (gw instanceof GraphicalChildWidget<?, ?>)) {
-                            Rectangle bounds = gw.getBounds();
-
-                            if (region.intersects(bounds.x,
-                                                  bounds.y,
-                                                  bounds.width,
-                                                  bounds.height))
-                            {
-                                // If the widget is already selected, deselect it.
-                                if (selection.isSelectionFigureSelected(gw))
-                                {
-                                    selection.deselectSelnFig(gw);
-                                }
-                                else {
-                                    selection.selectSelnFig(gw);
-                                }
+                            // If the widget is already selected, deselect it.
+                            if (selection.isSelectionFigureSelected(gw)) {
+                                selection.deselectSelnFig(gw);
+                            }
+                            else {
+                                selection.selectSelnFig(gw);
                             }
                         }
                     }
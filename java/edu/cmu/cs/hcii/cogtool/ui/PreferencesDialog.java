@@ -121,6 +121,7 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
     private IntegerEntry minFrameWidthEntry;
     private IntegerEntry framesPerRowEntry;
     private Button klmResultRangeCheckbox;
+    private Button klmEstimatesCheckbox;
     private Combo displayDigitsCombo; 
     private boolean researchChanged = false;
     public static final int DEFAULT_MIN_FRAME_WIDTH =
@@ -217,6 +218,10 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
         klmResultRangeCheckbox.setText(L10N.get("PREFDG.KLMRESULTRANGE",
                                             "Display range of predicted skilled execution time instead of a single value"));
         klmResultRangeCheckbox.setSelection(CogToolPref.KLM_RESULT_RANGE.getBoolean());
+        klmEstimatesCheckbox = new Button(dialog, SWT.CHECK);
+        klmEstimatesCheckbox.setText(L10N.get("PREFDG.KLMESTIMATES",
+                                              "Display approximate times for tasks not yet computed"));
+        klmEstimatesCheckbox.setSelection(CogToolPref.KLM_ESTIMATES.getBoolean());
 
         Label displayDigitsLabel = new Label(dialog, SWT.NONE);
         displayDigitsLabel.setText(L10N.get("PREFDG.DISPDIG",
@@ -236,7 +241,7 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
             
             fd.right = new FormAttachment(100, 0);
             fd.bottom = new FormAttachment(100, -10);
-            fd.top = new FormAttachment(klmResultRangeCheckbox, 22);
+            fd.top = new FormAttachment(klmEstimatesCheckbox, 22);
             okButton.setLayoutData(fd);
 
             fd = new FormData();
@@ -254,7 +259,7 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
             
             fd.left = new FormAttachment(50, -20);
             fd.bottom = new FormAttachment(100, -10);
-            fd.top = new FormAttachment(klmResultRangeCheckbox, 22);
+            fd.top = new FormAttachment(klmEstimatesCheckbox, 22);
             okButton.setLayoutData(fd);
 
             fd = new FormData();
@@ -310,6 +315,11 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
         fd.top = new FormAttachment(displayDigitsLabel, 10);
         fd.left = new FormAttachment(displayDigitsLabel, 25, SWT.LEFT);
         klmResultRangeCheckbox.setLayoutData(fd);
+
+        fd = new FormData();
+        fd.top = new FormAttachment(klmResultRangeCheckbox, 5);
+        fd.left = new FormAttachment(klmResultRangeCheckbox, 0, SWT.LEFT);
+        klmEstimatesCheckbox.setLayoutData(fd);
     }
 
     private void setResearchButtonText() {
@@ -338,6 +348,9 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
         if (CogToolPref.KLM_RESULT_RANGE.setBoolean(klmResultRangeCheckbox.getSelection())) {
             changed.add(CogToolPref.KLM_RESULT_RANGE);
         }
+        if (CogToolPref.KLM_ESTIMATES.setBoolean(klmEstimatesCheckbox.getSelection())) {
+            changed.add(CogToolPref.KLM_ESTIMATES);
+        }
         if (researchNewState != null && CogToolPref.RESEARCH.setBoolean(researchNewState)) {
             changed.add(CogToolPref.RESEARCH);
         }
@@ -356,6 +369,7 @@ public class PreferencesDialog extends WindowUtil.SimpleDialog
         minFrameWidthEntry.setValue(CogToolPref.MIN_FRAME_WIDTH.getIntDefault());
         framesPerRowEntry.setValue(CogToolPref.FRAMES_PER_ROW.getIntDefault());
         klmResultRangeCheckbox.setSelection(CogToolPref.KLM_RESULT_RANGE.getBooleanDefault());
+        klmEstimatesCheckbox.setSelection(CogToolPref.KLM_ESTIMATES.getBooleanDefault());
         displayDigitsCombo.select(CogToolPref.DISPLAY_DIGITS.getIntDefault());
         if (CogToolPref.RESEARCH.getBoolean() != CogToolPref.RESEARCH.getBooleanDefault()) {
             researchNewState = CogToolPref.RESEARCH.getBooleanDefault();
@@ -95,6 +95,8 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
@@ -118,10 +120,13 @@ import edu.cmu.cs.hcii.cogtool.model.Design;
 import edu.cmu.cs.hcii.cogtool.model.Frame;
 import edu.cmu.cs.hcii.cogtool.model.GoogleSimilarity;
 import edu.cmu.cs.hcii.cogtool.model.GroupNature;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.Parameters;
 import edu.cmu.cs.hcii.cogtool.model.ISitedTermSimilarity;
 import edu.cmu.cs.hcii.cogtool.model.ITermSimilarity;
 import edu.cmu.cs.hcii.cogtool.model.LSASimilarity;
 import edu.cmu.cs.hcii.cogtool.model.GensimLSASimilarity;
+import edu.cmu.cs.hcii.cogtool.model.ParameterSweep;
 import edu.cmu.cs.hcii.cogtool.model.Project;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo.SNIFACTGroupParameters;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo.SNIFACTParameters;
@@ -726,6 +731,153 @@ public class ProjectInteraction extends DefaultInteraction
         }
     }
 
+    /**
+     * Asks for the values of each estimate parameter to sweep, as a
+     * comma-separated list; a parameter given a single value is held at
+     * that value.  OK is enabled only while every list parses.
+     */
+    public static class ParameterSweepDialog extends WindowUtil.CustomDialog
+    {
+        protected Text[] valueTexts;
+        protected double[][] values;
+
+        public ParameterSweepDialog(Shell parentWin)
+        {
+            super(parentWin,
+                  L10N.get("PM.ParameterSweepTitle", "Estimate Sweep"),
+                  SWT.PRIMARY_MODAL);
+        }
+
+        /**
+         * Returns the values chosen for each parameter, indexed by the
+         * KLMPredictionAlgo.Parameters constants.
+         */
+        public double[][] getValues()
+        {
+            return values;
+        }
+
+        /**
+         * Parses a comma-separated list of non-negative numbers; returns
+         * <code>null</code> if any entry is invalid.  An empty list stands
+         * for the parameter's default, which for the think duration keeps
+         * each think step's own duration.
+         */
+        protected static double[] parseValues(String text, int parameter)
+        {
+            if (text.trim().length() == 0) {
+                return new double[] {
+                    KLMPredictionAlgo.DEFAULT_PARAMETERS.get(parameter)
+                };
+            }
+
+            String[] entries = text.split(",");
+            double[] result = new double[entries.length];
+
+            try {
+                for (int i = 0; i < entries.length; i++) {
+                    result[i] = Double.parseDouble(entries[i].trim());
+
+                    if (Double.isNaN(result[i]) ||
+                        Double.isInfinite(result[i]) ||
+                        (result[i] < 0.0))
+                    {
+                        return null;
+                    }
+                }
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+
+            return result;
+        }
+
+        protected static String formatValues(double[] values)
+        {
+            StringBuilder text = new StringBuilder();
+
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+
+                text.append(values[i]);
+            }
+
+            return text.toString();
+        }
+
+        protected boolean allValid()
+        {
+            for (int i = 0; i < valueTexts.length; i++) {
+                if (parseValues(valueTexts[i].getText(), i) == null) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        protected void onOK()
+        {
+            values = new double[valueTexts.length][];
+
+            for (int i = 0; i < valueTexts.length; i++) {
+                values[i] = parseValues(valueTexts[i].getText(), i);
+            }
+
+            super.onOK();
+        }
+
+        @Override
+        protected void addMoreFields()
+        {
+            Label lbl = new Label(dialog, SWT.NONE);
+
+            lbl.setText(L10N.get("PM.ParameterSweepValues",
+                                 "Values to estimate with, separated by commas (leave empty for the default); every combination is estimated:"));
+
+            GridData lblLayout = new GridData(GridData.HORIZONTAL_ALIGN_FILL);
+            lblLayout.grabExcessHorizontalSpace = true;
+            lblLayout.horizontalSpan = 4;
+            lbl.setLayoutData(lblLayout);
+
+            ModifyListener validator = new ModifyListener() {
+                public void modifyText(ModifyEvent evt)
+                {
+                    // The OK button is created after the fields
+                    if (okButton != null) {
+                        okButton.setEnabled(allValid());
+                    }
+                }
+            };
+
+            valueTexts = new Text[Parameters.PARAMETER_COUNT];
+
+            for (int i = 0; i < Parameters.PARAMETER_COUNT; i++) {
+                lbl = new Label(dialog, SWT.NONE);
+                lbl.setText(ParameterSweep.getParameterName(i) + ": ");
+                lblLayout = new GridData(GridData.HORIZONTAL_ALIGN_END);
+                lbl.setLayoutData(lblLayout);
+
+                valueTexts[i] =
+                    new TextWithEnableFix(dialog, SWT.SINGLE | SWT.BORDER);
+                valueTexts[i].setText(formatValues(ParameterSweep.getDefaultValues(i)));
+                valueTexts[i].addModifyListener(validator);
+
+                GridData itemLayout =
+                    new GridData(GridData.HORIZONTAL_ALIGN_FILL);
+
+                itemLayout.grabExcessHorizontalSpace = true;
+                itemLayout.horizontalSpan = 3;
+
+                valueTexts[i].setLayoutData(itemLayout);
+            }
+        }
+    }
+
 
     /**
      * The return value of <code>open</code> when the user selects "Create".
@@ -857,6 +1009,29 @@ public class ProjectInteraction extends DefaultInteraction
         return data;
     }
 
+    /**
+     * Request the values of each parameter of an estimate sweep.
+     *
+     * @return the values for each parameter, indexed by the
+     *         KLMPredictionAlgo.Parameters constants, if not canceled;
+     *         <code>null</code> otherwise
+     */
+
+    public double[][] requestParameterSweepValues()
+    {
+        ParameterSweepDialog dialog = new ParameterSweepDialog(window);
+
+        Object response = dialog.open();
+
+        if ((response != null) &&
+            response.equals(WindowUtil.CustomDialog.OK))
+        {
+            return dialog.getValues();
+        }
+
+        return null;
+    }
+
     /**
      * Request a new design name.  The given string provides the
      * initial value for the dialog box.
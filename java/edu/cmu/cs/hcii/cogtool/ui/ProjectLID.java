@@ -190,6 +190,15 @@ public class ProjectLID extends CogToolLID
     public static final ProjectLID ImportHumanCSVFile =
         new ProjectLID("ImportHumanCSVFile", 2026);
 
+    public static final ProjectLID ImportHumanCSVDirectory =
+        new ProjectLID("ImportHumanCSVDirectory", 2068);
+
+    public static final ProjectLID RecomputeStaleResults =
+        new ProjectLID("RecomputeStaleResults", 2069);
+
+    public static final ProjectLID ExportParameterSweep =
+        new ProjectLID("ExportParameterSweep", 2070);
+
     public static final ProjectLID SetAlgorithmACTR6 =
         new ProjectLID("SetAlgorithmACTR6", 2030);
 
@@ -146,6 +146,7 @@ import edu.cmu.cs.hcii.cogtool.model.GroupNature;
 import edu.cmu.cs.hcii.cogtool.model.IPredictionAlgo;
 import edu.cmu.cs.hcii.cogtool.model.ISimilarityDictionary;
 import edu.cmu.cs.hcii.cogtool.model.Project;
+import edu.cmu.cs.hcii.cogtool.model.RunStatistics;
 import edu.cmu.cs.hcii.cogtool.model.SNIFACTPredictionAlgo;
 import edu.cmu.cs.hcii.cogtool.model.Script;
 import edu.cmu.cs.hcii.cogtool.model.TaskApplication;
@@ -462,6 +463,21 @@ public class ProjectUI extends DefaultUI
                                                                    false,
                                                                    ResultDisplayPolicy.WITH_SECS);
                     toolTipText.append("\n     " + resultDisplay);
+
+                    IPredictionAlgo alg = ta.determineActiveAlgorithm(project);
+                    APredictionResult r = ta.getResult(gen, alg);
+                    RunStatistics stats = ResultDisplayPolicy.getStatistics(r);
+
+                    if ((stats != null) &&
+                        (r.getResultState() == APredictionResult.IS_COMPUTED))
+                    {
+                        String summary =
+                            ResultDisplayPolicy.getStatisticsSummary(stats,
+                                                                     ResultDisplayPolicy.WITH_SECS);
+
+                        toolTipText.append("\n     "
+                                              + summary.replace("\n", "\n     "));
+                    }
                 }
             }
 
@@ -1984,6 +2000,9 @@ public class ProjectUI extends DefaultUI
         setEnabled(CogToolLID.ExportResultsToCSV,
                    ListenerIdentifierMap.ALL,
                    MenuUtil.ENABLED);
+        setEnabled(ProjectLID.ExportParameterSweep,
+                   ListenerIdentifierMap.ALL,
+                   MenuUtil.ENABLED);
         setEnabled(CogToolLID.Help,
                    ListenerIdentifierMap.ALL,
                    MenuUtil.ENABLED);
@@ -2270,6 +2289,10 @@ public class ProjectUI extends DefaultUI
                    showRecompute,
                    recomputeString);
 
+        // Determining staleness may require examining every frame used
+        // by every result, so it is done only when asked
+        setEnabled(ProjectLID.RecomputeStaleResults, availability, true);
+
         // The export trace is only available when a script is
         // computed && there are traces to export.
         boolean hasComputedResult = selectionHasComputedResult(sel);
@@ -143,6 +143,7 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
     private IntegerEntry actrTimeoutEntry;
     private DoubleEntry pmiGSizeEntry;
     private Button cteSuppressNoiseCheckbox;
+    private Button cteAggregateRunsCheckbox;
     private Button cteSuppressNoninteractiveCheckbox;
     private ManagedText converterDirectoryEntry;
     private Button alternativeParametersCheckbox;
@@ -358,6 +359,11 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
                                                            "Ignore non-interactive widgets with no display or auxilliary text in CogTool Explorer"));
         cteSuppressNoninteractiveCheckbox.setSelection(CogToolPref.CTE_SUPPRESS_NONINTERACTIVE.getBoolean());
         
+        cteAggregateRunsCheckbox = new Button(dialog, SWT.CHECK);
+        cteAggregateRunsCheckbox.setText(L10N.get("PREFDG.CTE_AGGREGATE_RUNS",
+                                                  "Keep only statistics and a sample of the runs in CogTool Explorer"));
+        cteAggregateRunsCheckbox.setSelection(CogToolPref.CTE_AGGREGATE_RUNS.getBoolean());
+        
         cteBackButtonSemantics = new Combo(dialog, SWT.READ_ONLY);
         cteBackButtonSemantics.add("Never go back");
         cteBackButtonSemantics.add("Use back button to go back");
@@ -612,6 +618,12 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
         fd = new FormData();
         fd.top = new FormAttachment(cteSuppressNoninteractiveCheckbox, 18);
         fd.left = new FormAttachment(cteSuppressNoninteractiveCheckbox, 0, SWT.LEFT);
+        fd.right = new FormAttachment(100, -35);
+        cteAggregateRunsCheckbox.setLayoutData(fd);
+
+        fd = new FormData();
+        fd.top = new FormAttachment(cteAggregateRunsCheckbox, 18);
+        fd.left = new FormAttachment(cteAggregateRunsCheckbox, 0, SWT.LEFT);
         cteBackButtonSemantics.setLayoutData(fd);
 
         fd = new FormData();
@@ -681,6 +693,7 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
         pmiGSizeEntry.getOuter().setEnabled(resrch);
         cteSuppressNoiseCheckbox.setEnabled(resrch);
         cteSuppressNoninteractiveCheckbox.setEnabled(resrch);
+        cteAggregateRunsCheckbox.setEnabled(resrch);
         cteBackButtonSemantics.setEnabled(resrch);
         cteBackButtonEntry.setEnabled(resrch);
     }
@@ -740,6 +753,9 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
         if (CogToolPref.CTE_SUPPRESS_NONINTERACTIVE.setBoolean(cteSuppressNoninteractiveCheckbox.getSelection())) {
             changed.add(CogToolPref.CTE_SUPPRESS_NONINTERACTIVE);
         }
+        if (CogToolPref.CTE_AGGREGATE_RUNS.setBoolean(cteAggregateRunsCheckbox.getSelection())) {
+            changed.add(CogToolPref.CTE_AGGREGATE_RUNS);
+        }
         if (CogToolPref.PMI_G_SIZE.setDouble(pmiGSizeEntry.getDoubleValue())) {
             changed.add(CogToolPref.PMI_G_SIZE);
         }
@@ -783,6 +799,7 @@ public class ResearchDialog extends WindowUtil.SimpleDialog
         actrDATEntry.setValue(CogToolPref.ACTR_DAT.getIntDefault());
         cteSuppressNoiseCheckbox.setSelection(CogToolPref.CTE_SUPPRESS_NOISE.getBooleanDefault());
         cteSuppressNoninteractiveCheckbox.setSelection(CogToolPref.CTE_SUPPRESS_NONINTERACTIVE.getBooleanDefault());
+        cteAggregateRunsCheckbox.setSelection(CogToolPref.CTE_AGGREGATE_RUNS.getBooleanDefault());
         cteBackButtonSemantics.select(CogToolPref.CTE_BACK_BUTTON_SEMANTICS.getIntDefault());
         cteBackButtonEntry.setText(CogToolPref.CTE_DEFAULT_BACK_LABEL.getStringDefault());
         pmiGSizeEntry.setValue((int)CogToolPref.PMI_G_SIZE.getDoubleDefault());
@@ -563,6 +563,11 @@ public class SEDemoUI extends SEDefaultUI
                 {
                     updateView();
 
+                    // The prediction may show an estimate until computed
+                    // (see CogToolPref.KLM_ESTIMATES), which changes with
+                    // the generated step states
+                    view.updatePrediction(getPrediction());
+
                     // Check if change to generated step states requires us to
                     // determine the selected step state from currentOverride
                     if (delayedStateSelection.hasSelectedStep()) {
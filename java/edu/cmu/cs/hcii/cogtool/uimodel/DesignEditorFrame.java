@@ -997,6 +997,15 @@ public class DesignEditorFrame extends RectangleFigure
         return scale;
     }
 
+    /**
+     * Inform the frame's contents of the zoom of the enclosing view,
+     * so that the background is drawn from a suitably sized thumbnail.
+     */
+    public void setViewZoom(double zoom)
+    {
+        frameUIModel.setViewZoom(zoom);
+    }
+
     @Override
     public void setSize(int width, int height)
     {
@@ -91,25 +91,25 @@
 
 package edu.cmu.cs.hcii.cogtool.uimodel;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
+import org.eclipse.draw2d.FigureListener;
 import org.eclipse.draw2d.IFigure;
-import org.eclipse.draw2d.ImageFigure;
 import org.eclipse.draw2d.PositionConstants;
 import org.eclipse.draw2d.TreeSearch;
 import org.eclipse.draw2d.XYLayout;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
-import org.eclipse.swt.SWTException;
 import org.eclipse.swt.graphics.Image;
 
 import edu.cmu.cs.hcii.cogtool.CogToolWorkThread;
@@ -136,12 +136,15 @@ import edu.cmu.cs.hcii.cogtool.util.Alerter;
 import edu.cmu.cs.hcii.cogtool.util.GraphicsUtil;
 import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
 import edu.cmu.cs.hcii.cogtool.util.IAttributed;
+import edu.cmu.cs.hcii.cogtool.util.ImageCache;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.PrecisionUtilities;
+import edu.cmu.cs.hcii.cogtool.util.RTree;
 import edu.cmu.cs.hcii.cogtool.util.ThreadManager;
 import edu.cmu.cs.hcii.cogtool.util.WindowUtil;
 import edu.cmu.cs.hcii.cogtool.view.CogToolScalableFigure;
 import edu.cmu.cs.hcii.cogtool.view.ScalableFrameFigure;
+import edu.cmu.cs.hcii.cogtool.view.ScaledImageFigure;
 import edu.cmu.cs.hcii.cogtool.view.View;
 
 /**
@@ -470,6 +473,35 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
     protected Map<IWidget, GraphicalWidget<?>> figureList =
         new HashMap<IWidget, GraphicalWidget<?>>();
 
+    /**
+     * Spatial index of the figures in figureList by their current bounds
+     * (in unscaled contents coordinates), so that hit-testing and region
+     * selection need not visit every widget figure.
+     */
+    protected RTree<GraphicalWidget<?>> widgetIndex =
+        new RTree<GraphicalWidget<?>>();
+
+    /**
+     * Position of each widget figure in drawing order (higher is nearer
+     * the top), as of the last call to drawWidgets.
+     */
+    protected Map<GraphicalWidget<?>, Integer> widgetDrawOrder =
+        new HashMap<GraphicalWidget<?>, Integer>();
+
+    /**
+     * Keeps widgetIndex current as widget figures are moved or resized,
+     * whether by a change to the model or temporarily during a drag.
+     */
+    protected FigureListener widgetMoveListener =
+        new FigureListener()
+        {
+
+            public void figureMoved(IFigure source)
+            {
+                indexWidgetFigure((GraphicalWidget<?>) source);
+            }
+        };
+
     /**
      * Should tool tips be shown in this view of the FrameUIModel.
      */
@@ -488,7 +520,7 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
     /**
      * A link to the background image used for this frame.
      */
-    protected ImageFigure backgroundImage;
+    protected ScaledImageFigure backgroundImage;
 
     /**
      * Contains all elements which are displayed.
@@ -511,6 +543,28 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
      */
     protected boolean lazyLoading = false;
 
+    /**
+     * Indicates that the full-size background image is displayed
+     * rather than one of the frame's thumbnails.
+     */
+    protected static final int FULL_IMAGE = -1;
+
+    /**
+     * Which version of the background image is displayed: an index into
+     * Frame.THUMBNAIL_FACTORS, or FULL_IMAGE.
+     */
+    protected int thumbnailIndex = FULL_IMAGE;
+
+    /**
+     * The scaling applied to the contents by enclosing figures.
+     */
+    protected double viewZoom = 1.0;
+
+    /**
+     * Frames whose thumbnails are being generated.
+     */
+    protected static Set<Frame> pendingThumbnails = new HashSet<Frame>();
+
     /**
      * Flag to indicate that the FrameUIModel was disposed; this allows
      * any threads lazy loading images to recover system resources
@@ -691,74 +745,19 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
             createGraphicalWidget(w);
         }
 
-        // Initialize the background image
-        backgroundImage = new ImageFigure();
-        final byte[] bgImg = frame.getBackgroundImage();
-
-        if (bgImg != null) {
-            if (lazyLoading) {
-                // Use a thread to load the image, then set it later
-                ThreadManager.IWorkThread imageLoadThread =
-                    new CogToolWorkThread()
-                    {
-                        protected Image img = null;
-
-
-                        public void doWork()
-                        {
-                            // Performed by the scheduled thread
-                            img =
-                                new Image(null,
-                                          new ByteArrayInputStream(bgImg));
-                        }
+        // Initialize the background image, using the smallest thumbnail
+        // that still has enough detail for the current scale
+        backgroundImage = new ScaledImageFigure();
 
-                        @Override
-                        public void doneCallback()
-                        {
-                            // Performed by the main UI thread
-                            if (img != null) {
-                                if (isDisposed) {
-                                    img.dispose();
-                                }
-                                else {
-                                    backgroundImage.setImage(img);
-                                }
-                            }
-
-                            // If an exception was thrown here, log it to stderr
-                            // TODO: We might want to add a real logging package
-                            if (exBucket.containsExceptions()) {
-                                // TODO: It is unclear what to do here.  Maybe
-                                // we should just replace failed images with red
-                                // Xs rather than popping up a dialog box
-                                System.err.println(exBucket);
-
-//                                RcvrExceptionHandler.recoverWorkThread(this,
-//                                                                       interaction);
-                            }
-                        }
-                    };
-
-                ThreadManager.startNewThread(imageLoadThread, 2);
-            }
-            else {
-                try {
-                    Image img = null; // = AUIModel.imageCache.get(frame);
-                    if (img == null) {
-                        img = new Image(null, new ByteArrayInputStream(bgImg));
-//                        AUIModel.imageCache.put(frame, img);
-                    }
-
-                    backgroundImage.setImage(img);
-                }
-                catch (SWTException ex) {
-                    throw new GraphicsUtil.ImageException("Setting frame background image failed",
-                                                          ex);
-                }
-            }
+        if (frame.getBackgroundImage() != null) {
+            loadBackgroundImage(chooseThumbnail());
 
             backgroundImage.setBounds(PrecisionUtilities.getDraw2DRectangle(
                                                     frame.getBackgroundBounds()));
+
+            if (lazyLoading) {
+                requestThumbnails(frame);
+            }
         }
 
         // Always align the picture to top left corner
@@ -899,45 +898,42 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
 
                     if (chg != null) {
 
-                        // Dispose the old background image if there was one
-                        if (backgroundImage.getImage() != null) {
-                            backgroundImage.getImage().dispose();
-                        }
-
+                        // Release the old background image (if there was
+                        // one) once it is no longer shown
+                        Image oldImg = backgroundImage.getImage();
                         byte[] bgImg = frame.getBackgroundImage();
 
                         // If the image is null, don't create it.
                         if (bgImg != null) {
-                            // Convert the byte's into a proper image
-                            // Don't rely on the cache, since this event means
-                            // the cache is probably out of date
-                            try {
-                                Image img =
-                                    new Image(null,
-                                              new ByteArrayInputStream(bgImg));
-//                                AUIModel.imageCache.put(frame, img);
-
-                                // set the new image to the background
-                                backgroundImage.setImage(img);
-
-                                // get the size of the image
-                                org.eclipse.swt.graphics.Rectangle bounds =
-                                    img.getBounds();
-
-                                // resize background image with the new bounds
-                                backgroundImage.setSize(bounds.width,
-                                                        bounds.height);
-                            }
-                            catch (SWTException ex) {
-                                throw new GraphicsUtil.ImageException("Setting frame background image failed",
-                                                                      ex);
-                            }
+                            // Convert the byte's into a proper image;
+                            // the cache is keyed by the image data itself,
+                            // so it cannot be out of date.  Any thumbnails
+                            // were discarded along with the old image.
+                            Image img = ImageCache.acquire(bgImg);
+
+                            // set the new image to the background
+                            thumbnailIndex = FULL_IMAGE;
+                            backgroundImage.setImage(img);
+
+                            // get the size of the image
+                            org.eclipse.swt.graphics.Rectangle bounds =
+                                img.getBounds();
+
+                            // resize background image with the new bounds
+                            backgroundImage.setSize(bounds.width,
+                                                    bounds.height);
                         }
                         else {
                             // Clear the background image.
                             backgroundImage.setImage(null);
                             backgroundImage.setSize(0, 0);
                         }
+
+                        ImageCache.release(oldImg);
+
+                        if (lazyLoading && (bgImg != null)) {
+                            requestThumbnails(frame);
+                        }
                     }
 
                     drawWidgets();
@@ -953,6 +949,18 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
         frame.addHandler(this,
                               Frame.BackgroundImageChange.class,
                               frameBackgroundChangeHandler);
+
+        // Switch to a thumbnail once they become available
+        frame.addHandler(this,
+                         Frame.ThumbnailChange.class,
+                         new AlertHandler()
+                         {
+
+                             public void handleAlert(EventObject alert)
+                             {
+                                 updateBackgroundLevel();
+                             }
+                         });
     } // addFrameChangeListeners
 
     /**
@@ -982,8 +990,13 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
                               0);
         }
 
+        widgetDrawOrder.clear();
+
         // Add each graphical widget from the array to the scalable figure
         for (GraphicalWidget<?> figureItem : figureArray) {
+            widgetDrawOrder.put(figureItem,
+                                new Integer(widgetDrawOrder.size()));
+
             // Add the figure to the contents
             // Specify the bounds of the figure in the XY layout of the content
             // Theoretically this could be removed...
@@ -1012,6 +1025,9 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
 
         // Remove the figure from the visual system
         if (gw != null) {
+            gw.removeFigureListener(widgetMoveListener);
+            widgetIndex.remove(gw);
+            widgetDrawOrder.remove(gw);
             contents.remove(gw);
             gw.dispose();
         }
@@ -1121,6 +1137,9 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
         // Add the new widget to the list.
         figureList.put(w, gw);
 
+        indexWidgetFigure(gw);
+        gw.addFigureListener(widgetMoveListener);
+
         // Add change handlers to the widget
         gw.addChangeHandler(new WidgetChangeHandler(gw),
                             Widget.WidgetChange.class);
@@ -1130,6 +1149,16 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
                             IAttributed.AuthorityChange.class);
     }
 
+    /**
+     * Record the current bounds of the given widget figure in widgetIndex.
+     */
+    protected void indexWidgetFigure(GraphicalWidget<?> gw)
+    {
+        Rectangle bounds = gw.getBounds();
+
+        widgetIndex.insert(gw, bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
     /**
      * Add a change handler to every graphical widget.
      */
@@ -1244,9 +1273,206 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
     {
         if (scale != getZoom()) {
             contents.setScale(scale);
+            updateBackgroundLevel();
+        }
+    }
+
+    /**
+     * Record the additional scaling applied by the figures that contain
+     * this frame's contents (such as the zoom of the design's structure
+     * view), so that background thumbnails are chosen by the scale at
+     * which the frame is actually displayed.
+     */
+
+    public void setViewZoom(double zoom)
+    {
+        if (zoom != viewZoom) {
+            viewZoom = zoom;
+            updateBackgroundLevel();
+        }
+    }
+
+    /**
+     * Determine which version of the background image to display:
+     * the smallest available thumbnail whose scale is not below the
+     * scale at which the frame is displayed, or FULL_IMAGE if there is
+     * none.
+     */
+    protected int chooseThumbnail()
+    {
+        double displayScale = contents.getScale() * viewZoom;
+
+        for (int i = Frame.THUMBNAIL_FACTORS.length - 1; i >= 0; i--) {
+            if ((displayScale * Frame.THUMBNAIL_FACTORS[i] <= 1.0) &&
+                (frame.getThumbnail(i) != null))
+            {
+                return i;
+            }
+        }
+
+        return FULL_IMAGE;
+    }
+
+    /**
+     * Replace the displayed background image if a different thumbnail
+     * (or the full-size image) now suits the display scale.
+     */
+    protected void updateBackgroundLevel()
+    {
+        if ((frame.getBackgroundImage() != null) && ! isDisposed) {
+            int index = chooseThumbnail();
+
+            if (index != thumbnailIndex) {
+                loadBackgroundImage(index);
+            }
         }
     }
 
+    /**
+     * Display the background thumbnail at the given index into
+     * Frame.THUMBNAIL_FACTORS, or the full-size background image if
+     * FULL_IMAGE.  Thumbnails are small enough to decode immediately;
+     * if lazy loading, the full-size image is decoded by a work thread
+     * and the current image remains in place until it is ready.
+     */
+    protected void loadBackgroundImage(final int index)
+    {
+        final byte[] bgImg = frame.getBackgroundImage();
+
+        thumbnailIndex = index;
+
+        if (index != FULL_IMAGE) {
+            setBackgroundImage(ImageCache.acquire(frame.getThumbnail(index)),
+                               index);
+        }
+        else if (lazyLoading) {
+            // Use a thread to load the image, then set it later
+            ThreadManager.IWorkThread imageLoadThread =
+                new CogToolWorkThread()
+                {
+                    protected Image img = null;
+
+
+                    public void doWork()
+                    {
+                        // Performed by the scheduled thread
+                        img = ImageCache.acquire(bgImg);
+                    }
+
+                    @Override
+                    public void doneCallback()
+                    {
+                        // Performed by the main UI thread
+                        if (img != null) {
+                            // Discard the image if superseded meanwhile
+                            if (isDisposed ||
+                                (thumbnailIndex != index) ||
+                                (frame.getBackgroundImage() != bgImg))
+                            {
+                                ImageCache.release(img);
+                            }
+                            else {
+                                setBackgroundImage(img, index);
+                            }
+                        }
+
+                        // If an exception was thrown here, log it to stderr
+                        // TODO: We might want to add a real logging package
+                        if (exBucket.containsExceptions()) {
+                            // TODO: It is unclear what to do here.  Maybe
+                            // we should just replace failed images with red
+                            // Xs rather than popping up a dialog box
+                            System.err.println(exBucket);
+
+//                            RcvrExceptionHandler.recoverWorkThread(this,
+//                                                                   interaction);
+                        }
+                    }
+                };
+
+            ThreadManager.startNewThread(imageLoadThread, 2);
+        }
+        else {
+            setBackgroundImage(ImageCache.acquire(bgImg), index);
+        }
+    }
+
+    /**
+     * Display the given decoded background image (or thumbnail) and
+     * release the one it replaces to the shared cache.
+     */
+    protected void setBackgroundImage(Image img, int index)
+    {
+        Image oldImg = backgroundImage.getImage();
+        double scale =
+            (index == FULL_IMAGE) ? 1.0
+                                  : (1.0 / Frame.THUMBNAIL_FACTORS[index]);
+
+        backgroundImage.setImage(img, scale);
+        backgroundImage.repaint();
+        ImageCache.release(oldImg);
+    }
+
+    /**
+     * Generate the missing thumbnails of the given frame's background
+     * image in a work thread and store them in the frame, where they
+     * persist with the project.  Each level is reduced from the previous
+     * one.  At most one generation per frame is pending at any time.
+     */
+    protected static void requestThumbnails(final Frame frame)
+    {
+        final byte[] bgImg = frame.getBackgroundImage();
+
+        if (frame.hasThumbnails() || ! pendingThumbnails.add(frame)) {
+            return;
+        }
+
+        ThreadManager.IWorkThread thumbnailThread =
+            new CogToolWorkThread()
+            {
+                protected byte[][] levels =
+                    new byte[Frame.THUMBNAIL_FACTORS.length][];
+
+                public void doWork()
+                {
+                    // Performed by the scheduled thread
+                    byte[] source = bgImg;
+                    int sourceFactor = 1;
+
+                    for (int i = 0; i < levels.length; i++) {
+                        int factor = Frame.THUMBNAIL_FACTORS[i];
+
+                        levels[i] =
+                            GraphicsUtil.reduceImage(source,
+                                                     factor / sourceFactor);
+                        source = levels[i];
+                        sourceFactor = factor;
+                    }
+                }
+
+                @Override
+                public void doneCallback()
+                {
+                    // Performed by the main UI thread
+                    pendingThumbnails.remove(frame);
+
+                    if (exBucket.containsExceptions()) {
+                        System.err.println(exBucket);
+                    }
+                    else {
+                        // Ignored by the frame if its image has changed
+                        frame.setThumbnails(bgImg, levels);
+
+                        if (frame.getBackgroundImage() != bgImg) {
+                            requestThumbnails(frame);
+                        }
+                    }
+                }
+            };
+
+        ThreadManager.startNewThread(thumbnailThread, 1);
+    }
+
     /**
      * Compute the preferred size of widgets based on the contents scale.
      */
@@ -1371,14 +1597,13 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
 
     public void dispose()
     {
-        // Clear the background image
-        // This should be handled by the AUIModel.imageCache
+        // Release the background image to the shared cache
         Image img = backgroundImage.getImage();
 
         if (img != null) {
             // In case the ImageFigure needs to recover any internal handles
             backgroundImage.setImage(null);
-            img.dispose();
+            ImageCache.release(img);
         }
 
         // Clear the graphical widgets
@@ -1386,9 +1611,13 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
 
         while (gws.hasNext()) {
             GraphicalWidget<?> gw = gws.next();
+            gw.removeFigureListener(widgetMoveListener);
             gw.dispose();
         }
 
+        widgetIndex.clear();
+        widgetDrawOrder.clear();
+
         // clears the contents
         contents.dispose();
 
@@ -1429,12 +1658,93 @@ public class FrameUIModel extends Alerter implements WidgetFigureSupport
 
     public IFigure getFigureAtXY(int x, int y, int filter)
     {
+        if (filter == FrameUIModel.ONLY_GRAPHICAL_WIDGETS) {
+            return getWidgetFigureAtXY(x, y);
+        }
+
         figureFilter.setFilter(filter);
 
         return contents.findFigureAt(x, y, figureFilter);
     }
 
 
+    /**
+     * Find the topmost visible graphical widget at XY, using the spatial
+     * index rather than searching the figure tree.  Gives the same result
+     * as getFigureAtXY with a filter of ONLY_GRAPHICAL_WIDGETS; the X,Y
+     * are likewise in the coordinates of the contents' parent.
+     */
+    public GraphicalWidget<?> getWidgetFigureAtXY(int x, int y)
+    {
+        if (! contents.containsPoint(x, y)) {
+            return null;
+        }
+
+        // Convert to the contents' own (unscaled) coordinates
+        Point p = new Point(x, y);
+        contents.translateFromParent(p);
+
+        if (! contents.getClientArea().contains(p)) {
+            return null;
+        }
+
+        List<GraphicalWidget<?>> candidates =
+            new ArrayList<GraphicalWidget<?>>();
+
+        widgetIndex.search(p.x, p.y, candidates);
+
+        GraphicalWidget<?> topmost = null;
+        int topmostOrder = -1;
+
+        for (GraphicalWidget<?> gw : candidates) {
+            if (gw.isVisible() &&
+                (gw.getParent() == contents) &&
+                gw.containsPoint(p.x, p.y))
+            {
+                Integer order = widgetDrawOrder.get(gw);
+                int drawOrder = (order != null) ? order.intValue() : -1;
+
+                if ((topmost == null) || (drawOrder > topmostOrder)) {
+                    topmost = gw;
+                    topmostOrder = drawOrder;
+                }
+            }
+        }
+
+        return topmost;
+    }
+
+    /**
+     * Return the graphical widgets whose bounds intersect the given region,
+     * which is in unscaled contents coordinates.
+     */
+    public List<GraphicalWidget<?>> getWidgetFiguresInRegion(DoubleRectangle region)
+    {
+        List<GraphicalWidget<?>> candidates =
+            new ArrayList<GraphicalWidget<?>>();
+
+        widgetIndex.search(region.x, region.y,
+                           region.width, region.height,
+                           candidates);
+
+        Iterator<GraphicalWidget<?>> gws = candidates.iterator();
+
+        // The index includes touching edges; the region test does not
+        while (gws.hasNext()) {
+            Rectangle bounds = gws.next().getBounds();
+
+            if (! region.intersects(bounds.x,
+                                    bounds.y,
+                                    bounds.width,
+                                    bounds.height))
+            {
+                gws.remove();
+            }
+        }
+
+        return candidates;
+    }
+
     public List<GraphicalSource<?>> getSourcesAtXY(int x, int y)
     {
         sourcesFilter.resetSearch();
@@ -121,6 +121,7 @@ import edu.cmu.cs.hcii.cogtool.model.WidgetType;
 import edu.cmu.cs.hcii.cogtool.util.GraphicsUtil;
 import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
 import edu.cmu.cs.hcii.cogtool.util.IAttributed;
+import edu.cmu.cs.hcii.cogtool.util.ImageCache;
 import edu.cmu.cs.hcii.cogtool.util.NullSafe;
 import edu.cmu.cs.hcii.cogtool.util.OSUtils;
 import edu.cmu.cs.hcii.cogtool.util.PrecisionUtilities;
@@ -771,20 +772,6 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
 
     // Fields
 
-    // TODO (?): Currently the regenerateCaches code is inefficient because it
-    // creates an image for each widget that is displayed.  The solution to this
-    // presumably would be to save only the image data and not the image itself,
-    // and only create and dispose of the image when necessary.  However, for
-    // some reason that method causes an OutOfMemory error much earlier than
-    // SWT runs out of handles when using the original method, so I changed it
-    // back.
-//    protected static final ImageData DEFAULT_DATA;
-//    static {
-//        Image img = new Image(null, 1, 1);
-//        DEFAULT_DATA = img.getImageData();
-//        img.dispose();
-//    }
-
     public static class GraphicalWidgetLevelComparator
                                      implements Comparator<GraphicalWidget<?>>
     {
@@ -823,8 +810,8 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
     protected boolean cachedMidgroundDirty;
     protected boolean cachedBackgroundDirty;
 
-//    protected ImageData cachedMidgroundData = DEFAULT_DATA;
-    protected Image cachedMidground = new Image(null, 1, 1); // never null
+    // Both acquired from (and shared through) WidgetImageCache
+    protected Image cachedMidground;
     protected Image cachedBackground;
 
     protected int desiredRolloverCursor;
@@ -1242,9 +1229,9 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
                     }
                     g.setBackgroundColor(midColor);
 
-//                    Image img = new Image(null, this.cachedMidgroundData);
-                    g.drawImage(this.cachedMidground, bds.x, bds.y);
-//                    img.dispose();
+                    if (this.cachedMidground != null) {
+                        g.drawImage(this.cachedMidground, bds.x, bds.y);
+                    }
                 }
             }
 
@@ -1305,45 +1292,34 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
                                         "Size");
                             }
 
-                            // Create a temporary canvas on which to draw the midground
-                            Image img = new Image(null, width, height);
-
-                            GC gc = new GC(img);
-                            SWTGraphics g = new SWTGraphics(gc);
-                            g.setAntialias(SWT.OFF);
-
-                            // Use the renderer & clipper to paint the midground nicely
-                            g.setBackgroundColor(getSelectionColor());
-                            renderer.paintMidground(g);
-
-                            // XXX: Fix for Windows not correctly handling
-                            //      Alpha's on images, when setting an alpha
-                            //      on the GC.
-                            //      This updates the Alpha value for all pixels
-                            //      on the image, to use the selected widget
-                            //      value.
-                            if (OSUtils.WINDOWS) {
-                                ImageData id = img.getImageData();
-
-                                id.alpha = displayAlpha.determineAlpha(false);
-                                img.dispose();
-                                img = new Image(null, id);
-                            }
-
-                            // WARNING: this might dispose img, or it might return it
-                            // DO NOT DISPOSE img!
-                            Image newFG = clipper.clip(img);
+                            final Color midColor = getSelectionColor();
+                            final int alpha = displayAlpha.determineAlpha(false);
+
+                            // Widgets of the same size, shape and color share
+                            // a single midground image
+                            WidgetImageCache.CacheKey key =
+                                new WidgetImageCache.CacheKey(width,
+                                                              height,
+                                                              clipper,
+                                                              midColor.getRGB(),
+                                                              alpha);
+
+                            Image newFG =
+                                WidgetImageCache.acquire(key,
+                                                         new WidgetImageCache.ImageFactory() {
+                                    public Image createImage()
+                                    {
+                                        return renderMidground(width,
+                                                               height,
+                                                               midColor,
+                                                               alpha);
+                                    }
+                                });
 
                             // Clean the cache
                             cachedMidgroundDirty = false;
-                            cachedMidground.dispose();
+                            WidgetImageCache.release(cachedMidground);
                             cachedMidground = newFG;
-//                            cachedMidgroundData = newFG.getImageData();
-
-                            // Dispose of temporary resources
-//                            newFG.dispose();
-                            g.dispose();
-                            gc.dispose();
                         }
 
                         // Recompute the background cache if it is dirty
@@ -1352,23 +1328,29 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
                             Image newBG = null;
 
                             // Check if background is present
-                            byte[] bgImageData = model.getImage();
+                            final byte[] bgImageData = model.getImage();
                             if (bgImageData != null) {
-                                ImageData bg =
-                                    new ImageData(
-                                        new ByteArrayInputStream(bgImageData));
+                                WidgetImageCache.CacheKey key =
+                                    new WidgetImageCache.CacheKey(width,
+                                                                  height,
+                                                                  clipper,
+                                                                  bgImageData);
 
                                 newBG =
-                                   clipper.clip(new Image(null,
-                                                          bg.scaledTo(width,
-                                                                      height)));
+                                    WidgetImageCache.acquire(key,
+                                                             new WidgetImageCache.ImageFactory() {
+                                        public Image createImage()
+                                        {
+                                            return renderBackground(bgImageData,
+                                                                    width,
+                                                                    height);
+                                        }
+                                    });
                             }
 
                             // Clean the cache
                             cachedBackgroundDirty = false;
-                            if (cachedBackground != null) {
-                                cachedBackground.dispose();
-                            }
+                            WidgetImageCache.release(cachedBackground);
                             cachedBackground = newBG;
                         }
 //                    }
@@ -1390,6 +1372,66 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
     }
 
 
+    /**
+     * Paint the midground, filled with the given color, onto a new
+     * offscreen image clipped to the widget's shape.
+     */
+    protected Image renderMidground(int width, int height, Color midColor, int alpha)
+    {
+        // Create a temporary canvas on which to draw the midground
+        Image img = new Image(null, width, height);
+
+        GC gc = new GC(img);
+        SWTGraphics g = new SWTGraphics(gc);
+        g.setAntialias(SWT.OFF);
+
+        // Use the renderer & clipper to paint the midground nicely
+        g.setBackgroundColor(midColor);
+        this.renderer.paintMidground(g);
+
+        // Dispose of temporary resources
+        g.dispose();
+        gc.dispose();
+
+        // XXX: Fix for Windows not correctly handling
+        //      Alpha's on images, when setting an alpha
+        //      on the GC.
+        //      This updates the Alpha value for all pixels
+        //      on the image, to use the selected widget
+        //      value.
+        if (OSUtils.WINDOWS) {
+            ImageData id = img.getImageData();
+
+            id.alpha = alpha;
+            img.dispose();
+            img = new Image(null, id);
+        }
+
+        // WARNING: this might dispose img, or it might return it
+        // DO NOT DISPOSE img!
+        return this.clipper.clip(img);
+    }
+
+    /**
+     * Scale the given background image data onto a new offscreen image
+     * clipped to the widget's shape.
+     */
+    protected Image renderBackground(byte[] bgImageData, int width, int height)
+    {
+        // Use the shared decoded image
+        Image decodedBG = ImageCache.acquire(bgImageData);
+        ImageData bg;
+
+        try {
+            bg = decodedBG.getImageData();
+        }
+        finally {
+            ImageCache.release(decodedBG);
+        }
+
+        return this.clipper.clip(new Image(null, bg.scaledTo(width, height)));
+    }
+
     /**
      * Dispose of all resources
      */
@@ -1399,11 +1441,11 @@ public class GraphicalWidgetBase<T extends IWidget> extends AbstractGraphicalSou
         if (this.widgetColor != GraphicsUtil.DEFAULT_COLOR) {
             this.widgetColor.dispose();
         }
-        this.cachedMidground.dispose();
+        WidgetImageCache.release(this.cachedMidground);
+        this.cachedMidground = null;
 
-        if (this.cachedBackground != null) {
-            this.cachedBackground.dispose();
-        }
+        WidgetImageCache.release(this.cachedBackground);
+        this.cachedBackground = null;
 
         model.removeAllHandlers(this);
         if (this.attrOverride != null) {
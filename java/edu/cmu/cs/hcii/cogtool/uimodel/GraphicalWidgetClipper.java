@@ -206,7 +206,21 @@ public interface GraphicalWidgetClipper
         @Override
         public boolean equals(Object o)
         {
-            return shape.equals(o);
+            if (o instanceof RoundedClipper) {
+                ShapeRoundedRectangle otherShape = ((RoundedClipper) o).shape;
+
+                return (shape.getRoundWidth() == otherShape.getRoundWidth()) &&
+                       (shape.getRoundHeight() == otherShape.getRoundHeight());
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Double.valueOf(shape.getRoundWidth()).hashCode() * 31
+                       + Double.valueOf(shape.getRoundHeight()).hashCode();
         }
     }
 
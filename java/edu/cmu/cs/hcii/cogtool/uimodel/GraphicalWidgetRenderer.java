@@ -325,6 +325,8 @@ public interface GraphicalWidgetRenderer
      * the widget type discernable, and is rendered semi-transparent for
      * aesthetics.
      * Note that drawing should be performed at the location (0, 0).
+     * The result is shared by all widgets of the same size, shape and
+     * color (see WidgetImageCache), so it must depend on nothing else.
      *
      * @param g the canvas to render onto
      */
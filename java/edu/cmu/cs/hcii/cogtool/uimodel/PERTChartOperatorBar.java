@@ -380,9 +380,10 @@ public class PERTChartOperatorBar extends Figure
 
     public void dispose()
     {
+        // The bar sets no cursor of its own; getCursor() returns the
+        // parent's, which is not the bar's to dispose
         color.dispose();
         selectedColor.dispose();
-        getCursor().dispose();
     }
 
     //  ----------- SETTERS ----------------------------------------------------
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.uimodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cmu.cs.hcii.cogtool.model.ResultStep;
+
+/**
+ * Index over the ResultSteps of a trace that answers which steps overlap
+ * a given time interval without visiting the others, so that a PERT chart
+ * need only create figures for the steps it is currently showing.
+ *
+ * Steps are kept sorted by start time, over which a tree records the latest
+ * end time in each range of steps; a query descends only into ranges that
+ * start by the end of the interval and reach its start, so that a few long
+ * steps (such as frames) do not force a scan of the whole trace.  The index
+ * also records, for each step, the steps that depend on it, the reverse of
+ * ResultStep.getDependencies().
+ */
+public class PERTStepIndex
+{
+    protected static final Comparator<ResultStep> START_ORDER =
+        new Comparator<ResultStep>() {
+            public int compare(ResultStep l, ResultStep r)
+            {
+                return Double.compare(l.startTime, r.startTime);
+            }
+        };
+
+    /**
+     * The steps, in order of start time (stable with respect to the
+     * original order for steps starting together)
+     */
+    protected ResultStep[] steps;
+
+    /**
+     * Implicit binary tree over steps: node 1 is the root, node n has
+     * children 2n and 2n+1, and leaf leafBase + i holds steps[i].  Each
+     * node holds the latest end time of the steps below it.
+     */
+    protected double[] endTimes;
+    protected int leafBase;
+
+    protected double latestEnd = 0.0;
+
+    protected Map<ResultStep, List<ResultStep>> dependents =
+        new HashMap<ResultStep, List<ResultStep>>();
+
+    public PERTStepIndex(List<ResultStep> resultSteps)
+    {
+        steps = resultSteps.toArray(new ResultStep[resultSteps.size()]);
+
+        // Arrays.sort on objects is stable
+        Arrays.sort(steps, START_ORDER);
+
+        leafBase = 1;
+
+        while (leafBase < steps.length) {
+            leafBase *= 2;
+        }
+
+        endTimes = new double[2 * leafBase];
+        Arrays.fill(endTimes, Double.NEGATIVE_INFINITY);
+
+        for (int i = 0; i < steps.length; i++) {
+            ResultStep step = steps[i];
+            double stepEnd = step.startTime + step.duration;
+
+            latestEnd = Math.max(latestEnd, stepEnd);
+            endTimes[leafBase + i] = stepEnd;
+
+            for (ResultStep.ResultStepDependency dep : step.getDependencies()) {
+                if (dep.dependency != null) {
+                    List<ResultStep> stepDependents =
+                        dependents.get(dep.dependency);
+
+                    if (stepDependents == null) {
+                        stepDependents = new ArrayList<ResultStep>();
+                        dependents.put(dep.dependency, stepDependents);
+                    }
+
+                    stepDependents.add(step);
+                }
+            }
+        }
+
+        for (int node = leafBase - 1; node > 0; node--) {
+            endTimes[node] =
+                Math.max(endTimes[2 * node], endTimes[2 * node + 1]);
+        }
+    }
+
+    public int size()
+    {
+        return steps.length;
+    }
+
+    /**
+     * @return the latest end time of any step, or 0.0 if there are none
+     */
+    public double getEndTime()
+    {
+        return latestEnd;
+    }
+
+    /**
+     * Returns the steps whose extent overlaps the interval [start, end],
+     * in order of start time.
+     */
+    public List<ResultStep> getSteps(double start, double end)
+    {
+        List<ResultStep> overlapping = new ArrayList<ResultStep>();
+
+        // Only steps before the first one starting after end can overlap
+        int lo = 0;
+        int hi = steps.length;
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+
+            if (steps[mid].startTime <= end) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+
+        collectSteps(1, 0, leafBase, lo, start, overlapping);
+
+        return overlapping;
+    }
+
+    /**
+     * Adds to overlapping, in order, the steps below the given node (which
+     * covers steps[nodeLo] up to steps[nodeHi]) that precede steps[limit]
+     * and end no earlier than start.
+     */
+    protected void collectSteps(int node,
+                                int nodeLo,
+                                int nodeHi,
+                                int limit,
+                                double start,
+                                List<ResultStep> overlapping)
+    {
+        if ((nodeLo >= limit) || (endTimes[node] < start)) {
+            return;
+        }
+
+        if (node >= leafBase) {
+            overlapping.add(steps[nodeLo]);
+            return;
+        }
+
+        int nodeMid = (nodeLo + nodeHi) >>> 1;
+
+        collectSteps(2 * node, nodeLo, nodeMid, limit, start, overlapping);
+        collectSteps(2 * node + 1, nodeMid, nodeHi, limit, start, overlapping);
+    }
+
+    /**
+     * Whether the given step overlaps the interval [start, end]
+     */
+    public static boolean overlaps(ResultStep step, double start, double end)
+    {
+        return (step.startTime <= end) &&
+               (step.startTime + step.duration >= start);
+    }
+
+    /**
+     * Returns the steps that depend on the given step
+     */
+    public List<ResultStep> getDependents(ResultStep step)
+    {
+        List<ResultStep> stepDependents = dependents.get(step);
+
+        if (stepDependents == null) {
+            return Collections.emptyList();
+        }
+
+        return stepDependents;
+    }
+}
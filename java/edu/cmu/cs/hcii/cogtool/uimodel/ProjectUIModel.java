@@ -181,6 +181,10 @@ public class ProjectUIModel extends DefaultUIModel
 
     protected AlertHandler taskApplicationResultHandler;
 
+    // Values of the task group rows, kept up to date by the handlers below
+    protected ResultDisplayPolicy.GroupResultCache groupResults =
+        new ResultDisplayPolicy.GroupResultCache();
+
     protected AlertHandler updateStateHandler =
         new AlertHandler()
         {
@@ -342,6 +346,8 @@ public class ProjectUIModel extends DefaultUIModel
                             TreeColumn colToDelete =
                                 tree.getColumn(currentOrdering[chg.atIndex + 1]);
 
+                            groupResults.designRemoved((Design) chg.element);
+
                             recoverTreeColumn(colToDelete);
                             recreateCurrentOrdering();
                         }
@@ -364,6 +370,8 @@ public class ProjectUIModel extends DefaultUIModel
                     Project.TaskChange chg = (Project.TaskChange) alert;
 
                     if (chg != null) {
+                        groupResults.subtreeChanged((AUndertaking) chg.element);
+
                         if (chg.isAdd) {
                             TreeItem newRow;
 
@@ -503,7 +511,8 @@ public class ProjectUIModel extends DefaultUIModel
                             }
                         }
                         redisplayAllResults();
-                    } else if (changed.contains(CogToolPref.DISPLAY_DIGITS)) {
+                    } else if (changed.contains(CogToolPref.DISPLAY_DIGITS) ||
+                               changed.contains(CogToolPref.KLM_ESTIMATES)) {
                         redisplayAllResults();
                     }
                 }
@@ -547,7 +556,8 @@ public class ProjectUIModel extends DefaultUIModel
         return ResultDisplayPolicy.getTaskRowStrings(project,
                                                      task,
                                                      ResultDisplayPolicy.WITH_SECS,
-                                                     currentOrdering);
+                                                     currentOrdering,
+                                                     groupResults);
     }
 
     // Redisplay all results
@@ -610,6 +620,9 @@ public class ProjectUIModel extends DefaultUIModel
                         if (event.task != null) {
                             TreeItem row = taskTreeItems.get(event.task);
 
+                            groupResults.taskChanged(event.task,
+                                                     (Design) event.getSource());
+
 //                            System.out.println("Redisplaying!");
 
                             redisplayResults(row);
@@ -740,7 +753,7 @@ public class ProjectUIModel extends DefaultUIModel
         }
     } // populateRow
 
-    protected void setGroupAlertHandlers(TaskGroup group,
+    protected void setGroupAlertHandlers(final TaskGroup group,
                                          final TreeItem row)
     {
         AlertHandler handler =
@@ -752,6 +765,9 @@ public class ProjectUIModel extends DefaultUIModel
                     TaskGroup.TaskChange chg = (TaskGroup.TaskChange) alert;
 
                     if (chg != null) {
+                        groupResults.subtreeChanged((AUndertaking) chg.element);
+                        groupResults.taskChanged(group, null);
+
                         if (chg.isAdd) {
                             TreeItem newRow;
 
@@ -789,6 +805,7 @@ public class ProjectUIModel extends DefaultUIModel
 //                    System.out.println("NatureChange!");
 
                     // walk up the group tree and recalculate
+                    groupResults.taskChanged(group, null);
                     redisplayResults(row);
                 }
             };
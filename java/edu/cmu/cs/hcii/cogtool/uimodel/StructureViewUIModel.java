@@ -750,6 +750,13 @@ public class StructureViewUIModel extends Alerter
     public void setZoom(double scale)
     {
         contents.setScale(scale);
+
+        Iterator<DesignEditorFrame> frameFigures =
+            installedFrames.values().iterator();
+
+        while (frameFigures.hasNext()) {
+            frameFigures.next().setViewZoom(scale);
+        }
 //...        draw...
 //...        repaint...
     }
@@ -816,6 +823,7 @@ public class StructureViewUIModel extends Alerter
                                   showToolTips,
                                   sourceRolloverCursor);
 
+        frameFig.setViewZoom(contents.getScale());
         frameFig.addWidgetShapeChangeHandler(shapeChangeHandler);
         frameFig.addWidgetRecoveryHandler(widgetRecoveryHandler);
         frameFig.addOriginChangeHandler(new OriginChangeHandler(frameFig));
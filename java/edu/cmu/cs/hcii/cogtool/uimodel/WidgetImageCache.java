@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.uimodel;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * A shared, reference-counted cache of the offscreen images graphical
+ * widgets draw their midground and background from.  A midground depends
+ * only on the widget's size, clipping shape and fill color (the renderers
+ * paint labels and skins live), and a background only on the widget's
+ * image data, size and shape, so the many identical list items, menu
+ * items and buttons of a frame share a single native image each.
+ * <p>
+ * Each acquire must be balanced by a release of the returned Image;
+ * callers must never dispose an acquired Image themselves.  Images no
+ * longer acquired by anyone are kept for reuse until there are more than
+ * the allowed number of them or their total size exceeds the memory
+ * budget, at which point the least recently used are disposed.
+ */
+public class WidgetImageCache
+{
+    /**
+     * Default budget, in bytes of pixel data, for all cached images.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 32L * 1024L * 1024L;
+
+    /**
+     * Default limit on the number of unused images retained.
+     */
+    public static final int DEFAULT_MAX_UNUSED = 256;
+
+    /**
+     * Creates the image for a key not found in the cache.
+     */
+    public interface ImageFactory
+    {
+        public Image createImage();
+    }
+
+    /**
+     * Identifies a cached image.  Clippers must implement equals (and
+     * hashCode) by the shape they clip to; image data is compared by
+     * identity, as image data is shared through ImageStore.
+     */
+    public static class CacheKey
+    {
+        protected final int width;
+        protected final int height;
+        protected final GraphicalWidgetClipper clipper;
+        protected final RGB color;
+        protected final int alpha;
+        protected final byte[] imageData;
+
+        /**
+         * Key for a midground filled with the given color and alpha
+         */
+        public CacheKey(int w,
+                        int h,
+                        GraphicalWidgetClipper shapeClipper,
+                        RGB fillColor,
+                        int fillAlpha)
+        {
+            width = w;
+            height = h;
+            clipper = shapeClipper;
+            color = fillColor;
+            alpha = fillAlpha;
+            imageData = null;
+        }
+
+        /**
+         * Key for a background scaled from the given image data
+         */
+        public CacheKey(int w,
+                        int h,
+                        GraphicalWidgetClipper shapeClipper,
+                        byte[] bgImageData)
+        {
+            width = w;
+            height = h;
+            clipper = shapeClipper;
+            color = null;
+            alpha = -1;
+            imageData = bgImageData;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (other instanceof CacheKey) {
+                CacheKey otherKey = (CacheKey) other;
+
+                return (width == otherKey.width) &&
+                       (height == otherKey.height) &&
+                       (alpha == otherKey.alpha) &&
+                       (imageData == otherKey.imageData) &&
+                       clipper.equals(otherKey.clipper) &&
+                       ((color == null) ? (otherKey.color == null)
+                                        : color.equals(otherKey.color));
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = (width * 31 + height) * 31 + alpha;
+
+            hash = hash * 31 + clipper.hashCode();
+            hash = hash * 31 + ((color != null) ? color.hashCode() : 0);
+
+            return hash * 31 + System.identityHashCode(imageData);
+        }
+    }
+
+    protected static class CacheEntry
+    {
+        public final CacheKey key;
+        public final Image image;
+        public final long size;
+        public int refCount = 0;
+
+        public CacheEntry(CacheKey entryKey, Image img)
+        {
+            key = entryKey;
+            image = img;
+
+            org.eclipse.swt.graphics.Rectangle bounds = img.getBounds();
+
+            size = 4L * bounds.width * bounds.height;
+        }
+    }
+
+    // Access-ordered, so that iteration starts with least recently used
+    protected static Map<CacheKey, CacheEntry> entries =
+        new LinkedHashMap<CacheKey, CacheEntry>(64, 0.75f, true);
+
+    // Maps each acquired image to its entry, for release
+    protected static Map<Image, CacheEntry> imageEntries =
+        new IdentityHashMap<Image, CacheEntry>();
+
+    protected static long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    protected static int maxUnused = DEFAULT_MAX_UNUSED;
+    protected static long totalSize = 0;
+
+    private WidgetImageCache() { }
+
+    /**
+     * Sets the budget, in bytes of pixel data, beyond which unused images
+     * are disposed.
+     */
+    public static synchronized void setMemoryBudget(long budget)
+    {
+        memoryBudget = budget;
+
+        evictUnused();
+    }
+
+    public static synchronized long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the number of unused images beyond which the least recently
+     * used are disposed.
+     */
+    public static synchronized void setMaxUnused(int max)
+    {
+        maxUnused = max;
+
+        evictUnused();
+    }
+
+    public static synchronized int getMaxUnused()
+    {
+        return maxUnused;
+    }
+
+    /**
+     * Returns the number of images currently cached, in use or not.
+     */
+    public static synchronized int getImageCount()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Acquires the image for the given key, using the factory to create
+     * it if it is not cached.
+     */
+    public static Image acquire(CacheKey key, ImageFactory factory)
+    {
+        Image img = acquireCached(key);
+
+        if (img != null) {
+            return img;
+        }
+
+        // Render outside the lock so other threads are not held up.
+        return addEntry(key, factory.createImage());
+    }
+
+    /**
+     * Releases an image obtained from acquire.  An image that was not
+     * obtained from this cache is simply disposed.
+     */
+    public static synchronized void release(Image img)
+    {
+        if (img == null) {
+            return;
+        }
+
+        CacheEntry entry = imageEntries.get(img);
+
+        if (entry == null) {
+            if (! img.isDisposed()) {
+                img.dispose();
+            }
+        }
+        else if (--entry.refCount == 0) {
+            imageEntries.remove(img);
+
+            evictUnused();
+        }
+    }
+
+    /**
+     * Disposes every image that is not currently acquired.
+     */
+    public static synchronized void clear()
+    {
+        int savedMax = maxUnused;
+
+        maxUnused = 0;
+        evictUnused();
+        maxUnused = savedMax;
+    }
+
+    protected static synchronized Image acquireCached(CacheKey key)
+    {
+        CacheEntry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.refCount++ == 0) {
+            imageEntries.put(entry.image, entry);
+        }
+
+        return entry.image;
+    }
+
+    protected static synchronized Image addEntry(CacheKey key, Image img)
+    {
+        CacheEntry entry = entries.get(key);
+
+        if (entry != null) {
+            // Another thread rendered the same image in the meantime
+            img.dispose();
+        }
+        else {
+            entry = new CacheEntry(key, img);
+
+            entries.put(key, entry);
+            totalSize += entry.size;
+        }
+
+        if (entry.refCount++ == 0) {
+            imageEntries.put(entry.image, entry);
+        }
+
+        evictUnused();
+
+        return entry.image;
+    }
+
+    protected static void evictUnused()
+    {
+        int unusedCount = entries.size() - imageEntries.size();
+        Iterator<CacheEntry> lruEntries = entries.values().iterator();
+
+        while (((totalSize > memoryBudget) || (unusedCount > maxUnused)) &&
+               lruEntries.hasNext())
+        {
+            CacheEntry entry = lruEntries.next();
+
+            if (entry.refCount == 0) {
+                lruEntries.remove();
+                totalSize -= entry.size;
+                unusedCount--;
+
+                if (! entry.image.isDisposed()) {
+                    entry.image.dispose();
+                }
+            }
+        }
+    }
+}
@@ -91,6 +91,9 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * "Empty" implementation of IUndoableEdit.
  * <p>
@@ -318,6 +321,22 @@ public abstract class AUndoableEdit implements IUndoableEdit
         return hasBeenDone;
     }
 
+    /**
+     * By default, an edit holds nothing of significant size.
+     */
+    public long getRetainedSize()
+    {
+        return 0;
+    }
+
+    /**
+     * By default, an edit holds nothing worth spilling.
+     */
+    public void spill(File spillDir) throws IOException
+    {
+        // Nothing to spill
+    }
+
     /**
      * Get undo manager that "owns" this edit.
      */
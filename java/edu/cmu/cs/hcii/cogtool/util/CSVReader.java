@@ -0,0 +1,633 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenizes .csv rows, following the same (Excel) quoting rules as
+ * <code>CSVSupport.getCells</code>, without allocating per row or per cell.
+ * <p>
+ * The characters of each row's cells are copied once into a buffer that
+ * is reused from row to row; cells are then available either as
+ * reusable <code>Cell</code> views onto that buffer or, when a copy is
+ * actually needed, as strings.  Views and the current line are only valid
+ * until the next row is read or tokenized.
+ * <p>
+ * A reader may tokenize rows handed to it (see <code>tokenize</code>) or
+ * stream them from a <code>Reader</code> (see <code>nextRow</code>).
+ * As with <code>getCells</code>, rows are lines: a quoted cell may not
+ * contain a line ending.
+ * <p>
+ * Instances are NOT thread-safe; use one per thread.
+ */
+public class CSVReader
+{
+    /**
+     * A reusable, read-only view of a cell of the current row or of the
+     * current line of a stream.
+     */
+    public static class Cell implements CharSequence
+    {
+        protected char[] chars;
+        protected int start;
+        protected int end;
+
+        protected Cell() { }
+
+        protected Cell set(char[] cellChars, int cellStart, int cellEnd)
+        {
+            chars = cellChars;
+            start = cellStart;
+            end = cellEnd;
+
+            return this;
+        }
+
+        public int length()
+        {
+            return end - start;
+        }
+
+        public char charAt(int index)
+        {
+            if ((index < 0) || (index >= end - start)) {
+                throw new IndexOutOfBoundsException("Cell index: " + index);
+            }
+
+            return chars[start + index];
+        }
+
+        public CharSequence subSequence(int from, int to)
+        {
+            return toString().subSequence(from, to);
+        }
+
+        public boolean isEmpty()
+        {
+            return start == end;
+        }
+
+        /**
+         * Narrows this view as <code>String.trim</code> would.
+         */
+        public Cell trim()
+        {
+            while ((start < end) && (chars[start] <= ' ')) {
+                start++;
+            }
+            while ((start < end) && (chars[end - 1] <= ' ')) {
+                end--;
+            }
+
+            return this;
+        }
+
+        public boolean contains(char c)
+        {
+            for (int i = start; i < end; i++) {
+                if (chars[i] == c) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        public boolean contentEqualsIgnoreCase(String s)
+        {
+            if (s.length() != end - start) {
+                return false;
+            }
+
+            for (int i = start; i < end; i++) {
+                char c = chars[i];
+                char d = s.charAt(i - start);
+
+                if ((c != d) &&
+                    (Character.toUpperCase(c) != Character.toUpperCase(d)) &&
+                    (Character.toLowerCase(c) != Character.toLowerCase(d)))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Equivalent to <code>Double.parseDouble(toString())</code>,
+         * but plain decimals (an optional sign, digits and an optional
+         * fraction) are converted without creating a string.
+         */
+        public double toDouble()
+        {
+            int i = start;
+            boolean negative = false;
+
+            if ((i < end) && ((chars[i] == '-') || (chars[i] == '+'))) {
+                negative = (chars[i] == '-');
+                i++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+
+            for (; i < end; i++) {
+                char c = chars[i];
+
+                if ((c >= '0') && (c <= '9')) {
+                    if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+                        break;
+                    }
+
+                    mantissa = (mantissa * 10) + (c - '0');
+                    digits++;
+
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                }
+                else if ((c == '.') && (fractionDigits < 0)) {
+                    fractionDigits = 0;
+                }
+                else {
+                    break;
+                }
+            }
+
+            // Both the mantissa and the power of ten are exactly
+            // representable, so one division is correctly rounded.
+            if ((i == end) && (digits > 0)
+                           && (fractionDigits < POWERS_OF_TEN.length))
+            {
+                double value = mantissa;
+
+                if (fractionDigits > 0) {
+                    value /= POWERS_OF_TEN[fractionDigits];
+                }
+
+                return negative ? -value : value;
+            }
+
+            return Double.parseDouble(toString());
+        }
+
+        @Override
+        public String toString()
+        {
+            return new String(chars, start, end - start);
+        }
+    }
+
+    protected static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    protected static final double[] POWERS_OF_TEN =
+        { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+          1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    protected static final int OUTSIDE_CELL = 0;
+    protected static final int UNQUOTED_CELL = 1;
+    protected static final int QUOTED_CELL = 2;
+    protected static final int QUOTE_SEEN = 3;
+
+    protected static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    protected final char cellSeparator;
+
+    // The unquoted characters of the current row's cells
+    protected char[] text = new char[256];
+
+    // Cell i occupies text[cellBounds[2i] .. cellBounds[2i + 1])
+    protected int[] cellBounds = new int[32];
+    protected int cellCount = 0;
+
+    protected final Cell cellView = new Cell();
+
+    // Streaming state; input[lineStart .. lineEnd) is the current line
+    protected Reader source = null;
+    protected char[] input = null;
+    protected int inputEnd = 0;
+    protected int lineStart = 0;
+    protected int lineEnd = 0;
+    protected int nextLineStart = 0;
+    protected boolean sourceExhausted = false;
+    protected int lineNumber = 0;
+
+    protected final Cell lineView = new Cell();
+
+    public CSVReader(char separator)
+    {
+        cellSeparator = separator;
+    }
+
+    public CSVReader()
+    {
+        this(CSVSupport.CELL_SEPARATOR);
+    }
+
+    /**
+     * Streams rows from the given source; the caller remains responsible
+     * for closing it.
+     */
+    public CSVReader(Reader rowSource, char separator)
+    {
+        this(separator);
+
+        source = rowSource;
+        input = new char[INITIAL_BUFFER_SIZE];
+    }
+
+    public CSVReader(Reader rowSource)
+    {
+        this(rowSource, CSVSupport.CELL_SEPARATOR);
+    }
+
+    /**
+     * Advances the stream to its next line, without tokenizing it.
+     *
+     * @return false if the stream has no more lines
+     */
+    public boolean nextLine() throws IOException
+    {
+        if (source == null) {
+            throw new IllegalStateException("Not a streaming CSV reader");
+        }
+
+        int scan = nextLineStart;
+
+        while (true) {
+            while (scan < inputEnd) {
+                char c = input[scan];
+
+                if ((c == '\n') || (c == '\r')) {
+                    // A \r at the end of the buffer may be half of a \r\n
+                    if ((c == '\r') && (scan + 1 == inputEnd)
+                                    && ! sourceExhausted)
+                    {
+                        break;
+                    }
+
+                    lineStart = nextLineStart;
+                    lineEnd = scan;
+                    nextLineStart = scan + 1;
+
+                    if ((c == '\r') && (nextLineStart < inputEnd) &&
+                        (input[nextLineStart] == '\n'))
+                    {
+                        nextLineStart++;
+                    }
+
+                    lineNumber++;
+
+                    return true;
+                }
+
+                scan++;
+            }
+
+            if (sourceExhausted) {
+                if (nextLineStart == inputEnd) {
+                    return false;
+                }
+
+                // Final line without a line ending
+                lineStart = nextLineStart;
+                lineEnd = inputEnd;
+                nextLineStart = inputEnd;
+                lineNumber++;
+
+                return true;
+            }
+
+            scan -= fill();
+        }
+    }
+
+    /**
+     * Shifts the unread part of the input to the front of the buffer
+     * (growing it if a single line fills it) and reads more.
+     *
+     * @return the distance the unread input was shifted
+     */
+    protected int fill() throws IOException
+    {
+        int shift = nextLineStart;
+        int pending = inputEnd - nextLineStart;
+
+        if (pending == input.length) {
+            char[] larger = new char[input.length * 2];
+
+            System.arraycopy(input, nextLineStart, larger, 0, pending);
+            input = larger;
+        }
+        else if (shift > 0) {
+            System.arraycopy(input, nextLineStart, input, 0, pending);
+        }
+
+        nextLineStart = 0;
+        inputEnd = pending;
+
+        int count = source.read(input, inputEnd, input.length - inputEnd);
+
+        if (count < 0) {
+            sourceExhausted = true;
+        }
+        else {
+            inputEnd += count;
+        }
+
+        return shift;
+    }
+
+    /**
+     * Reads and tokenizes the next line of the stream.
+     *
+     * @return false if the stream has no more lines
+     */
+    public boolean nextRow() throws IOException
+    {
+        if (! nextLine()) {
+            return false;
+        }
+
+        tokenize(input, lineStart, lineEnd);
+
+        return true;
+    }
+
+    /**
+     * The current line of the stream; valid until the next line is read.
+     */
+    public Cell getLine()
+    {
+        return lineView.set(input, lineStart, lineEnd);
+    }
+
+    /**
+     * The 1-based number of the current line of the stream
+     */
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+    public void tokenize(CharSequence csvRow)
+    {
+        tokenize(csvRow, 0, csvRow.length());
+    }
+
+    public void tokenize(CharSequence csvRow, int from, int to)
+    {
+        if (csvRow instanceof Cell) {
+            Cell cell = (Cell) csvRow;
+
+            tokenize(cell.chars, cell.start + from, cell.start + to);
+        }
+        else if (csvRow instanceof String) {
+            // Bulk copy, then tokenize in place
+            ensureTextCapacity(to - from);
+            ((String) csvRow).getChars(from, to, text, 0);
+            tokenizeText(to - from);
+        }
+        else {
+            ensureTextCapacity(to - from);
+
+            for (int i = from; i < to; i++) {
+                text[i - from] = csvRow.charAt(i);
+            }
+
+            tokenizeText(to - from);
+        }
+    }
+
+    public void tokenize(char[] csvRow, int from, int to)
+    {
+        ensureTextCapacity(to - from);
+        System.arraycopy(csvRow, from, text, 0, to - from);
+        tokenizeText(to - from);
+    }
+
+    protected void ensureTextCapacity(int length)
+    {
+        if (text.length < length) {
+            text = new char[Math.max(length, text.length * 2)];
+        }
+    }
+
+    /**
+     * Tokenizes the row in text[0 .. length), compacting each cell's
+     * unquoted characters in place; cells never grow when unquoted, so
+     * the write position never passes the read position.
+     */
+    protected void tokenizeText(int length)
+    {
+        int parseState = OUTSIDE_CELL;
+        int write = 0;
+        int cellStart = 0;
+
+        cellCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char nextChar = text[i];
+
+            if (nextChar == '"') {
+                switch (parseState) {
+                    case OUTSIDE_CELL: {
+                        // Do not collect this character
+                        parseState = QUOTED_CELL;
+                        break;
+                    }
+                    case UNQUOTED_CELL: {
+                        // Do not change state
+                        text[write++] = nextChar;
+                        break;
+                    }
+                    case QUOTED_CELL: {
+                        // Check if we're done; do not collect yet
+                        parseState = QUOTE_SEEN;
+                        break;
+                    }
+                    case QUOTE_SEEN: {
+                        // Quoted quote; insert, change back
+                        text[write++] = nextChar;
+                        parseState = QUOTED_CELL;
+                        break;
+                    }
+                }
+            }
+            else if (nextChar == cellSeparator) {
+                if (parseState == QUOTED_CELL) {
+                    // Simply collect this character
+                    text[write++] = nextChar;
+                }
+                else {
+                    // Flush cell, even if empty, and reset
+                    addCell(cellStart, write);
+                    cellStart = write;
+                    parseState = OUTSIDE_CELL;
+                }
+            }
+            else {
+                // Always collect
+                text[write++] = nextChar;
+
+                // Follow Excel's rules: if the cell started out as quoted
+                // and there is a quote followed by something other than
+                // another quote or the separator, then parse the rest
+                // as an unquoted cell.
+                if ((parseState == OUTSIDE_CELL) || (parseState == QUOTE_SEEN))
+                {
+                    parseState = UNQUOTED_CELL;
+                }
+            }
+        }
+
+        // At the end of the CSV row; flush
+        addCell(cellStart, write);
+    }
+
+    protected void addCell(int cellStart, int cellEnd)
+    {
+        int index = 2 * cellCount;
+
+        if (index + 2 > cellBounds.length) {
+            int[] larger = new int[cellBounds.length * 2];
+
+            System.arraycopy(cellBounds, 0, larger, 0, cellBounds.length);
+            cellBounds = larger;
+        }
+
+        cellBounds[index] = cellStart;
+        cellBounds[index + 1] = cellEnd;
+        cellCount++;
+    }
+
+    public int getCellCount()
+    {
+        return cellCount;
+    }
+
+    /**
+     * Returns a view of the given cell of the current row; the same view
+     * object is returned by every call, so it is valid only until the
+     * next call.
+     */
+    public Cell getCell(int index)
+    {
+        if ((index < 0) || (index >= cellCount)) {
+            throw new IndexOutOfBoundsException("Cell: " + index);
+        }
+
+        return cellView.set(text,
+                            cellBounds[2 * index],
+                            cellBounds[2 * index + 1]);
+    }
+
+    public String getString(int index)
+    {
+        return getCell(index).toString();
+    }
+
+    public String[] getCells()
+    {
+        String[] cells = new String[cellCount];
+
+        for (int i = 0; i < cellCount; i++) {
+            cells[i] = getString(i);
+        }
+
+        return cells;
+    }
+}
@@ -93,8 +93,7 @@ package edu.cmu.cs.hcii.cogtool.util;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.Writer;
 
 /**
  * Support class for writing text to a .csv file and reading .csv data
@@ -117,18 +116,81 @@ public class CSVSupport
 
     public static String quoteCell(String cell)
     {
-        return "\"" + cell.replaceAll("\"", "\"\"") + "\"";
+        StringBuilder buffer = new StringBuilder(cell.length() + 2);
+
+        writeCell(cell, buffer);
+
+        return buffer.toString();
     }
 
     public static void writeCell(String cell, StringBuilder buffer)
     {
-        buffer.append(quoteCell(cell));
+        int cellLength = cell.length();
+
+        buffer.ensureCapacity(buffer.length() + cellLength + 2);
+        buffer.append('"');
+
+        for (int i = 0; i < cellLength; i++) {
+            char c = cell.charAt(i);
+
+            buffer.append(c);
+
+            if (c == '"') {
+                buffer.append(c);
+            }
+        }
+
+        buffer.append('"');
+    }
+
+    /**
+     * Writes the quoted cell directly to the given sink; unquoted runs of
+     * the cell are written without being copied.
+     */
+    public static void writeCell(CharSequence cell, Appendable sink)
+        throws IOException
+    {
+        int runStart = 0;
+        int cellLength = cell.length();
+
+        sink.append('"');
+
+        for (int i = 0; i < cellLength; i++) {
+            if (cell.charAt(i) == '"') {
+                // Write the run through this quote, then double it
+                writeRun(cell, runStart, i + 1, sink);
+                sink.append('"');
+                runStart = i + 1;
+            }
+        }
+
+        writeRun(cell, runStart, cellLength, sink);
+        sink.append('"');
     }
 
     public static void writeCell(String cell, BufferedWriter buffer)
         throws IOException
     {
-        buffer.write(quoteCell(cell));
+        writeCell((CharSequence) cell, buffer);
+    }
+
+    protected static void writeRun(CharSequence cell,
+                                   int start,
+                                   int end,
+                                   Appendable sink)
+        throws IOException
+    {
+        if (start == end) {
+            return;
+        }
+
+        // Writer.append(CharSequence, int, int) copies the subsequence
+        if ((sink instanceof Writer) && (cell instanceof String)) {
+            ((Writer) sink).write((String) cell, start, end - start);
+        }
+        else {
+            sink.append(cell, start, end);
+        }
     }
 
     public static void addSeparator(StringBuilder buffer)
@@ -153,91 +215,44 @@ public class CSVSupport
 
     public static String unquoteCell(String cell)
     {
-        if ((cell.charAt(0) != '"') || (cell.charAt(cell.length() - 1) != '"'))
+        if ((cell.length() < 2) ||
+            (cell.charAt(0) != '"') ||
+            (cell.charAt(cell.length() - 1) != '"'))
         {
             return cell.trim();
         }
 
-        return cell.substring(1, cell.length() - 2).replaceAll("\"\"", "\"");
+        CSVReader reader = getRowReader(CELL_SEPARATOR);
+
+        reader.tokenize(cell);
+
+        return (reader.getCellCount() == 1) ? reader.getString(0)
+                                            : cell.trim();
     }
 
-    // NOT THREAD-SAFE!
-    private static List<String> cellCollector = new ArrayList<String>();
-    private static StringBuilder nextCell = new StringBuilder();
+    // One reader per thread, since rows may be parsed concurrently
+    private static ThreadLocal<CSVReader> rowReaders =
+        new ThreadLocal<CSVReader>();
 
-    public static String[] getCells(String csvRow, char cellSeparator)
+    protected static CSVReader getRowReader(char cellSeparator)
     {
-        final int OUTSIDE_CELL = 0;
-        final int UNQUOTED_CELL = 1;
-        final int QUOTED_CELL = 2;
-        final int QUOTE_SEEN = 3;
-
-        int parseState = OUTSIDE_CELL;
-
-        for (int i = 0; i < csvRow.length(); i++) {
-            char nextChar = csvRow.charAt(i);
-
-            if (nextChar == '"') {
-                switch (parseState) {
-                    case OUTSIDE_CELL: {
-                        // Do not collect this character
-                        parseState = QUOTED_CELL;
-                        break;
-                    }
-                    case UNQUOTED_CELL: {
-                        // Do not change state
-                        nextCell.append(nextChar);
-                        break;
-                    }
-                    case QUOTED_CELL: {
-                        // Check if we're done; do not collect yet
-                        parseState = QUOTE_SEEN;
-                        break;
-                    }
-                    case QUOTE_SEEN: {
-                        // Quoted quote; insert, change back
-                        nextCell.append(nextChar);
-                        parseState = QUOTED_CELL;
-                        break;
-                    }
-                }
-            }
-            else if (nextChar == cellSeparator) {
-                if (parseState == QUOTED_CELL) {
-                    // Simply collect this character
-                    nextCell.append(nextChar);
-                }
-                else {
-                    // Flush cell, even if empty, and reset
-                    cellCollector.add(nextCell.toString());
-                    nextCell.delete(0, nextCell.length());
-                    parseState = OUTSIDE_CELL;
-                }
-            }
-            else {
-                // Always collect
-                nextCell.append(nextChar);
-
-                // Follow Excel's rules: if the cell started out as quoted
-                // and there is a quote followed by something other than
-                // another quote or the separator, then parse the rest
-                // as an unquoted cell.
-                if ((parseState == OUTSIDE_CELL) || (parseState == QUOTE_SEEN))
-                {
-                    parseState = UNQUOTED_CELL;
-                }
-            }
+        CSVReader reader = rowReaders.get();
+
+        if ((reader == null) || (reader.cellSeparator != cellSeparator)) {
+            reader = new CSVReader(cellSeparator);
+            rowReaders.set(reader);
         }
 
-        // At the end of the CSV row; flush and reset globals
-        cellCollector.add(nextCell.toString());
-        nextCell.delete(0, nextCell.length());
+        return reader;
+    }
+
+    public static String[] getCells(String csvRow, char cellSeparator)
+    {
+        CSVReader reader = getRowReader(cellSeparator);
 
-        String[] cells = new String[cellCollector.size()];
-        cellCollector.toArray(cells);
-        cellCollector.clear();
+        reader.tokenize(csvRow);
 
-        return cells;
+        return reader.getCells();
     }
 
     public static String[] getCells(String csvRow)
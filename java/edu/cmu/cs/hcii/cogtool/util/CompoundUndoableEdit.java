@@ -91,6 +91,8 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Vector;
@@ -399,6 +401,35 @@ public class CompoundUndoableEdit extends AUndoableEdit
         }
     }
 
+    /**
+     * The "whole" retains the sum of what its component "step" edits retain.
+     */
+    @Override
+    public long getRetainedSize()
+    {
+        long size = 0;
+        Iterator<IUndoableEdit> editsInOrder = edits.iterator();
+
+        while (editsInOrder.hasNext()) {
+            size += editsInOrder.next().getRetainedSize();
+        }
+
+        return size;
+    }
+
+    /**
+     * Propagates the "spill" request to each component "step" edit.
+     */
+    @Override
+    public void spill(File spillDir) throws IOException
+    {
+        Iterator<IUndoableEdit> editsInOrder = edits.iterator();
+
+        while (editsInOrder.hasNext()) {
+            editsInOrder.next().spill(spillDir);
+        }
+    }
+
     // TODO: This depends on isDone() being called before undo or redo is
     // attempted!
     @Override
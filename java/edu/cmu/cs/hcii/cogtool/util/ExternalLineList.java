@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An unmodifiable list of lines (such as a model trace) stored as a
+ * compressed file in the attachment directory of a persisted object,
+ * rather than in its XML serialization.  The lines are read only when
+ * first accessed and are held softly, so they may be reclaimed and
+ * re-read as memory requires.
+ * <p>
+ * Savers use <code>externalize</code> to store lines and serialize the
+ * string returned by <code>getEntry</code> in their place; loaders use
+ * <code>fromEntry</code> to recreate the list.
+ */
+public class ExternalLineList extends AbstractList<String>
+{
+    /**
+     * The subdirectory of the attachment directory holding line files
+     */
+    public static final String DIRECTORY = "TRACES";
+
+    /**
+     * Separates the line count from the file name in an entry
+     */
+    protected static final char ENTRY_SEPARATOR = ':';
+
+    /**
+     * Live instances, by file, so that lines no longer saved can be
+     * brought back into memory before their files are deleted.
+     */
+    protected static Map<File, List<WeakReference<ExternalLineList>>> instances =
+        new HashMap<File, List<WeakReference<ExternalLineList>>>();
+
+    /**
+     * The file holding the lines; <code>null</code> once the lines
+     * have been pinned in memory.
+     */
+    protected File file;
+
+    protected int size;
+
+    protected SoftReference<List<String>> cachedLines = null;
+
+    /**
+     * Holds the lines strongly once their file is gone
+     */
+    protected List<String> pinnedLines = null;
+
+    protected ExternalLineList(File lineFile, int lineCount)
+    {
+        file = lineFile;
+        size = lineCount;
+
+        synchronized(instances) {
+            List<WeakReference<ExternalLineList>> lists = instances.get(file);
+
+            if (lists == null) {
+                lists = new ArrayList<WeakReference<ExternalLineList>>(1);
+                instances.put(file, lists);
+            }
+
+            Iterator<WeakReference<ExternalLineList>> refs = lists.iterator();
+
+            while (refs.hasNext()) {
+                if (refs.next().get() == null) {
+                    refs.remove();
+                }
+            }
+
+            lists.add(new WeakReference<ExternalLineList>(this));
+        }
+    }
+
+    /**
+     * Store the given lines as a file for the given saver, unless the
+     * lines are already stored in the saver's attachment directory.
+     * The file is noted as an attachment of the saver.
+     *
+     * @param lines the lines to store
+     * @param saver the saver of the object holding the lines
+     * @return the stored list, which may replace the given one, or
+     *         <code>null</code> if the lines should be saved inline
+     *         (the saver has no attachment directory or there are no lines)
+     * @throws IOException if the file cannot be written
+     */
+    public static ExternalLineList externalize(List<String> lines,
+                                               ObjectSaver saver)
+        throws IOException
+    {
+        File attachmentDir = saver.getAttachmentDirectory();
+
+        if ((attachmentDir == null) || (lines == null) || lines.isEmpty()) {
+            return null;
+        }
+
+        File lineDir = new File(attachmentDir, DIRECTORY);
+        ExternalLineList stored = null;
+
+        if (lines instanceof ExternalLineList) {
+            stored = (ExternalLineList) lines;
+
+            synchronized(stored) {
+                if ((stored.file == null) ||
+                    ! lineDir.equals(stored.file.getParentFile()) ||
+                    ! stored.file.exists())
+                {
+                    stored = null;
+                }
+            }
+        }
+
+        if (stored == null) {
+            if (! lineDir.isDirectory() && ! lineDir.mkdir()) {
+                throw new IOException("Cannot create directory " + lineDir);
+            }
+
+            stored = write(lines, File.createTempFile("TRACE", ".gz", lineDir));
+        }
+
+        saver.noteAttachment(stored.file);
+
+        return stored;
+    }
+
+    protected static ExternalLineList write(List<String> lines, File lineFile)
+        throws IOException
+    {
+        DataOutputStream out =
+            new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(lineFile))));
+
+        try {
+            out.writeInt(lines.size());
+
+            for (String line : lines) {
+                byte[] bytes = line.getBytes("UTF-8");
+
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+        finally {
+            out.close();
+        }
+
+        ExternalLineList stored = new ExternalLineList(lineFile, lines.size());
+
+        stored.cachedLines = new SoftReference<List<String>>(lines);
+
+        return stored;
+    }
+
+    /**
+     * Recreate the list from an entry produced by <code>getEntry</code>.
+     *
+     * @param entry the serialized entry
+     * @param attachmentDir the attachment directory of the loaded object
+     * @throws IllegalArgumentException if the entry is malformed
+     */
+    public static ExternalLineList fromEntry(String entry, File attachmentDir)
+    {
+        int separator = entry.indexOf(ENTRY_SEPARATOR);
+
+        if ((separator < 0) || (attachmentDir == null)) {
+            throw new IllegalArgumentException("Invalid line file entry: "
+                                                   + entry);
+        }
+
+        File lineDir = new File(attachmentDir, DIRECTORY);
+
+        return new ExternalLineList(new File(lineDir,
+                                             entry.substring(separator + 1)),
+                                    Integer.parseInt(entry.substring(0,
+                                                                     separator)));
+    }
+
+    /**
+     * The string to serialize in place of the lines; consists of the line
+     * count and the file name.
+     */
+    public synchronized String getEntry()
+    {
+        return Integer.toString(size) + ENTRY_SEPARATOR + file.getName();
+    }
+
+    /**
+     * Delete the line files of the given attachment directory that were
+     * not noted by the latest save.  Live lists whose files are deleted
+     * first read their lines back into memory.
+     *
+     * @param attachmentDir the attachment directory of a persisted object
+     * @param savedFiles the line files referenced by the latest save
+     */
+    public static void retainOnly(File attachmentDir, Set<File> savedFiles)
+    {
+        File lineDir = new File(attachmentDir, DIRECTORY);
+        File[] lineFiles = lineDir.listFiles();
+
+        if (lineFiles == null) {
+            return;
+        }
+
+        for (File lineFile : lineFiles) {
+            if (savedFiles.contains(lineFile)) {
+                continue;
+            }
+
+            List<WeakReference<ExternalLineList>> lists;
+
+            synchronized(instances) {
+                lists = instances.remove(lineFile);
+            }
+
+            if (lists != null) {
+                Iterator<WeakReference<ExternalLineList>> refs =
+                    lists.iterator();
+
+                while (refs.hasNext()) {
+                    ExternalLineList list = refs.next().get();
+
+                    if (list != null) {
+                        list.pin();
+                    }
+                }
+            }
+
+            lineFile.delete();
+        }
+    }
+
+    /**
+     * Hold the lines in memory and forget the file.
+     */
+    protected synchronized void pin()
+    {
+        if (file != null) {
+            pinnedLines = getLines();
+            cachedLines = null;
+            file = null;
+        }
+    }
+
+    protected synchronized List<String> getLines()
+    {
+        if (pinnedLines != null) {
+            return pinnedLines;
+        }
+
+        List<String> lines =
+            (cachedLines != null) ? cachedLines.get() : null;
+
+        if (lines == null) {
+            try {
+                lines = read();
+            }
+            catch (IOException e) {
+                throw new RcvrIOException("Cannot read lines from " + file, e);
+            }
+
+            cachedLines = new SoftReference<List<String>>(lines);
+        }
+
+        return lines;
+    }
+
+    protected List<String> read() throws IOException
+    {
+        DataInputStream in =
+            new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+
+        try {
+            int lineCount = in.readInt();
+            List<String> lines = new ArrayList<String>(lineCount);
+
+            for (int i = 0; i < lineCount; i++) {
+                byte[] bytes = new byte[in.readInt()];
+
+                in.readFully(bytes);
+                lines.add(new String(bytes, "UTF-8"));
+            }
+
+            return lines;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Whether the lines are currently held in memory.
+     */
+    public synchronized boolean isLoaded()
+    {
+        return (pinnedLines != null) ||
+               ((cachedLines != null) && (cachedLines.get() != null));
+    }
+
+    @Override
+    public String get(int index)
+    {
+        return getLines().get(index);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator()
+    {
+        return Collections.unmodifiableList(getLines()).iterator();
+    }
+}
@@ -92,15 +92,12 @@
 package edu.cmu.cs.hcii.cogtool.util;
 
 import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
+import java.io.StringReader;
 import java.util.List;
 import java.util.Map;
-
-import edu.cmu.cs.hcii.cogtool.CogTool;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * A utility to help with algorithms that need to fetch information using
@@ -119,56 +116,29 @@ public class FetchURLUtil
      * For example, to "act as" a browser when making an http/s request,
      * map "User-agent" to something like:
      * "Mozilla/4.0 (compatible; MSIE 6.0; Windows NT 5.1)"
+     *
+     * Waits for URLFetcher.ONLY to fetch the content; use that directly
+     * to fetch without waiting.
      */
     public static BufferedReader fetchURL(String urlStr,
                                           List<String> errors,
                                           Map<String, String> requestProperties)
     {
-        InputStream urlStream = null;
-        InputStreamReader urlReader = null;
-
         try {
-            URL url = new URL(urlStr);
-            URLConnection urlConnection = url.openConnection();
-
-            // Before attempting to perform the actual fetch, register
-            // any HTTP request properties provided.
-            if (requestProperties != null) {
-                for (Map.Entry<String, String> keyValue : requestProperties.entrySet()) {
-                    urlConnection.setRequestProperty(keyValue.getKey(),
-                                                     keyValue.getValue());
-                }
-            }
-
-            urlStream = urlConnection.getInputStream();
-            urlReader = new InputStreamReader(urlStream);
+            String content =
+                URLFetcher.ONLY.fetch(urlStr, requestProperties).get();
 
-            return new BufferedReader(urlReader);
+            return new BufferedReader(new StringReader(content));
         }
-        catch (IOException ex) {
+        catch (ExecutionException ex) {
             if (errors != null) {
                 errors.add("fetchURL failed for url: " + urlStr
-                                 + " with exception: " + ex);
-            }
-
-            if (urlReader != null) {
-                try {
-                    urlReader.close();
-                }
-                catch (IOException closeEx) {
-                    // Ignore; irrelevant
-                }
-            }
-
-            if (urlStream != null) {
-                try {
-                    urlStream.close();
-                }
-                catch (IOException closeEx) {
-                    // Ignore; irrelevant
-                }
+                                 + " with exception: " + ex.getCause());
             }
         }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
 
         return null;
     }
@@ -261,52 +231,35 @@ public class FetchURLUtil
      * Using the information contained by the given URL processor,
      * try to fetch the content specified by its associated URL and
      * process that content.
+     *
+     * Waits for URLFetcher.ONLY to process the URL; use that directly
+     * to issue many requests at once.
      */
     public static boolean processURL(IURLProcessor processor)
     {
-        // Extract the relevant information from the processor
-        String url = processor.getURL();
-        int retriesRemaining = processor.getRetryCount();
-        List<String> errors = processor.getErrors();
-        Map<String, String> requestProperties = processor.getRequestProperties();
-
-        CogTool.logger.fine("Fetching URL: " + url);
-        // Try, try again until we give up...
-        while (retriesRemaining-- > 0) {
-            BufferedReader rdr = fetchURL(url, errors, requestProperties);
-
-            if (rdr != null) {
-                try {
-                    boolean success = processor.process(rdr);
+        return awaitProcessed(URLFetcher.ONLY.process(processor));
+    }
 
-                    if (success) {
-                        return true;
-                    }
-                }
-                catch (Exception ex) {
-                    if (errors != null) {
-                        errors.add("Improper reply for URL: " + url
-                                        + " with exception: " + ex);
-                    }
-                }
-                finally {
-                    try {
-                        rdr.close();
-                    }
-                    catch (IOException ex) {
-                        // Ignore; irrelevant
-                    }
-                }
-            }
-            if (retriesRemaining > 0) {
-                CogTool.logger.finer("Retrying fetch of URL: " + url);
-            }
+    /**
+     * Waits for a future returned by URLFetcher.process; returns
+     * <code>false</code> if processing failed, was canceled, or the
+     * wait was interrupted.  Failures have already been added to the
+     * processor's errors.
+     */
+    public static boolean awaitProcessed(Future<Boolean> processed)
+    {
+        try {
+            return processed.get().booleanValue();
         }
-
-        if (errors != null) {
-            CogTool.logger.fine("Failed to fetch URL: " + url);
-            errors.add("Repeated attempts to connect failed, or produced no "
-                       + "results CogTool knows how to understand: " + url);
+        catch (CancellationException ex) {
+            // Caller gave up on the request
+        }
+        catch (ExecutionException ex) {
+            // URLFetcher reports failures by completing with FALSE
+            throw new IllegalStateException("URL processing failed", ex);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
 
         return false;
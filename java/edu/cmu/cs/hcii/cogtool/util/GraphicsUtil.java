@@ -134,8 +134,7 @@ public class GraphicsUtil
     /**
      * Default color for widgets
      */
-    public static final int defaultWidgetColor =
-        getColorFromRGB(new RGB(255, 128, 0));
+    public static final int defaultWidgetColor = 0xFF8000; // RGB(255, 128, 0)
     public static final org.eclipse.swt.graphics.Color DEFAULT_COLOR =
         new org.eclipse.swt.graphics.Color(null, 255, 128, 0);
 
@@ -335,6 +334,33 @@ public class GraphicsUtil
         return croppedImgData;
     }
 
+    /**
+     * Produce a reduced copy of the given image, shrunk by the given
+     * factor in each dimension (e.g., 4 for a quarter-size copy) and
+     * encoded as a JPEG.  Each dimension of the result is at least one
+     * pixel.  Only image data is manipulated (no GC or device resources),
+     * so this may be called from any thread.
+     *
+     * @param image the image to reduce
+     * @param factor how many times smaller the result should be
+     * @return the reduced image
+     */
+    public static byte[] reduceImage(byte[] image, int factor)
+    {
+        try {
+            ImageData srcData =
+                new ImageData(new ByteArrayInputStream(image));
+            int width = Math.max(1, srcData.width / factor);
+            int height = Math.max(1, srcData.height / factor);
+
+            return convertImageType(srcData.scaledTo(width, height),
+                                    SWT.IMAGE_JPEG);
+        }
+        catch (SWTException ex) {
+            throw new ImageException("Failed to reduce image.", ex);
+        }
+    }
+
     /**
      * A utility to load an image and then dispose it from a byte array.
      * This utility returns the size of the image.
@@ -91,6 +91,9 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * Represents the actions to be performed to undo a recent edit
  * and, perhaps, redo that edit after having been undone.
@@ -226,6 +229,25 @@ public interface IUndoableEdit
      */
     public boolean isDone();
 
+    /**
+     * Estimate the memory, in bytes, held by this edit solely to support
+     * undo or redo (for example, an image the model no longer refers to).
+     * Undo managers use the estimate to keep their history within the
+     * memory budget of their save nexus.
+     */
+    public long getRetainedSize();
+
+    /**
+     * Move any large payload held by this edit into a file in the given
+     * directory, to be reloaded when the edit is next undone or redone.
+     * Afterward, <code>getRetainedSize</code> should report less.
+     *
+     * @param spillDir the directory in which to create the file
+     * @throws IOException if the payload cannot be written; it is then
+     *                     still held in memory
+     */
+    public void spill(File spillDir) throws IOException;
+
     /**
      * Get undo manager that "owns" this edit.
      */
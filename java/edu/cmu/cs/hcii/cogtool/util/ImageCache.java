@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.ByteArrayInputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.Image;
+
+/**
+ * A shared, reference-counted cache of decoded SWT images, keyed by the
+ * image data (byte[]) they were decoded from.  Since identical image data
+ * is shared through ImageStore, every frame or widget showing the same
+ * picture also shares the one decoded Image.
+ * <p>
+ * Each acquire must be balanced by a release of the returned Image;
+ * callers must never dispose an acquired Image themselves.  Images no
+ * longer acquired by anyone are kept (so reopening an editor does not
+ * decode again) until the total size of the decoded images exceeds the
+ * memory budget, at which point the least recently used are disposed.
+ */
+public class ImageCache
+{
+    /**
+     * Default budget, in bytes of decoded pixel data.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 128L * 1024L * 1024L;
+
+    /**
+     * Compares image data by identity, as ImageStore interns it
+     */
+    protected static class CacheKey
+    {
+        public final byte[] imageData;
+
+        public CacheKey(byte[] data)
+        {
+            imageData = data;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (other instanceof CacheKey) {
+                return imageData == ((CacheKey) other).imageData;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(imageData);
+        }
+    }
+
+    protected static class CacheEntry
+    {
+        public final CacheKey key;
+        public final Image image;
+        public final long size;
+        public int refCount = 0;
+
+        public CacheEntry(CacheKey entryKey, Image img)
+        {
+            key = entryKey;
+            image = img;
+
+            org.eclipse.swt.graphics.Rectangle bounds = img.getBounds();
+
+            size = 4L * bounds.width * bounds.height;
+        }
+    }
+
+    // Access-ordered, so that iteration starts with least recently used
+    protected static Map<CacheKey, CacheEntry> entries =
+        new LinkedHashMap<CacheKey, CacheEntry>(64, 0.75f, true);
+
+    // Maps each acquired image to its entry, for release
+    protected static Map<Image, CacheEntry> imageEntries =
+        new IdentityHashMap<Image, CacheEntry>();
+
+    protected static long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    protected static long totalSize = 0;
+
+    private ImageCache() { }
+
+    /**
+     * Sets the budget, in bytes of decoded pixel data, beyond which
+     * unused images are disposed.
+     */
+    public static synchronized void setMemoryBudget(long budget)
+    {
+        memoryBudget = budget;
+
+        evictUnused();
+    }
+
+    public static synchronized long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the total size, in bytes, of the images currently decoded.
+     */
+    public static synchronized long getTotalSize()
+    {
+        return totalSize;
+    }
+
+    /**
+     * Acquires the decoded image for the given image data.
+     *
+     * @throws GraphicsUtil.ImageException if the data cannot be decoded
+     */
+    public static Image acquire(byte[] imageData)
+    {
+        if (imageData == null) {
+            return null;
+        }
+
+        CacheKey key = new CacheKey(imageData);
+        Image img = acquireCached(key);
+
+        if (img != null) {
+            return img;
+        }
+
+        // Decode outside the lock so other threads are not held up.
+        try {
+            img = new Image(null, new ByteArrayInputStream(imageData));
+        }
+        catch (SWTException ex) {
+            throw new GraphicsUtil.ImageException("Decoding image failed", ex);
+        }
+
+        return addEntry(key, img);
+    }
+
+    /**
+     * Releases an image obtained from acquire.  An image that was not
+     * obtained from this cache is simply disposed.
+     */
+    public static synchronized void release(Image img)
+    {
+        if (img == null) {
+            return;
+        }
+
+        CacheEntry entry = imageEntries.get(img);
+
+        if (entry == null) {
+            if (! img.isDisposed()) {
+                img.dispose();
+            }
+        }
+        else if (--entry.refCount == 0) {
+            imageEntries.remove(img);
+
+            evictUnused();
+        }
+    }
+
+    /**
+     * Disposes every image that is not currently acquired.
+     */
+    public static synchronized void clear()
+    {
+        long savedBudget = memoryBudget;
+
+        memoryBudget = 0;
+        evictUnused();
+        memoryBudget = savedBudget;
+    }
+
+    protected static synchronized Image acquireCached(CacheKey key)
+    {
+        CacheEntry entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.refCount++ == 0) {
+            imageEntries.put(entry.image, entry);
+        }
+
+        return entry.image;
+    }
+
+    protected static synchronized Image addEntry(CacheKey key, Image img)
+    {
+        CacheEntry entry = entries.get(key);
+
+        if (entry != null) {
+            // Another thread decoded the same image in the meantime
+            img.dispose();
+        }
+        else {
+            entry = new CacheEntry(key, img);
+
+            entries.put(key, entry);
+            totalSize += entry.size;
+        }
+
+        if (entry.refCount++ == 0) {
+            imageEntries.put(entry.image, entry);
+        }
+
+        evictUnused();
+
+        return entry.image;
+    }
+
+    protected static void evictUnused()
+    {
+        Iterator<CacheEntry> lruEntries = entries.values().iterator();
+
+        while ((totalSize > memoryBudget) && lruEntries.hasNext()) {
+            CacheEntry entry = lruEntries.next();
+
+            if (entry.refCount == 0) {
+                lruEntries.remove();
+                totalSize -= entry.size;
+
+                if (! entry.image.isDisposed()) {
+                    entry.image.dispose();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A content-addressed store of image data.  Interning image data returns
+ * the single shared byte[] holding that content, so that identical images
+ * used by many frames and widgets are held in memory only once.  Since
+ * ObjectSaver serializes a shared object once and saves references
+ * thereafter, interned image data is also written only once per project.
+ * <p>
+ * Interned image data must never be modified in place.
+ * <p>
+ * Entries are held weakly; image data no longer referenced by any model
+ * object is reclaimed normally.
+ * <p>
+ * Each distinct content is also given an identifier (see getId) that is
+ * never reused during a session, so that image data can be compared by
+ * identifier without keeping a strong map of its own.
+ */
+public class ImageStore
+{
+    protected static class ImageRef extends WeakReference<byte[]>
+    {
+        public final int hash;
+        public final int id;
+
+        public ImageRef(byte[] imageData,
+                        int contentHash,
+                        int contentId,
+                        ReferenceQueue<byte[]> queue)
+        {
+            super(imageData, queue);
+
+            hash = contentHash;
+            id = contentId;
+        }
+    }
+
+    // Maps content hash code to the (weakly held) data having that hash
+    protected static Map<Integer, List<ImageRef>> images =
+        new HashMap<Integer, List<ImageRef>>();
+
+    protected static ReferenceQueue<byte[]> reclaimed =
+        new ReferenceQueue<byte[]>();
+
+    protected static int nextId = 1;
+
+    private ImageStore() { }
+
+    /**
+     * Returns the shared instance holding the same content as the given
+     * image data; if none has been interned yet, the given data becomes
+     * the shared instance.
+     *
+     * @param imageData the image data to intern; may be <code>null</code>
+     * @return the shared instance, or <code>null</code> if given
+     *         <code>null</code>
+     */
+    public static synchronized byte[] intern(byte[] imageData)
+    {
+        if (imageData == null) {
+            return null;
+        }
+
+        expungeReclaimed();
+
+        int hash = Arrays.hashCode(imageData);
+        Integer key = new Integer(hash);
+        List<ImageRef> bucket = images.get(key);
+
+        if (bucket == null) {
+            bucket = new ArrayList<ImageRef>(1);
+            images.put(key, bucket);
+        }
+        else {
+            Iterator<ImageRef> refs = bucket.iterator();
+
+            while (refs.hasNext()) {
+                byte[] sharedData = refs.next().get();
+
+                if (sharedData == imageData) {
+                    return sharedData;
+                }
+
+                if ((sharedData != null) &&
+                    Arrays.equals(sharedData, imageData))
+                {
+                    return sharedData;
+                }
+            }
+        }
+
+        bucket.add(new ImageRef(imageData, hash, nextId++, reclaimed));
+
+        return imageData;
+    }
+
+    /**
+     * Returns the identifier of the given image data's content, interning
+     * the data if necessary; two image data have the same identifier
+     * exactly when they have the same content.
+     *
+     * @param imageData the image data to identify; may not be
+     *                  <code>null</code>
+     */
+    public static synchronized int getId(byte[] imageData)
+    {
+        // Holding the shared instance keeps its entry from being cleared
+        byte[] sharedData = intern(imageData);
+        List<ImageRef> bucket =
+            images.get(new Integer(Arrays.hashCode(sharedData)));
+
+        for (ImageRef ref : bucket) {
+            if (ref.get() == sharedData) {
+                return ref.id;
+            }
+        }
+
+        throw new IllegalStateException("Interned image data not found");
+    }
+
+    /**
+     * Returns the number of distinct image contents currently interned.
+     */
+    public static synchronized int size()
+    {
+        expungeReclaimed();
+
+        int count = 0;
+        Iterator<List<ImageRef>> buckets = images.values().iterator();
+
+        while (buckets.hasNext()) {
+            count += buckets.next().size();
+        }
+
+        return count;
+    }
+
+    protected static void expungeReclaimed()
+    {
+        ImageRef ref = (ImageRef) reclaimed.poll();
+
+        while (ref != null) {
+            Integer key = new Integer(ref.hash);
+            List<ImageRef> bucket = images.get(key);
+
+            if (bucket != null) {
+                bucket.remove(ref);
+
+                if (bucket.isEmpty()) {
+                    images.remove(key);
+                }
+            }
+
+            ref = (ImageRef) reclaimed.poll();
+        }
+    }
+}
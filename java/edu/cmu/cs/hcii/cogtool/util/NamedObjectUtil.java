@@ -95,8 +95,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -128,6 +133,13 @@ public class NamedObjectUtil
                                                                  Collection<T> col2)
     {
         if (containsNamedObject(seedName, col1)) {
+            // Collect the names in use once rather than rescanning both
+            // collections for every candidate
+            Set<String> usedNames = new HashSet<String>();
+
+            addNames(usedNames, col1);
+            addNames(usedNames, col2);
+
             String testName;
             int index = 1;
             Matcher m = UNIQUE_NAME_INDEX_PATTERN.matcher(seedName);
@@ -142,8 +154,7 @@ public class NamedObjectUtil
 
             do {
                 testName = seedName + Integer.toString(++index) + ']';
-            } while (containsNamedObject(testName, col1) ||
-                     containsNamedObject(testName, col2));
+            } while (usedNames.contains(testName));
 
             return testName;
         }
@@ -170,6 +181,140 @@ public class NamedObjectUtil
         return makeNameUnique(seedName, col, null);
     }
 
+    protected static <T extends NamedObject> void addNames(Set<String> names,
+                                                            Collection<T> col)
+    {
+        if (col != null) {
+            for (T obj : col) {
+                names.add(obj.getName());
+            }
+        }
+    }
+
+    /**
+     * Maintains a name-to-object hash index over a collection of
+     * INamedObjects so that lookups by name need not scan the collection.
+     * The index is built lazily from the collection on first use; the
+     * owner of the collection must report additions, removals and renames
+     * of its members, or invalidate the index when the collection is
+     * modified wholesale (e.g., while loading).
+     * <p>
+     * Lookups agree with a linear scan of the collection in iteration
+     * order: if several members share a name, the first one is found.
+     * Since names are normally unique, such collisions simply cause the
+     * index to be rebuilt on the next change.
+     */
+    public static class NameIndex<T extends NamedObject>
+    {
+        protected Collection<? extends T> members;
+        protected Map<String, T> index = null;
+
+        /**
+         * Maps each indexed member to the name it is indexed under, so that
+         * a renamed member's old entry can be found directly
+         */
+        protected Map<T, String> indexedNames = null;
+
+        protected boolean hasDuplicates = false;
+
+        public NameIndex(Collection<? extends T> indexedMembers)
+        {
+            members = indexedMembers;
+        }
+
+        /**
+         * Return the first member of the given name, or <code>null</code>
+         * if none.
+         */
+        public T get(String name)
+        {
+            if (index == null) {
+                index = new HashMap<String, T>();
+                indexedNames = new IdentityHashMap<T, String>();
+                hasDuplicates = false;
+
+                for (T obj : members) {
+                    put(obj);
+                }
+            }
+
+            return index.get(name);
+        }
+
+        protected void put(T obj)
+        {
+            if (index.containsKey(obj.getName())) {
+                hasDuplicates = true;
+            }
+            else {
+                index.put(obj.getName(), obj);
+                indexedNames.put(obj, obj.getName());
+            }
+        }
+
+        /**
+         * Record that the given object was added to the end of the
+         * collection.  If it was inserted elsewhere, use invalidate instead
+         * should its name possibly collide.
+         */
+        public void added(T obj)
+        {
+            if (index != null) {
+                put(obj);
+            }
+        }
+
+        /**
+         * Record that the given object was removed from the collection.
+         */
+        public void removed(T obj)
+        {
+            if (index != null) {
+                if (hasDuplicates) {
+                    invalidate();
+                }
+                else {
+                    String name = indexedNames.remove(obj);
+
+                    if (name != null) {
+                        index.remove(name);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Record that the given member has been renamed.
+         */
+        public void renamed(T obj)
+        {
+            if (index != null) {
+                if (hasDuplicates || index.containsKey(obj.getName())) {
+                    invalidate();
+                    return;
+                }
+
+                String oldName = indexedNames.get(obj);
+
+                if (oldName != null) {
+                    index.remove(oldName);
+                    index.put(obj.getName(), obj);
+                    indexedNames.put(obj, obj.getName());
+                }
+            }
+        }
+
+        /**
+         * Discard the index; it will be rebuilt from the collection when
+         * next needed.
+         */
+        public void invalidate()
+        {
+            index = null;
+            indexedNames = null;
+        }
+    }
+
     /**
      * Checks a Collection of INamedObjects for a specific name.
      *
@@ -91,6 +91,7 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
 import java.lang.reflect.Array;
 import java.rmi.UnexpectedException;
 import java.util.ArrayList;
@@ -904,6 +905,10 @@ public class ObjectLoader extends DefaultHandler implements ObjectPersist
     // Registry to use for the loading process
     protected ILoaderRegistry loaderRegistry;
 
+    // Directory, if any, holding values saved as separate files
+    // alongside the serialization (see ObjectSaver.getAttachmentDirectory)
+    protected File attachmentDir = null;
+
     // Stack of active loaders; although all elements are of type ILoader,
     // the actual type of loader at the top of the stack is determined by
     //  the current objectState:
@@ -991,6 +996,26 @@ public class ObjectLoader extends DefaultHandler implements ObjectPersist
         loaderRegistry = (registry != null) ? registry : DEFAULT_REGISTRY;
     }
 
+    /**
+     * Set the directory holding values that were saved as separate files
+     * alongside the serialization being loaded.
+     *
+     * @param dir the attachment directory, or <code>null</code> if none
+     */
+    public void setAttachmentDirectory(File dir)
+    {
+        attachmentDir = dir;
+    }
+
+    /**
+     * Return the directory holding values saved as separate files;
+     * <code>null</code> if none.
+     */
+    public File getAttachmentDirectory()
+    {
+        return attachmentDir;
+    }
+
     /**
      * Every object must register a loader that specifies how to reconstruct
      * its value from a serialization of the given format version.
@@ -1085,6 +1110,20 @@ public class ObjectLoader extends DefaultHandler implements ObjectPersist
         return null;
     }
 
+    /**
+     * Registers an object under an id reserved by the saver (see
+     * <code>ObjectSaver.reserveId</code>) for an object that was not itself
+     * serialized, so that subsequent references to that id resolve to
+     * the given object.
+     *
+     * @param id the id reserved for the object during the save
+     * @param obj the object reconstituted in place of the reserved one
+     */
+    public void registerObject(int id, Object obj)
+    {
+        loadedObjects.put(new Integer(id), obj);
+    }
+
     /**
      * Based on the serialization contained by the given input source
      * and the initial aggregate loader (that is, for top-level objects
@@ -1196,7 +1235,7 @@ public class ObjectLoader extends DefaultHandler implements ObjectPersist
      */
     protected void pushArrayIndex()
     {
-        if (++arrayStackTop >= ARRAY_STACK_DEPTH) {
+        if (++arrayStackTop < ARRAY_STACK_DEPTH) {
             arrayIndexes[arrayStackTop] = 0;
         }
         else {
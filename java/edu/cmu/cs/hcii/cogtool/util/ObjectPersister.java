@@ -103,10 +103,12 @@ import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -128,6 +130,12 @@ public class ObjectPersister
      * Name of the checkpoint file containing the XML serialization.
      */
     private static final String PERSIST_FILE = "PERSIST";
+
+    /**
+     * Name of the subdirectory of a checkpoint directory holding data
+     * spilled from the undo history; it is not saved with the object.
+     */
+    private static final String SPILL_DIR = "UNDO";
     
     public static final ObjectPersister ONLY = new ObjectPersister();
     
@@ -447,6 +455,8 @@ public class ObjectPersister
         ObjectLoader l = new ObjectLoader();
         Object obj = null;
 
+        l.setAttachmentDirectory(chkptFile);
+
         Reader reader = null;
 
         try {
@@ -555,6 +565,8 @@ public class ObjectPersister
             try {
                 reader = new FileReader(new File(chkptDirs[i], PERSIST_FILE));
 
+                l.setAttachmentDirectory(chkptDirs[i]);
+
                 recovered[i] = l.load(new InputSource(reader), null);
 
                 PersistInfo info = new PersistInfo(recovered[i], chkptDirs[i]);
@@ -636,8 +648,15 @@ public class ObjectPersister
 
             ObjectSaver s = new ObjectSaver(writer);
 
+            // Large values (such as traces) are saved as separate files
+            s.setAttachmentDirectory(info.checkpointDir);
+
             s.saveObject(obj);
             s.finish();         // ensures a flush!
+
+            // Forget attachments no longer referenced
+            ExternalLineList.retainOnly(info.checkpointDir,
+                                        s.getAttachments());
         }
         finally {
             if (writer != null) {
@@ -671,6 +690,28 @@ public class ObjectPersister
      */
 
     public void save(Object obj, File dst) throws IOException
+    {
+        save(obj, dst, ZipUtil.COMPACT_COMPRESSION);
+    }
+
+    /**
+     * Persist an Object to a file on the filesystem, as for save(obj, dst),
+     * compressing the file at the given level; ZipUtil.FAST_COMPRESSION
+     * trades file size for a quicker save.
+     *
+     * @param obj the Object that will be saved to disk
+     * @param dst the destination File location, or null to reuse the
+     *            load location of this Object
+     * @param compressionLevel the deflate compression level, from 0 to 9
+     * @throws IllegalArgumentException if the given object had not been
+     *         previously registered via a call to load, recoverFiles, or
+     *         registerForPersistence
+     * @throws IOException if there isn't enough disk space to save obj to dst
+     * @throws IllegalStateException if (dst == null) && ! isPermanent(obj)
+     */
+
+    public void save(Object obj, File dst, int compressionLevel)
+        throws IOException
     {
         // The given object must have been previously registered
         PersistInfo info = getInfoByObject(obj);
@@ -708,8 +749,10 @@ public class ObjectPersister
 
         // If we're here, no exception was thrown; compress the checkpoint
         // file(s) into a temporary file in the destination file's directory
-        File[] files = info.checkpointDir.listFiles();
-        ZipUtil.zip(Arrays.asList(files), tmp);
+        List<File> files =
+            new ArrayList<File>(Arrays.asList(info.checkpointDir.listFiles()));
+        files.remove(new File(info.checkpointDir, SPILL_DIR));
+        ZipUtil.zip(files, tmp, compressionLevel);
 
         // If all went well, delete dst and move tmp to dst
         if (dst.exists()) {
@@ -736,6 +779,33 @@ public class ObjectPersister
         }
     } // save
 
+    /**
+     * Returns the directory in which data spilled from the undo history
+     * of the given object may be stored, creating it if necessary.
+     * The directory lies within the object's checkpoint directory, so it
+     * is removed when the object is closed, but it is never saved.
+     *
+     * @param obj the object whose undo history is to be spilled
+     * @return the spill directory, or <code>null</code> if the object is
+     *         not registered or the directory cannot be created
+     */
+    public File getSpillDirectory(Object obj)
+    {
+        PersistInfo info = getInfoByObject(obj);
+
+        if (info == null) {
+            return null;
+        }
+
+        File spillDir = new File(info.checkpointDir, SPILL_DIR);
+
+        if (! spillDir.isDirectory() && ! spillDir.mkdir()) {
+            return null;
+        }
+
+        return spillDir;
+    }
+
     /**
      * Releases any persistence-related resources attached to this Object.
      *
@@ -91,14 +91,17 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.rmi.UnexpectedException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.ecf.core.util.Base64;
 
@@ -309,6 +312,11 @@ public class ObjectSaver implements ObjectPersist
     // choose to save itself differently for different purposes.
     protected Object purpose;
 
+    // Directory, if any, in which savers may store large values as separate
+    // files alongside the serialization, and the files stored or reused.
+    protected File attachmentDir = null;
+    protected Set<File> attachments = new HashSet<File>();
+
     /**
      * The default purpose for serialization.
      */
@@ -436,6 +444,45 @@ public class ObjectSaver implements ObjectPersist
         return purpose;
     }
 
+    /**
+     * Set the directory in which savers may store large values as separate
+     * files; the files become part of the persisted form along with the
+     * serialization.
+     *
+     * @param dir the attachment directory, or <code>null</code> if values
+     *            must be serialized inline
+     */
+    public void setAttachmentDirectory(File dir)
+    {
+        attachmentDir = dir;
+    }
+
+    /**
+     * Return the directory in which savers may store large values as
+     * separate files; <code>null</code> if none.
+     */
+    public File getAttachmentDirectory()
+    {
+        return attachmentDir;
+    }
+
+    /**
+     * Record that the given file in the attachment directory is referenced
+     * by this serialization.
+     */
+    public void noteAttachment(File attachment)
+    {
+        attachments.add(attachment);
+    }
+
+    /**
+     * Return the attachment files referenced by this serialization.
+     */
+    public Set<File> getAttachments()
+    {
+        return attachments;
+    }
+
     /**
      * Every object must register a saver that specifies how to serialize
      * its value.
@@ -807,6 +854,39 @@ public class ObjectSaver implements ObjectPersist
                             + "]]></" + CHAR_ELT + ">\n");
     }
 
+    /**
+     * Assigns a unique id to the given object without serializing it;
+     * subsequent saves of the object generate references to that id.
+     * The object's owner is responsible for arranging that the loader
+     * registers an equivalent object under the same id (see
+     * <code>ObjectLoader.registerObject</code>) before any such reference
+     * is reconstituted.
+     *
+     * @param value the object whose id to reserve
+     * @return the reserved id, or -1 if the object has already been saved
+     */
+    public int reserveId(Object value)
+    {
+        if (savedObjects.containsKey(value)) {
+            return -1;
+        }
+
+        Integer id = new Integer(idGen++);
+
+        savedObjects.put(value, id);
+
+        return id.intValue();
+    }
+
+    /**
+     * Whether the given object has been saved (or its id reserved) by
+     * this saver, so that saving it again generates a reference.
+     */
+    public boolean isSaved(Object value)
+    {
+        return savedObjects.containsKey(value);
+    }
+
     /**
      * Method to serialize and save a previously saved object as a reference.
      * Each object is assigned a unique id and registered in
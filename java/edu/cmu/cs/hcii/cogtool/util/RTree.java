@@ -0,0 +1,541 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An R-tree (Guttman, with quadratic split) indexing items by their
+ * bounding rectangles, supporting rectangle and point queries in
+ * logarithmic rather than linear time.
+ *
+ * Each item may appear in the tree only once; re-inserting an item
+ * replaces its bounds.  Query results are candidates by bounding
+ * rectangle only (edges inclusive); callers that need an exact test
+ * must apply it themselves.
+ *
+ * NOT THREAD-SAFE!!
+ */
+public class RTree<T>
+{
+    protected static final int MAX_ENTRIES = 8;
+    protected static final int MIN_ENTRIES = 3;
+
+    protected static class Bounds
+    {
+        public double minX;
+        public double minY;
+        public double maxX;
+        public double maxY;
+
+        public double area()
+        {
+            return (maxX - minX) * (maxY - minY);
+        }
+
+        public double enlargedArea(Bounds other)
+        {
+            return (Math.max(maxX, other.maxX) - Math.min(minX, other.minX))
+                     * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY));
+        }
+
+        public void include(Bounds other)
+        {
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+        }
+
+        public void setBounds(Bounds other)
+        {
+            minX = other.minX;
+            minY = other.minY;
+            maxX = other.maxX;
+            maxY = other.maxY;
+        }
+
+        public boolean intersects(double x1, double y1, double x2, double y2)
+        {
+            return (x1 <= maxX) && (y1 <= maxY)
+                     && (x2 >= minX) && (y2 >= minY);
+        }
+    }
+
+    protected static class Entry<T> extends Bounds
+    {
+        public T item;
+        public Node<T> leaf;
+
+        public Entry(T entryItem)
+        {
+            item = entryItem;
+        }
+    }
+
+    protected static class Node<T> extends Bounds
+    {
+        public Node<T> parent = null;
+        public boolean isLeaf;
+
+        // Entry<T> instances if a leaf, Node<T> instances otherwise
+        public List<Bounds> children = new ArrayList<Bounds>(MAX_ENTRIES + 1);
+
+        public Node(boolean leaf)
+        {
+            isLeaf = leaf;
+        }
+
+        public void addChild(Bounds child)
+        {
+            children.add(child);
+            adopt(child);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void adopt(Bounds child)
+        {
+            if (isLeaf) {
+                ((Entry<T>) child).leaf = this;
+            }
+            else {
+                ((Node<T>) child).parent = this;
+            }
+        }
+
+        public void recomputeBounds()
+        {
+            if (children.size() == 0) {
+                minX = minY = maxX = maxY = 0.0;
+                return;
+            }
+
+            setBounds(children.get(0));
+
+            for (int i = 1; i < children.size(); i++) {
+                include(children.get(i));
+            }
+        }
+    }
+
+    protected Node<T> root = new Node<T>(true);
+
+    protected Map<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public boolean contains(T item)
+    {
+        return entries.containsKey(item);
+    }
+
+    public void clear()
+    {
+        root = new Node<T>(true);
+        entries.clear();
+    }
+
+    /**
+     * Add the given item with the given bounds, replacing its previous
+     * bounds if it is already in the tree.
+     */
+    public void insert(T item, double x, double y, double width, double height)
+    {
+        remove(item);
+
+        Entry<T> entry = new Entry<T>(item);
+
+        entry.minX = Math.min(x, x + width);
+        entry.minY = Math.min(y, y + height);
+        entry.maxX = Math.max(x, x + width);
+        entry.maxY = Math.max(y, y + height);
+
+        entries.put(item, entry);
+        insertEntry(entry);
+    }
+
+    /**
+     * Remove the given item; returns false if it was not in the tree.
+     */
+    public boolean remove(T item)
+    {
+        Entry<T> entry = entries.remove(item);
+
+        if (entry == null) {
+            return false;
+        }
+
+        Node<T> leaf = entry.leaf;
+
+        leaf.children.remove(entry);
+        entry.leaf = null;
+
+        condenseTree(leaf);
+
+        return true;
+    }
+
+    /**
+     * Add to found every item whose bounds intersect the given rectangle.
+     */
+    public void search(double x, double y, double width, double height,
+                       Collection<? super T> found)
+    {
+        if (entries.size() > 0) {
+            search(root,
+                   Math.min(x, x + width), Math.min(y, y + height),
+                   Math.max(x, x + width), Math.max(y, y + height),
+                   found);
+        }
+    }
+
+    /**
+     * Add to found every item whose bounds contain the given point.
+     */
+    public void search(double x, double y, Collection<? super T> found)
+    {
+        if (entries.size() > 0) {
+            search(root, x, y, x, y, found);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void search(Node<T> node,
+                          double x1, double y1, double x2, double y2,
+                          Collection<? super T> found)
+    {
+        for (Bounds child : node.children) {
+            if (child.intersects(x1, y1, x2, y2)) {
+                if (node.isLeaf) {
+                    found.add(((Entry<T>) child).item);
+                }
+                else {
+                    search((Node<T>) child, x1, y1, x2, y2, found);
+                }
+            }
+        }
+    }
+
+    protected void insertEntry(Entry<T> entry)
+    {
+        Node<T> leaf = chooseLeaf(entry);
+
+        leaf.addChild(entry);
+        adjustTree(leaf);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Node<T> chooseLeaf(Bounds b)
+    {
+        Node<T> node = root;
+
+        while (! node.isLeaf) {
+            Node<T> best = null;
+            double bestGrowth = 0.0;
+            double bestArea = 0.0;
+
+            for (Bounds child : node.children) {
+                double area = child.area();
+                double growth = child.enlargedArea(b) - area;
+
+                if ((best == null) ||
+                    (growth < bestGrowth) ||
+                    ((growth == bestGrowth) && (area < bestArea)))
+                {
+                    best = (Node<T>) child;
+                    bestGrowth = growth;
+                    bestArea = area;
+                }
+            }
+
+            node = best;
+        }
+
+        return node;
+    }
+
+    /**
+     * Propagate bounds changes (and any overflow splits) from the given
+     * node up to the root.
+     */
+    protected void adjustTree(Node<T> node)
+    {
+        while (node != null) {
+            Node<T> sibling = null;
+
+            if (node.children.size() > MAX_ENTRIES) {
+                sibling = split(node);
+            }
+
+            node.recomputeBounds();
+
+            if (sibling != null) {
+                if (node == root) {
+                    root = new Node<T>(false);
+                    root.addChild(node);
+                    root.addChild(sibling);
+                    root.recomputeBounds();
+                    return;
+                }
+
+                node.parent.addChild(sibling);
+            }
+
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Quadratic split: moves roughly half of the given node's children
+     * into a new sibling node, which is returned.
+     */
+    protected Node<T> split(Node<T> node)
+    {
+        List<Bounds> remaining = new ArrayList<Bounds>(node.children);
+        Node<T> sibling = new Node<T>(node.isLeaf);
+
+        node.children.clear();
+
+        // Pick the two seeds that would waste the most area together
+        int seed1 = 0;
+        int seed2 = 1;
+        double worst = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < remaining.size(); i++) {
+            Bounds bi = remaining.get(i);
+
+            for (int j = i + 1; j < remaining.size(); j++) {
+                Bounds bj = remaining.get(j);
+                double waste = bi.enlargedArea(bj) - bi.area() - bj.area();
+
+                if (waste > worst) {
+                    worst = waste;
+                    seed1 = i;
+                    seed2 = j;
+                }
+            }
+        }
+
+        // Remove the later index first so the earlier stays valid
+        Bounds b2 = remaining.remove(seed2);
+        Bounds b1 = remaining.remove(seed1);
+
+        node.addChild(b1);
+        node.setBounds(b1);
+        sibling.addChild(b2);
+        sibling.setBounds(b2);
+
+        while (remaining.size() > 0) {
+            // Ensure each group ends up with at least MIN_ENTRIES
+            if (node.children.size() + remaining.size() == MIN_ENTRIES) {
+                assignAll(remaining, node);
+                break;
+            }
+            if (sibling.children.size() + remaining.size() == MIN_ENTRIES) {
+                assignAll(remaining, sibling);
+                break;
+            }
+
+            // Pick the child with the strongest preference for one group
+            int next = 0;
+            double maxDiff = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < remaining.size(); i++) {
+                Bounds b = remaining.get(i);
+                double d1 = node.enlargedArea(b) - node.area();
+                double d2 = sibling.enlargedArea(b) - sibling.area();
+                double diff = Math.abs(d1 - d2);
+
+                if (diff > maxDiff) {
+                    maxDiff = diff;
+                    next = i;
+                }
+            }
+
+            Bounds b = remaining.remove(next);
+            double d1 = node.enlargedArea(b) - node.area();
+            double d2 = sibling.enlargedArea(b) - sibling.area();
+            Node<T> target;
+
+            if (d1 != d2) {
+                target = (d1 < d2) ? node : sibling;
+            }
+            else if (node.area() != sibling.area()) {
+                target = (node.area() < sibling.area()) ? node : sibling;
+            }
+            else {
+                target = (node.children.size() <= sibling.children.size())
+                              ? node : sibling;
+            }
+
+            target.addChild(b);
+            target.include(b);
+        }
+
+        return sibling;
+    }
+
+    protected void assignAll(List<Bounds> children, Node<T> node)
+    {
+        for (Bounds b : children) {
+            node.addChild(b);
+            node.include(b);
+        }
+
+        children.clear();
+    }
+
+    /**
+     * After removing an entry from the given leaf, dissolve any nodes
+     * left with too few children (reinserting their entries) and
+     * tighten the bounds of the remaining ancestors.
+     */
+    protected void condenseTree(Node<T> leaf)
+    {
+        List<Entry<T>> orphans = new ArrayList<Entry<T>>();
+        Node<T> node = leaf;
+
+        while (node != root) {
+            Node<T> parent = node.parent;
+
+            if (node.children.size() < MIN_ENTRIES) {
+                parent.children.remove(node);
+                node.parent = null;
+                collectEntries(node, orphans);
+            }
+            else {
+                node.recomputeBounds();
+            }
+
+            node = parent;
+        }
+
+        root.recomputeBounds();
+
+        // Shorten the tree while the root has a single non-leaf child
+        while (! root.isLeaf && (root.children.size() == 1)) {
+            @SuppressWarnings("unchecked")
+            Node<T> child = (Node<T>) root.children.get(0);
+
+            child.parent = null;
+            root = child;
+        }
+
+        if (! root.isLeaf && (root.children.size() == 0)) {
+            root = new Node<T>(true);
+        }
+
+        for (Entry<T> orphan : orphans) {
+            insertEntry(orphan);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void collectEntries(Node<T> node, List<Entry<T>> found)
+    {
+        for (Bounds child : node.children) {
+            if (node.isLeaf) {
+                found.add((Entry<T>) child);
+            }
+            else {
+                collectEntries((Node<T>) child, found);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Holds a byte array (typically image data) on behalf of an undoable edit,
+ * allowing the array to be moved to a file while the edit is not using it
+ * and reloaded on demand.
+ * <p>
+ * A <code>null</code> array is supported and is never spilled.
+ */
+public class SpillableBytes
+{
+    /**
+     * The data, or <code>null</code> if spilled (or never given)
+     */
+    protected byte[] data;
+
+    /**
+     * The file holding the data while spilled; <code>null</code> otherwise
+     */
+    protected File spillFile = null;
+
+    protected int length;
+
+    public SpillableBytes(byte[] bytes)
+    {
+        data = bytes;
+        length = (bytes != null) ? bytes.length : 0;
+    }
+
+    /**
+     * The number of bytes held, whether in memory or spilled.
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * The number of bytes currently held in memory.
+     */
+    public int getRetainedSize()
+    {
+        return (data != null) ? length : 0;
+    }
+
+    public boolean isSpilled()
+    {
+        return spillFile != null;
+    }
+
+    /**
+     * Return the data, reloading it from its spill file if necessary.
+     *
+     * @throws RcvrIOException if the spill file cannot be read
+     */
+    public byte[] get()
+    {
+        if (spillFile != null) {
+            byte[] bytes = new byte[length];
+
+            try {
+                DataInputStream in =
+                    new DataInputStream(new FileInputStream(spillFile));
+
+                try {
+                    in.readFully(bytes);
+                }
+                finally {
+                    in.close();
+                }
+            }
+            catch (IOException e) {
+                throw new RcvrIOException("Cannot reload undo data from "
+                                              + spillFile,
+                                          e);
+            }
+
+            data = bytes;
+            discard();
+        }
+
+        return data;
+    }
+
+    /**
+     * Write the data to a new file in the given directory and release
+     * the in-memory copy.
+     *
+     * @param spillDir the directory in which to create the file
+     * @throws IOException if the file cannot be written; the data is then
+     *                     kept in memory
+     */
+    public void spill(File spillDir) throws IOException
+    {
+        if (data == null) {
+            return;
+        }
+
+        File f = File.createTempFile("UNDO", ".bin", spillDir);
+        FileOutputStream out = new FileOutputStream(f);
+
+        try {
+            out.write(data);
+        }
+        catch (IOException e) {
+            out.close();
+            f.delete();
+            throw e;
+        }
+
+        out.close();
+
+        spillFile = f;
+        data = null;
+    }
+
+    /**
+     * Delete the spill file, if any; the data will not be needed again
+     * if it is still spilled.
+     */
+    public void discard()
+    {
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+}
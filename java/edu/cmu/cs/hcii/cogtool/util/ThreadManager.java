@@ -93,22 +93,31 @@ package edu.cmu.cs.hcii.cogtool.util;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import edu.cmu.cs.hcii.cogtool.CogTool;
 
+/**
+ * Executes work threads on a bounded pool of worker threads.  Work threads
+ * that cannot start immediately wait in a priority queue and are started,
+ * highest priority first, as soon as a worker becomes free.  Each started
+ * work thread is given a future that completes once both its work and its
+ * <code>done()</code> have finished.
+ */
 public class ThreadManager
 {
-    /**
-     * The object representing a thread that the thread manager manages.
-     * Each thread must provide a method indicating the work to be performed
-     * and a method to "clean up" when the thread has completed
-     * (regardless of how it was completed -- that is, even if an
-     * exception is raised or it was canceled [see <code>ICancelable</code>]).
-     * <p>
-     */
     public interface IWorkThread
     {
         /**
@@ -136,29 +145,67 @@ public class ThreadManager
     }
 
     /**
-     * The entries in the pending work thread queue.
+     * The entries in the pending work thread queue, ordered by priority
+     * (highest first) and then by the order in which they were started.
      */
-    protected static class WorkThreadEntry
+    protected class WorkThreadEntry implements Runnable,
+                                               Comparable<WorkThreadEntry>
     {
         public IWorkThread workThread;
-        public int priority;
+        public volatile int priority;
+        public long sequence;
 
-        public WorkThreadEntry(IWorkThread wt, int p)
+        /**
+         * Completes with the work thread once it has finished, or with its
+         * AggregateException if any exceptions were recorded
+         */
+        public CompletableFuture<IWorkThread> completion =
+            new CompletableFuture<IWorkThread>();
+
+        public WorkThreadEntry(IWorkThread wt, int p, long seq)
         {
             workThread = wt;
             priority = p;
+            sequence = seq;
+        }
+
+        public int compareTo(WorkThreadEntry other)
+        {
+            if (priority != other.priority) {
+                return (priority > other.priority) ? -1 : 1;
+            }
+
+            if (sequence != other.sequence) {
+                return (sequence < other.sequence) ? -1 : 1;
+            }
+
+            return 0;
+        }
+
+        public void run()
+        {
+            runWorkThread(this);
         }
     }
 
     /**
-     * The queue of threads waiting to be executed.
-     * <code>List</code> may be used as a queue from either end;
-     * we push new elements onto the end (using <code>add(wt)</code>)
-     * and pop off the beginning (using <code>remove(0)</code>).
-     * Access is synchronized using the queue object itself.
+     * How long an idle worker waits for more work before exiting
      */
-    protected List<WorkThreadEntry> threadQueue =
-        new ArrayList<WorkThreadEntry>();
+    protected static final long WORKER_IDLE_SECONDS = 10;
+
+    /**
+     * Used to order entries of equal priority.
+     */
+    protected AtomicLong entryCount = new AtomicLong();
+
+    protected AtomicInteger workerCount = new AtomicInteger();
+
+    /**
+     * The work threads waiting to be executed, so that their priority
+     * can be changed.  Access is synchronized using the mapping itself.
+     */
+    protected Map<IWorkThread, WorkThreadEntry> pendingEntries =
+        new HashMap<IWorkThread, WorkThreadEntry>();
 
     /**
      * The threads currently active.  Maps IWorkThread to Thread.
@@ -168,10 +215,11 @@ public class ThreadManager
         new HashMap<IWorkThread, Thread>();
 
     /**
-     * The number of threads that should be active at any one time.
+     * The number of threads that should be active at any one time;
+     * defaults to the number of available processors.
      * Access is synchronized using the sync flag below.
      */
-    public int maxActiveThreads = 3;
+    protected int maxActiveThreads;
 
     /**
      * The synchronization flag to protect <code>maxActiveThreads</code>
@@ -179,83 +227,38 @@ public class ThreadManager
     protected Object maxActiveThreadsSync = new Object();
 
     /**
-     * The scheduling thread; created when the worker thread
-     * queue becomes non-empty and terminated when the queue
-     * becomes empty.  Limits the number of active threads
-     * according to maxActiveThreads.
+     * Runs the work threads; its workers exit when idle, so that an idle
+     * CogTool holds no extra threads.
      */
-    protected class SchedulerThread extends Thread
-    {
-        /**
-         * The scheduler thread tries to empty the queue of pending worker
-         * threads.  Once it has succeeded, the scheduler thread exits.
-         */
-        @Override
-        public void run()
-        {
-            // Loop until the pending worker thread queue is empty.
-            while (true) {
-
-                // Must wait to dequeue a work thread if too many
-                // other threads are active.
-                if (isOkToStart()) {
-                    WorkThreadEntry workThreadEntry = null;
-
-                    // Check if there are any pending work threads
-                    synchronized(threadQueue) {
-                        if (threadQueue.size() > 0) {
-                            workThreadEntry = threadQueue.remove(0);
-                        }
-                        else {
-                            scheduler = null;
-                        }
-                    }
-
-                    // If no work thread dequeued, the queue must be empty,
-                    // so exit this scheduling thread.
-                    if (workThreadEntry == null) {
-                        return;
-                    }
-
-                    // Otherwise, start the work thread.
-                    startWorkThread(workThreadEntry.workThread,
-                                    workThreadEntry.priority);
-
-                    // Wait a little before attempting the next work thread
-                    try {
-                        sleep(100);
-                    }
-                    catch (InterruptedException e) {
-                        // ignore
-                    }
-                }
-                else {
-                    // Too many threads are currently executing; wait a while
-                    // and try again.
-                    try {
-                        sleep(1000);
-                    }
-                    catch (InterruptedException e) {
-                        // ignore
-                    }
-                }
-            }
-        } // run
-    }
-
-    /**
-     * Only one scheduler thread is active at a time -- furthermore,
-     * a scheduler thread is active only when there are pending work threads
-     * in the queue.
-     * <p>
-     * Synchronized by threadQueue!
-     */
-    protected SchedulerThread scheduler = null;
+    protected ThreadPoolExecutor executor;
 
     /**
      * The manager is a singleton.
      */
-    protected ThreadManager() { }
+    protected ThreadManager()
+    {
+        maxActiveThreads =
+            Math.max(1, Runtime.getRuntime().availableProcessors());
+
+        ThreadFactory workerFactory =
+            new ThreadFactory() {
+                public Thread newThread(Runnable r)
+                {
+                    return new Thread(r,
+                                      "CogTool worker "
+                                          + workerCount.incrementAndGet());
+                }
+            };
+
+        executor =
+            new ThreadPoolExecutor(maxActiveThreads,
+                                   maxActiveThreads,
+                                   WORKER_IDLE_SECONDS,
+                                   TimeUnit.SECONDS,
+                                   new PriorityBlockingQueue<Runnable>(),
+                                   workerFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
 
     protected static final ThreadManager ONLY = new ThreadManager();
 
@@ -269,97 +272,114 @@ public class ThreadManager
         }
     }
 
+    /**
+     * Return the number of threads invokeAll runs tasks on, counting the
+     * calling thread; useful to size the tasks handed to it.
+     */
+    public static int getParallelism()
+    {
+        return ONLY.getMaxThreadCount();
+    }
+
     /**
      * Adjust the maximum number of active threads allowed.
      * If adjusted down and the number of active threads is too much,
-     * currently nothing is done.
+     * the excess workers exit as they finish their current work threads.
      *
-     * @param maxThreads initial maximum number of threads allowed
-     *                   to be active
+     * @param maxThreads maximum number of threads allowed to be active
      */
     public void setMaxThreadCount(int maxThreads)
     {
+        maxThreads = Math.max(1, maxThreads);
+
         synchronized(maxActiveThreadsSync) {
             maxActiveThreads = maxThreads;
+
+            // The core size may never exceed the maximum size
+            if (maxThreads > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(maxThreads);
+                executor.setCorePoolSize(maxThreads);
+            }
+            else {
+                executor.setCorePoolSize(maxThreads);
+                executor.setMaximumPoolSize(maxThreads);
+            }
         }
     }
 
     /**
-     * Determine if it is ok to start a work thread based on the
-     * current count of active threads and the max active thread count.
+     * Execute the given entry's work thread in the current (worker) thread,
+     * always calling <code>done()</code>, regardless whether the work
+     * terminated normally or via an exception, and then completing the
+     * entry's future.
      */
-    protected boolean isOkToStart()
+    protected void runWorkThread(WorkThreadEntry entry)
     {
-        int activeThreadCount;
-        int maxThreadCount;
+        IWorkThread workThread = entry.workThread;
+        Thread current = Thread.currentThread();
 
-        synchronized(activeThreads) {
-            activeThreadCount = activeThreads.size();
+        synchronized(pendingEntries) {
+            if (pendingEntries.get(workThread) == entry) {
+                pendingEntries.remove(workThread);
+            }
         }
 
-        synchronized(maxActiveThreadsSync) {
-            maxThreadCount = maxActiveThreads;
+        // "Manage" the actual thread for the work thread object.
+        synchronized(activeThreads) {
+            activeThreads.put(workThread, current);
         }
 
-        return activeThreadCount < maxThreadCount;
-    }
+        current.setPriority(entry.priority);
 
-    /**
-     * Start the given work thread, managing active thread count against
-     * the internal maximum thread count.
-     *
-     * @param workThread the work thread to execute
-     * @param priority the priority at which to execute the thread
-     */
-    protected void startWorkThread(final IWorkThread workThread, int priority)
-    {
-        // System.out.println("STARTING");
-        // Create the work thread that performs the thread's work
-        // and always calls <code>done()</code>, regardless whether
-        // the thread terminated normally or via an exception.
-        Thread t =
-            new Thread()
-            {
-                @Override
-                public void run()
-                {
-                    try {
-                        workThread.doWork();
-                    }
-                    catch (Exception e) {
-                        if (! CogTool.isBuilt()) {
-                            // running under the development environment
-                            e.printStackTrace();
-                        }
-                        // Can't (shouldn't) propagate exception
-                        // to either the scheduler or the main thread,
-                        // so simply store the exception for the "caller"
-                        // to handle later when the "results" of the
-                        // work thread are examined.
-                        workThread.addWorkException(e);
-                    }
-                    finally {
-                        // Typical "done" work (especially if using a subclass
-                        // of ACogToolWorkThread) should be short; for example,
-                        // ACogToolWorkThread schedules the actual "done"
-                        // work to be executed on the main UI thread.
-                        workThread.done();
-
-                        synchronized(activeThreads) {
-                            activeThreads.remove(workThread);
-                        }
-                    }
+        try {
+            try {
+                workThread.doWork();
+            }
+            catch (Exception e) {
+                if (! CogTool.isBuilt()) {
+                    // running under the development environment
+                    e.printStackTrace();
                 }
-            };
+                // Can't (shouldn't) propagate exception
+                // to either the executor or the main thread,
+                // so simply store the exception for the "caller"
+                // to handle later when the "results" of the
+                // work thread are examined.
+                workThread.addWorkException(e);
+            }
+            finally {
+                // Typical "done" work (especially if using a subclass
+                // of ACogToolWorkThread) should be short; for example,
+                // ACogToolWorkThread schedules the actual "done"
+                // work to be executed on the main UI thread.
+                workThread.done();
+            }
+        }
+        catch (RuntimeException e) {
+            entry.completion.completeExceptionally(e);
+            throw e;
+        }
+        catch (Error e) {
+            entry.completion.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            synchronized(activeThreads) {
+                activeThreads.remove(workThread);
+            }
 
-        // "Manage" the actual thread for the work thread object.
-        synchronized(activeThreads) {
-            activeThreads.put(workThread, t);
+            // Workers are reused; don't leave this work thread's priority
+            current.setPriority(Thread.NORM_PRIORITY);
         }
 
-        // Fork off the thread after setting its priority.
-        t.setPriority(priority);
-        t.start();
+        AggregateException workExceptions = workThread.getWorkExceptions();
+
+        if ((workExceptions != null) && workExceptions.containsExceptions()) {
+            entry.completion.completeExceptionally(workExceptions);
+        }
+        else {
+            entry.completion.complete(workThread);
+        }
     }
 
     /**
@@ -385,75 +405,57 @@ public class ThreadManager
     }
 
     /**
-     * Add a work thread to the pending thread queue.
-     * If it is ok to start the thread immediately, do so.
-     * Otherwise, if no scheduler is running, generate a new one, which will
-     * attempt to start the given thread when other threads terminate.
+     * Start the given work thread as soon as a worker is free; work threads
+     * waiting for a worker are started in order of priority.
      * <p>
      * For management purposes, it is currently assumed that a work
      * thread will be executed at most once at a time.
      * Uses Thread.NORM_PRIORITY as the priority.
      *
      * @param workThread the work thread to manage
+     * @return a future that completes when the work thread has finished
      */
-    public static void startNewThread(IWorkThread workThread)
+    public static CompletableFuture<IWorkThread> startNewThread(IWorkThread workThread)
     {
-        ONLY.start(workThread, Thread.NORM_PRIORITY);
+        return ONLY.start(workThread, Thread.NORM_PRIORITY);
     }
 
     /**
-     * Add a work thread to the pending thread queue.
-     * If it is ok to start the thread immediately, do so.
-     * Otherwise, if no scheduler is running, generate a new one, which will
-     * attempt to start the given thread when other threads terminate.
+     * Start the given work thread as soon as a worker is free; work threads
+     * waiting for a worker are started in order of priority.
      * <p>
      * For management purposes, it is currently assumed that a work
      * thread will be executed at most once at a time.
      *
      * @param workThread the work thread to manage
      * @param priority the priority the new thread should operate at
+     * @return a future that completes when the work thread has finished
      */
-    public static void startNewThread(IWorkThread workThread, int priority)
+    public static CompletableFuture<IWorkThread> startNewThread(IWorkThread workThread,
+                                                                int priority)
     {
-        ONLY.start(workThread, priority);
+        return ONLY.start(workThread, priority);
     }
 
-    protected void start(IWorkThread workThread, int priority)
+    protected CompletableFuture<IWorkThread> start(IWorkThread workThread,
+                                                   int priority)
     {
         if (workThread == null) {
             throw new IllegalArgumentException("Work thread cannot be null");
         }
 
-        priority = prunePriority(priority);
-
-        boolean isSchedulerInactive;
+        WorkThreadEntry entry =
+            new WorkThreadEntry(workThread,
+                                prunePriority(priority),
+                                entryCount.getAndIncrement());
 
-        synchronized(threadQueue) {
-            isSchedulerInactive = (scheduler == null);
+        synchronized(pendingEntries) {
+            pendingEntries.put(workThread, entry);
         }
 
-        if (isSchedulerInactive && isOkToStart()) {
-            startWorkThread(workThread, priority);
-        }
-        else {
-            // System.out.println("QUEUING");
-            synchronized(threadQueue) {
-                threadQueue.add(new WorkThreadEntry(workThread,
-                                                         priority));
-
-                // Scheduler could have gone inactive in the interim!
-                isSchedulerInactive = (scheduler == null);
-            }
+        executor.execute(entry);
 
-            // Don't need to synchronize this because, if the scheduler is
-            // inactive, the only way to make a new one is through the
-            // main UI thread (i.e., here!).
-            if (isSchedulerInactive) {
-                // System.out.println("NEW SCHEDULER");
-                scheduler = new SchedulerThread();
-                scheduler.start();
-            }
-        }
+        return entry.completion;
     }
 
     /**
@@ -468,33 +470,131 @@ public class ThreadManager
     {
         newPriority = prunePriority(newPriority);
 
-        boolean notDone = true;
+        WorkThreadEntry entry;
 
-        synchronized(threadQueue) {
-            Iterator<WorkThreadEntry> pendingWorkThreads =
-                threadQueue.iterator();
+        synchronized(pendingEntries) {
+            entry = pendingEntries.get(workThread);
+        }
 
-            while (pendingWorkThreads.hasNext()) {
-                WorkThreadEntry entry = pendingWorkThreads.next();
+        // The queue orders entries only as they are inserted, so requeue
+        if ((entry != null) && executor.remove(entry)) {
+            entry.priority = newPriority;
+            executor.execute(entry);
 
-                if (entry.workThread == workThread) {
-                    entry.priority = newPriority;
-                    notDone = false;
-                    break;
-                }
+            return;
+        }
+
+        Thread workExecutionThread = null;
+
+        synchronized(activeThreads) {
+            workExecutionThread = activeThreads.get(workThread);
+        }
+
+        if (workExecutionThread != null) {
+            workExecutionThread.setPriority(newPriority);
+        }
+    }
+
+    /**
+     * Runs a share of the tasks of an invokeAll as a work thread: takes
+     * the next task no one has started until none remain.
+     */
+    protected static class TaskRunner implements IWorkThread
+    {
+        protected List<FutureTask<?>> tasks;
+        protected AtomicInteger nextTask;
+        protected AggregateException exceptions = new AggregateException();
+
+        public TaskRunner(List<FutureTask<?>> allTasks, AtomicInteger next)
+        {
+            tasks = allTasks;
+            nextTask = next;
+        }
+
+        public void doWork()
+        {
+            int i;
+
+            while ((i = nextTask.getAndIncrement()) < tasks.size()) {
+                // A FutureTask records its own exceptions
+                tasks.get(i).run();
             }
         }
 
-        if (notDone) {
-            Thread workExecutionThread = null;
+        public void done()
+        {
+            // Nothing to clean up
+        }
 
-            synchronized(activeThreads) {
-                workExecutionThread = activeThreads.get(workThread);
+        public AggregateException getWorkExceptions()
+        {
+            return exceptions;
+        }
+
+        public void addWorkException(Exception ex)
+        {
+            exceptions.addException(ex);
+        }
+    }
+
+    /**
+     * Execute the given tasks on the manager's workers and wait for all of
+     * them to finish.  The calling thread takes part, running any task no
+     * worker has yet started, so this never waits on a task that has no
+     * thread; it may therefore be called from a work thread even when
+     * every worker is busy.
+     * <p>
+     * If interrupted, the tasks not yet finished are cancelled (those
+     * running are interrupted) and InterruptedException is thrown.
+     *
+     * @param tasks the tasks to run
+     * @return the futures of the tasks, in the same order, all done;
+     *         a task's exception is thrown (wrapped) by its future's get()
+     */
+    public static <T> List<Future<T>> invokeAll(List<? extends Callable<T>> tasks)
+        throws InterruptedException
+    {
+        List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        List<FutureTask<?>> runnables = new ArrayList<FutureTask<?>>(tasks.size());
+
+        for (Callable<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<T>(task);
+
+            futures.add(future);
+            runnables.add(future);
+        }
+
+        AtomicInteger nextTask = new AtomicInteger();
+        int helpers = Math.min(tasks.size(), ONLY.getMaxThreadCount()) - 1;
+        int priority = Thread.currentThread().getPriority();
+
+        for (int i = 0; i < helpers; i++) {
+            ONLY.start(new TaskRunner(runnables, nextTask), priority);
+        }
+
+        new TaskRunner(runnables, nextTask).doWork();
+
+        try {
+            for (Future<T> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException e) {
+                    // Left for the caller to retrieve
+                }
             }
+        }
+        catch (InterruptedException e) {
+            // Keep any helper from starting another task
+            nextTask.set(runnables.size());
 
-            if (workExecutionThread != null) {
-                workExecutionThread.setPriority(newPriority);
+            for (Future<T> future : futures) {
+                future.cancel(true);
             }
+
+            throw e;
         }
+
+        return futures;
     }
 }
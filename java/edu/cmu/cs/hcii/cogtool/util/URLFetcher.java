@@ -0,0 +1,712 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cmu.cs.hcii.cogtool.CogTool;
+import edu.cmu.cs.hcii.cogtool.util.FetchURLUtil.IURLProcessor;
+
+/**
+ * Fetches URL content asynchronously, returning futures.
+ * <p>
+ * Fetches run on a shared pool of daemon threads, with at most a given
+ * number outstanding per host; the rest wait in that host's queue.  Content
+ * is read to the end and the stream closed so the HTTP connection goes back
+ * to the JDK's keep-alive cache for the next request to the same host.
+ * A request for a URL that is already being fetched (with the same request
+ * properties) waits for that fetch rather than issuing another.  Failed
+ * attempts to process a URL are retried after an exponentially growing,
+ * jittered delay.
+ * <p>
+ * An IURLProcessor is stateful, so each request must use its own.
+ */
+public class URLFetcher
+{
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000; // ms
+    public static final int DEFAULT_READ_TIMEOUT = 30000; // ms
+    public static final int DEFAULT_MAX_REQUESTS = 32;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 8;
+    public static final long DEFAULT_INITIAL_BACKOFF = 250; // ms
+    public static final long DEFAULT_MAX_BACKOFF = 8000; // ms
+
+    public static final URLFetcher ONLY = new URLFetcher();
+
+    /**
+     * The JDK keeps at most http.maxConnections idle connections per host
+     * (default 5); unless the user has set it, allow one for each request
+     * we let run at a time.  This changes a JVM-wide setting, so call it
+     * once at startup, before the first HTTP connection is made.
+     */
+    public static void configureKeepAlive()
+    {
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections",
+                               Integer.toString(DEFAULT_MAX_REQUESTS_PER_HOST));
+        }
+    }
+
+    /**
+     * A future completed by the fetcher rather than by running a task
+     */
+    protected static class Completion<T> extends FutureTask<T>
+    {
+        protected static final Runnable NOTHING =
+            new Runnable() {
+                public void run()
+                {
+                    // Never run
+                }
+            };
+
+        public Completion()
+        {
+            super(NOTHING, null);
+        }
+
+        public void complete(T value)
+        {
+            set(value);
+        }
+
+        public void fail(Throwable cause)
+        {
+            setException(cause);
+        }
+    }
+
+    /**
+     * Notified when a fetch finishes, on the thread that fetched
+     */
+    protected interface FetchListener
+    {
+        /**
+         * Exactly one of content and failure is <code>null</code>
+         */
+        public void fetched(String content, IOException failure);
+    }
+
+    /**
+     * A single fetch of a URL, shared by every request for it made while
+     * it is in flight
+     */
+    protected class Fetch implements Runnable
+    {
+        protected final String key;
+        protected final String url;
+        protected final Map<String, String> requestProperties;
+        protected final HostQueue host;
+
+        protected List<FetchListener> listeners =
+            new ArrayList<FetchListener>();
+
+        protected boolean done = false;
+        protected String content = null;
+        protected IOException failure = null;
+
+        public Fetch(String requestKey,
+                     String urlStr,
+                     Map<String, String> properties,
+                     HostQueue hostQueue)
+        {
+            key = requestKey;
+            url = urlStr;
+            requestProperties = properties;
+            host = hostQueue;
+        }
+
+        public void addListener(FetchListener listener)
+        {
+            synchronized(this) {
+                if (! done) {
+                    listeners.add(listener);
+                    return;
+                }
+            }
+
+            listener.fetched(content, failure);
+        }
+
+        public void run()
+        {
+            String fetched = null;
+            IOException problem = null;
+
+            try {
+                fetched = readContent(url, requestProperties);
+            }
+            catch (IOException ex) {
+                problem = ex;
+            }
+            catch (RuntimeException ex) {
+                problem = new IOException(ex.toString());
+            }
+            finally {
+                inFlight.remove(key, this);
+                host.finished();
+            }
+
+            List<FetchListener> waiting;
+
+            synchronized(this) {
+                content = fetched;
+                failure = problem;
+                done = true;
+                waiting = listeners;
+                listeners = null;
+            }
+
+            for (FetchListener listener : waiting) {
+                listener.fetched(fetched, problem);
+            }
+        }
+    }
+
+    /**
+     * Limits the number of fetches from one host running at a time
+     */
+    protected class HostQueue
+    {
+        protected int active = 0;
+        protected LinkedList<Runnable> waiting = new LinkedList<Runnable>();
+
+        public void submit(Runnable fetch)
+        {
+            synchronized(this) {
+                if (active >= maxRequestsPerHost) {
+                    waiting.add(fetch);
+                    return;
+                }
+
+                active++;
+            }
+
+            fetchers.execute(fetch);
+        }
+
+        public void finished()
+        {
+            Runnable next;
+
+            synchronized(this) {
+                next = waiting.poll();
+
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+
+            fetchers.execute(next);
+        }
+    }
+
+    /**
+     * One request to fetch and process a URL, with its retries
+     */
+    protected class ProcessRequest implements Runnable, FetchListener
+    {
+        protected final IURLProcessor processor;
+        protected final String url;
+        protected final List<String> errors;
+        protected final Map<String, String> requestProperties;
+
+        protected int retriesRemaining;
+        protected int attempts = 0;
+
+        protected Completion<Boolean> result = new Completion<Boolean>();
+
+        public ProcessRequest(IURLProcessor urlProcessor)
+        {
+            processor = urlProcessor;
+            url = processor.getURL();
+            errors = processor.getErrors();
+            requestProperties = processor.getRequestProperties();
+            retriesRemaining = processor.getRetryCount();
+        }
+
+        // Issues the next attempt; also invoked by the retry timer
+        public void run()
+        {
+            if (result.isDone()) {
+                return;
+            }
+
+            if (retriesRemaining-- <= 0) {
+                if (errors != null) {
+                    CogTool.logger.fine("Failed to fetch URL: " + url);
+                    errors.add("Repeated attempts to connect failed, or produced no "
+                               + "results CogTool knows how to understand: "
+                               + url);
+                }
+
+                result.complete(Boolean.FALSE);
+                return;
+            }
+
+            if (attempts++ > 0) {
+                CogTool.logger.finer("Retrying fetch of URL: " + url);
+            }
+
+            fetch(url, requestProperties, this);
+        }
+
+        public void fetched(String content, IOException failure)
+        {
+            if (result.isDone()) {
+                return;
+            }
+
+            if (failure != null) {
+                if (errors != null) {
+                    errors.add("fetchURL failed for url: " + url
+                                     + " with exception: " + failure);
+                }
+            }
+            else {
+                try {
+                    BufferedReader rdr =
+                        new BufferedReader(new StringReader(content));
+
+                    if (processor.process(rdr)) {
+                        result.complete(Boolean.TRUE);
+                        return;
+                    }
+                }
+                catch (Exception ex) {
+                    if (errors != null) {
+                        errors.add("Improper reply for URL: " + url
+                                        + " with exception: " + ex);
+                    }
+                }
+            }
+
+            if (retriesRemaining > 0) {
+                retryTimer.schedule(this, getBackoff(attempts),
+                                    TimeUnit.MILLISECONDS);
+            }
+            else {
+                run();
+            }
+        }
+    }
+
+    protected volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    protected volatile int readTimeout = DEFAULT_READ_TIMEOUT;
+    protected volatile int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+    protected volatile long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    protected volatile long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    protected ThreadPoolExecutor fetchers;
+    protected ScheduledExecutorService retryTimer;
+
+    /**
+     * Maps request key (URL and request properties) to its fetch in flight
+     */
+    protected ConcurrentMap<String, Fetch> inFlight =
+        new ConcurrentHashMap<String, Fetch>();
+
+    /**
+     * Maps host name to its queue
+     */
+    protected ConcurrentMap<String, HostQueue> hostQueues =
+        new ConcurrentHashMap<String, HostQueue>();
+
+    protected Random jitter = new Random();
+
+    protected URLFetcher()
+    {
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadFactory daemons = new ThreadFactory() {
+            public Thread newThread(Runnable r)
+            {
+                Thread t =
+                    new Thread(r, "URLFetcher-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+
+                return t;
+            }
+        };
+
+        fetchers = new ThreadPoolExecutor(DEFAULT_MAX_REQUESTS,
+                                          DEFAULT_MAX_REQUESTS,
+                                          60L,
+                                          TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(),
+                                          daemons);
+        fetchers.allowCoreThreadTimeOut(true);
+
+        ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, daemons);
+        timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        retryTimer = timer;
+    }
+
+    /**
+     * Set the connect and read timeouts, in milliseconds, of fetches
+     * started from now on; zero means wait forever.
+     */
+    public void setTimeouts(int connectMillis, int readMillis)
+    {
+        connectTimeout = connectMillis;
+        readTimeout = readMillis;
+    }
+
+    /**
+     * Set the most fetches running at a time, over all hosts
+     */
+    public void setMaxRequests(int maxRequests)
+    {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("At least one request must be allowed");
+        }
+
+        if (maxRequests > fetchers.getMaximumPoolSize()) {
+            fetchers.setMaximumPoolSize(maxRequests);
+            fetchers.setCorePoolSize(maxRequests);
+        }
+        else {
+            fetchers.setCorePoolSize(maxRequests);
+            fetchers.setMaximumPoolSize(maxRequests);
+        }
+    }
+
+    /**
+     * Set the most fetches from a single host running at a time
+     */
+    public void setMaxRequestsPerHost(int maxRequests)
+    {
+        if (maxRequests < 1) {
+            throw new IllegalArgumentException("At least one request must be allowed");
+        }
+
+        maxRequestsPerHost = maxRequests;
+    }
+
+    /**
+     * Set the delay before the first retry and the most the delay may
+     * grow to, in milliseconds; each retry doubles the delay.
+     */
+    public void setBackoff(long initialMillis, long maxMillis)
+    {
+        initialBackoff = initialMillis;
+        maxBackoff = Math.max(initialMillis, maxMillis);
+    }
+
+    /**
+     * The delay before the retry following the given number of attempts;
+     * somewhere between half and all of the doubled delay, so that requests
+     * failing together do not all retry together.
+     */
+    protected long getBackoff(int attempts)
+    {
+        long delay = initialBackoff;
+
+        for (int i = 1; (i < attempts) && (delay < maxBackoff); i++) {
+            delay *= 2;
+        }
+
+        delay = Math.min(delay, maxBackoff);
+
+        if (delay <= 1) {
+            return delay;
+        }
+
+        synchronized(jitter) {
+            return (delay / 2) + (long) (jitter.nextDouble() * (delay / 2));
+        }
+    }
+
+    protected static String getRequestKey(String url,
+                                          Map<String, String> requestProperties)
+    {
+        if ((requestProperties == null) || requestProperties.isEmpty()) {
+            return url;
+        }
+
+        return url + "\n" + requestProperties.toString();
+    }
+
+    protected HostQueue getHostQueue(String url)
+    {
+        String host;
+
+        try {
+            host = new URL(url).getHost().toLowerCase();
+        }
+        catch (MalformedURLException ex) {
+            // The fetch itself will fail and report why
+            host = "";
+        }
+
+        HostQueue queue = hostQueues.get(host);
+
+        if (queue == null) {
+            HostQueue newQueue = new HostQueue();
+
+            queue = hostQueues.putIfAbsent(host, newQueue);
+
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+
+        return queue;
+    }
+
+    /**
+     * Join the fetch of the given URL in flight, or start one
+     */
+    protected void fetch(String url,
+                         Map<String, String> requestProperties,
+                         FetchListener listener)
+    {
+        String key = getRequestKey(url, requestProperties);
+        Fetch fetch = inFlight.get(key);
+
+        if (fetch == null) {
+            Fetch newFetch =
+                new Fetch(key, url, requestProperties, getHostQueue(url));
+
+            fetch = inFlight.putIfAbsent(key, newFetch);
+
+            if (fetch == null) {
+                newFetch.addListener(listener);
+                CogTool.logger.fine("Fetching URL: " + url);
+                newFetch.host.submit(newFetch);
+                return;
+            }
+        }
+
+        fetch.addListener(listener);
+    }
+
+    /**
+     * Fetch the content of the given URL once, without retries.
+     * If it cannot be fetched, the future's get() throws an
+     * ExecutionException whose cause is the IOException.
+     *
+     * @param requestProperties HTTP request properties, or
+     * <code>null</code>; see FetchURLUtil.fetchURL
+     */
+    public Future<String> fetch(String url,
+                                Map<String, String> requestProperties)
+    {
+        final Completion<String> result = new Completion<String>();
+
+        fetch(url, requestProperties, new FetchListener() {
+            public void fetched(String content, IOException failure)
+            {
+                if (failure != null) {
+                    result.fail(failure);
+                }
+                else {
+                    result.complete(content);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Fetch the processor's URL and have it process the content, retrying
+     * as many times as it asks; the future's value is whether the processor
+     * eventually succeeded.  Problems are recorded in the processor's
+     * errors, as FetchURLUtil.processURL does.  Cancelling the future
+     * stops any further retries.
+     */
+    public Future<Boolean> process(IURLProcessor processor)
+    {
+        ProcessRequest request = new ProcessRequest(processor);
+
+        request.run();
+
+        return request.result;
+    }
+
+    /**
+     * Read the whole content of the given URL; reading to the end and
+     * closing lets the connection be reused.
+     */
+    protected String readContent(String urlStr,
+                                 Map<String, String> requestProperties)
+        throws IOException
+    {
+        URLConnection urlConnection = new URL(urlStr).openConnection();
+
+        urlConnection.setConnectTimeout(connectTimeout);
+        urlConnection.setReadTimeout(readTimeout);
+
+        if (requestProperties != null) {
+            for (Map.Entry<String, String> keyValue : requestProperties.entrySet()) {
+                urlConnection.setRequestProperty(keyValue.getKey(),
+                                                 keyValue.getValue());
+            }
+        }
+
+        InputStream urlStream;
+
+        try {
+            urlStream = urlConnection.getInputStream();
+        }
+        catch (IOException ex) {
+            // An error reply still has a body; consume it so that the
+            // connection may be kept alive
+            if (urlConnection instanceof HttpURLConnection) {
+                InputStream errorStream =
+                    ((HttpURLConnection) urlConnection).getErrorStream();
+
+                if (errorStream != null) {
+                    try {
+                        byte[] discard = new byte[1024];
+
+                        while (errorStream.read(discard) >= 0) {
+                            // Discard
+                        }
+                    }
+                    catch (IOException readEx) {
+                        // Ignore; irrelevant
+                    }
+                    finally {
+                        errorStream.close();
+                    }
+                }
+            }
+
+            throw ex;
+        }
+
+        Reader urlReader = new InputStreamReader(urlStream);
+
+        try {
+            StringBuilder content = new StringBuilder();
+            char[] buffer = new char[4096];
+            int count;
+
+            while ((count = urlReader.read(buffer)) >= 0) {
+                content.append(buffer, 0, count);
+            }
+
+            return content.toString();
+        }
+        finally {
+            urlReader.close();
+        }
+    }
+}
@@ -91,6 +91,8 @@
 
 package edu.cmu.cs.hcii.cogtool.util;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EventObject;
 import java.util.HashMap;
@@ -134,6 +136,12 @@ import java.util.Map;
  * <p>
  * To support this behavior, <code>UndoManager</code> implements
  * <code>IAlerter</code> functionality.
+ * <p>
+ * Besides the limit on the number of edits, the edits of all managers of
+ * a save nexus are kept within a memory budget (see
+ * <code>setMemoryBudget</code>).  When the budget is exceeded, the payloads
+ * of older edits are spilled to the nexus object's checkpoint directory
+ * and, failing that, the oldest edits are removed.
  *
  * @author           mlh
  * @see javax.swing.undo.UndoManager
@@ -191,6 +199,14 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
          * @return true iff the nexus is collectively at a save point
          */
         public boolean isAtSavePoint();
+
+        /**
+         * Indicate that the given part has recorded a new edit, so that
+         * the nexus may enforce its memory budget.
+         *
+         * @param mgr the UndoManager representing the part of a complex model
+         */
+        public void partHasGrown(UndoManager mgr);
     }
 
     /**
@@ -217,6 +233,11 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
         {
             protected Map<Object, UndoManager> managers =
                 new HashMap<Object, UndoManager>();
+
+            /**
+             * The complex model object this nexus represents
+             */
+            protected Object nexusObject;
     
             /**
              * The count of objects in the "modified" state since the last save
@@ -244,6 +265,11 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
                     }
                 };
     
+            public UndoManagerNexus(Object nexusObj)
+            {
+                nexusObject = nexusObj;
+            }
+
             /**
              * Indicate that the given part is now at a save point when it
              * wasn't previous to this call.
@@ -288,6 +314,89 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
                 return (modifiedCount == 0);
             }
     
+            /**
+             * Keep the memory retained by the edits of all managers of this
+             * nexus within the memory budget.  Payloads of older edits are
+             * first spilled to the checkpoint directory of the nexus object;
+             * if that is not enough, the oldest edits of the managers
+             * retaining the most are discarded.  The most recent undoable
+             * edit of each manager is always kept.
+             *
+             * @param mgr the UndoManager representing the part of a complex model
+             */
+            public void partHasGrown(UndoManager mgr)
+            {
+                long budget = getMemoryBudget();
+
+                if (budget <= 0) {
+                    return;
+                }
+
+                long total = getRetainedSize();
+
+                if (total <= budget) {
+                    return;
+                }
+
+                File spillDir =
+                    ObjectPersister.ONLY.getSpillDirectory(nexusObject);
+
+                if (spillDir != null) {
+                    Iterator<UndoManager> mgrs = managers.values().iterator();
+
+                    while ((total > budget) && mgrs.hasNext()) {
+                        total -= mgrs.next().spillEdits(spillDir,
+                                                        total - budget);
+                    }
+                }
+
+                while (total > budget) {
+                    UndoManager largest = null;
+                    long largestSize = 0;
+
+                    // Recompute, since discarded edits may recover managers
+                    total = 0;
+
+                    Iterator<UndoManager> mgrs = managers.values().iterator();
+
+                    while (mgrs.hasNext()) {
+                        UndoManager part = mgrs.next();
+                        long partSize = part.getRetainedSize();
+
+                        total += partSize;
+
+                        if ((part.undoFenceIndex > 1) &&
+                            (partSize > largestSize))
+                        {
+                            largest = part;
+                            largestSize = partSize;
+                        }
+                    }
+
+                    if ((total <= budget) || (largest == null)) {
+                        break;
+                    }
+
+                    total -= largest.discardOldestEdit();
+                }
+            }
+
+            /**
+             * Sum the memory retained by the edits of all managers
+             * represented by this nexus.
+             */
+            public long getRetainedSize()
+            {
+                long total = 0;
+                Iterator<UndoManager> mgrs = managers.values().iterator();
+
+                while (mgrs.hasNext()) {
+                    total += mgrs.next().getRetainedSize();
+                }
+
+                return total;
+            }
+
             /**
              * Propagate a save point to all managers represented by this nexus.
              */
@@ -395,6 +504,13 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
     protected static Map<Object, UndoManagerNexus> nexuses =
     new HashMap<Object, UndoManagerNexus>();
 
+    /**
+     * The number of bytes the edits of all managers of a single nexus may
+     * retain (see <code>IUndoableEdit.getRetainedSize</code>); zero means
+     * there is no limit.  Defaults to a quarter of the maximum heap.
+     */
+    protected static long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+
     /**
      * Initialize the Undo Manager, using the default limit.
      *
@@ -489,6 +605,125 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
         return undoableEditLimit;
     }
 
+    /**
+     * Adjust the number of bytes the edits of all managers of a single nexus
+     * may retain; takes effect as edits are next added.
+     * A zero budget means to retain edits regardless of size.
+     *
+     * @param budget the new budget in bytes
+     * @exception    <code>IllegalArgumentException</code>
+     *               if <code>budget</code> < 0
+     */
+    public static void setMemoryBudget(long budget)
+    {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Cannot set the undo memory budget to a negative number");
+        }
+
+        memoryBudget = budget;
+    }
+
+    public static long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Sum the memory retained by the edits this manager maintains.
+     */
+    public long getRetainedSize()
+    {
+        long size = 0;
+        Iterator<IUndoableEdit> editsInOrder = edits.iterator();
+
+        while (editsInOrder.hasNext()) {
+            size += editsInOrder.next().getRetainedSize();
+        }
+
+        return size;
+    }
+
+    /**
+     * Internal support method: spill the payloads of edits, oldest first,
+     * until at least the given number of bytes is released.  The next edit
+     * to be undone is not spilled.
+     *
+     * @param spillDir the directory in which to spill payloads
+     * @param excess the number of bytes to release
+     * @return the number of bytes actually released
+     */
+    protected long spillEdits(File spillDir, long excess)
+    {
+        long released = 0;
+        int numEdits = edits.size();
+
+        for (int i = 0; (i < numEdits) && (released < excess); i++) {
+            if (i == undoFenceIndex - 1) {
+                continue;
+            }
+
+            IUndoableEdit edit = edits.get(i);
+            long size = edit.getRetainedSize();
+
+            if (size > 0) {
+                try {
+                    edit.spill(spillDir);
+                }
+                catch (IOException e) {
+                    // Disk trouble; leave the rest in memory
+                    return released + size - edit.getRetainedSize();
+                }
+
+                released += size - edit.getRetainedSize();
+            }
+        }
+
+        return released;
+    }
+
+    /**
+     * Internal support method: removes the oldest edit, which is assumed
+     * to be on the undo side of the fence, invoking its <code>die</code>
+     * method.
+     *
+     * @return the memory the removed edit had retained
+     */
+    protected long removeOldestEdit()
+    {
+        IUndoableEdit excessEdit = edits.get(0);
+        long size = excessEdit.getRetainedSize();
+
+        excessEdit.die();
+
+        // saveAtZero is always false if the start of the buffer is gone
+        edits.remove(0);
+
+        // Note: This works even if savedAtIndex is zero
+        //       since NO_SAVE_POINT is -1!
+        if (savedAtIndex != NO_SAVE_POINT) {
+            savedAtIndex--;
+        }
+
+        undoFenceIndex--;
+
+        return size;
+    }
+
+    /**
+     * Remove the oldest edit to stay within the memory budget.
+     * When done, registered alert handlers are notified.
+     *
+     * @return the memory the removed edit had retained
+     */
+    protected long discardOldestEdit()
+    {
+        long size = removeOldestEdit();
+
+        raiseAlert(new UndoRedoEvent(this, UndoRedoEvent.RemoveEditAction));
+
+        return size;
+    }
+
     /**
      * Mark the current undo buffer location as the current persisted state.
      */
@@ -592,20 +827,12 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
         if ((undoableEditLimit > 0) &&
             (edits.size() > undoableEditLimit))
         {
-            IUndoableEdit excessEdit = edits.get(0);
-
-            excessEdit.die();
-
-            // saveAtZero is always false if the start of the buffer is gone
-            edits.remove(0);
-
-            // Note: This works even if savedAtIndex is zero
-            //       since NO_SAVE_POINT is -1!
-            if (savedAtIndex != NO_SAVE_POINT) {
-                savedAtIndex--;
-            }
+            removeOldestEdit();
+        }
 
-            undoFenceIndex--;
+        // Then keep the history of the whole nexus within its memory budget
+        if (saveNexus != null) {
+            saveNexus.partHasGrown(this);
         }
 
         raiseAlert(new UndoRedoEvent(this, UndoRedoEvent.AddEditAction));
@@ -1098,7 +1325,7 @@ public class UndoManager extends Alerter implements IUndoableEditSequence
         UndoManagerNexus nexus = nexuses.get(nexusObject);
     
         if (nexus == null) {
-            nexus = new UndoManagerNexus();
+            nexus = new UndoManagerNexus(nexusObject);
     
             nexuses.put(nexusObject, nexus);
         }
@@ -96,6 +96,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
@@ -570,6 +571,23 @@ public class WindowUtil
         interact(false);
     }
 
+    /**
+     * Process events until the given future is done, such as when a
+     * command file must wait for background work whose completion is
+     * signaled from the main UI thread.  Returns early if the display
+     * has been disposed.
+     */
+    public static void interact(Future<?> untilDone)
+    {
+        while (! untilDone.isDone() && ! GLOBAL_DISPLAY.isDisposed()) {
+            processDeferredDisposals();
+
+            if (! GLOBAL_DISPLAY.readAndDispatch()) {
+                GLOBAL_DISPLAY.sleep();
+            }
+        }
+    }
+
     /**
      * Arrange for the disposal of a widget to be deferred until the
      * next iteration of the main event loop. If there is no open window
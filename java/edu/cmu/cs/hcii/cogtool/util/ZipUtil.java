@@ -92,22 +92,40 @@
 package edu.cmu.cs.hcii.cogtool.util;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Enumeration;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Utility class for zipping and unzipping files.
+ * <p>
+ * Archives are written by a writer of our own rather than by
+ * ZipOutputStream so that each file can be deflated in parallel:
+ * a file is cut into blocks, each block is deflated by an independent
+ * Deflater (primed with the tail of the previous block, as pigz does)
+ * and the results are concatenated in order into a single deflate stream.
+ * Files that are already compressed (JPEG, PNG, GIF, zip, gzip) are
+ * stored as is.
  * @author centgraf
  */
 public class ZipUtil
@@ -116,22 +134,66 @@ public class ZipUtil
   private ZipUtil() { }
 
   /**
-   * Zips a set of files into a single zip archive file.
+   * Compression level favoring speed, for saves the user waits on.
+   */
+  public static final int FAST_COMPRESSION = Deflater.BEST_SPEED;
+
+  /**
+   * Compression level favoring size, for archives written for keeps.
+   */
+  public static final int COMPACT_COMPRESSION = Deflater.BEST_COMPRESSION;
+
+  /**
+   * Size of the blocks deflated independently
+   */
+  private static final int BLOCK_SIZE = 128 * 1024;
+
+  /**
+   * Size of the deflate window; each block is primed with this much of
+   * the end of the previous block.
+   */
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  /**
+   * Leading bytes of file formats that deflate cannot improve upon
+   */
+  private static final byte[][] COMPRESSED_SIGNATURES =
+    { { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF },              // JPEG
+      { (byte) 0x89, 'P', 'N', 'G' },                         // PNG
+      { 'G', 'I', 'F', '8' },                                 // GIF
+      { 'P', 'K', 3, 4 },                                     // zip
+      { (byte) 0x1F, (byte) 0x8B } };                         // gzip
+
+  /**
+   * Zips a set of files into a single zip archive file, compressing
+   * as tightly as possible.
    * @param srcFiles a list containing Files to compress
    * @param zip the destination file location for the archive
    */
   public static void zip(List<File> srcFiles, File dst) throws IOException
   {
-    // Create a ZipOutputStream
-    FileOutputStream fos = null;
-    ZipOutputStream zip = null;
+    zip(srcFiles, dst, COMPACT_COMPRESSION);
+  }
 
-    try {
-      fos = new FileOutputStream(dst);
-      zip = new ZipOutputStream(fos);
+  /**
+   * Zips a set of files into a single zip archive file.
+   * @param srcFiles a list containing Files to compress
+   * @param zip the destination file location for the archive
+   * @param level the deflate compression level, from 0 (none) to 9;
+   *              see FAST_COMPRESSION and COMPACT_COMPRESSION
+   */
+  public static void zip(List<File> srcFiles, File dst, int level)
+      throws IOException
+  {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService deflaters = Executors.newFixedThreadPool(threads);
+    ZipWriter zip = null;
 
-      zip.setLevel(9);
-      zip.setMethod(ZipOutputStream.DEFLATED);
+    try {
+      zip = new ZipWriter(new FileOutputStream(dst),
+                          level,
+                          deflaters,
+                          2 * threads);
 
       // Recursively add file entries
       for (File src : srcFiles) {
@@ -139,23 +201,23 @@ public class ZipUtil
           zipDirectory(src, "", zip);
         }
         else {
-          zipOneFile(src, "", zip);
+          zip.writeFile(src, src.getName());
         }
       }
+
+      zip.finish();
     }
     finally {
-      // Close the output stream
-      if (fos != null) {
-        if (zip != null) {
-          zip.close();
-        }
+      deflaters.shutdownNow();
 
-        fos.close();
+      // Close the output stream
+      if (zip != null) {
+        zip.close();
       }
     }
   }
 
-  private static void zipDirectory(File dir, String base, ZipOutputStream zout)
+  private static void zipDirectory(File dir, String base, ZipWriter zout)
       throws IOException
   {
     // list all
@@ -171,88 +233,535 @@ public class ZipUtil
         }
         else {
           // add files to the stream
-          zipOneFile(file, base, zout);
+          zout.writeFile(file, base + file.getName());
         }
       }
     }
     else {
       // we have to add this dir explicitly as an entry
-      // Build proper entry name
-      String name = base + dir.getName() + '/';
+      zout.writeDirectory(base + dir.getName() + '/', dir.lastModified());
+    }
+  }
+
+  /**
+   * Whether the given file begins like a file in an already-compressed
+   * format.
+   */
+  private static boolean isCompressed(File file) throws IOException
+  {
+    byte[] head = new byte[4];
+    int len = 0;
+    InputStream in = new FileInputStream(file);
 
-      // Create a ZipEntry
-      ZipEntry entry = new ZipEntry(name);
-      entry.setTime(dir.lastModified());
+    try {
+      len = readFully(in, head);
+    }
+    finally {
+      in.close();
+    }
 
-      // Put the entry into the zip (actually, this just writes the header)
-      zout.putNextEntry(entry);
+    for (byte[] signature : COMPRESSED_SIGNATURES) {
+      if (len >= signature.length) {
+        int i = 0;
 
-      // Close off the entry (actually, this just writes more header info)
-      zout.closeEntry();
+        while ((i < signature.length) && (head[i] == signature[i])) {
+          i++;
+        }
+
+        if (i == signature.length) {
+          return true;
+        }
+      }
     }
+
+    return false;
   }
 
-  private static void zipOneFile(File file, String base, ZipOutputStream zout)
-      throws IOException
+  /**
+   * Reads until the buffer is full or the stream is exhausted.
+   * @return the number of bytes read
+   */
+  private static int readFully(InputStream in, byte[] buff) throws IOException
   {
-    // Build proper entry name
-    String name = base + file.getName();
+    int off = 0;
 
-    // Create a ZipEntry
-    ZipEntry entry = new ZipEntry(name);
-    entry.setTime(file.lastModified());
+    while (off < buff.length) {
+      int actualBytes = in.read(buff, off, buff.length - off);
 
-    // Put the entry into the zip (actually, this just writes the header)
-    zout.putNextEntry(entry);
+      if (actualBytes == -1) {
+        break;
+      }
 
-    // Input stream for reading the file
-    FileInputStream in = new FileInputStream(file);
+      off += actualBytes;
+    }
 
-    try {
-      // Copy the file contents to the zip, 100k at a time
-      long size = file.length();
-      int chunkSize = 100*1024;
-      byte[] buff = new byte[chunkSize];
-      int len = chunkSize;
-
-      for (; size > 0; size -= len) {
-        if (size < chunkSize) {
-          len = (int) size;
+    return off;
+  }
+
+  /**
+   * Reads the next block of a file to be deflated.
+   * @return the block, shorter than BLOCK_SIZE only at the end of the
+   *         file, or null if the file is exhausted
+   */
+  private static byte[] readBlock(InputStream in) throws IOException
+  {
+    byte[] block = new byte[BLOCK_SIZE];
+    int len = readFully(in, block);
+
+    if (len == 0) {
+      return null;
+    }
+
+    if (len < BLOCK_SIZE) {
+      byte[] shortBlock = new byte[len];
+
+      System.arraycopy(block, 0, shortBlock, 0, len);
+
+      return shortBlock;
+    }
+
+    return block;
+  }
+
+  /**
+   * Deflates one block of a file into a piece of the file's raw deflate
+   * stream.  Every block but the last ends with a sync flush, so that
+   * the pieces end on byte boundaries and can simply be concatenated;
+   * the last block finishes the stream.
+   */
+  private static class DeflateBlock implements Callable<byte[]>
+  {
+    private final byte[] data;
+    private final byte[] previous;
+    private final int level;
+    private final boolean last;
+
+    public DeflateBlock(byte[] block,
+                        byte[] previousBlock,
+                        int compressionLevel,
+                        boolean isLast)
+    {
+      data = block;
+      previous = previousBlock;
+      level = compressionLevel;
+      last = isLast;
+    }
+
+    public byte[] call()
+    {
+      Deflater deflater = new Deflater(level, true);
+
+      try {
+        // Prime the window with the end of the previous block so that
+        // back-references may cross block boundaries
+        if (previous != null) {
+          int dictLen = Math.min(DICTIONARY_SIZE, previous.length);
+
+          deflater.setDictionary(previous,
+                                 previous.length - dictLen,
+                                 dictLen);
+        }
+
+        deflater.setInput(data);
+
+        ByteArrayOutputStream out =
+          new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buff = new byte[32 * 1024];
+
+        if (last) {
+          deflater.finish();
+
+          while (! deflater.finished()) {
+            int len = deflater.deflate(buff);
+
+            out.write(buff, 0, len);
+          }
         }
         else {
-          len = chunkSize;
+          int len;
+
+          // A full buffer means the flush may not be complete
+          do {
+            len = deflater.deflate(buff, 0, buff.length, Deflater.SYNC_FLUSH);
+            out.write(buff, 0, len);
+          } while (len == buff.length);
         }
 
-        int actualBytes = 0;
-        int off = 0;
-//        System.out.print("" + '\n' + name + ' ');
+        return out.toByteArray();
+      }
+      finally {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Writes the zip file format: a local header and the data for each
+   * entry, followed by the central directory.  Deflated entries are
+   * written as they are compressed, so their sizes and CRC follow the
+   * data in a data descriptor.  ZIP64 extensions are not supported;
+   * no entry or archive may exceed 4GB.
+   */
+  private static class ZipWriter
+  {
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+
+    private static final int VERSION = 20;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int DIRECTORY_ATTR = 0x10;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+    private final int level;
+    private final ExecutorService deflaters;
+    private final int maxPendingBlocks;
+
+    private final ByteArrayOutputStream centralDir =
+      new ByteArrayOutputStream();
+    private int entryCount = 0;
+    private long offset = 0;
+
+    public ZipWriter(OutputStream dst,
+                     int compressionLevel,
+                     ExecutorService deflateService,
+                     int maxPending)
+    {
+      out = new BufferedOutputStream(dst, 64 * 1024);
+      level = compressionLevel;
+      deflaters = deflateService;
+      maxPendingBlocks = maxPending;
+    }
+
+    public void writeDirectory(String name, long time) throws IOException
+    {
+      byte[] nameBytes = name.getBytes("UTF-8");
+      int dosTime = toDosTime(time);
+      long headerOffset = offset;
+
+      writeLocalHeader(nameBytes, FLAG_UTF8, STORED, dosTime, 0, 0, 0);
+      addCentralEntry(nameBytes, FLAG_UTF8, STORED, dosTime, 0, 0, 0,
+                      DIRECTORY_ATTR, headerOffset);
+    }
+
+    public void writeFile(File file, String name) throws IOException
+    {
+      if (isCompressed(file)) {
+        writeStored(file, name);
+      }
+      else {
+        writeDeflated(file, name);
+      }
+    }
+
+    /**
+     * Stored entries need their CRC in the local header (readers
+     * cannot find the end of stored data otherwise), so the file is
+     * read twice.
+     */
+    private void writeStored(File file, String name) throws IOException
+    {
+      byte[] nameBytes = name.getBytes("UTF-8");
+      int dosTime = toDosTime(file.lastModified());
+      long headerOffset = offset;
+      byte[] buff = new byte[BLOCK_SIZE];
+      CRC32 crc = new CRC32();
+      long size = 0;
+      InputStream in = new FileInputStream(file);
+
+      try {
+        int len;
+
+        while ((len = readFully(in, buff)) > 0) {
+          crc.update(buff, 0, len);
+          size += len;
+        }
+      }
+      finally {
+        in.close();
+      }
+
+      checkSize(size, name);
+      writeLocalHeader(nameBytes, FLAG_UTF8, STORED, dosTime,
+                       crc.getValue(), size, size);
+
+      long copied = 0;
+      in = new FileInputStream(file);
+
+      try {
+        int len;
+
+        while ((copied < size) && ((len = readFully(in, buff)) > 0)) {
+          len = (int) Math.min(len, size - copied);
+          out.write(buff, 0, len);
+          copied += len;
+        }
+      }
+      finally {
+        in.close();
+      }
+
+      if (copied != size) {
+        throw new IOException("File changed while zipping: " + file);
+      }
+
+      offset += size;
+      addCentralEntry(nameBytes, FLAG_UTF8, STORED, dosTime,
+                      crc.getValue(), size, size, 0, headerOffset);
+    }
+
+    /**
+     * Blocks are read and checksummed here, deflated by the executor
+     * (at most maxPendingBlocks at a time, to bound memory use) and
+     * written out in order as they complete.
+     */
+    private void writeDeflated(File file, String name) throws IOException
+    {
+      byte[] nameBytes = name.getBytes("UTF-8");
+      int flags = FLAG_UTF8 | FLAG_DATA_DESCRIPTOR;
+      int dosTime = toDosTime(file.lastModified());
+      long headerOffset = offset;
+      CRC32 crc = new CRC32();
+      long size = 0;
+      long compressedSize = 0;
+      LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+
+      writeLocalHeader(nameBytes, flags, DEFLATED, dosTime, 0, 0, 0);
+
+      InputStream in = new FileInputStream(file);
+
+      try {
+        byte[] previous = null;
+        byte[] block = readBlock(in);
+
+        if (block == null) {
+          block = new byte[0];
+        }
 
         do {
-          actualBytes = in.read(buff, off, len);
+          byte[] next = readBlock(in);
 
-          if (actualBytes == -1) {
-            zout.write(buff, off, len);
-//           System.out.print("!" + len + ':' + actualBytes + ':' + off + ' ');
-            throw new RuntimeException("Bad math in zip!");
-          }
-          else {
-            zout.write(buff, off, actualBytes);
-//            System.out.print("" + len + ':' + actualBytes + ':' + off + ' ');
+          crc.update(block);
+          size += block.length;
+
+          pending.add(deflaters.submit(new DeflateBlock(block,
+                                                        previous,
+                                                        level,
+                                                        next == null)));
+
+          if (pending.size() >= maxPendingBlocks) {
+            compressedSize += writeBlock(pending.removeFirst());
           }
 
-          len -= actualBytes;
-          size -= actualBytes;
-          off += actualBytes;
-        } while ((len > 0));
+          previous = block;
+          block = next;
+        } while (block != null);
+
+        while (! pending.isEmpty()) {
+          compressedSize += writeBlock(pending.removeFirst());
+        }
       }
+      finally {
+        in.close();
+
+        for (Future<byte[]> block : pending) {
+          block.cancel(true);
+        }
+      }
+
+      checkSize(size, name);
+      checkSize(compressedSize, name);
+
+      writeInt(DATA_DESCRIPTOR_SIG);
+      writeInt(crc.getValue());
+      writeInt(compressedSize);
+      writeInt(size);
+
+      addCentralEntry(nameBytes, flags, DEFLATED, dosTime,
+                      crc.getValue(), compressedSize, size, 0, headerOffset);
     }
-    finally {
-      // Close off the input stream
-      in.close();
+
+    private int writeBlock(Future<byte[]> pendingBlock) throws IOException
+    {
+      byte[] compressed;
+
+      try {
+        compressed = pendingBlock.get();
+      }
+      catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while zipping");
+      }
+      catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+
+        IOException newE = new IOException("Compression failed");
+        newE.initCause(cause);
+
+        throw newE;
+      }
+
+      out.write(compressed);
+      offset += compressed.length;
+
+      return compressed.length;
+    }
+
+    /**
+     * Writes the central directory and the end record.
+     */
+    public void finish() throws IOException
+    {
+      long centralOffset = offset;
+      long centralSize = centralDir.size();
+
+      if (entryCount > 0xFFFF) {
+        throw new IOException("Too many files to zip: " + entryCount);
+      }
+
+      checkSize(centralOffset + centralSize, "archive");
+
+      centralDir.writeTo(out);
+      offset += centralSize;
+
+      writeInt(END_SIG);
+      writeShort(0);                  // this disk
+      writeShort(0);                  // disk with central directory
+      writeShort(entryCount);
+      writeShort(entryCount);
+      writeInt(centralSize);
+      writeInt(centralOffset);
+      writeShort(0);                  // comment length
+
+      out.flush();
+    }
+
+    public void close() throws IOException
+    {
+      out.close();
     }
 
-    // Close off the entry (actually, this just writes more header info)
-    zout.closeEntry();
+    private void writeLocalHeader(byte[] nameBytes,
+                                  int flags,
+                                  int method,
+                                  int dosTime,
+                                  long crc,
+                                  long compressedSize,
+                                  long size)
+      throws IOException
+    {
+      writeInt(LOCAL_HEADER_SIG);
+      writeShort(VERSION);
+      writeShort(flags);
+      writeShort(method);
+      writeInt(dosTime);
+      writeInt(crc);
+      writeInt(compressedSize);
+      writeInt(size);
+      writeShort(nameBytes.length);
+      writeShort(0);                  // extra field length
+      out.write(nameBytes);
+      offset += nameBytes.length;
+    }
+
+    private void addCentralEntry(byte[] nameBytes,
+                                 int flags,
+                                 int method,
+                                 int dosTime,
+                                 long crc,
+                                 long compressedSize,
+                                 long size,
+                                 int externalAttrs,
+                                 long headerOffset)
+      throws IOException
+    {
+      checkSize(headerOffset, "archive");
+
+      writeInt(centralDir, CENTRAL_HEADER_SIG);
+      writeShort(centralDir, VERSION); // version made by
+      writeShort(centralDir, VERSION); // version needed to extract
+      writeShort(centralDir, flags);
+      writeShort(centralDir, method);
+      writeInt(centralDir, dosTime);
+      writeInt(centralDir, crc);
+      writeInt(centralDir, compressedSize);
+      writeInt(centralDir, size);
+      writeShort(centralDir, nameBytes.length);
+      writeShort(centralDir, 0);       // extra field length
+      writeShort(centralDir, 0);       // comment length
+      writeShort(centralDir, 0);       // disk number
+      writeShort(centralDir, 0);       // internal attributes
+      writeInt(centralDir, externalAttrs);
+      writeInt(centralDir, headerOffset);
+      centralDir.write(nameBytes);
+
+      entryCount++;
+    }
+
+    private void writeShort(int v) throws IOException
+    {
+      writeShort(out, v);
+      offset += 2;
+    }
+
+    private void writeInt(long v) throws IOException
+    {
+      writeInt(out, v);
+      offset += 4;
+    }
+
+    private static void writeShort(OutputStream o, int v) throws IOException
+    {
+      o.write(v & 0xFF);
+      o.write((v >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream o, long v) throws IOException
+    {
+      writeShort(o, (int) (v & 0xFFFF));
+      writeShort(o, (int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private static void checkSize(long size, String what) throws IOException
+    {
+      if (size > MAX_SIZE) {
+        throw new IOException("Too large to zip (over 4GB): " + what);
+      }
+    }
+
+    /**
+     * Converts a Java time to the MS-DOS date and time used by zip files.
+     */
+    private static int toDosTime(long time)
+    {
+      Calendar cal = Calendar.getInstance();
+
+      cal.setTimeInMillis(time);
+
+      int year = cal.get(Calendar.YEAR);
+
+      if (year < 1980) {
+        return (1 << 21) | (1 << 16);   // 1980-01-01 00:00:00
+      }
+
+      return ((year - 1980) << 25)
+             | ((cal.get(Calendar.MONTH) + 1) << 21)
+             | (cal.get(Calendar.DAY_OF_MONTH) << 16)
+             | (cal.get(Calendar.HOUR_OF_DAY) << 11)
+             | (cal.get(Calendar.MINUTE) << 5)
+             | (cal.get(Calendar.SECOND) >> 1);
+    }
   }
 
   /**
@@ -308,6 +308,10 @@ public class MenuFactory
         new SimpleMenuItemDefinition(L10N.get("MI.PM.ExportDictionary",
         "Export Dictionary to CSV"),
         ProjectLID.ExportDictToCSV);
+    public static final SimpleMenuItemDefinition EXPORT_PARAMETER_SWEEP =
+        new SimpleMenuItemDefinition(L10N.get("MI.PM.ExportParameterSweep",
+        "Export KLM Estimate Sweep to CSV..."),
+        ProjectLID.ExportParameterSweep);
     public static final SimpleMenuItemDefinition IMPORT_DICTIONARY =
         new SimpleMenuItemDefinition(L10N.get("MI.PM.ImportDictionary",
         "Import Dictionary from CSV"),
@@ -750,6 +754,11 @@ public class MenuFactory
         "Recompute Script(s)"),
         CogToolLID.RecomputeScript);
 
+    public static final SimpleMenuItemDefinition RECOMPUTE_STALE_RESULTS =
+        new SimpleMenuItemDefinition(L10N.get("MI.PM.RecomputeStaleResults",
+        "Recompute S&tale Results"),
+        ProjectLID.RecomputeStaleResults);
+
 
     public static final SimpleMenuItemDefinition EDIT_SCRIPT =
         new SimpleMenuItemDefinition(L10N.get("MI.PM.EditScript",
@@ -1032,6 +1041,7 @@ public class MenuFactory
         result.add(EXPORT_SCRIPT_TO_CSV);
         result.add(EXPORT_RESULTS_TO_CSV);
         if (research) {
+            result.add(EXPORT_PARAMETER_SWEEP);
             result.add(EXPORT_DICTIONARY);
         }
         if (hcipa) {
@@ -1188,6 +1198,7 @@ public class MenuFactory
         List<MenuItemDefinition> result = new ArrayList<MenuItemDefinition>();
 
         result.add(RECOMPUTE_SCRIPT);
+        result.add(RECOMPUTE_STALE_RESULTS);
         result.add(MenuUtil.SEPARATOR);
         result.add(ADD_DESIGN_DEVICES);
         result.add(MenuUtil.SEPARATOR);
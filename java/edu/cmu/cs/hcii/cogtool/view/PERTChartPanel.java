@@ -119,7 +119,6 @@ import edu.cmu.cs.hcii.cogtool.util.GraphicsUtil;
 import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
 import edu.cmu.cs.hcii.cogtool.util.ITimeSliceDisplayable;
 import edu.cmu.cs.hcii.cogtool.util.L10N;
-import edu.cmu.cs.hcii.cogtool.util.StringUtil;
 
 public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
 {
@@ -140,6 +139,17 @@ public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
     //protected Table scriptTable;
 
     protected StyledText traceText;
+
+    /**
+     * Character position of the start of each displayed trace line, plus
+     * the end of the displayed trace
+     */
+    protected int[] traceLineOffsets;
+
+    /**
+     * The number of trace lines displayed
+     */
+    protected static final int MAX_TRACE_LINES = 10000;
     protected Text operatorInfoText;
     protected Label infoLabel;
 
@@ -317,17 +327,7 @@ public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
         traceText.setSelectionBackground(selectionColor);
         traceText.setFont(new Font(getDisplay(), "Monaco", 10, SWT.NORMAL));
 
-        Iterator<String> traceIt = result.getTraceLines().iterator();
-        StringBuilder tt = new StringBuilder();
-
-        //TODO: Really long traces cause the system to hang here. Fix it!
-        int lineCount = 0;
-        while ((traceIt.hasNext()) && (lineCount < 10000)) {
-            lineCount++;
-            tt.append(traceIt.next() + "\n");
-        }
-        traceText.setText(tt.toString());
-        //this.traceText.append(tt);
+        setTraceText(result.getTraceLines());
 
         traceText.setSelection(0);
         traceText.showSelection();
@@ -507,20 +507,45 @@ public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
         visPanel.setResultSteps(steps, resourceLabels);
         labelPanel.setResourceLabels(resourceLabels);
 
-        Iterator<String> traceIt = result.getTraceLines().iterator();
-        StringBuilder tt = new StringBuilder();
+        setTraceText(result.getTraceLines());
+    }
 
+    /**
+     * Display (the start of) the given trace, recording where each
+     * displayed line begins so that steps' trace lines can be selected.
+     */
+    protected void setTraceText(List<String> traceLines)
+    {
         //TODO: Really long traces cause the system to hang here. Fix it!
-        int lineCount = 0;
+        int lineCount = Math.min(traceLines.size(), MAX_TRACE_LINES);
+        Iterator<String> traceIt = traceLines.iterator();
+        StringBuilder tt = new StringBuilder();
+
+        traceLineOffsets = new int[lineCount + 1];
 
-        while ((traceIt.hasNext()) && (lineCount < 10000)) {
-            lineCount++;
-            tt.append(traceIt.next() + "\n");
+        for (int i = 0; i < lineCount; i++) {
+            traceLineOffsets[i] = tt.length();
+            tt.append(traceIt.next()).append('\n');
         }
 
+        traceLineOffsets[lineCount] = tt.length();
+
         traceText.setText(tt.toString());
     }
 
+    /**
+     * Returns the character position at which the given trace line begins,
+     * or -1 if the line is beyond the displayed trace.
+     */
+    protected int getTraceLineOffset(int lineNum)
+    {
+        if (lineNum >= traceLineOffsets.length) {
+            return -1;
+        }
+
+        return traceLineOffsets[Math.max(0, lineNum)];
+    }
+
 
     /**
      * Associate this view with a PERTChartSelectionState so that, when a new
@@ -541,8 +566,6 @@ public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
                 List<ResultStep> selectedStepList =
                     ((PERTChartSelectionState.SelectionChange) alert).selectedSteps;
 
-                String trace = traceText.getText();
-
                 int startPos = -1;
                 int endPos = -1;
 
@@ -556,20 +579,17 @@ public class PERTChartPanel extends Composite implements ITimeSliceDisplayable
                     if (startPos < 0) {
                         startPos =
                             Math.max(0,
-                                     StringUtil.getCharPosFromLineNum(trace,
-                                                                      step.traceStart));
+                                     getTraceLineOffset(step.traceStart));
                     }
                     else {
                         startPos =
                             Math.min(startPos,
-                                     StringUtil.getCharPosFromLineNum(trace,
-                                                                      step.traceStart));
+                                     getTraceLineOffset(step.traceStart));
                     }
 
                     endPos =
                         Math.max(endPos,
-                                 StringUtil.getCharPosFromLineNum(trace,
-                                                                  step.traceEnd));
+                                 getTraceLineOffset(step.traceEnd));
                 }
 
                 if (selectedStepList.size() == 0) {
@@ -94,9 +94,12 @@ package edu.cmu.cs.hcii.cogtool.view;
 import java.util.ArrayList;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.draw2d.ColorConstants;
 import org.eclipse.draw2d.FigureListener;
@@ -119,6 +122,7 @@ import edu.cmu.cs.hcii.cogtool.model.ResultStep;
 import edu.cmu.cs.hcii.cogtool.ui.PERTChartSelectionState;
 import edu.cmu.cs.hcii.cogtool.uimodel.PERTChartOperatorBar;
 import edu.cmu.cs.hcii.cogtool.uimodel.PERTChartOperatorBar.PERTStepDependency;
+import edu.cmu.cs.hcii.cogtool.uimodel.PERTStepIndex;
 import edu.cmu.cs.hcii.cogtool.util.GraphicsUtil;
 import edu.cmu.cs.hcii.cogtool.util.AlertHandler;
 import edu.cmu.cs.hcii.cogtool.util.ITimeSliceDisplayable;
@@ -134,6 +138,12 @@ import edu.cmu.cs.hcii.cogtool.util.SWTContextMenuUtil.MenuListener;
  * drawn, which allows additional data to be drawn outside of that region.  The
  * PERTInteractivePanel draws a timeline in the upper margin, for example.
  *
+ * Traces may have tens of thousands of steps, so figures are created only for
+ * the steps in the displayed time slice (found using a PERTStepIndex) and for
+ * the steps they are connected to by dependencies; they are discarded when
+ * they leave the slice.  Narrow bars that would be drawn over the pixels of
+ * an earlier narrow bar on the same row are omitted as well.
+ *
  * @author jbc
  *
  */
@@ -273,11 +283,43 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
     }
 
     /**
-     * List of PERTChartOperatorBar objects to draw
+     * Bars narrower than this many pixels may be omitted if their leftmost
+     * pixel is already drawn by an earlier narrow bar on the same row
+     */
+    protected static final int NARROW_BAR_WIDTH = 3;
+
+    /**
+     * Index of the ResultStep objects being visualized
+     */
+    protected PERTStepIndex stepIndex;
+
+    protected List<String> rowLabels;
+
+    /**
+     * List of PERTChartOperatorBar objects currently drawn, in order of
+     * start time; only the steps being displayed have bars
+     */
+    protected List<PERTChartOperatorBar> bars =
+        new ArrayList<PERTChartOperatorBar>();
+
+    protected Map<ResultStep, PERTChartOperatorBar> barMap =
+        new HashMap<ResultStep, PERTChartOperatorBar>();
+
+    /**
+     * Dependencies currently drawn, between bars in barMap
+     */
+    protected List<PERTStepDependency> connections =
+        new ArrayList<PERTStepDependency>();
+
+    /**
+     * The bars and dependencies are the first children of contents: cascade
+     * bars, then operator bars, then dependencies, so that anything else a
+     * subclass adds is drawn over them.
      */
-    protected List<PERTChartOperatorBar> bars;
+    protected int cascadeCount = 0;
+    protected int operatorCount = 0;
 
-    protected List<PERTStepDependency> connections;
+    protected Set<ResultStep> selectedSteps = new HashSet<ResultStep>();
 
     /**
      * The lightweight system is the interface layer between SWT and draw2d.
@@ -421,78 +463,7 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
 
         barHeight = bHeight;
 
-        numRows = resourceLabels.size();
-
-        // create list of PERTChartOperatorBar from the ModelStep list
-
-        Iterator<ResultStep> stepIterator = steps.iterator();
-        bars = new ArrayList<PERTChartOperatorBar>();
-        connections = new ArrayList<PERTStepDependency>();
-        // TODO: Look into not saving the connections
-
-        nativeTotalTime = 0.0;
-
-        ResultStep step;
-        PERTChartOperatorBar bar;
-
-        // create a map so that we can copy the dependency structure from the
-        // ResultSteps to the PERTChartOperatorBars
-        // TODO: save this state, and use this instead of bars
-        Map<ResultStep, PERTChartOperatorBar> barMap =
-            new HashMap<ResultStep, PERTChartOperatorBar>();
-        List<PERTChartOperatorBar> operators =
-            new ArrayList<PERTChartOperatorBar>();
-
-        // iterate through once and create operator bars
-        while (stepIterator.hasNext()) {
-            step = stepIterator.next();
-            bar =
-                new PERTChartOperatorBar(step, resourceLabels, barHeight);
-
-            bar.setColorWithMap(colorMap);
-
-            barMap.put(step, bar);
-
-            bars.add(bar);
-            if (bar.isCascade()) {
-                contents.add(bar);
-            }
-            else {
-                operators.add(bar);
-            }
-
-            // compare to find the total time
-            nativeTotalTime =
-                Math.max(nativeTotalTime, step.startTime + step.duration);
-        }
-
-        // iterator through operators, and add them now:
-        Iterator<PERTChartOperatorBar> opIter = operators.iterator();
-        while (opIter.hasNext()) {
-            contents.add(opIter.next());
-        }
-
-        // iterate through again setting dependencies on each bar object
-        //   based on the dependencies in each ResultStep object
-
-        ResultStep.ResultStepDependency rStepDep;
-        Iterator<ResultStep.ResultStepDependency> depStepIter;
-        stepIterator = steps.iterator();
-
-        while (stepIterator.hasNext()) {
-            step = stepIterator.next();
-            bar = barMap.get(step);
-            depStepIter = step.getDependencies().iterator();
-
-            while (depStepIter.hasNext()) {
-                rStepDep = depStepIter.next();
-                PERTChartOperatorBar otherBar = barMap.get(rStepDep.dependency);
-
-                PERTStepDependency dep = bar.addDependency(otherBar, rStepDep);
-                contents.add(dep);
-                connections.add(dep);
-            }
-        }
+        indexSteps(steps, resourceLabels);
 
         // set initial start and end times to show entire region
         displayEndTime = nativeTotalTime;
@@ -598,79 +569,378 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
             PrecisionUtilities.round((totalHeight - 10) / Math.max(numRows,
                                                                    1));
 
-        Iterator<PERTChartOperatorBar> barIterator = bars.iterator();
-        PERTChartOperatorBar bar;
+        double displayedDuration = displayEndTime - displayStartTime;
+
+        if ((totalTime > 0) && (displayedDuration > 0)) {
+            showSteps(placeSteps(totalWidth, regionHeight, displayedDuration));
+        }
+
+        lws.getUpdateManager().performUpdate();
+    }
+
+
+    /**
+     * Records the steps to visualize and the model resources; figures are
+     * created for them as needed by resizeVisualization.
+     */
+    protected void indexSteps(List<ResultStep> steps,
+                              List<String> resourceLabels)
+    {
+        stepIndex = new PERTStepIndex(steps);
+        rowLabels = resourceLabels;
+        numRows = resourceLabels.size();
+        nativeTotalTime = stepIndex.getEndTime();
+    }
+
+    /**
+     * Computes the bounds of the bar for the given step, scaling its start
+     * time and duration to the displayed time slice.
+     */
+    protected Rectangle computeBarBounds(ResultStep step,
+                                         int totalWidth,
+                                         int regionHeight,
+                                         double displayedDuration)
+    {
+        int row = rowLabels.indexOf(step.resource);
+        int endRow = (step.targetResource != null)
+                            ? rowLabels.indexOf(step.targetResource)
+                            : -1;
 
         int barW;
         int barH;
         int barX;
         int barY;
 
-        // rescale the width of each bar based on the ratio of it's duration to
-        // the total time, and set its new position
+        // Calculate position based on the position of the right of the
+        // bar to avoid oscillating widths
+        int barRightPos =
+            marginLeft
+                + PrecisionUtilities.round(((step.startTime
+                                               + step.duration
+                                               - displayStartTime)
+                                            / displayedDuration)
+                                            * (totalWidth - 10));
+
+        barX =
+            marginLeft
+                + PrecisionUtilities.round(((step.startTime
+                                               - displayStartTime)
+                                            / displayedDuration)
+                                            * (totalWidth - 10));
+
+        barW = barRightPos - barX + 1;
+
+        if (endRow > -1) {
+            // cascade
+            int y1 = Math.min(row, endRow);
+            int y2 = Math.max(row, endRow);
+
+            barY =
+                marginTop
+                    + (y1 * regionHeight)
+                    + PrecisionUtilities.round(0.5 * barHeight);
+
+            barH = (y2 - y1) * regionHeight;
+
+            if (barW < 1) {
+                barW = 1;
+            }
+        }
+        else {
+            barY = marginTop + (row * regionHeight);
+            barH = barHeight;
 
-        double displayedDuration = displayEndTime - displayStartTime;
+            if (barW < 3) {
+                barX -= 1;
+                barW = 3;
+            }
+        }
 
-        if ((totalTime > 0) && (displayedDuration > 0)) {
-            while (barIterator.hasNext()) {
-                bar = barIterator.next();
-
-                // Calculate position based on the position of the right of the
-                // bar to avoid oscillating widths
-                int barRightPos =
-                    marginLeft
-                        + PrecisionUtilities.round(((bar.getStartTime()
-                                                       + bar.getDuration()
-                                                       - displayStartTime)
-                                                    / displayedDuration)
-                                                    * (totalWidth - 10));
-
-//
-//                barW = PrecisionUtilities.round((bar.getDuration() * (totalWidth - 10))
-//                                                / displayedDuration) + 1;
-
-                barX =
-                    marginLeft
-                        + PrecisionUtilities.round(((bar.getStartTime()
-                                                       - displayStartTime)
-                                                    / displayedDuration)
-                                                    * (totalWidth - 10));
-
-                barW = barRightPos - barX + 1;
-
-                if (bar.isCascade()) {
-                    int y1 = Math.min(bar.getRow(), bar.getEndRow());
-                    int y2 = Math.max(bar.getRow(), bar.getEndRow());
-
-                    barY =
-                        marginTop
-                            + (y1 * regionHeight)
-                            + PrecisionUtilities.round(0.5 * barHeight);
-
-                    barH = (y2 - y1) * regionHeight;
-
-                    if (barW < 1) {
-                        barW = 1;
-                    }
+        return new Rectangle(barX, barY, barW, barH);
+    }
+
+    /**
+     * Determines the steps to draw, in order of start time, and the bounds
+     * of their bars: the steps in the displayed time slice except narrow
+     * ones hidden by earlier narrow ones, plus the steps outside the slice
+     * connected by a dependency to one of those.
+     */
+    protected Map<ResultStep, Rectangle> placeSteps(int totalWidth,
+                                                    int regionHeight,
+                                                    double displayedDuration)
+    {
+        Map<ResultStep, Rectangle> placed =
+            new LinkedHashMap<ResultStep, Rectangle>();
+
+        // Maps a row (or span of rows, for cascades) to the rightmost pixel
+        // drawn there by a narrow bar
+        Map<Long, Integer> drawnTo = new HashMap<Long, Integer>();
+
+        for (ResultStep step : stepIndex.getSteps(displayStartTime,
+                                                  displayEndTime))
+        {
+            Rectangle bds = computeBarBounds(step,
+                                             totalWidth,
+                                             regionHeight,
+                                             displayedDuration);
+
+            if ((bds.width <= NARROW_BAR_WIDTH) &&
+                ! selectedSteps.contains(step))
+            {
+                Long rowKey = new Long((((long) bds.y) << 32) + bds.height);
+                Integer rowRight = drawnTo.get(rowKey);
+
+                if ((rowRight != null) && (bds.x <= rowRight.intValue())) {
+                    continue;
                 }
-                else {
-                    barY = marginTop + (bar.getRow() * regionHeight);
-                    barH = barHeight;
 
-                    if (barW < 3) {
-                        barX -= 1;
-                        barW = 3;
-                    }
+                drawnTo.put(rowKey, new Integer(bds.x + bds.width - 1));
+            }
+
+            placed.put(step, bds);
+        }
+
+        List<ResultStep> shown = new ArrayList<ResultStep>(placed.keySet());
+
+        for (ResultStep step : shown) {
+            for (ResultStep.ResultStepDependency rStepDep : step.getDependencies()) {
+                placePartner(rStepDep.dependency,
+                             placed,
+                             totalWidth,
+                             regionHeight,
+                             displayedDuration);
+            }
+
+            for (ResultStep dependent : stepIndex.getDependents(step)) {
+                placePartner(dependent,
+                             placed,
+                             totalWidth,
+                             regionHeight,
+                             displayedDuration);
+            }
+        }
+
+        return placed;
+    }
+
+    /**
+     * A step outside the displayed time slice needs a bar so that its
+     * dependency on a displayed step can be drawn.
+     */
+    protected void placePartner(ResultStep step,
+                                Map<ResultStep, Rectangle> placed,
+                                int totalWidth,
+                                int regionHeight,
+                                double displayedDuration)
+    {
+        if ((step != null) &&
+            ! placed.containsKey(step) &&
+            ! PERTStepIndex.overlaps(step, displayStartTime, displayEndTime))
+        {
+            placed.put(step, computeBarBounds(step,
+                                              totalWidth,
+                                              regionHeight,
+                                              displayedDuration));
+        }
+    }
+
+    /**
+     * Creates the bar for the given step and adds it to contents.
+     */
+    protected PERTChartOperatorBar createBar(ResultStep step)
+    {
+        PERTChartOperatorBar bar =
+            new PERTChartOperatorBar(step, rowLabels, barHeight);
+
+        bar.setColorWithMap(colorMap);
+
+        if (bar.isCascade()) {
+            contents.add(bar, cascadeCount);
+            cascadeCount++;
+        }
+        else {
+            contents.add(bar, cascadeCount + operatorCount);
+            operatorCount++;
+        }
+
+        barMap.put(step, bar);
+
+        return bar;
+    }
+
+    protected void removeBar(PERTChartOperatorBar bar)
+    {
+        contents.remove(bar);
+
+        if (bar.isCascade()) {
+            cascadeCount--;
+        }
+        else {
+            operatorCount--;
+        }
+
+        bar.dispose();
+    }
+
+    /**
+     * Allows subclasses to change how dependencies are drawn.
+     */
+    protected void decorateDependency(PERTStepDependency dep)
+    {
+        // By default, show the arrow
+    }
+
+    /**
+     * Makes the drawn bars and dependencies those of the given steps,
+     * reusing the figures of steps already drawn.
+     */
+    protected void showSteps(Map<ResultStep, Rectangle> placed)
+    {
+        Iterator<Map.Entry<ResultStep, PERTChartOperatorBar>> liveBars =
+            barMap.entrySet().iterator();
+
+        while (liveBars.hasNext()) {
+            Map.Entry<ResultStep, PERTChartOperatorBar> entry =
+                liveBars.next();
+
+            if (! placed.containsKey(entry.getKey())) {
+                removeBar(entry.getValue());
+                liveBars.remove();
+            }
+        }
+
+        Iterator<PERTStepDependency> liveDeps = connections.iterator();
+
+        while (liveDeps.hasNext()) {
+            PERTStepDependency dep = liveDeps.next();
+
+            if (! barMap.containsKey(dep.parent.getStep()) ||
+                ! barMap.containsKey(dep.dependency.getStep()))
+            {
+                contents.remove(dep);
+                dep.parent.getDependencies().remove(dep);
+                liveDeps.remove();
+            }
+        }
+
+        bars.clear();
+
+        for (Map.Entry<ResultStep, Rectangle> entry : placed.entrySet()) {
+            ResultStep step = entry.getKey();
+            PERTChartOperatorBar bar = barMap.get(step);
+
+            if (bar == null) {
+                bar = createBar(step);
+            }
+
+            bar.setSelected(selectedSteps.contains(step));
+            bar.setBounds(entry.getValue());
+            bars.add(bar);
+        }
+
+        // Each bar notifies only its most recent anchors when it moves,
+        // so have every drawn dependency recompute its route
+        Iterator<PERTStepDependency> depIterator = connections.iterator();
+
+        while (depIterator.hasNext()) {
+            depIterator.next().revalidate();
+        }
+
+        for (PERTChartOperatorBar bar : bars) {
+            for (ResultStep.ResultStepDependency rStepDep : bar.getStep().getDependencies()) {
+                PERTChartOperatorBar otherBar = barMap.get(rStepDep.dependency);
+
+                if ((otherBar != null) && ! isConnected(bar, rStepDep)) {
+                    PERTStepDependency dep =
+                        bar.addDependency(otherBar, rStepDep);
+
+                    decorateDependency(dep);
+                    contents.add(dep,
+                                 cascadeCount + operatorCount
+                                              + connections.size());
+                    connections.add(dep);
                 }
+            }
+        }
+
+        updateSelectionHalos();
+    }
 
-                bar.setBounds(new Rectangle(barX, barY, barW, barH));
+    protected boolean isConnected(PERTChartOperatorBar bar,
+                                  ResultStep.ResultStepDependency rStepDep)
+    {
+        for (PERTStepDependency dep : bar.getDependencies()) {
+            if (dep.rStepDep == rStepDep) {
+                return true;
             }
+        }
+
+        return false;
+    }
 
+    /**
+     * Ensures that exactly the drawn bars of the selected steps have halos.
+     */
+    protected void updateSelectionHalos()
+    {
+        Set<PERTChartOperatorBar> haloed = new HashSet<PERTChartOperatorBar>();
+        Iterator<SelectionHalo> haloIterator = selectionBoxes.iterator();
+
+        while (haloIterator.hasNext()) {
+            SelectionHalo halo = haloIterator.next();
+            PERTChartOperatorBar target = halo.getTarget();
+
+            if ((target != null) &&
+                (barMap.get(target.getStep()) == target) &&
+                selectedSteps.contains(target.getStep()))
+            {
+                haloed.add(target);
+            }
+            else {
+                contents.remove(halo);
+                halo.setTarget(null);
+                halo.dispose();
+                haloIterator.remove();
+            }
         }
 
-        lws.getUpdateManager().performUpdate();
+        for (ResultStep step : selectedSteps) {
+            PERTChartOperatorBar bar = barMap.get(step);
+
+            if ((bar != null) && ! haloed.contains(bar)) {
+                SelectionHalo halo = new SelectionHalo();
+
+                halo.setTarget(bar);
+                contents.add(halo);
+                selectionBoxes.add(halo);
+            }
+        }
     }
 
+    /**
+     * Removes all bars, dependencies and selection halos from contents.
+     */
+    protected void removeAllBars()
+    {
+        Iterator<PERTStepDependency> depIterator = connections.iterator();
+
+        while (depIterator.hasNext()) {
+            contents.remove(depIterator.next());
+        }
+
+        connections.clear();
+
+        Iterator<PERTChartOperatorBar> barIterator = barMap.values().iterator();
+
+        while (barIterator.hasNext()) {
+            removeBar(barIterator.next());
+        }
+
+        barMap.clear();
+        bars.clear();
+
+        updateSelectionHalos();
+    }
 
     /**
      * @return List of PERTChartOperatorBar objects that are being displayed
@@ -720,45 +990,14 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
         AlertHandler handler = new AlertHandler() {
             public void handleAlert(EventObject alert)
             {
-                // TODO: Change this to map or set
-                List<ResultStep> selectedSteps =
-                    ((PERTChartSelectionState.SelectionChange) alert).selectedSteps;
-
-                // clear selection boxes
-                Iterator<SelectionHalo> haloIterator = selectionBoxes.iterator();
-                SelectionHalo deadHalo = null;
-
-                while (haloIterator.hasNext()) {
-                    deadHalo = haloIterator.next();
-                    contents.remove(deadHalo);
-                    deadHalo.dispose();
-                }
-
-                selectionBoxes.clear();
+                selectedSteps = new HashSet<ResultStep>(
+                    ((PERTChartSelectionState.SelectionChange) alert).selectedSteps);
 
-                Iterator<PERTChartOperatorBar> barIterator = bars.iterator();
-                PERTChartOperatorBar bar;
-
-                while (barIterator.hasNext()) {
-                    bar = barIterator.next();
-
-                    if (selectedSteps.contains(bar.getStep())) {
-                        bar.setSelected(true);
-
-                        SelectionHalo halo = new SelectionHalo();
-                        halo.setTarget(bar);
-                        contents.add(halo);
-                        selectionBoxes.add(halo);
-
-                    }
-                    else {
-                        bar.setSelected(false);
-                    }
-                }
+                // A newly selected step may not have a bar yet
+                resizeVisualization(null);
 
                 //redraw();
                 contents.repaint();
-
             }
         };
 
@@ -772,7 +1011,7 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
     public void dispose()
     {
         //iterate through PERTChartOperatorBars and dispose them
-        Iterator<PERTChartOperatorBar> pIterator = bars.iterator();
+        Iterator<PERTChartOperatorBar> pIterator = barMap.values().iterator();
 
         while (pIterator.hasNext()) {
             pIterator.next().dispose();
@@ -808,114 +1047,12 @@ public class PERTPanel extends Canvas implements ITimeSliceDisplayable
     public void setResultSteps(List<ResultStep> steps,
                                List<String> resourceLabels)
     {
-        // First remove seleciton halos
-        Iterator<SelectionHalo> haloIterator = selectionBoxes.iterator();
-        SelectionHalo deadHalo = null;
-
-        while (haloIterator.hasNext()) {
-            deadHalo = haloIterator.next();
-            contents.remove(deadHalo);
-            deadHalo.dispose();
-        }
-
-        selectionBoxes.clear();
-
-
-        // Then remove existing operator bars
-        Iterator<PERTChartOperatorBar> barIt = bars.iterator();
-        PERTChartOperatorBar deadBar = null;
-        while (barIt.hasNext()) {
-            deadBar = barIt.next();
-            Iterator<PERTStepDependency> depIt =
-                deadBar.getDependencies().iterator();
-            while (depIt.hasNext()) {
-                PERTStepDependency deadDependency = depIt.next();
-
-                contents.remove(deadDependency);
-            }
-
-            contents.remove(deadBar);
-            //deadBar.dispose();
-        }
-
-        bars.clear();
+        selectedSteps.clear();
+        removeAllBars();
 
-        Iterator<ResultStep> stepIterator = steps.iterator();
-
-        ResultStep step;
-        PERTChartOperatorBar bar;
-
-        // create a map so that we can copy the dependency structure from the
-        // ResultSteps to the PERTChartOperatorBars
-        // TODO: save this state, and use this instead of bars
-        Map<ResultStep, PERTChartOperatorBar> barMap =
-            new HashMap<ResultStep, PERTChartOperatorBar>();
-        List<PERTChartOperatorBar> operators =
-            new ArrayList<PERTChartOperatorBar>();
-
-        // iterate through once and create operator bars
-        while (stepIterator.hasNext()) {
-            step = stepIterator.next();
-            bar =
-                new PERTChartOperatorBar(step, resourceLabels, barHeight);
-
-            bar.setColorWithMap(colorMap);
-
-            barMap.put(step, bar);
-
-            bars.add(bar);
-            if (bar.isCascade()) {
-                contents.add(bar);
-            }
-            else {
-                operators.add(bar);
-            }
-
-            // coompare to find the total time
-            totalTime =
-                Math.max(totalTime, step.startTime + step.duration);
-        }
-
-        // iterator through operators, and add them now:
-        Iterator<PERTChartOperatorBar> opIter = operators.iterator();
-        while (opIter.hasNext()) {
-            contents.add(opIter.next());
-        }
-
-        // iterate through again setting dependencies on each bar object
-        //   based on the dependencies in each ResultStep object
-
-        ResultStep.ResultStepDependency rStepDep;
-        Iterator<ResultStep.ResultStepDependency> depStepIter;
-        stepIterator = steps.iterator();
-
-        double ntvTotalTime = 0.0d;
-
-        while (stepIterator.hasNext()) {
-            step = stepIterator.next();
-            bar = barMap.get(step);
-            depStepIter = step.getDependencies().iterator();
-
-            ntvTotalTime =
-                Math.max(ntvTotalTime, step.startTime + step.duration);
-
-            while (depStepIter.hasNext()) {
-                rStepDep = depStepIter.next();
-                PERTChartOperatorBar otherBar = barMap.get(rStepDep.dependency);
-
-                PERTStepDependency dep = bar.addDependency(otherBar, rStepDep);
-                contents.add(dep);
-                connections.add(dep);
-            }
-        }
-
-        nativeTotalTime = ntvTotalTime;
+        indexSteps(steps, resourceLabels);
         totalTime = nativeTotalTime;
 
-        numRows = resourceLabels.size();
-
         resizeVisualization(null);
-
-
     }
 }
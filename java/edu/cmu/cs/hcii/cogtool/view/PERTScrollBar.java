@@ -92,7 +92,6 @@
 package edu.cmu.cs.hcii.cogtool.view;
 
 import java.util.EventObject;
-import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.draw2d.ColorConstants;
@@ -324,16 +323,6 @@ public class PERTScrollBar extends PERTPanel
 
         alerter = new Alerter();
 
-        // remove arrows from connections
-        Iterator<PERTStepDependency> conIterator = connections.iterator();
-
-        while (conIterator.hasNext()) {
-            PERTStepDependency con = conIterator.next();
-
-            con.setTargetDecoration(null);
-        }
-
-
         // REMEMBER: These need to be disposed!
         openHandCursor = WindowUtil.getOpenHandCursor();
         closedHandCursor = WindowUtil.getClosedHandCursor();
@@ -539,6 +528,15 @@ public class PERTScrollBar extends PERTPanel
         }
     }
 
+    /**
+     * Remove arrows from connections
+     */
+    @Override
+    protected void decorateDependency(PERTStepDependency dep)
+    {
+        dep.setTargetDecoration(null);
+    }
+
     @Override
     public void resizeVisualization(Event e)
     {
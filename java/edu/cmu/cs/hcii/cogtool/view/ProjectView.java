@@ -439,6 +439,12 @@ public class ProjectView extends View
                                      ProjectLID.ImportHumanCSVFile,
                                      MenuUtil.ENABLED);
 
+    public static final SimpleMenuItemDefinition IMPORT_HUMAN_CSV_DIRECTORY =
+        new SimpleMenuItemDefinition(L10N.get("MI.PM.ImportHumanCSVDirectory",
+                                              "Import Human Data from Directory of CSV Files..."),
+                                     ProjectLID.ImportHumanCSVDirectory,
+                                     MenuUtil.ENABLED);
+
     public static final SimpleMenuItemDefinition EXPORT_TO_XML =
         new SimpleMenuItemDefinition(L10N.get("MI.PM.ExportDesignToXML",
                                               "Export Design to XML"),
@@ -1017,6 +1023,7 @@ public class ProjectView extends View
         taskCellContextMenuDef.add(MenuUtil.SEPARATOR);
         if (CogToolPref.RESEARCH.getBoolean()) {
             taskCellContextMenuDef.add(IMPORT_HUMAN_CSV);
+            taskCellContextMenuDef.add(IMPORT_HUMAN_CSV_DIRECTORY);
             taskCellContextMenuDef.add(MenuUtil.SEPARATOR);
             taskCellContextMenuDef.add(MenuFactory.EXPORT_DESIGN_TO_HTML);
         }
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.InputSource;
+
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Checks that a design variant's frames survive a save and load, both
+ * those saved as references to their base frames and those edited (after
+ * an earlier save cached their fingerprints) so they must be saved in full.
+ */
+public class FrameSharingTest extends TestCase
+{
+    protected static final CogToolSerialization serialization =
+        CogToolSerialization.ONLY;
+
+    protected Project project;
+    protected Design base;
+    protected Design variant;
+    protected StaleResultTracker tracker;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Set<DeviceType> devices = new HashSet<DeviceType>();
+
+        devices.add(DeviceType.Mouse);
+
+        project = new Project("Project");
+        base = new Design("Base", devices);
+
+        Frame frame = new Frame("Frame", base.getDeviceTypes());
+        Widget widget = new Widget(new DoubleRectangle(0, 0, 10, 10),
+                                   WidgetType.Button);
+        FrameElementGroup group = new FrameElementGroup();
+
+        widget.setName("Button");
+        frame.addWidget(widget);
+
+        group.setName("Group");
+        group.setAuxiliaryText("Text");
+        group.add(widget);
+        frame.addEltGroup(group);
+
+        base.addFrame(frame);
+        project.addDesign(base);
+
+        variant = base.createVariant("Variant");
+        project.addDesign(variant);
+
+        tracker = new StaleResultTracker(project);
+
+        // Caches the fingerprints of the unchanged frames
+        save(project);
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        tracker.dispose();
+    }
+
+    protected static String save(Project p) throws IOException
+    {
+        StringWriter sink = new StringWriter();
+        ObjectSaver saver = new ObjectSaver(sink, Project.FILE_PERSISTENCE);
+
+        saver.saveObject(p);
+        saver.finish();
+
+        return sink.toString();
+    }
+
+    protected static Frame reloadVariantFrame(Project p) throws Exception
+    {
+        String xml = save(p);
+        Project loaded = (Project)
+            new ObjectLoader().load(new InputSource(new StringReader(xml)),
+                                    null).get(0);
+
+        return loaded.getDesign("Variant").getFrame("Frame");
+    }
+
+    protected FrameElementGroup getVariantGroup()
+    {
+        return variant.getFrame("Frame").getEltGroup("Group");
+    }
+
+    public void testUnchangedFrameIsShared() throws Exception
+    {
+        ObjectSaver saver =
+            new ObjectSaver(new StringWriter(), Project.FILE_PERSISTENCE);
+
+        assertSame(base.getFrame("Frame"),
+                   FrameSharing.getSharedBaseFrame(variant.getFrame("Frame"),
+                                                   saver));
+
+        Frame loaded = reloadVariantFrame(project);
+        IWidget widget = loaded.getWidget("Button");
+        FrameElementGroup group = loaded.getEltGroup("Group");
+
+        assertNotNull(widget);
+        assertSame(loaded, widget.getFrame());
+        assertEquals("Text", group.getAuxiliaryText());
+        assertTrue(group.contains(widget));
+    }
+
+    public void testGroupTextEditSurvivesReload() throws Exception
+    {
+        getVariantGroup().setAuxiliaryText("Edited");
+
+        Frame loaded = reloadVariantFrame(project);
+
+        assertEquals("Edited", loaded.getEltGroup("Group").getAuxiliaryText());
+        assertEquals("Text",
+                     base.getFrame("Frame").getEltGroup("Group").getAuxiliaryText());
+    }
+
+    public void testGroupMembershipEditSurvivesReload() throws Exception
+    {
+        Frame frame = variant.getFrame("Frame");
+
+        getVariantGroup().remove(frame.getWidget("Button"));
+
+        Frame loaded = reloadVariantFrame(project);
+
+        assertEquals(0, loaded.getEltGroup("Group").size());
+    }
+
+    public void testGroupRenameSurvivesReload() throws Exception
+    {
+        variant.getFrame("Frame").setEltGroupName("Renamed",
+                                                  getVariantGroup());
+
+        Frame loaded = reloadVariantFrame(project);
+
+        assertNull(loaded.getEltGroup("Group"));
+        assertNotNull(loaded.getEltGroup("Renamed"));
+    }
+
+    public void testWidgetEditSurvivesReload() throws Exception
+    {
+        variant.getFrame("Frame").getWidget("Button").setTitle("Edited");
+
+        Frame loaded = reloadVariantFrame(project);
+
+        assertEquals("Edited", loaded.getWidget("Button").getTitle());
+    }
+
+    public void testUntrackedFrameIsNotCached() throws Exception
+    {
+        tracker.dispose();
+
+        Frame frame = variant.getFrame("Frame");
+        ObjectSaver saver =
+            new ObjectSaver(new StringWriter(), Project.FILE_PERSISTENCE);
+
+        assertNotNull(FrameSharing.getSharedBaseFrame(frame, saver));
+
+        getVariantGroup().setAuxiliaryText("Edited");
+        assertNull(FrameSharing.getSharedBaseFrame(frame, saver));
+    }
+}
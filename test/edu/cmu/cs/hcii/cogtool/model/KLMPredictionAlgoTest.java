@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Checks KLMPredictionAlgo's operator durations against the ACT-R and
+ * EMMA equations they are taken from, and that compiled scripts respond
+ * to exactly the parameters they depend on.
+ */
+public class KLMPredictionAlgoTest extends TestCase
+{
+    protected static final double EPSILON = 1.0e-9;
+
+    static {
+        // Widgets need their attributes defined, once only
+        WidgetAttributes.registerAttributes();
+    }
+
+    // Frames need SWT to be loaded, so steps and widgets are left
+    // without one; the estimate does not consult them.
+    protected static final Frame NO_FRAME = null;
+
+    protected IWidget addWidget(String name,
+                                double x,
+                                double y,
+                                double w,
+                                double h)
+    {
+        Widget widget =
+            new Widget(new DoubleRectangle(x, y, w, h), WidgetType.Button);
+
+        widget.setName(name);
+
+        return widget;
+    }
+
+    public void testFittsTime()
+    {
+        assertEquals(0.1 * Math.log(10.5) / Math.log(2.0),
+                     KLMPredictionAlgo.fittsTime(0.1, 100.0, 10.0),
+                     EPSILON);
+
+        // Never less than the minimum, however close or large the target
+        assertEquals(KLMPredictionAlgo.MIN_FITTS_TIME,
+                     KLMPredictionAlgo.fittsTime(0.1, 0.0, 10.0),
+                     0.0);
+        assertEquals(KLMPredictionAlgo.MIN_FITTS_TIME,
+                     KLMPredictionAlgo.fittsTime(0.1, 10.0, 1000.0),
+                     0.0);
+
+        // A degenerate target is treated as one pixel wide
+        assertEquals(KLMPredictionAlgo.fittsTime(0.1, 500.0, 1.0),
+                     KLMPredictionAlgo.fittsTime(0.1, 500.0, 0.0),
+                     0.0);
+    }
+
+    public void testApproachWidth()
+    {
+        DoubleRectangle bounds = new DoubleRectangle(100, 100, 40, 10);
+
+        // Centered at (120, 105)
+        assertEquals(40.0,
+                     KLMPredictionAlgo.approachWidth(bounds, 0.0, 105.0),
+                     EPSILON);
+        assertEquals(10.0,
+                     KLMPredictionAlgo.approachWidth(bounds, 120.0, 0.0),
+                     EPSILON);
+        assertEquals(10.0,
+                     KLMPredictionAlgo.approachWidth(bounds, 120.0, 105.0),
+                     0.0);
+
+        DoubleRectangle square = new DoubleRectangle(0, 0, 10, 10);
+
+        assertEquals(10.0 * Math.sqrt(2.0),
+                     KLMPredictionAlgo.approachWidth(square, -5.0, -5.0),
+                     EPSILON);
+    }
+
+    public void testVisualAngle()
+    {
+        assertEquals(0.0, KLMPredictionAlgo.pixelsToDegrees(0.0), 0.0);
+        assertEquals(Math.toDegrees(Math.atan(1.0 / 15.0)),
+                     KLMPredictionAlgo.pixelsToDegrees(72.0),
+                     EPSILON);
+    }
+
+    public void testAttentionShift()
+    {
+        double foveal = KLMPredictionAlgo.encodingTime(0.0);
+
+        assertEquals(0.006 * Math.log(100.0), foveal, EPSILON);
+
+        // Encoding that beats saccade preparation needs no eye movement
+        assertTrue(foveal < KLMPredictionAlgo.SACCADE_PREP_TIME);
+        assertEquals(foveal, KLMPredictionAlgo.attentionShiftTime(0.0), 0.0);
+
+        // Far enough out, the eye moves and encoding finishes at the fovea
+        double eccentricity = 20.0;
+        double encoding = KLMPredictionAlgo.encodingTime(eccentricity);
+
+        assertTrue(encoding > KLMPredictionAlgo.SACCADE_PREP_TIME);
+        assertEquals(KLMPredictionAlgo.SACCADE_PREP_TIME
+                        + KLMPredictionAlgo.SACCADE_BASE_TIME
+                        + KLMPredictionAlgo.SACCADE_RATE * eccentricity
+                        + (1.0 - KLMPredictionAlgo.SACCADE_PREP_TIME / encoding)
+                            * foveal,
+                     KLMPredictionAlgo.attentionShiftTime(eccentricity),
+                     EPSILON);
+    }
+
+    public void testParameters()
+    {
+        KLMPredictionAlgo.Parameters p =
+            new KLMPredictionAlgo.Parameters(KLMPredictionAlgo.DEFAULT_PARAMETERS);
+
+        assertEquals(KLMPredictionAlgo.DEFAULT_PARAMETERS, p);
+        assertEquals(KLMPredictionAlgo.DEFAULT_PARAMETERS.hashCode(),
+                     p.hashCode());
+        assertEquals(KLMPredictionAlgo.PRODUCTION_TIME,
+                     p.get(KLMPredictionAlgo.Parameters.PRODUCTION_TIME),
+                     0.0);
+
+        p.set(KLMPredictionAlgo.Parameters.WIDGET_SCALE, 2.0);
+
+        assertFalse(KLMPredictionAlgo.DEFAULT_PARAMETERS.equals(p));
+        assertEquals(1.0,
+                     KLMPredictionAlgo.DEFAULT_PARAMETERS.get(KLMPredictionAlgo.Parameters.WIDGET_SCALE),
+                     0.0);
+    }
+
+    public void testEmptyScript()
+    {
+        KLMPredictionAlgo.CompiledScript compiled =
+            new KLMPredictionAlgo.Compiler().getCompiledScript();
+        List<String> trace = new ArrayList<String>();
+
+        assertEquals(0, compiled.getOperatorCount());
+        assertEquals(0.0,
+                     compiled.evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS,
+                                       trace),
+                     0.0);
+        assertTrue(trace.isEmpty());
+
+        for (int i = 0; i < KLMPredictionAlgo.Parameters.PARAMETER_COUNT; i++) {
+            assertFalse(compiled.dependsOn(i));
+        }
+    }
+
+    public void testThinkAndDelay()
+    {
+        KLMPredictionAlgo.Compiler compiler = new KLMPredictionAlgo.Compiler();
+
+        compiler.visit(new ThinkScriptStep(NO_FRAME, 1.2, null));
+        compiler.visit(new DelayScriptStep(NO_FRAME, 0.5, "load"));
+        compiler.visit(new DelayScriptStep(NO_FRAME, 0.0, "none"));
+
+        KLMPredictionAlgo.CompiledScript compiled =
+            compiler.getCompiledScript();
+        List<String> trace = new ArrayList<String>();
+
+        // A zero delay adds no operator
+        assertEquals(2, compiled.getOperatorCount());
+        assertEquals(1.7,
+                     compiled.evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS,
+                                       trace),
+                     EPSILON);
+        assertEquals(2, trace.size());
+        assertTrue(trace.get(0).endsWith("\tTHINK"));
+        assertTrue(trace.get(1).endsWith("\tWAIT\tload"));
+
+        assertTrue(compiled.dependsOn(KLMPredictionAlgo.Parameters.THINK_DURATION));
+        assertTrue(compiled.dependsOn(KLMPredictionAlgo.Parameters.SYSTEM_DELAY_SCALE));
+        assertFalse(compiled.dependsOn(KLMPredictionAlgo.Parameters.PRODUCTION_TIME));
+
+        KLMPredictionAlgo.Parameters p =
+            new KLMPredictionAlgo.Parameters(KLMPredictionAlgo.DEFAULT_PARAMETERS);
+
+        p.set(KLMPredictionAlgo.Parameters.THINK_DURATION, 0.0);
+        p.set(KLMPredictionAlgo.Parameters.SYSTEM_DELAY_SCALE, 2.0);
+        assertEquals(1.0, compiled.evaluate(p), EPSILON);
+    }
+
+    public void testKeystrokesWithSameHandWait()
+    {
+        KLMPredictionAlgo.Compiler compiler = new KLMPredictionAlgo.Compiler();
+
+        // 'a' and 's' are both typed with the left hand, 'j' with the right
+        compiler.typeCharacters("asj");
+
+        double keystroke = KLMPredictionAlgo.PRODUCTION_TIME
+                              + KLMPredictionAlgo.MOTOR_INIT_TIME
+                              + KLMPredictionAlgo.MOTOR_BURST_TIME;
+
+        assertEquals(3 * keystroke + KLMPredictionAlgo.MOTOR_BURST_TIME,
+                     compiler.getCompiledScript().evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS),
+                     EPSILON);
+    }
+
+    public void testLookAtAndClick()
+    {
+        IWidget button = addWidget("OK", 60, 60, 24, 24);
+        KLMPredictionAlgo.Compiler compiler = new KLMPredictionAlgo.Compiler();
+        AAction click = new ButtonAction(MouseButtonState.Left,
+                                         MousePressType.Click,
+                                         AAction.NONE);
+        AScriptStep step = new ActionScriptStep(click, button);
+
+        compiler.compileStepState(new DefaultModelGeneratorState(step));
+
+        // The eye starts at the origin, 72 * sqrt(2) pixels away
+        double lookAt = KLMPredictionAlgo.PRODUCTION_TIME
+                           + KLMPredictionAlgo.attentionShiftTime(KLMPredictionAlgo.pixelsToDegrees(72.0 * Math.sqrt(2.0)));
+        double click1 = KLMPredictionAlgo.PRODUCTION_TIME
+                           + KLMPredictionAlgo.MOTOR_INIT_TIME
+                           + KLMPredictionAlgo.MOTOR_BURST_TIME;
+        List<String> trace = new ArrayList<String>();
+        KLMPredictionAlgo.CompiledScript compiled =
+            compiler.getCompiledScript();
+
+        assertEquals(lookAt + click1,
+                     compiled.evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS,
+                                       trace),
+                     EPSILON);
+        assertEquals("0.000\tLOOK-AT\tOK", trace.get(0));
+        assertTrue(trace.get(1).endsWith("\tCLICK\tOK"));
+
+        // Clicking again on the same widget needs no second look
+        compiler.compileStepState(new DefaultModelGeneratorState(new ActionScriptStep(click, button)));
+        assertEquals(3, compiler.getCompiledScript().getOperatorCount());
+    }
+
+    public void testMovementDependsOnWidgetSize()
+    {
+        IWidget button = addWidget("OK", 300, 0, 10, 20);
+        KLMPredictionAlgo.Compiler compiler = new KLMPredictionAlgo.Compiler();
+
+        compiler.moveCursor("MOVE-MOUSE", button, false);
+
+        KLMPredictionAlgo.CompiledScript compiled =
+            compiler.getCompiledScript();
+
+        assertTrue(compiled.dependsOn(KLMPredictionAlgo.Parameters.WIDGET_SCALE));
+        assertTrue(compiled.dependsOn(KLMPredictionAlgo.Parameters.MOTOR_INITIATION));
+        assertFalse(compiled.dependsOn(KLMPredictionAlgo.Parameters.PECK_FITTS_COEFF));
+
+        double distance = Math.hypot(305.0, 10.0);
+        double width =
+            KLMPredictionAlgo.approachWidth(button.getEltBounds(), 0.0, 0.0);
+
+        assertEquals(2 * KLMPredictionAlgo.PRODUCTION_TIME
+                        + KLMPredictionAlgo.MOTOR_INIT_TIME
+                        + KLMPredictionAlgo.fittsTime(KLMPredictionAlgo.MOUSE_FITTS_COEFF,
+                                                      distance,
+                                                      width),
+                     compiled.evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS),
+                     EPSILON);
+
+        // Larger targets are faster to reach
+        KLMPredictionAlgo.Parameters p =
+            new KLMPredictionAlgo.Parameters(KLMPredictionAlgo.DEFAULT_PARAMETERS);
+
+        p.set(KLMPredictionAlgo.Parameters.WIDGET_SCALE, 4.0);
+        assertTrue(compiled.evaluate(p)
+                      < compiled.evaluate(KLMPredictionAlgo.DEFAULT_PARAMETERS));
+    }
+
+    public void testApproximates()
+    {
+        CognitiveModelGenerator klm = KLMCognitiveGenerator.ONLY;
+
+        assertTrue(KLMPredictionAlgo.approximates(klm, ACTR6PredictionAlgo.ONLY));
+        assertTrue(KLMPredictionAlgo.approximates(klm, ACTR5PredictionAlgo.ONLY));
+        assertTrue(KLMPredictionAlgo.approximates(klm, KLMPredictionAlgo.ONLY));
+        assertFalse(KLMPredictionAlgo.approximates(klm, SNIFACTPredictionAlgo.ONLY));
+        assertFalse(KLMPredictionAlgo.approximates(klm, HumanDataAlgo.ONLY));
+        assertFalse(KLMPredictionAlgo.approximates(IdentityModelGenerator.ONLY,
+                                                   ACTR6PredictionAlgo.ONLY));
+    }
+}
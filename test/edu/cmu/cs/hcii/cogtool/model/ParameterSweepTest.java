@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.CompiledScript;
+import edu.cmu.cs.hcii.cogtool.model.KLMPredictionAlgo.Parameters;
+import edu.cmu.cs.hcii.cogtool.util.Cancelable;
+import edu.cmu.cs.hcii.cogtool.util.ProgressCallback;
+
+/**
+ * Checks how ParameterSweep enumerates its combinations and that compute()
+ * evaluates each script once per combination of the parameters it depends
+ * on.  Task applications need frames, which need SWT, so the sweeps are
+ * given compiled scripts directly and null task applications.
+ */
+public class ParameterSweepTest extends TestCase
+{
+    protected static final double EPSILON = 1.0e-9;
+
+    protected static final Frame NO_FRAME = null;
+
+    protected ParameterSweep createSweep(CompiledScript... scripts)
+    {
+        List<TaskApplication> rows = new ArrayList<TaskApplication>();
+
+        for (int i = 0; i < scripts.length; i++) {
+            rows.add(null);
+        }
+
+        ParameterSweep sweep = new ParameterSweep(rows);
+
+        sweep.compiled = scripts;
+
+        return sweep;
+    }
+
+    protected CompiledScript thinkAndWait()
+    {
+        KLMPredictionAlgo.Compiler compiler = new KLMPredictionAlgo.Compiler();
+
+        compiler.visit(new ThinkScriptStep(NO_FRAME, 1.2, null));
+        compiler.visit(new DelayScriptStep(NO_FRAME, 0.5, "load"));
+
+        return compiler.getCompiledScript();
+    }
+
+    public void testPointsVaryLastDimensionFastest()
+    {
+        ParameterSweep sweep = createSweep();
+
+        sweep.addDimension(Parameters.THINK_DURATION,
+                           new double[] { 0.6, 1.2 });
+        sweep.addDimension(Parameters.SYSTEM_DELAY_SCALE, 0.5, 1.5, 3);
+
+        assertEquals(6, sweep.getPointCount());
+        assertTrue(Arrays.equals(new int[] { Parameters.THINK_DURATION,
+                                             Parameters.SYSTEM_DELAY_SCALE },
+                                 sweep.getSweptParameters()));
+
+        double[][] expected = { { 0.6, 0.5 }, { 0.6, 1.0 }, { 0.6, 1.5 },
+                                { 1.2, 0.5 }, { 1.2, 1.0 }, { 1.2, 1.5 } };
+
+        for (int i = 0; i < expected.length; i++) {
+            Parameters p = sweep.getPoint(i);
+
+            assertEquals(expected[i][0],
+                         p.get(Parameters.THINK_DURATION),
+                         EPSILON);
+            assertEquals(expected[i][1],
+                         p.get(Parameters.SYSTEM_DELAY_SCALE),
+                         EPSILON);
+            assertEquals(KLMPredictionAlgo.DEFAULT_PARAMETERS.get(Parameters.WIDGET_SCALE),
+                         p.get(Parameters.WIDGET_SCALE),
+                         EPSILON);
+        }
+    }
+
+    public void testDefaultValuesHoldACTRParameters()
+    {
+        assertEquals(5,
+                     ParameterSweep.getDefaultValues(Parameters.THINK_DURATION).length);
+        assertEquals(3,
+                     ParameterSweep.getDefaultValues(Parameters.WIDGET_SCALE).length);
+
+        for (int parameter = Parameters.PRODUCTION_TIME;
+             parameter < Parameters.PARAMETER_COUNT;
+             parameter++)
+        {
+            double[] values = ParameterSweep.getDefaultValues(parameter);
+
+            assertEquals(1, values.length);
+            assertEquals(KLMPredictionAlgo.DEFAULT_PARAMETERS.get(parameter),
+                         values[0],
+                         EPSILON);
+        }
+
+        // Callers may modify what they are given
+        ParameterSweep.getDefaultValues(Parameters.SYSTEM_DELAY_SCALE)[0] = 9;
+        assertEquals(0.5,
+                     ParameterSweep.getDefaultValues(Parameters.WIDGET_SCALE)[0],
+                     EPSILON);
+    }
+
+    public void testNoDimensionsIsOnePoint()
+    {
+        ParameterSweep sweep = createSweep();
+
+        assertEquals(1, sweep.getPointCount());
+        assertEquals(0, sweep.getSweptParameters().length);
+    }
+
+    public void testAddDimensionRejectsBadParameters()
+    {
+        ParameterSweep sweep = createSweep();
+
+        try {
+            sweep.addDimension(Parameters.PARAMETER_COUNT, new double[] { 1 });
+            fail("unknown parameter accepted");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        sweep.addDimension(Parameters.WIDGET_SCALE, new double[] { 1 });
+
+        try {
+            sweep.addDimension(Parameters.WIDGET_SCALE, new double[] { 2 });
+            fail("parameter swept twice");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testComputeSharesIrrelevantCombinations()
+    {
+        CompiledScript script = thinkAndWait();
+        ParameterSweep sweep = createSweep(script, null);
+
+        sweep.addDimension(Parameters.THINK_DURATION,
+                           new double[] { 0.6, 1.2, 1.8 });
+        sweep.addDimension(Parameters.WIDGET_SCALE,
+                           new double[] { 0.5, 1.0, 2.0, 4.0 });
+
+        final double[] lastProgress = { 0.0 };
+        ProgressCallback progress = new ProgressCallback() {
+            public void updateProgress(double p, String status)
+            {
+                lastProgress[0] = p;
+            }
+
+            public void dispose()
+            {
+                // Nothing to dispose
+            }
+        };
+
+        ParameterSweep.Result result = sweep.compute(progress, null);
+
+        assertEquals(2, result.getRowCount());
+        assertEquals(12, result.getColumnCount());
+
+        // The script has no movements, so widget scale is irrelevant
+        assertEquals(3, result.getEvaluationCount());
+        assertEquals(1.0, lastProgress[0], EPSILON);
+
+        for (int col = 0; col < result.getColumnCount(); col++) {
+            assertEquals(script.evaluate(result.getParameters(col)),
+                         result.getTime(0, col),
+                         EPSILON);
+            assertEquals(TimePredictionResult.UNSET_TIME,
+                         result.getTime(1, col),
+                         EPSILON);
+        }
+
+        assertTrue(result.getTime(0, 0) < result.getTime(0, 4));
+        assertEquals(result.getTime(0, 4), result.getTime(0, 7), EPSILON);
+    }
+
+    public void testCanceledComputeReturnsNull()
+    {
+        ParameterSweep sweep = createSweep(thinkAndWait());
+
+        sweep.addDimension(Parameters.THINK_DURATION, 0.5, 2.0, 4);
+
+        Cancelable canceled = new Cancelable() {
+            public void cancel()
+            {
+                // Always canceled
+            }
+
+            public boolean isCanceled()
+            {
+                return true;
+            }
+        };
+
+        assertNull(sweep.compute(null, canceled));
+    }
+}
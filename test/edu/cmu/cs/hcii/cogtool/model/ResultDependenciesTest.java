@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.InputSource;
+
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Checks that ResultDependencies persists and copies its record of frame
+ * names and fingerprints, and how isStale compares the record with a
+ * design.
+ */
+public class ResultDependenciesTest extends TestCase
+{
+    static {
+        ResultDependencies.registerSaver();
+        ResultDependencies.registerLoader();
+    }
+
+    protected static Design createDesign()
+    {
+        Set<DeviceType> devices = new HashSet<DeviceType>();
+
+        devices.add(DeviceType.Mouse);
+        devices.add(DeviceType.Keyboard);
+
+        return new Design("Design", devices);
+    }
+
+    protected static ResultDependencies createDependencies(Design design,
+                                                           String... frames)
+    {
+        ResultDependencies deps = new ResultDependencies();
+
+        deps.frameNames = frames;
+        deps.fingerprints = new int[frames.length];
+        deps.settings = ResultDependencies.getSettings(design);
+
+        for (int i = 0; i < frames.length; i++) {
+            deps.fingerprints[i] = frames[i].hashCode();
+        }
+
+        return deps;
+    }
+
+    public void testSaveAndLoad() throws Exception
+    {
+        ResultDependencies deps =
+            createDependencies(createDesign(), "Start", "Next \"page\"");
+
+        deps.noteChange();
+
+        StringWriter sink = new StringWriter();
+        ObjectSaver saver = new ObjectSaver(sink);
+
+        saver.saveObject(deps);
+        saver.finish();
+
+        ResultDependencies loaded = (ResultDependencies)
+            new ObjectLoader().load(new InputSource(new StringReader(sink.toString())),
+                                    null).get(0);
+
+        assertTrue(Arrays.equals(deps.frameNames, loaded.frameNames));
+        assertTrue(Arrays.equals(deps.fingerprints, loaded.fingerprints));
+        assertEquals(deps.settings, loaded.settings);
+        assertTrue(loaded.hasChanged());
+    }
+
+    public void testCopy()
+    {
+        ResultDependencies deps = createDependencies(createDesign(), "Start");
+        ResultDependencies copy = new ResultDependencies(deps);
+
+        assertTrue(Arrays.equals(deps.frameNames, copy.frameNames));
+        assertTrue(Arrays.equals(deps.fingerprints, copy.fingerprints));
+        assertEquals(deps.settings, copy.settings);
+        assertFalse(copy.hasChanged());
+
+        // Changes noted for one are not noted for the other
+        copy.noteChange();
+        assertTrue(copy.hasChanged());
+        assertFalse(deps.hasChanged());
+    }
+
+    public void testStaleWhenSettingsDiffer()
+    {
+        Design design = createDesign();
+        ResultDependencies deps = createDependencies(design);
+
+        assertFalse(deps.isStale(design));
+
+        design.getDeviceTypes().add(DeviceType.Touchscreen);
+        assertTrue(deps.isStale(design));
+    }
+
+    public void testStaleWhenFrameIsGone()
+    {
+        Design design = createDesign();
+        ResultDependencies deps = createDependencies(design, "Deleted");
+
+        // Frames are only compared once a change has been noted
+        assertFalse(deps.isStale(design));
+
+        deps.noteChange();
+        assertTrue(deps.isStale(design));
+        assertTrue(deps.hasChanged());
+    }
+
+    public void testNotedChangeForgottenWhenUnchanged()
+    {
+        Design design = createDesign();
+        ResultDependencies deps = createDependencies(design);
+
+        deps.noteChange();
+        assertFalse(deps.isStale(design));
+        assertFalse(deps.hasChanged());
+    }
+
+    public void testImageHashFollowsContent()
+    {
+        byte[] image = { 3, 1, 4, 1, 5 };
+        byte[] sameImage = { 3, 1, 4, 1, 5 };
+
+        assertEquals(Arrays.hashCode(image),
+                     ResultDependencies.getImageHash(image));
+        assertEquals(ResultDependencies.getImageHash(image),
+                     ResultDependencies.getImageHash(sameImage));
+    }
+}
@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.InputSource;
+
+import edu.cmu.cs.hcii.cogtool.util.ObjectLoader;
+import edu.cmu.cs.hcii.cogtool.util.ObjectSaver;
+
+/**
+ * Checks RunStatistics' running summary against direct computation, its
+ * percentiles at the edges, and the bound on the paths it counts.
+ */
+public class RunStatisticsTest extends TestCase
+{
+    protected static final double EPSILON = 1.0e-9;
+
+    public void testEmpty()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        assertEquals(0, stats.getRunCount());
+        assertEquals(0, stats.getFailureCount());
+        assertEquals(-1.0, stats.getMean(), 0.0);
+        assertEquals(0.0, stats.getStandardDeviation(), 0.0);
+        assertTrue(Double.isNaN(stats.getMinimum()));
+        assertTrue(Double.isNaN(stats.getMaximum()));
+        assertFalse(stats.hasPercentiles());
+        assertEquals(-1.0, stats.getPercentile(0), 0.0);
+        assertTrue(stats.getPathCounts().isEmpty());
+        assertNull(stats.getMostFrequentPath());
+
+        stats.computePercentiles(new double[0]);
+        assertFalse(stats.hasPercentiles());
+    }
+
+    public void testSingleRun()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        stats.addRun(2.5, "A");
+
+        assertEquals(1, stats.getRunCount());
+        assertEquals(2.5, stats.getMean(), 0.0);
+        assertEquals(0.0, stats.getStandardDeviation(), 0.0);
+        assertEquals(2.5, stats.getMinimum(), 0.0);
+        assertEquals(2.5, stats.getMaximum(), 0.0);
+    }
+
+    public void testMatchesDirectComputation()
+    {
+        Random random = new Random(17);
+        double[] times = new double[1000];
+        RunStatistics stats = new RunStatistics();
+
+        for (int i = 0; i < times.length; i++) {
+            // A large offset stresses the naive formula, not Welford's
+            times[i] = 1.0e6 + random.nextGaussian();
+            stats.addRun(times[i], null);
+        }
+
+        double sum = 0.0;
+        double min = times[0];
+        double max = times[0];
+
+        for (double time : times) {
+            sum += time;
+            min = Math.min(min, time);
+            max = Math.max(max, time);
+        }
+
+        double mean = sum / times.length;
+        double squares = 0.0;
+
+        for (double time : times) {
+            squares += (time - mean) * (time - mean);
+        }
+
+        assertEquals(times.length, stats.getRunCount());
+        assertEquals(mean, stats.getMean(), 1.0e-6);
+        assertEquals(Math.sqrt(squares / (times.length - 1)),
+                     stats.getStandardDeviation(),
+                     1.0e-6);
+        assertEquals(min, stats.getMinimum(), 0.0);
+        assertEquals(max, stats.getMaximum(), 0.0);
+    }
+
+    public void testFailuresDoNotAffectTimes()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        stats.addFailure("A");
+        stats.addRun(1.0, "A");
+        stats.addFailure("B");
+        stats.addRun(3.0, "A");
+
+        assertEquals(2, stats.getRunCount());
+        assertEquals(2, stats.getFailureCount());
+        assertEquals(2.0, stats.getMean(), EPSILON);
+        assertEquals(1.0, stats.getMinimum(), 0.0);
+        assertEquals(3.0, stats.getMaximum(), 0.0);
+        assertEquals(Integer.valueOf(3), stats.getPathCounts().get("A"));
+        assertEquals(Integer.valueOf(1), stats.getPathCounts().get("B"));
+        assertEquals("A", stats.getMostFrequentPath());
+    }
+
+    public void testPercentilesOfOneValue()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        stats.computePercentiles(new double[] { 4.0 });
+
+        for (int i = 0; i < RunStatistics.PERCENTILE_RANKS.length; i++) {
+            assertEquals(4.0, stats.getPercentile(i), 0.0);
+        }
+    }
+
+    public void testPercentilesOfTwoValues()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        stats.computePercentiles(new double[] { 10.0, 0.0 });
+
+        for (int i = 0; i < RunStatistics.PERCENTILE_RANKS.length; i++) {
+            assertEquals(RunStatistics.PERCENTILE_RANKS[i] / 10.0,
+                         stats.getPercentile(i),
+                         EPSILON);
+        }
+    }
+
+    public void testPercentilesInterpolate()
+    {
+        // 0, 1, ..., 100 in reverse, so each rank falls on a value
+        double[] times = new double[101];
+
+        for (int i = 0; i < times.length; i++) {
+            times[i] = 100 - i;
+        }
+
+        RunStatistics stats = new RunStatistics();
+
+        stats.computePercentiles(times);
+
+        for (int i = 0; i < RunStatistics.PERCENTILE_RANKS.length; i++) {
+            assertEquals(RunStatistics.PERCENTILE_RANKS[i],
+                         stats.getPercentile(i),
+                         EPSILON);
+        }
+
+        // The input is left unsorted
+        assertEquals(100.0, times[0], 0.0);
+
+        // 0, 10, 20, 30: the 5th percentile lies between the first two
+        stats.computePercentiles(new double[] { 30.0, 0.0, 20.0, 10.0 });
+        assertEquals(1.5, stats.getPercentile(0), EPSILON);
+        assertEquals(15.0, stats.getPercentile(3), EPSILON);
+        assertEquals(28.5, stats.getPercentile(6), EPSILON);
+    }
+
+    public void testPathCountsAreBounded()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        // A frequent path among many that are taken once each
+        for (int i = 0; i < 10 * RunStatistics.MAX_PATH_COUNTS; i++) {
+            stats.addRun(1.0, "path " + i);
+
+            if (i % 4 == 0) {
+                stats.addRun(1.0, "frequent");
+            }
+        }
+
+        Map<String, Integer> counts = stats.getPathCounts();
+        int frequent = 10 * RunStatistics.MAX_PATH_COUNTS / 4;
+
+        assertEquals(RunStatistics.MAX_PATH_COUNTS, counts.size());
+        assertEquals("frequent", stats.getMostFrequentPath());
+
+        // Space-Saving never underestimates a kept path
+        assertTrue(counts.get("frequent").intValue() >= frequent);
+
+        // and the counts still total the runs recorded
+        int total = 0;
+
+        for (Integer count : counts.values()) {
+            total += count.intValue();
+        }
+
+        assertEquals(stats.getRunCount(), total);
+    }
+
+    public void testPathCountsExactWhenFew()
+    {
+        RunStatistics stats = new RunStatistics();
+
+        for (int i = 0; i < RunStatistics.MAX_PATH_COUNTS; i++) {
+            for (int j = 0; j <= i; j++) {
+                stats.addRun(1.0, "path " + i);
+            }
+        }
+
+        Map<String, Integer> counts = stats.getPathCounts();
+
+        for (int i = 0; i < RunStatistics.MAX_PATH_COUNTS; i++) {
+            assertEquals(Integer.valueOf(i + 1), counts.get("path " + i));
+        }
+    }
+
+    public void testSaveAndLoad()
+        throws Exception
+    {
+        RunStatistics.registerSaver();
+        RunStatistics.registerLoader();
+
+        RunStatistics stats = new RunStatistics();
+
+        stats.addRun(1.0, "A");
+        stats.addRun(2.0, "A > B");
+        stats.addFailure("A > C");
+        stats.computePercentiles(new double[] { 1.0, 2.0 });
+
+        StringWriter sink = new StringWriter();
+        ObjectSaver saver = new ObjectSaver(sink);
+
+        saver.saveObject(stats);
+        saver.finish();
+
+        ObjectLoader loader = new ObjectLoader();
+        RunStatistics loaded =
+            (RunStatistics)
+                loader.load(new InputSource(new StringReader(sink.toString())),
+                            null).get(0);
+
+        assertEquals(stats.getRunCount(), loaded.getRunCount());
+        assertEquals(stats.getFailureCount(), loaded.getFailureCount());
+        assertEquals(stats.getMean(), loaded.getMean(), 0.0);
+        assertEquals(stats.getStandardDeviation(),
+                     loaded.getStandardDeviation(),
+                     0.0);
+        assertEquals(stats.getMinimum(), loaded.getMinimum(), 0.0);
+        assertEquals(stats.getMaximum(), loaded.getMaximum(), 0.0);
+        assertEquals(stats.getPathCounts(), loaded.getPathCounts());
+
+        for (int i = 0; i < RunStatistics.PERCENTILE_RANKS.length; i++) {
+            assertEquals(stats.getPercentile(i), loaded.getPercentile(i), 0.0);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import edu.cmu.cs.hcii.cogtool.util.DuplicateNameException;
+
+/**
+ * Checks that StaleResultTracker notes the changes to a frame's element
+ * groups in the dependencies of the results that depend upon the frame.
+ */
+public class StaleResultTrackerTest extends TestCase
+{
+    // Fingerprints are serializations
+    protected static final CogToolSerialization serialization =
+        CogToolSerialization.ONLY;
+
+    protected Project project;
+    protected Design design;
+    protected Frame frame;
+    protected Frame otherFrame;
+    protected Widget widget;
+    protected FrameElementGroup group;
+    protected ResultDependencies deps;
+    protected StaleResultTracker tracker;
+
+    protected static Frame createFrame(String name, Design design)
+        throws DuplicateNameException
+    {
+        Frame frame = new Frame(name, design.getDeviceTypes());
+        Widget widget = new Widget(new DoubleRectangle(0, 0, 10, 10),
+                                   WidgetType.Button);
+        FrameElementGroup group = new FrameElementGroup();
+
+        widget.setName("Button");
+        frame.addWidget(widget);
+
+        group.setName("Group");
+        group.add(widget);
+        frame.addEltGroup(group);
+
+        design.addFrame(frame);
+
+        return frame;
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Set<DeviceType> devices = new HashSet<DeviceType>();
+
+        devices.add(DeviceType.Mouse);
+
+        project = new Project("Project");
+        design = new Design("Design", devices);
+        frame = createFrame("Frame", design);
+        otherFrame = createFrame("Other", design);
+        widget = (Widget) frame.getWidget("Button");
+        group = frame.getEltGroup("Group");
+        project.addDesign(design);
+
+        Task task = new Task("Task");
+        TaskApplication ta = new TaskApplication(task, design);
+        Script script = new Script(ta.getDemonstration(),
+                                   KLMCognitiveGenerator.ONLY);
+        APredictionResult result =
+            new TimePredictionResult("Result",
+                                     script,
+                                     KLMPredictionAlgo.ONLY,
+                                     new ArrayList<String>(),
+                                     new ArrayList<String>(),
+                                     null,
+                                     1.0);
+
+        project.addUndertaking(task);
+        project.setTaskApplication(ta);
+        ta.setScript(KLMCognitiveGenerator.ONLY, script);
+        ta.setResult(KLMCognitiveGenerator.ONLY, KLMPredictionAlgo.ONLY, result);
+
+        deps = new ResultDependencies();
+        deps.frameNames = new String[] { frame.getName() };
+        deps.fingerprints =
+            new int[] { ResultDependencies.getFingerprint(frame) };
+        deps.settings = ResultDependencies.getSettings(design);
+        result.setDependencies(deps);
+
+        tracker = new StaleResultTracker(project);
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        tracker.dispose();
+    }
+
+    public void testGroupTextMarksResult()
+    {
+        group.setAuxiliaryText("More text");
+
+        assertTrue(deps.hasChanged());
+        assertTrue(deps.isStale(design));
+    }
+
+    public void testGroupMembershipMarksResult()
+    {
+        group.remove(widget);
+
+        assertTrue(deps.hasChanged());
+        assertTrue(deps.isStale(design));
+    }
+
+    public void testGroupNameMarksResult() throws DuplicateNameException
+    {
+        frame.setEltGroupName("Renamed", group);
+
+        assertTrue(deps.hasChanged());
+        assertTrue(deps.isStale(design));
+    }
+
+    public void testAddedGroupIsObserved()
+    {
+        FrameElementGroup newGroup = new FrameElementGroup();
+
+        newGroup.setName("New");
+        frame.addEltGroup(newGroup);
+        assertTrue(deps.hasChanged());
+
+        deps.changed = false;
+        newGroup.add(widget);
+        assertTrue(deps.hasChanged());
+    }
+
+    public void testOtherFrameGroupIgnored()
+    {
+        otherFrame.getEltGroup("Group").setAuxiliaryText("More text");
+
+        assertFalse(deps.hasChanged());
+    }
+
+    public void testDisposeStopsObserving()
+    {
+        tracker.dispose();
+        group.setAuxiliaryText("More text");
+
+        assertFalse(deps.hasChanged());
+    }
+}
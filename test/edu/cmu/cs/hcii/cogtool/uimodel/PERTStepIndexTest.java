@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.uimodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import edu.cmu.cs.hcii.cogtool.model.ResultStep;
+
+/**
+ * Checks PERTStepIndex's interval queries against a linear scan of the
+ * steps, at the boundaries of the interval and of the index's tree.
+ */
+public class PERTStepIndexTest extends TestCase
+{
+    protected static ResultStep step(double start, double duration)
+    {
+        return new ResultStep(start, duration, "resource", "operation");
+    }
+
+    protected static List<ResultStep> scan(List<ResultStep> steps,
+                                           double start,
+                                           double end)
+    {
+        List<ResultStep> overlapping = new ArrayList<ResultStep>();
+
+        for (ResultStep s : steps) {
+            if (PERTStepIndex.overlaps(s, start, end)) {
+                overlapping.add(s);
+            }
+        }
+
+        return overlapping;
+    }
+
+    protected static void assertSameSteps(List<ResultStep> expected,
+                                          List<ResultStep> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    public void testEmpty()
+    {
+        PERTStepIndex index =
+            new PERTStepIndex(Collections.<ResultStep>emptyList());
+
+        assertEquals(0, index.size());
+        assertEquals(0.0, index.getEndTime(), 0.0);
+        assertTrue(index.getSteps(0.0, 1000.0).isEmpty());
+        assertTrue(index.getDependents(step(0.0, 1.0)).isEmpty());
+    }
+
+    public void testSingleStep()
+    {
+        ResultStep only = step(100.0, 50.0);
+        PERTStepIndex index =
+            new PERTStepIndex(Collections.singletonList(only));
+
+        assertEquals(150.0, index.getEndTime(), 0.0);
+
+        // Interval ends are inclusive
+        assertEquals(1, index.getSteps(0.0, 100.0).size());
+        assertEquals(1, index.getSteps(150.0, 200.0).size());
+        assertEquals(1, index.getSteps(120.0, 130.0).size());
+        assertTrue(index.getSteps(0.0, 99.9).isEmpty());
+        assertTrue(index.getSteps(150.1, 200.0).isEmpty());
+    }
+
+    public void testOrderedByStartAndStable()
+    {
+        ResultStep late = step(30.0, 10.0);
+        ResultStep first = step(10.0, 10.0);
+        ResultStep second = step(10.0, 5.0);
+        List<ResultStep> steps = new ArrayList<ResultStep>();
+
+        steps.add(late);
+        steps.add(first);
+        steps.add(second);
+
+        PERTStepIndex index = new PERTStepIndex(steps);
+        List<ResultStep> found = index.getSteps(0.0, 100.0);
+
+        assertSame(first, found.get(0));
+        assertSame(second, found.get(1));
+        assertSame(late, found.get(2));
+    }
+
+    public void testLongStepSpansQueries()
+    {
+        // A long first step (such as a frame) and many short ones after it
+        List<ResultStep> steps = new ArrayList<ResultStep>();
+        ResultStep frame = step(0.0, 10000.0);
+
+        steps.add(frame);
+
+        for (int i = 0; i < 100; i++) {
+            steps.add(step(i * 100.0, 10.0));
+        }
+
+        PERTStepIndex index = new PERTStepIndex(steps);
+        List<ResultStep> found = index.getSteps(5015.0, 5050.0);
+
+        assertEquals(1, found.size());
+        assertSame(frame, found.get(0));
+        assertSameSteps(scan(steps, 4990.0, 5100.0),
+                        index.getSteps(4990.0, 5100.0));
+    }
+
+    public void testRandomAgainstScan()
+    {
+        Random random = new Random(36);
+
+        // Sizes on both sides of the powers of two the tree is built on
+        int[] sizes = { 1, 2, 3, 7, 8, 9, 100, 1000 };
+
+        for (int size : sizes) {
+            List<ResultStep> steps = new ArrayList<ResultStep>();
+            double latestEnd = 0.0;
+
+            for (int i = 0; i < size; i++) {
+                ResultStep s = step(random.nextInt(1000),
+                                    random.nextInt(5) == 0
+                                        ? random.nextInt(500)
+                                        : random.nextInt(20));
+
+                steps.add(s);
+                latestEnd = Math.max(latestEnd, s.startTime + s.duration);
+            }
+
+            PERTStepIndex index = new PERTStepIndex(steps);
+
+            assertEquals(size, index.size());
+            assertEquals(latestEnd, index.getEndTime(), 0.0);
+
+            List<ResultStep> sorted = new ArrayList<ResultStep>(steps);
+
+            Collections.sort(sorted, PERTStepIndex.START_ORDER);
+
+            for (int q = 0; q < 50; q++) {
+                double start = random.nextInt(1600) - 100;
+                double end = start + random.nextInt(200);
+
+                assertSameSteps(scan(sorted, start, end),
+                                index.getSteps(start, end));
+            }
+        }
+    }
+
+    public void testDependents()
+    {
+        ResultStep a = step(0.0, 10.0);
+        ResultStep b = step(10.0, 10.0);
+        ResultStep c = step(20.0, 10.0);
+
+        b.addDependency(a);
+        c.addDependency(a);
+        c.addDependency(b);
+        c.addDependency(null);
+
+        List<ResultStep> steps = new ArrayList<ResultStep>();
+
+        steps.add(c);
+        steps.add(b);
+        steps.add(a);
+
+        PERTStepIndex index = new PERTStepIndex(steps);
+
+        assertSameSteps(Arrays.asList(b, c), index.getDependents(a));
+        assertSameSteps(Collections.singletonList(c), index.getDependents(b));
+        assertTrue(index.getDependents(c).isEmpty());
+    }
+}
@@ -0,0 +1,356 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks CSVReader's tokenizing against the Excel quoting rules, its
+ * streaming of lines however they end and however the source delivers
+ * them, and Cell.toDouble against Double.parseDouble.
+ */
+public class CSVReaderTest extends TestCase
+{
+    /**
+     * Delivers at most a few characters per read, so that lines and line
+     * endings are split across buffer fills.
+     */
+    protected static class TrickleReader extends FilterReader
+    {
+        protected int chunk;
+
+        public TrickleReader(Reader in, int chunkSize)
+        {
+            super(in);
+
+            chunk = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length)
+            throws IOException
+        {
+            return super.read(buffer, offset, Math.min(length, chunk));
+        }
+    }
+
+    protected static String[] cells(String row)
+    {
+        CSVReader reader = new CSVReader(',');
+
+        reader.tokenize(row);
+
+        return reader.getCells();
+    }
+
+    protected static List<List<String>> readAll(Reader source)
+        throws IOException
+    {
+        CSVReader reader = new CSVReader(source, ',');
+        List<List<String>> rows = new ArrayList<List<String>>();
+
+        while (reader.nextRow()) {
+            rows.add(Arrays.asList(reader.getCells()));
+            assertEquals(rows.size(), reader.getLineNumber());
+        }
+
+        return rows;
+    }
+
+    protected static void assertCells(String[] expected, String row)
+    {
+        assertEquals(Arrays.asList(expected), Arrays.asList(cells(row)));
+    }
+
+    public void testEmptyInput() throws IOException
+    {
+        assertTrue(readAll(new StringReader("")).isEmpty());
+
+        // An empty row is a single empty cell, as with String.split
+        assertCells(new String[] { "" }, "");
+
+        CSVReader reader = new CSVReader(new StringReader(""));
+
+        assertFalse(reader.nextLine());
+        assertFalse(reader.nextRow());
+        assertEquals(0, reader.getLineNumber());
+    }
+
+    public void testUnquotedCells()
+    {
+        assertCells(new String[] { "a", "b c", "", "d" }, "a,b c,,d");
+        assertCells(new String[] { "", "" }, ",");
+        assertCells(new String[] { "x", "" }, "x,");
+    }
+
+    public void testQuotedCells()
+    {
+        assertCells(new String[] { "a,b", "c" }, "\"a,b\",c");
+        assertCells(new String[] { "", "x" }, "\"\",x");
+        assertCells(new String[] { " padded " }, "\" padded \"");
+    }
+
+    public void testEscapedQuotes()
+    {
+        assertCells(new String[] { "say \"hi\"" }, "\"say \"\"hi\"\"\"");
+        assertCells(new String[] { "\"" }, "\"\"\"\"");
+
+        // A quote inside an unquoted cell is kept as is
+        assertCells(new String[] { "5\" disk", "x" }, "5\" disk,x");
+
+        // Excel: text after a closing quote continues the cell unquoted
+        assertCells(new String[] { "abc", "d" }, "\"ab\"c,d");
+    }
+
+    public void testAgreesWithCSVSupport()
+    {
+        String[] rows = { "a,\"b,\"\"c\"\"\",d",
+                          "\"\"",
+                          ",,\"x\"y,",
+                          "plain" };
+
+        for (String row : rows) {
+            String quoted = CSVSupport.quoteCell(row);
+
+            assertEquals(row, CSVSupport.unquoteCell(quoted));
+            assertEquals(Arrays.asList(CSVSupport.getCells(row)),
+                         Arrays.asList(cells(row)));
+        }
+    }
+
+    public void testOtherSeparator()
+    {
+        CSVReader reader = new CSVReader(';');
+
+        reader.tokenize("a,b;\"c;d\"");
+
+        assertEquals(2, reader.getCellCount());
+        assertEquals("a,b", reader.getString(0));
+        assertEquals("c;d", reader.getString(1));
+    }
+
+    public void testLineEndings() throws IOException
+    {
+        List<List<String>> expected = new ArrayList<List<String>>();
+
+        expected.add(Arrays.asList("a", "1"));
+        expected.add(Arrays.asList("b", "2"));
+        expected.add(Arrays.asList(""));
+        expected.add(Arrays.asList("c", "3"));
+
+        String[] inputs = { "a,1\r\nb,2\r\n\r\nc,3\r\n",
+                            "a,1\nb,2\n\nc,3\n",
+                            "a,1\rb,2\r\rc,3\r",
+                            "a,1\r\nb,2\n\rc,3" };
+
+        for (String input : inputs) {
+            assertEquals(expected, readAll(new StringReader(input)));
+
+            // Every split of a \r\n across reads must still be one ending
+            for (int chunk = 1; chunk <= 4; chunk++) {
+                assertEquals(expected,
+                             readAll(new TrickleReader(new StringReader(input),
+                                                       chunk)));
+            }
+        }
+    }
+
+    public void testLongLine() throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+
+        for (int i = 0; i < 30000; i++) {
+            line.append(i).append(',');
+        }
+        line.append("end");
+
+        CSVReader reader =
+            new CSVReader(new StringReader(line + "\r\nnext\r\n"), ',');
+
+        assertTrue(reader.nextRow());
+        assertEquals(30001, reader.getCellCount());
+        assertEquals("29999", reader.getString(29999));
+        assertEquals("end", reader.getString(30000));
+        assertEquals(line.toString(), reader.getLine().toString());
+
+        assertTrue(reader.nextRow());
+        assertEquals("next", reader.getString(0));
+        assertFalse(reader.nextRow());
+    }
+
+    public void testCellViews()
+    {
+        CSVReader reader = new CSVReader(',');
+
+        reader.tokenize("  Mean ,x");
+
+        CSVReader.Cell cell = reader.getCell(0).trim();
+
+        assertEquals("Mean", cell.toString());
+        assertEquals(4, cell.length());
+        assertTrue(cell.contentEqualsIgnoreCase("MEAN"));
+        assertFalse(cell.contentEqualsIgnoreCase("Means"));
+        assertTrue(cell.contains('e'));
+        assertFalse(cell.contains('x'));
+        assertTrue(reader.getCell(1).toString().equals("x"));
+
+        try {
+            reader.getCell(2);
+            fail("cell past the end of the row");
+        }
+        catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    protected static double toDouble(String text)
+    {
+        CSVReader reader = new CSVReader(',');
+
+        reader.tokenize(text);
+
+        return reader.getCell(0).toDouble();
+    }
+
+    public void testToDouble()
+    {
+        String[] values = { "0", "7", "-7", "+7", "1.5", "-0.25", ".5",
+                            "3.", "0.1", "1234567.891", "0.000001",
+                            "9007199254740993", "12345678901234567890",
+                            "1e3", "-2.5E-3", "0.12345678901234567890123" };
+
+        for (String value : values) {
+            assertEquals(value,
+                         Double.parseDouble(value),
+                         toDouble(value),
+                         0.0);
+        }
+
+        Random random = new Random(47);
+
+        for (int i = 0; i < 1000; i++) {
+            String value =
+                Long.toString(random.nextInt(1000000)) + "."
+                    + Long.toString(random.nextInt(1000000) + 1000000)
+                          .substring(1);
+
+            assertEquals(value,
+                         Double.parseDouble(value),
+                         toDouble(value),
+                         0.0);
+        }
+    }
+
+    public void testToDoubleRejectsNonNumbers()
+    {
+        String[] values = { "", "-", ".", "abc", "1.2.3" };
+
+        for (String value : values) {
+            try {
+                toDouble(value);
+                fail("parsed " + value);
+            }
+            catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that NamedObjectUtil.NameIndex agrees with a linear scan of its
+ * collection as members are added, removed and renamed.
+ */
+public class NameIndexTest extends TestCase
+{
+    protected static class Named implements NamedObject
+    {
+        protected String name;
+
+        public Named(String n)
+        {
+            name = n;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String n)
+        {
+            name = n;
+        }
+    }
+
+    protected List<Named> members;
+    protected NamedObjectUtil.NameIndex<Named> names;
+
+    @Override
+    protected void setUp()
+    {
+        members = new ArrayList<Named>();
+        names = new NamedObjectUtil.NameIndex<Named>(members);
+    }
+
+    protected Named add(String name)
+    {
+        Named obj = new Named(name);
+
+        members.add(obj);
+        names.added(obj);
+
+        return obj;
+    }
+
+    protected void rename(Named obj, String name)
+    {
+        obj.setName(name);
+        names.renamed(obj);
+    }
+
+    protected void remove(Named obj)
+    {
+        members.remove(obj);
+        names.removed(obj);
+    }
+
+    /**
+     * Every name looked up must match the first member of that name
+     */
+    protected void assertAgrees(String... lookups)
+    {
+        for (String name : lookups) {
+            Named expected = null;
+
+            for (Named obj : members) {
+                if (obj.getName().equals(name)) {
+                    expected = obj;
+                    break;
+                }
+            }
+
+            assertSame(name, expected, names.get(name));
+        }
+    }
+
+    public void testEmpty()
+    {
+        assertNull(names.get("a"));
+        assertNull(names.get(""));
+    }
+
+    public void testAddedBeforeFirstLookup()
+    {
+        add("a");
+        add("b");
+
+        assertAgrees("a", "b", "c");
+    }
+
+    public void testAddedAfterFirstLookup()
+    {
+        assertNull(names.get("a"));
+
+        Named a = add("a");
+
+        assertSame(a, names.get("a"));
+    }
+
+    public void testRemoved()
+    {
+        Named a = add("a");
+        add("b");
+        assertAgrees("a", "b");
+
+        remove(a);
+
+        assertAgrees("a", "b");
+    }
+
+    public void testRenamed()
+    {
+        Named a = add("a");
+        add("b");
+        assertAgrees("a", "b");
+
+        rename(a, "c");
+
+        assertAgrees("a", "b", "c");
+
+        rename(a, "a");
+
+        assertAgrees("a", "b", "c");
+    }
+
+    public void testRenamedOntoExistingName()
+    {
+        Named a = add("a");
+        Named b = add("b");
+        assertAgrees("a", "b");
+
+        // Collides with a, which comes first
+        rename(b, "a");
+        assertAgrees("a", "b");
+
+        // The collision is resolved; b is now the only "b"
+        rename(a, "b");
+        assertAgrees("a", "b");
+        assertSame(a, names.get("b"));
+    }
+
+    public void testDuplicatesFindFirst()
+    {
+        Named first = add("x");
+        Named second = add("x");
+        assertSame(first, names.get("x"));
+
+        remove(first);
+
+        assertSame(second, names.get("x"));
+    }
+
+    public void testRenameOfNonMemberIgnored()
+    {
+        add("a");
+        assertAgrees("a");
+
+        Named stranger = new Named("a");
+        stranger.setName("z");
+        names.renamed(stranger);
+
+        assertAgrees("a", "z");
+    }
+
+    public void testInvalidate()
+    {
+        add("a");
+        assertAgrees("a");
+
+        // A wholesale change the index is not told about
+        members.clear();
+        members.add(new Named("q"));
+        names.invalidate();
+
+        assertAgrees("a", "q");
+    }
+
+    public void testManyRenames()
+    {
+        for (int i = 0; i < 1000; i++) {
+            add("n" + i);
+        }
+
+        assertAgrees("n0", "n999");
+
+        for (int i = 0; i < 1000; i++) {
+            rename(members.get(i), "m" + i);
+        }
+
+        assertAgrees("n0", "n500", "m0", "m500", "m999");
+    }
+}
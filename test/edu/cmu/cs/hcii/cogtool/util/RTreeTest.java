@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks RTree's queries against a linear scan of the same rectangles,
+ * and its structure after the inserts and removals that split and
+ * condense nodes.
+ */
+public class RTreeTest extends TestCase
+{
+    protected RTree<Integer> tree;
+
+    // The rectangle of each item in the tree, as { x, y, width, height }
+    protected Map<Integer, double[]> rects;
+
+    @Override
+    protected void setUp()
+    {
+        tree = new RTree<Integer>();
+        rects = new HashMap<Integer, double[]>();
+    }
+
+    protected void insert(int item, double x, double y, double w, double h)
+    {
+        tree.insert(Integer.valueOf(item), x, y, w, h);
+        rects.put(Integer.valueOf(item), new double[] { x, y, w, h });
+    }
+
+    protected void remove(int item)
+    {
+        assertEquals(rects.remove(Integer.valueOf(item)) != null,
+                     tree.remove(Integer.valueOf(item)));
+    }
+
+    protected Set<Integer> search(double x, double y, double w, double h)
+    {
+        Set<Integer> found = new HashSet<Integer>();
+
+        tree.search(x, y, w, h, found);
+
+        return found;
+    }
+
+    protected Set<Integer> scan(double x, double y, double w, double h)
+    {
+        double x1 = Math.min(x, x + w);
+        double y1 = Math.min(y, y + h);
+        double x2 = Math.max(x, x + w);
+        double y2 = Math.max(y, y + h);
+        Set<Integer> found = new HashSet<Integer>();
+
+        for (Map.Entry<Integer, double[]> e : rects.entrySet()) {
+            double[] r = e.getValue();
+
+            if ((x1 <= Math.max(r[0], r[0] + r[2])) &&
+                (y1 <= Math.max(r[1], r[1] + r[3])) &&
+                (x2 >= Math.min(r[0], r[0] + r[2])) &&
+                (y2 >= Math.min(r[1], r[1] + r[3])))
+            {
+                found.add(e.getKey());
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Checks that every leaf is at the same depth, that each node's
+     * bounds are the union of its children's, that no node but the root
+     * has fewer than MIN_ENTRIES or more than MAX_ENTRIES children, and
+     * that the leaves hold exactly the items in the tree.
+     */
+    protected void checkStructure()
+    {
+        Set<Integer> items = new HashSet<Integer>();
+        int depth = checkNode(tree.root, null, items);
+
+        assertTrue(depth >= 1);
+        assertEquals(rects.keySet(), items);
+        assertEquals(rects.size(), tree.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected int checkNode(RTree.Node<Integer> node,
+                            RTree.Node<Integer> parent,
+                            Set<Integer> items)
+    {
+        assertSame(parent, node.parent);
+        assertTrue(node.children.size() <= RTree.MAX_ENTRIES);
+
+        if (node != tree.root) {
+            assertTrue(node.children.size() >= RTree.MIN_ENTRIES);
+        }
+
+        if (node.children.size() == 0) {
+            return 1;
+        }
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int depth = -1;
+
+        for (RTree.Bounds child : node.children) {
+            minX = Math.min(minX, child.minX);
+            minY = Math.min(minY, child.minY);
+            maxX = Math.max(maxX, child.maxX);
+            maxY = Math.max(maxY, child.maxY);
+
+            int childDepth;
+
+            if (node.isLeaf) {
+                RTree.Entry<Integer> entry = (RTree.Entry<Integer>) child;
+
+                assertSame(node, entry.leaf);
+                assertTrue(items.add(entry.item));
+                childDepth = 0;
+            }
+            else {
+                childDepth =
+                    checkNode((RTree.Node<Integer>) child, node, items);
+            }
+
+            if (depth == -1) {
+                depth = childDepth;
+            }
+            assertEquals(depth, childDepth);
+        }
+
+        assertEquals(minX, node.minX, 0.0);
+        assertEquals(minY, node.minY, 0.0);
+        assertEquals(maxX, node.maxX, 0.0);
+        assertEquals(maxY, node.maxY, 0.0);
+
+        return depth + 1;
+    }
+
+    public void testEmpty()
+    {
+        assertEquals(0, tree.size());
+        assertTrue(search(-1000, -1000, 2000, 2000).isEmpty());
+
+        Set<Integer> found = new HashSet<Integer>();
+
+        tree.search(0, 0, found);
+        assertTrue(found.isEmpty());
+        assertFalse(tree.remove(Integer.valueOf(1)));
+        checkStructure();
+    }
+
+    public void testEdgesAreInclusive()
+    {
+        insert(1, 10, 10, 20, 20);
+
+        Set<Integer> found = new HashSet<Integer>();
+
+        tree.search(10, 10, found);
+        tree.search(30, 30, found);
+        assertEquals(1, found.size());
+
+        found.clear();
+        tree.search(30.5, 30, found);
+        assertTrue(found.isEmpty());
+
+        // A degenerate query rectangle touching an edge
+        assertEquals(1, search(0, 30, 10, 0).size());
+    }
+
+    public void testNegativeSizes()
+    {
+        insert(1, 30, 30, -20, -20);
+
+        assertEquals(1, search(10, 10, 0, 0).size());
+        assertEquals(1, search(40, 40, -15, -15).size());
+        assertTrue(search(40, 40, -5, -5).isEmpty());
+    }
+
+    public void testReinsertReplacesBounds()
+    {
+        insert(1, 0, 0, 10, 10);
+        insert(1, 100, 100, 10, 10);
+
+        assertEquals(1, tree.size());
+        assertTrue(search(0, 0, 10, 10).isEmpty());
+        assertEquals(1, search(105, 105, 0, 0).size());
+        checkStructure();
+    }
+
+    public void testFirstSplit()
+    {
+        // One more entry than a node holds forces the root to split
+        for (int i = 0; i <= RTree.MAX_ENTRIES; i++) {
+            insert(i, i * 20, 0, 10, 10);
+            checkStructure();
+        }
+
+        assertFalse(tree.root.isLeaf);
+        assertEquals(2, tree.root.children.size());
+
+        for (int i = 0; i <= RTree.MAX_ENTRIES; i++) {
+            assertEquals(scan(i * 20 + 5, 5, 0, 0),
+                         search(i * 20 + 5, 5, 0, 0));
+        }
+    }
+
+    public void testIdenticalRectangles()
+    {
+        // Splits must still leave each group at least MIN_ENTRIES
+        for (int i = 0; i < 5 * RTree.MAX_ENTRIES; i++) {
+            insert(i, 0, 0, 10, 10);
+        }
+        checkStructure();
+        assertEquals(rects.keySet(), search(5, 5, 0, 0));
+
+        for (int i = 0; i < 5 * RTree.MAX_ENTRIES; i += 2) {
+            remove(i);
+        }
+        checkStructure();
+        assertEquals(rects.keySet(), search(5, 5, 0, 0));
+    }
+
+    public void testRemoveCondensesToEmpty()
+    {
+        for (int i = 0; i < 100; i++) {
+            insert(i, (i % 10) * 15, (i / 10) * 15, 10, 10);
+        }
+        checkStructure();
+        assertFalse(tree.root.isLeaf);
+
+        for (int i = 0; i < 100; i++) {
+            remove(i);
+            checkStructure();
+        }
+
+        assertTrue(tree.root.isLeaf);
+        assertEquals(0, tree.size());
+        assertTrue(search(0, 0, 1000, 1000).isEmpty());
+    }
+
+    public void testRandomAgainstScan()
+    {
+        Random random = new Random(41);
+        List<Integer> present = new ArrayList<Integer>();
+
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(10);
+
+            if ((action < 6) || present.isEmpty()) {
+                int item = random.nextInt(400);
+
+                insert(item,
+                       random.nextInt(1000),
+                       random.nextInt(1000),
+                       random.nextInt(100) - 20,
+                       random.nextInt(100) - 20);
+
+                if (! present.contains(Integer.valueOf(item))) {
+                    present.add(Integer.valueOf(item));
+                }
+            }
+            else {
+                remove(present.remove(random.nextInt(present.size())).intValue());
+            }
+
+            if (step % 50 == 0) {
+                checkStructure();
+            }
+
+            double x = random.nextInt(1100) - 50;
+            double y = random.nextInt(1100) - 50;
+            double w = random.nextInt(200);
+            double h = random.nextInt(200);
+
+            assertEquals(scan(x, y, w, h), search(x, y, w, h));
+            assertEquals(scan(x, y, 0, 0), search(x, y, 0, 0));
+        }
+
+        checkStructure();
+
+        tree.clear();
+        rects.clear();
+        checkStructure();
+    }
+}
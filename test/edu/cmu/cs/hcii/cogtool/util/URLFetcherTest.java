@@ -0,0 +1,392 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cmu.cs.hcii.cogtool.util.FetchURLUtil.AURLProcessor;
+
+/**
+ * Checks URLFetcher's per-host limit, its merging of duplicate requests in
+ * flight, and its retrying and cancelling, against an HTTP server on the
+ * loopback interface.  Each test uses its own fetcher.
+ */
+public class URLFetcherTest extends TestCase
+{
+    protected static final long TIMEOUT = 10; // s
+
+    /**
+     * Replies after the gate opens with the request's path, or with a 500
+     * error while failures remain; counts the requests it receives and
+     * how many it is serving at once.
+     */
+    protected static class TestHandler implements HttpHandler
+    {
+        public final AtomicInteger hits = new AtomicInteger();
+        public final AtomicInteger active = new AtomicInteger();
+        public final AtomicInteger maxActive = new AtomicInteger();
+        public final AtomicInteger failures = new AtomicInteger();
+        public final List<String> properties =
+            Collections.synchronizedList(new ArrayList<String>());
+
+        public volatile CountDownLatch gate = new CountDownLatch(0);
+
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            int now = active.incrementAndGet();
+
+            synchronized (maxActive) {
+                if (now > maxActive.get()) {
+                    maxActive.set(now);
+                }
+            }
+
+            hits.incrementAndGet();
+            properties.add(exchange.getRequestHeaders().getFirst("X-Test"));
+
+            try {
+                gate.await(TIMEOUT, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            boolean fail = failures.getAndDecrement() > 0;
+            byte[] body = exchange.getRequestURI().getPath().getBytes("UTF-8");
+
+            active.decrementAndGet();
+            exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+
+            OutputStream out = exchange.getResponseBody();
+
+            out.write(body);
+            out.close();
+        }
+    }
+
+    /**
+     * Succeeds when the content is the expected path
+     */
+    protected static class PathProcessor extends AURLProcessor
+    {
+        protected String url;
+        protected String path;
+
+        public PathProcessor(String baseURL,
+                             String expectedPath,
+                             List<String> useErrors,
+                             int useCount)
+        {
+            url = baseURL + expectedPath;
+            path = expectedPath;
+            reset(useErrors, useCount);
+        }
+
+        public String getURL()
+        {
+            return url;
+        }
+
+        public boolean process(BufferedReader rdr)
+        {
+            try {
+                return path.equals(rdr.readLine());
+            }
+            catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    protected HttpServer server;
+    protected ExecutorService serverThreads;
+    protected TestHandler handler;
+    protected String baseURL;
+    protected URLFetcher fetcher;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        handler = new TestHandler();
+        serverThreads = Executors.newCachedThreadPool();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        baseURL = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        fetcher = new URLFetcher();
+        fetcher.setTimeouts(5000, 5000);
+        fetcher.setBackoff(10, 20);
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        handler.gate.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    /**
+     * Waits for the handler to have received at least the given number of
+     * requests.
+     */
+    protected void awaitHits(int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + (TIMEOUT * 1000);
+
+        while (handler.hits.get() < count) {
+            assertTrue("server never received request " + count,
+                       System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    public void testLimitsRequestsPerHost() throws Exception
+    {
+        fetcher.setMaxRequestsPerHost(2);
+        handler.gate = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        for (int i = 0; i < 6; i++) {
+            results.add(fetcher.fetch(baseURL + "/limit/" + i, null));
+        }
+
+        awaitHits(2);
+
+        // Give a third request the chance to arrive if the limit leaks
+        Thread.sleep(300);
+        assertEquals(2, handler.hits.get());
+
+        handler.gate.countDown();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("/limit/" + i,
+                         results.get(i).get(TIMEOUT, TimeUnit.SECONDS));
+        }
+
+        assertEquals(6, handler.hits.get());
+        assertEquals(2, handler.maxActive.get());
+    }
+
+    public void testMergesDuplicateRequests() throws Exception
+    {
+        handler.gate = new CountDownLatch(1);
+
+        Future<String> first = fetcher.fetch(baseURL + "/same", null);
+
+        awaitHits(1);
+
+        Future<String> second = fetcher.fetch(baseURL + "/same", null);
+        Future<String> third = fetcher.fetch(baseURL + "/same", null);
+
+        // Different request properties make a different request
+        Map<String, String> properties = new HashMap<String, String>();
+
+        properties.put("X-Test", "other");
+
+        Future<String> other = fetcher.fetch(baseURL + "/same", properties);
+
+        awaitHits(2);
+        handler.gate.countDown();
+
+        assertEquals("/same", first.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("/same", second.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("/same", third.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("/same", other.get(TIMEOUT, TimeUnit.SECONDS));
+
+        assertEquals(2, handler.hits.get());
+        assertTrue(handler.properties.contains("other"));
+
+        // Once the fetch has finished, a new request fetches again
+        assertEquals("/same",
+                     fetcher.fetch(baseURL + "/same", null)
+                            .get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(3, handler.hits.get());
+    }
+
+    public void testRetriesUntilProcessed() throws Exception
+    {
+        List<String> errors =
+            Collections.synchronizedList(new ArrayList<String>());
+
+        handler.failures.set(2);
+
+        Future<Boolean> result =
+            fetcher.process(new PathProcessor(baseURL, "/retry", errors, 3));
+
+        assertEquals(Boolean.TRUE, result.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(3, handler.hits.get());
+        assertEquals(2, errors.size());
+    }
+
+    public void testGivesUpAfterRetryCount() throws Exception
+    {
+        List<String> errors =
+            Collections.synchronizedList(new ArrayList<String>());
+
+        handler.failures.set(Integer.MAX_VALUE);
+
+        Future<Boolean> result =
+            fetcher.process(new PathProcessor(baseURL, "/fail", errors, 2));
+
+        assertEquals(Boolean.FALSE, result.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, handler.hits.get());
+
+        // One error per attempt, then one for giving up
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(2).startsWith("Repeated attempts"));
+    }
+
+    public void testProcessorRejectionIsRetried() throws Exception
+    {
+        List<String> errors =
+            Collections.synchronizedList(new ArrayList<String>());
+
+        // The content is the path, which this processor never accepts
+        PathProcessor processor =
+            new PathProcessor(baseURL, "/reject", errors, 2) {
+                @Override
+                public boolean process(BufferedReader rdr)
+                {
+                    return false;
+                }
+            };
+
+        Future<Boolean> result = fetcher.process(processor);
+
+        assertEquals(Boolean.FALSE, result.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, handler.hits.get());
+    }
+
+    public void testCancelStopsRetries() throws Exception
+    {
+        // Long enough that the first retry cannot start before the cancel
+        fetcher.setBackoff(2000, 2000);
+        handler.failures.set(Integer.MAX_VALUE);
+
+        Future<Boolean> result =
+            fetcher.process(new PathProcessor(baseURL, "/cancel", null, 10));
+
+        awaitHits(1);
+        assertTrue(result.cancel(false));
+
+        Thread.sleep(2500);
+
+        assertTrue(result.isCancelled());
+        assertEquals(1, handler.hits.get());
+    }
+}
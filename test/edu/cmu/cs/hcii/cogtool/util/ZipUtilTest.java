@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * CogTool Copyright Notice and Distribution Terms
+ * CogTool 1.3, Copyright (c) 2005-2013 Carnegie Mellon University
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt). 
+ * 
+ * CogTool is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ * 
+ * CogTool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CogTool; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ * CogTool makes use of several third-party components, with the 
+ * following notices:
+ * 
+ * Eclipse SWT version 3.448
+ * Eclipse GEF Draw2D version 3.2.1
+ * 
+ * Unless otherwise indicated, all Content made available by the Eclipse 
+ * Foundation is provided to you under the terms and conditions of the Eclipse 
+ * Public License Version 1.0 ("EPL"). A copy of the EPL is provided with this 
+ * Content and is also available at http://www.eclipse.org/legal/epl-v10.html.
+ * 
+ * CLISP version 2.38
+ * 
+ * Copyright (c) Sam Steingold, Bruno Haible 2001-2006
+ * This software is distributed under the terms of the FSF Gnu Public License.
+ * See COPYRIGHT file in clisp installation folder for more information.
+ * 
+ * ACT-R 6.0
+ * 
+ * Copyright (c) 1998-2007 Dan Bothell, Mike Byrne, Christian Lebiere & 
+ *                         John R Anderson. 
+ * This software is distributed under the terms of the FSF Lesser
+ * Gnu Public License (see LGPL.txt).
+ * 
+ * Apache Jakarta Commons-Lang 2.1
+ * 
+ * This product contains software developed by the Apache Software Foundation
+ * (http://www.apache.org/)
+ * 
+ * jopt-simple version 1.0
+ * 
+ * Copyright (c) 2004-2013 Paul R. Holser, Jr.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ * 
+ * Mozilla XULRunner 1.9.0.5
+ * 
+ * The contents of this file are subject to the Mozilla Public License
+ * Version 1.1 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/.
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ * 
+ * The J2SE(TM) Java Runtime Environment version 5.0
+ * 
+ * Copyright 2009 Sun Microsystems, Inc., 4150
+ * Network Circle, Santa Clara, California 95054, U.S.A.  All
+ * rights reserved. U.S.  
+ * See the LICENSE file in the jre folder for more information.
+ ******************************************************************************/
+
+package edu.cmu.cs.hcii.cogtool.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import junit.framework.TestCase;
+
+/**
+ * Round-trips files of various sizes and kinds through ZipUtil's parallel
+ * block deflater and checks them against java.util.zip.
+ */
+public class ZipUtilTest extends TestCase
+{
+    protected static final int BLOCK_SIZE = 128 * 1024;
+
+    protected File dir;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        dir = File.createTempFile("ziputil", "");
+        dir.delete();
+        dir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        delete(dir);
+    }
+
+    protected static void delete(File f)
+    {
+        File[] children = f.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+
+        f.delete();
+    }
+
+    protected File write(String name, byte[] content) throws IOException
+    {
+        File f = new File(dir, name);
+        FileOutputStream out = new FileOutputStream(f);
+
+        try {
+            out.write(content);
+        }
+        finally {
+            out.close();
+        }
+
+        return f;
+    }
+
+    protected static byte[] read(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buff = new byte[8192];
+        int len;
+
+        try {
+            while ((len = in.read(buff)) != -1) {
+                bytes.write(buff, 0, len);
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compressible but not trivially so: words drawn at random
+     */
+    protected static byte[] text(int size, long seed)
+    {
+        String[] words = { "frame ", "widget ", "design ", "transition ",
+                           "script ", "demonstration ", "task ", "\n" };
+        Random random = new Random(seed);
+        byte[] content = new byte[size];
+        int i = 0;
+
+        while (i < size) {
+            byte[] word = words[random.nextInt(words.length)].getBytes();
+
+            for (int j = 0; (j < word.length) && (i < size); j++) {
+                content[i++] = word[j];
+            }
+        }
+
+        return content;
+    }
+
+    protected ZipFile zip(List<File> files, int level) throws IOException
+    {
+        File archive = new File(dir, "archive.zip");
+
+        ZipUtil.zip(files, archive, level);
+
+        return new ZipFile(archive);
+    }
+
+    protected void assertEntry(ZipFile zip, String name, byte[] expected)
+        throws IOException
+    {
+        ZipEntry entry = zip.getEntry(name);
+
+        assertNotNull(name, entry);
+        assertEquals(name, expected.length, entry.getSize());
+
+        CRC32 crc = new CRC32();
+        crc.update(expected);
+        assertEquals(name, crc.getValue(), entry.getCrc());
+
+        assertTrue(name, Arrays.equals(expected, read(zip.getInputStream(entry))));
+    }
+
+    protected void roundTrip(int level, int... sizes) throws IOException
+    {
+        List<File> files = new ArrayList<File>();
+        List<byte[]> contents = new ArrayList<byte[]>();
+
+        for (int i = 0; i < sizes.length; i++) {
+            byte[] content = text(sizes[i], i);
+
+            contents.add(content);
+            files.add(write("file" + i + ".txt", content));
+        }
+
+        ZipFile zip = zip(files, level);
+
+        try {
+            assertEquals(sizes.length, zip.size());
+
+            for (int i = 0; i < sizes.length; i++) {
+                assertEntry(zip, "file" + i + ".txt", contents.get(i));
+            }
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    public void testEmptyFile() throws IOException
+    {
+        roundTrip(ZipUtil.FAST_COMPRESSION, 0);
+    }
+
+    public void testSingleByte() throws IOException
+    {
+        roundTrip(ZipUtil.COMPACT_COMPRESSION, 1);
+    }
+
+    public void testBlockBoundaries() throws IOException
+    {
+        roundTrip(ZipUtil.FAST_COMPRESSION,
+                  BLOCK_SIZE - 1,
+                  BLOCK_SIZE,
+                  BLOCK_SIZE + 1,
+                  2 * BLOCK_SIZE);
+    }
+
+    public void testManyBlocks() throws IOException
+    {
+        roundTrip(ZipUtil.COMPACT_COMPRESSION, 10 * BLOCK_SIZE + 12345);
+    }
+
+    public void testNoCompression() throws IOException
+    {
+        roundTrip(0, BLOCK_SIZE + 7);
+    }
+
+    public void testCompressesAcrossBlocks() throws IOException
+    {
+        // Repeats of one block compress well only if each block is
+        // primed with the end of the previous one
+        byte[] block = text(BLOCK_SIZE, 42);
+        byte[] content = new byte[4 * BLOCK_SIZE];
+
+        for (int i = 0; i < 4; i++) {
+            System.arraycopy(block, 0, content, i * BLOCK_SIZE, BLOCK_SIZE);
+        }
+
+        File f = write("repeated.txt", content);
+        ZipFile zip = zip(Arrays.asList(f), ZipUtil.COMPACT_COMPRESSION);
+
+        try {
+            ZipEntry entry = zip.getEntry("repeated.txt");
+
+            assertEntry(zip, "repeated.txt", content);
+            assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+            assertTrue(entry.getCompressedSize() < BLOCK_SIZE / 2);
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    public void testStoresCompressedMedia() throws IOException
+    {
+        byte[] jpeg = new byte[5000];
+
+        new Random(7).nextBytes(jpeg);
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+
+        File f = write("image.jpg", jpeg);
+        ZipFile zip = zip(Arrays.asList(f), ZipUtil.COMPACT_COMPRESSION);
+
+        try {
+            assertEntry(zip, "image.jpg", jpeg);
+            assertEquals(ZipEntry.STORED, zip.getEntry("image.jpg").getMethod());
+        }
+        finally {
+            zip.close();
+        }
+    }
+
+    public void testDirectoryRoundTrip() throws IOException
+    {
+        File sub = new File(dir, "project");
+        sub.mkdirs();
+
+        byte[] xml = text(3 * BLOCK_SIZE, 3);
+        byte[] small = text(10, 4);
+
+        FileOutputStream out = new FileOutputStream(new File(sub, "project.xml"));
+        out.write(xml);
+        out.close();
+        out = new FileOutputStream(new File(sub, "small.txt"));
+        out.write(small);
+        out.close();
+
+        ZipFile zip = zip(Arrays.asList(sub), ZipUtil.FAST_COMPRESSION);
+        File unzipped = new File(dir, "unzipped");
+
+        try {
+            assertEntry(zip, "project/project.xml", xml);
+            assertEntry(zip, "project/small.txt", small);
+
+            ZipUtil.unzip(zip, unzipped);
+        }
+        finally {
+            zip.close();
+        }
+
+        assertTrue(Arrays.equals(xml,
+                                 read(new FileInputStream(new File(unzipped,
+                                                                   "project/project.xml")))));
+    }
+}